@@ -5,6 +5,10 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Getter
 @Setter
 @Component
@@ -15,5 +19,110 @@ public class AppProperties {
     private String apiDocsServer;
     private String userServiceId;
     private String fileServiceId;
+    /**
+     * Time given to all the remote checks of one request, see {@code RemoteChecks}.
+     */
+    private Duration remoteCheckTimeout = Duration.ofSeconds(5);
+    private UserCache userCache = new UserCache();
+    private SecondLevelCache secondLevelCache = new SecondLevelCache();
+    private ReadReplicas readReplicas = new ReadReplicas();
+    private QueryCount queryCount = new QueryCount();
+    private Sync sync = new Sync();
+
+    /**
+     * Cache of user existence checks made against the user service.
+     */
+    @Getter
+    @Setter
+    public static class UserCache {
+        /**
+         * How long an existing user is remembered.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        /**
+         * How long a missing user is remembered, kept short so newly registered users are seen quickly.
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+        private long maxSize = 10_000;
+    }
+
+    /**
+     * Hibernate second-level cache of the forms, fields, stages and users, see {@code SecondLevelCacheConfiguration}.
+     */
+    @Getter
+    @Setter
+    public static class SecondLevelCache {
+        /**
+         * How long an entry is kept. Each instance only evicts its own changes, so this bounds how long the changes
+         * made by the other instances are not seen.
+         */
+        private Duration ttl = Duration.ofMinutes(1);
+        /**
+         * Maximum number of entries of each region.
+         */
+        private long maxSize = 10_000;
+    }
+
+    /**
+     * Replicas serving the read-only transactions, see {@code ReadReplicaDataSource}.
+     */
+    @Getter
+    @Setter
+    public static class ReadReplicas {
+        /**
+         * JDBC URLs of the replicas, all transactions go to the primary when empty.
+         */
+        private List<String> urls = new ArrayList<>();
+        private String username;
+        private String password;
+        /**
+         * How long a replica is waited for before reading from the primary instead.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+        /**
+         * How far behind the primary a replica may be, as its {@code Seconds_Behind_Source}. When not set, the health
+         * check only makes sure the replica is reachable, otherwise the replica user needs the
+         * {@code REPLICATION CLIENT} privilege.
+         */
+        private Duration maxLag;
+        /**
+         * How long the reads of a client go to the primary after its last write, see {@code ReadYourWritesFilter}.
+         * Must be longer than the replication lag tolerated.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Statements counted per request, see {@code QueryCountFilter}.
+     */
+    @Getter
+    @Setter
+    public static class QueryCount {
+        /**
+         * Whether to send the count in the {@code X-Query-Count} response header, meant for the tests.
+         */
+        private boolean header = false;
+        /**
+         * Requests running more statements are logged as warnings.
+         */
+        private int warnThreshold = 50;
+    }
+
+    /**
+     * Delta sync of the offline collectors, see {@code SyncService}.
+     */
+    @Getter
+    @Setter
+    public static class Sync {
+        /**
+         * Changes are only synced once older than this, so the transactions logging changes with lower ids have
+         * committed: a change committed after a client got a higher id would never reach it.
+         */
+        private Duration settleTime = Duration.ofSeconds(1);
+        /**
+         * Changes returned by one sync at most, clients sync again while more are left.
+         */
+        private int maxChanges = 500;
+    }
 
 }
@@ -0,0 +1,39 @@
+package com.microservices.projectservice.config;
+
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import org.springframework.data.spel.spi.EvaluationContextExtension;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lets native repository queries bind string IDs to the {@code BINARY(16)} columns, which JPQL queries do through
+ * {@link BinaryUuidType}: {@code :#{binaryUuid(#id)}} for an ID, {@code :#{binaryUuids(#ids)}} for a list.
+ */
+@Component
+public class BinaryUuidQueryExtension implements EvaluationContextExtension {
+
+    @Override
+    public String getExtensionId() {
+        return "binaryUuid";
+    }
+
+    @Override
+    public Functions getRootObject() {
+        return new Functions();
+    }
+
+    public static class Functions {
+
+        public byte[] binaryUuid(String id) {
+            return BinaryUuidType.toBytes(id);
+        }
+
+        public List<byte[]> binaryUuids(Collection<String> ids) {
+            return ids.stream().map(BinaryUuidType::toBytes).toList();
+        }
+
+    }
+
+}
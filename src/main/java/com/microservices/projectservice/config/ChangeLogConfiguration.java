@@ -0,0 +1,24 @@
+package com.microservices.projectservice.config;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Registers the {@link ChangeLogRecorder} with Hibernate, so every change to the synced entities is logged.
+ */
+@Configuration
+public class ChangeLogConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer changeLogRecorderCustomizer() {
+        var recorder = new ChangeLogRecorder();
+        return hibernateProperties -> hibernateProperties.put(
+                JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(recorder));
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.microservices.projectservice.config;
+
+import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.entity.*;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.lang.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the projects, stages, forms, fields and samples created, updated or deleted by a transaction to
+ * {@link ChangeLog}, in one JDBC batch once the last flush is done, right before the commit.
+ * <p>
+ * Changes to answers and dynamic fields, and to the members of a project or a stage, count as changes of their
+ * sample, project or stage. A project or a stage being deleted counts as deleted: its content is purged later
+ * with bulk statements, which are not recorded, and clients drop it along with the project or stage. The same
+ * goes for the other bulk statements: they only update tables derived from the entities.
+ */
+public class ChangeLogRecorder implements Integrator, PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionUpdateEventListener {
+
+    private static final String INSERT = """
+            insert into change_log (project_id, entity_type, entity_id, deleted, changed_at)
+            values (?, ?, ?, ?, ?)""";
+
+    private final Map<EventSource, Changes> pendingChanges = new ConcurrentHashMap<>();
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        var listeners = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, this);
+        listeners.appendListeners(EventType.POST_UPDATE, this);
+        listeners.appendListeners(EventType.POST_DELETE, this);
+        listeners.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry registry) {
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), true);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        var owner = event.getAffectedOwnerOrNull();
+        if (owner != null) record(event.getSession(), owner, false);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Object entity, boolean deleted) {
+        var change = changeOf(entity, deleted);
+        if (change == null) return;
+        pendingChanges.computeIfAbsent(session, this::register).add(change);
+    }
+
+    /**
+     * @return the change to sync, {@code null} for the entities clients do not sync.
+     */
+    @Nullable
+    private static Change changeOf(Object entity, boolean deleted) {
+        return switch (entity) {
+            case Project project -> new Change(SyncEntityType.PROJECT, project.getId(), project.getId(), null,
+                    deleted || project.getStatus() == ProjectStatus.DELETING);
+            case Stage stage -> new Change(SyncEntityType.STAGE, stage.getId(), stage.getProjectOwner().getId(), null,
+                    deleted || Boolean.TRUE.equals(stage.getDeleting()));
+            case Form form -> new Change(SyncEntityType.FORM, form.getId(), form.getProjectOwner().getId(), null,
+                    deleted);
+            // the form may not be loaded, its project is read with the others before writing
+            case Field field -> new Change(SyncEntityType.FIELD, field.getId(), null, field.getForm().getId(),
+                    deleted);
+            case Sample sample -> new Change(SyncEntityType.SAMPLE, sample.getId(),
+                    sample.getProjectOwner().getId(), null, deleted);
+            // the sample may not be loaded either, nor exist anymore when deleted in the same transaction
+            case Answer answer -> new Change(SyncEntityType.SAMPLE, answer.getSample().getId(), null, null, false);
+            case DynamicField dynamicField ->
+                    new Change(SyncEntityType.SAMPLE, dynamicField.getSample().getId(), null, null, false);
+            default -> null;
+        };
+    }
+
+    private Changes register(EventSource session) {
+        var changes = new Changes();
+        var actions = session.getActionQueue();
+        actions.registerProcess((BeforeTransactionCompletionProcess) completing -> {
+            pendingChanges.remove(session);
+            write(completing, changes);
+        });
+        // when rolled back
+        actions.registerProcess((AfterTransactionCompletionProcess) (success, completed) ->
+                pendingChanges.remove(session));
+        return changes;
+    }
+
+    private static void write(SessionImplementor session, Changes changes) {
+        session.doWork(connection -> {
+            var formProjectIds = findProjectIds(connection, "form", changes.formIds());
+            var sampleProjectIds = findProjectIds(connection, "sample", changes.unresolvedSampleIds());
+            var changedAt = Timestamp.from(Instant.now());
+            try (var statement = connection.prepareStatement(INSERT)) {
+                for (var change : changes.byEntity.values()) {
+                    var projectId = change.projectId();
+                    if (projectId == null && change.formId() != null) projectId = formProjectIds.get(change.formId());
+                    if (projectId == null) projectId = sampleProjectIds.get(change.entityId());
+                    // deleted along with its form or sample
+                    if (projectId == null) continue;
+
+                    statement.setBytes(1, BinaryUuidType.toBytes(projectId));
+                    statement.setInt(2, change.type().ordinal());
+                    statement.setBytes(3, BinaryUuidType.toBytes(change.entityId()));
+                    statement.setBoolean(4, change.deleted());
+                    statement.setTimestamp(5, changedAt);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private static Map<String, String> findProjectIds(Connection connection, String table, Set<String> ids)
+            throws SQLException {
+        if (ids.isEmpty()) return Collections.emptyMap();
+        var placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+        try (var statement = connection.prepareStatement(
+                "select id, fk_project_id from " + table + " where id in (" + placeholders + ")")) {
+            int index = 1;
+            for (var id : ids) statement.setBytes(index++, BinaryUuidType.toBytes(id));
+            var projectIds = new HashMap<String, String>();
+            try (var rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    projectIds.put(
+                            BinaryUuidType.fromBytes(rows.getBytes(1)), BinaryUuidType.fromBytes(rows.getBytes(2)));
+                }
+            }
+            return projectIds;
+        }
+    }
+
+    /**
+     * @param projectId {@code null} until read from the form or the sample.
+     * @param formId    form of a field.
+     */
+    private record Change(SyncEntityType type, String entityId, @Nullable String projectId, @Nullable String formId,
+                          boolean deleted) {
+    }
+
+    /**
+     * The last change of each entity in the transaction, in the order of their last change.
+     */
+    private static final class Changes {
+        private final Map<String, Change> byEntity = new LinkedHashMap<>();
+
+        private void add(Change change) {
+            var key = change.type() + ":" + change.entityId();
+            var previous = byEntity.remove(key);
+            // a sample updated through its answers keeps the project it was created or updated with
+            if (previous != null && change.projectId() == null && change.formId() == null && !change.deleted())
+                change = previous.deleted() ? previous : new Change(change.type(), change.entityId(),
+                        previous.projectId(), previous.formId(), false);
+            byEntity.put(key, change);
+        }
+
+        private Set<String> formIds() {
+            return byEntity.values().stream()
+                    .map(Change::formId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+        }
+
+        private Set<String> unresolvedSampleIds() {
+            return byEntity.values().stream()
+                    .filter(change -> change.projectId() == null && change.formId() == null)
+                    .map(Change::entityId)
+                    .collect(Collectors.toSet());
+        }
+    }
+
+}
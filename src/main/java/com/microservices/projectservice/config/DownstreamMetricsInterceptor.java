@@ -0,0 +1,68 @@
+package com.microservices.projectservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Times the requests sent to another service as {@code downstream.requests}, and counts the failed ones as
+ * {@code downstream.errors}: responses with an error status, tagged with it, and requests without a response,
+ * tagged with the exception. Both are tagged with the service and the instance answering.
+ * <p>
+ * Must come after the load balancer interceptor, which replaces the service ID of the request URI with an instance.
+ */
+public class DownstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final String service;
+
+    public DownstreamMetricsInterceptor(MeterRegistry meterRegistry, String service) {
+        this.meterRegistry = meterRegistry;
+        this.service = service;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        var instance = request.getURI().getAuthority();
+        var sample = Timer.start(meterRegistry);
+        var outcome = "SUCCESS";
+        try {
+            var response = execution.execute(request, body);
+            var status = response.getStatusCode();
+            if (status.isError()) {
+                outcome = status.is4xxClientError() ? "CLIENT_ERROR" : "SERVER_ERROR";
+                countError(instance, String.valueOf(status.value()));
+            }
+            return response;
+        } catch (IOException | RuntimeException exception) {
+            outcome = "UNKNOWN";
+            countError(instance, exception.getClass().getSimpleName());
+            throw exception;
+        } finally {
+            sample.stop(Timer.builder("downstream.requests")
+                    .tag("service", service)
+                    .tag("instance", instance)
+                    .tag("method", request.getMethod().name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void countError(String instance, String error) {
+        Counter.builder("downstream.errors")
+                .tag("service", service)
+                .tag("instance", instance)
+                .tag("error", error)
+                .register(meterRegistry)
+                .increment();
+    }
+
+}
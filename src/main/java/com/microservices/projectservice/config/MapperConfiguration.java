@@ -32,4 +32,9 @@ public class MapperConfiguration {
         return new StageMapper();
     }
 
+    @Bean
+    public PurgeJobMapper purgeJobMapper() {
+        return new PurgeJobMapper();
+    }
+
 }
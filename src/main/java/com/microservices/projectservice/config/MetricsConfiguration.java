@@ -0,0 +1,44 @@
+package com.microservices.projectservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Times the methods of the classes annotated with {@link io.micrometer.core.annotation.Timed}: every public method
+ * of the services, as {@code service.invocations}, and of {@code MembershipRepository}, as
+ * {@code repository.invocations}. Only calls made through the Spring proxy are timed, not the ones a class makes
+ * to itself.
+ * <p>
+ * The other metrics come from Spring Boot: {@code http.server.requests} for the endpoints,
+ * {@code spring.data.repository.invocations} for the JPA repositories, {@code hikaricp.*} and {@code tomcat.*} for
+ * the pools; the calls to the other services are timed by {@link DownstreamMetricsInterceptor}, and the statements
+ * run by each request are counted by {@link QueryCountFilter}.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Wraps the data source last, around the replicas if any, see {@link ReadReplicaConfiguration}.
+     */
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof QueryCountingDataSource) return bean;
+                return new QueryCountingDataSource(dataSource);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.microservices.projectservice.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Counts the SQL statements run by each request, see {@link QueryCounter}. The count is published as the
+ * {@code http.server.requests.queries} summary, tagged with the method and the URI pattern, and logged: at debug
+ * level, or as a warning above {@code app.query-count.warn-threshold}.
+ * <p>
+ * With {@code app.query-count.header} set, the count so far is also sent in {@value #QUERY_COUNT_HEADER} when the
+ * response is committed, which is what the tests check their query budgets against.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    private final AppProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var queryCount = properties.getQueryCount();
+        var counter = QueryCounter.start();
+        var countedResponse = queryCount.isHeader() ? new QueryCountHeaderResponse(response, counter) : response;
+        try {
+            chain.doFilter(request, countedResponse);
+        } finally {
+            if (countedResponse instanceof QueryCountHeaderResponse headerResponse) headerResponse.addHeader();
+            var queries = QueryCounter.stop();
+            var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            var uriTag = uri == null ? "UNKNOWN" : uri.toString();
+            DistributionSummary.builder("http.server.requests.queries")
+                    .baseUnit("queries")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uriTag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(queries);
+            if (queries > queryCount.getWarnThreshold()) {
+                log.warn("{} {} ran {} queries", request.getMethod(), uriTag, queries);
+            } else {
+                log.debug("{} {} ran {} queries", request.getMethod(), uriTag, queries);
+            }
+        }
+    }
+
+    /**
+     * Adds the header right before the status and headers are sent, no query can be counted later anyway.
+     */
+    private static final class QueryCountHeaderResponse extends HttpServletResponseWrapper {
+
+        private final QueryCounter counter;
+        private boolean headerAdded;
+
+        private QueryCountHeaderResponse(HttpServletResponse response, QueryCounter counter) {
+            super(response);
+            this.counter = counter;
+        }
+
+        private void addHeader() {
+            if (headerAdded || isCommitted()) return;
+            headerAdded = true;
+            setHeader(QUERY_COUNT_HEADER, String.valueOf(counter.get()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            addHeader();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            addHeader();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addHeader();
+            super.sendRedirect(location);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.microservices.projectservice.config;
+
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements sent while a request is handled, see {@link QueryCountFilter} and
+ * {@link QueryCountingDataSource}. The counter is bound to the thread of the request only: threads the request
+ * starts, such as the ones of {@code RemoteChecks}, count towards it once they are given the counter, see
+ * {@link #bind}.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private QueryCounter() {
+    }
+
+    static QueryCounter start() {
+        var counter = new QueryCounter();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    /**
+     * @return the counter of the request handled by the current thread, {@code null} outside of a request.
+     */
+    @Nullable
+    public static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Counts the statements of the current thread towards the given counter, or stops counting them.
+     */
+    public static void bind(@Nullable QueryCounter counter) {
+        if (counter == null) CURRENT.remove();
+        else CURRENT.set(counter);
+    }
+
+    static int stop() {
+        var counter = CURRENT.get();
+        CURRENT.remove();
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * @return the statements counted so far.
+     */
+    public int get() {
+        return count.get();
+    }
+
+    static void increment() {
+        var counter = CURRENT.get();
+        if (counter != null) counter.count.incrementAndGet();
+    }
+
+}
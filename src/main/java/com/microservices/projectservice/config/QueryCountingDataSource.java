@@ -0,0 +1,86 @@
+package com.microservices.projectservice.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Counts the statements sent through its connections towards the {@link QueryCounter} of the current thread,
+ * whoever sends them: Hibernate, a {@code JdbcTemplate} or the change log. A prepared statement counts once when it
+ * is prepared, however many times it is run, as a JDBC batch does; a plain statement counts each time it runs.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final Set<String> PREPARING_METHODS = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTING_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    /**
+     * Closes the pools of the target, as the bean replaces it.
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable target) target.close();
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, result) -> {
+            if (PREPARING_METHODS.contains(method.getName())) QueryCounter.increment();
+            if (method.getName().equals("createStatement"))
+                return proxy(Statement.class, (Statement) result, (statementMethod, statementResult) -> {
+                    if (EXECUTING_METHODS.contains(statementMethod.getName())) QueryCounter.increment();
+                    return statementResult;
+                });
+            return result;
+        });
+    }
+
+    /**
+     * Proxies the target, the callback sees each successful call and may replace its result.
+     */
+    private static <T> T proxy(Class<T> type, T target, Callback callback) {
+        InvocationHandler handler = (proxy, method, arguments) -> {
+            if (method.getName().equals("equals")) return proxy == arguments[0];
+            if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+            if (method.getName().equals("unwrap") && arguments[0] instanceof Class<?> iface && iface.isInstance(proxy))
+                return proxy;
+            if (method.getName().equals("isWrapperFor") && arguments[0] instanceof Class<?> iface
+                && iface.isInstance(proxy))
+                return true;
+            try {
+                return callback.afterCall(method, method.invoke(target, arguments));
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @FunctionalInterface
+    private interface Callback {
+        Object afterCall(Method method, Object result);
+    }
+
+}
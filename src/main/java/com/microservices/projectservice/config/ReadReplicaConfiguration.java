@@ -0,0 +1,83 @@
+package com.microservices.projectservice.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Wraps the data source built by Spring Boot, the primary, in a {@link ReadReplicaDataSource} when
+ * {@code app.read-replicas.urls} are set, and checks the replicas every
+ * {@code app.read-replicas.health-check-interval}.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ReadReplicaConfiguration {
+
+    private final ObjectProvider<DataSource> dataSource;
+
+    /**
+     * Ordered, so it runs before the post-processors without an order, such as the one counting the statements of
+     * the data source, which must see the connections to the replicas too.
+     */
+    @Bean
+    public static BeanPostProcessor readReplicaDataSourcePostProcessor(ObjectProvider<AppProperties> properties) {
+        return new ReadReplicaDataSourcePostProcessor(properties);
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics() {
+        return meterRegistry -> {
+            var replicas = readReplicaDataSource();
+            if (replicas != null) replicas.bindMetrics(meterRegistry);
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        var replicas = readReplicaDataSource();
+        if (replicas != null) replicas.checkReplicas();
+    }
+
+    /**
+     * @return the data source routing to the replicas, found under the one counting the statements, {@code null}
+     * without replicas.
+     */
+    @Nullable
+    private ReadReplicaDataSource readReplicaDataSource() {
+        var bean = dataSource.getIfAvailable();
+        try {
+            return bean != null && bean.isWrapperFor(ReadReplicaDataSource.class)
+                    ? bean.unwrap(ReadReplicaDataSource.class)
+                    : null;
+        } catch (SQLException exception) {
+            return null;
+        }
+    }
+
+    private record ReadReplicaDataSourcePostProcessor(ObjectProvider<AppProperties> properties)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof ReadReplicaDataSource) return bean;
+            var replicas = properties.getObject().getReadReplicas();
+            if (replicas.getUrls().isEmpty()) return bean;
+            return new ReadReplicaDataSource(primary, replicas);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.microservices.projectservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the read-only transactions to the healthy replicas, in turn, and everything else to the primary.
+ * <p>
+ * Connections are fetched lazily, on the first statement, once the transaction is known to be read-only. Reads
+ * still go to the primary when the current thread requires it, see {@link #setPrimaryRequired}, when no replica is
+ * healthy, or when the chosen replica refuses the connection; it is then left out until the next health check finds
+ * it back, see {@link #checkReplicas()}.
+ */
+@Slf4j
+public class ReadReplicaDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private final Router router;
+
+    public ReadReplicaDataSource(DataSource primary, AppProperties.ReadReplicas properties) {
+        this(new Router(primary, properties));
+    }
+
+    private ReadReplicaDataSource(Router router) {
+        super(router);
+        this.router = router;
+    }
+
+    /**
+     * Sends the read-only transactions of the current thread to the primary too, or back to the replicas.
+     */
+    public static void setPrimaryRequired(boolean primaryRequired) {
+        if (primaryRequired) PRIMARY_REQUIRED.set(true);
+        else PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * @return whether the read-only transactions of the current thread go to the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+    /**
+     * Marks each replica healthy when it accepts a connection in time and, with {@code max-lag} set, replicates the
+     * primary without being further behind.
+     */
+    public void checkReplicas() {
+        router.replicas.forEach(router::check);
+    }
+
+    /**
+     * @return the names of the replicas currently receiving reads.
+     */
+    public List<String> getHealthyReplicas() {
+        return router.replicas.stream().filter(replica -> replica.healthy).map(replica -> replica.name).toList();
+    }
+
+    /**
+     * Publishes the {@code hikaricp.*} metrics of the replica pools, and {@code db.replica.healthy}: 1 while a
+     * replica receives reads, 0 otherwise.
+     */
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        for (var replica : router.replicas) {
+            replica.dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            Gauge.builder("db.replica.healthy", replica, checked -> checked.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void close() {
+        router.replicas.forEach(replica -> replica.dataSource.close());
+        if (router.primary instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception exception) {
+                log.warn("Cannot close the primary data source", exception);
+            }
+        }
+    }
+
+    private static final class Router extends AbstractDataSource {
+
+        private final DataSource primary;
+        private final List<Replica> replicas = new ArrayList<>();
+        private final Duration maxLag;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Router(DataSource primary, AppProperties.ReadReplicas properties) {
+            this.primary = primary;
+            this.maxLag = properties.getMaxLag();
+            var urls = properties.getUrls();
+            for (int i = 0; i < urls.size(); i++) {
+                var dataSource = new HikariDataSource();
+                dataSource.setPoolName("replica-" + i);
+                dataSource.setJdbcUrl(urls.get(i));
+                dataSource.setUsername(properties.getUsername());
+                dataSource.setPassword(properties.getPassword());
+                dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+                replicas.add(new Replica(dataSource.getPoolName(), dataSource));
+            }
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_REQUIRED.get()) {
+                return primary.getConnection();
+            }
+            var replica = nextHealthyReplica();
+            if (replica == null) return primary.getConnection();
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException exception) {
+                replica.healthy = false;
+                log.warn("Replica {} is down, reading from the primary until it is back", replica.name, exception);
+                return primary.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+
+        /**
+         * Lets the pool metrics and health indicators reach the primary pool.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+
+        private Replica nextHealthyReplica() {
+            var healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+            if (healthy.isEmpty()) return null;
+            return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+        }
+
+        private void check(Replica replica) {
+            boolean healthy;
+            try {
+                healthy = isHealthy(replica);
+            } catch (SQLException exception) {
+                log.debug("Health check of replica {} failed", replica.name, exception);
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                if (healthy) log.info("Replica {} is up, reading from it", replica.name);
+                else log.warn("Replica {} is down or lagging, reading from the primary until it is back", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+
+        private boolean isHealthy(Replica replica) throws SQLException {
+            try (var connection = replica.dataSource.getConnection()) {
+                if (maxLag == null) return connection.isValid((int) replica.dataSource.getValidationTimeout() / 1000);
+                try (var statement = connection.createStatement();
+                     var status = statement.executeQuery("show replica status")) {
+                    // no row: the server does not replicate anything
+                    if (!status.next()) return false;
+                    var lag = status.getLong("Seconds_Behind_Source");
+                    // null: the replication is stopped
+                    return !status.wasNull() && lag <= maxLag.toSeconds();
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        /**
+         * False until the first health check, so nothing is read from a replica never checked.
+         */
+        private volatile boolean healthy;
+
+        private Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+}
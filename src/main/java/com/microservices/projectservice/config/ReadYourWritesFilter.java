@@ -0,0 +1,55 @@
+package com.microservices.projectservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Keeps the reads of a client on the primary for {@code app.read-replicas.read-your-writes-window} after its last
+ * write, so it sees its changes before they reach the replicas.
+ * <p>
+ * Every write request runs on the primary and answers with the time of the write in {@value #LAST_WRITE_HEADER}.
+ * Clients send the last value they got back with their next requests: the check needs no state on the server, so
+ * it holds whichever instance of the service the next request reaches.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final AppProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var now = System.currentTimeMillis();
+        var write = !READ_METHODS.contains(request.getMethod());
+        if (write) response.setHeader(LAST_WRITE_HEADER, String.valueOf(now));
+        ReadReplicaDataSource.setPrimaryRequired(write || wroteRecently(request.getHeader(LAST_WRITE_HEADER), now));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadReplicaDataSource.setPrimaryRequired(false);
+        }
+    }
+
+    private boolean wroteRecently(String lastWrite, long now) {
+        if (lastWrite == null) return false;
+        try {
+            return now - Long.parseLong(lastWrite) < properties.getReadReplicas().getReadYourWritesWindow().toMillis();
+        } catch (NumberFormatException exception) {
+            return false;
+        }
+    }
+
+}
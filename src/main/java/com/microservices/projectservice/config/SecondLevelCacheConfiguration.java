@@ -0,0 +1,64 @@
+package com.microservices.projectservice.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache of the forms, fields and stages, read on nearly every sample write and rarely
+ * changed, and of the users listed as stage members. Regions are bounded local Caffeine caches, their gets, hits and
+ * misses are published as the {@code cache.gets} metric tagged with the region.
+ * <p>
+ * Every region is created here: Hibernate refuses to start with an entity or a collection cached in another one.
+ * Changes made through JDBC must evict the cached entries themselves, see {@code MembershipRepository}.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+    static final List<String> REGIONS = List.of(
+            "form", "form.fields", "form.usageStages", "field", "stage", "stage.members", "user");
+
+    /**
+     * Cache manager of the application context only, so test contexts running side by side never share entries.
+     */
+    @Bean
+    public CacheManager secondLevelCacheManager(AppProperties properties, MeterRegistry meterRegistry) {
+        var cacheProperties = properties.getSecondLevelCache();
+        var cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager(
+                URI.create("second-level-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (var region : REGIONS) {
+            var configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(cacheProperties.getMaxSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(cacheProperties.getTtl().toNanos()));
+            configuration.setStatisticsEnabled(true);
+            JCacheMetrics.monitor(meterRegistry, cacheManager.createCache(region, configuration));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // a stage added to or removed from a form also evicts the cached usage stages of the form
+            hibernateProperties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+        };
+    }
+
+}
@@ -0,0 +1,5 @@
+package com.microservices.projectservice.constant;
+
+public enum ProjectRole {
+    OWNER, MEMBER
+}
@@ -2,5 +2,6 @@ package com.microservices.projectservice.constant;
 
 public enum ProjectStatus {
     NORMAL,
-    ARCHIVED
+    ARCHIVED,
+    DELETING
 }
@@ -0,0 +1,8 @@
+package com.microservices.projectservice.constant;
+
+public enum PurgeJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.microservices.projectservice.constant;
+
+public enum PurgeTarget {
+    PROJECT,
+    STAGE
+}
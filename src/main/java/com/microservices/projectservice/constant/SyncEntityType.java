@@ -0,0 +1,9 @@
+package com.microservices.projectservice.constant;
+
+public enum SyncEntityType {
+    PROJECT,
+    STAGE,
+    FORM,
+    FIELD,
+    SAMPLE
+}
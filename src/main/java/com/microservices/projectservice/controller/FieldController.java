@@ -3,10 +3,14 @@ package com.microservices.projectservice.controller;
 import com.microservices.projectservice.dto.request.DynamicFieldCreateRequest;
 import com.microservices.projectservice.dto.request.DynamicFieldUpdateRequest;
 import com.microservices.projectservice.dto.request.FieldCreateRequest;
+import com.microservices.projectservice.dto.request.EntityTags;
 import com.microservices.projectservice.dto.request.FieldUpdateRequest;
 import com.microservices.projectservice.dto.response.FieldResponse;
 import com.microservices.projectservice.mapper.FieldMapper;
 import com.microservices.projectservice.service.FieldService;
+import com.microservices.projectservice.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -14,9 +18,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -28,27 +34,47 @@ import java.util.List;
 public class FieldController {
 
     private final FieldService service;
+    private final SyncService syncService;
     private final FieldMapper mapper;
 
     @GetMapping(path = "/{formId}/form")
-    @ResponseStatus(HttpStatus.OK)
-    @ApiResponse(responseCode = "404", description = "Form ID is not available.", content = @Content)
+    @Operation(description = "Get all fields of a form, tagged with the last change of its project as ETag.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "404", description = "Form ID is not available.", content = @Content)
+    })
     public List<FieldResponse> getAllFields(
             @PathVariable
-            String formId
+            String formId,
+            WebRequest request
     ) {
+        var version = syncService.getFormProjectVersion(formId);
+        if (version != null && request.checkNotModified(EntityTags.of(version, request))) return null;
         var fields = service.getAllFields(formId);
         return fields.stream().map(mapper::toResponse).toList();
     }
 
     @GetMapping(path = "/{fieldId}")
-    @ResponseStatus(HttpStatus.OK)
-    @ApiResponse(responseCode = "404", description = "Field not found.", content = @Content)
+    @Operation(description = "Get a field by its id, tagged with its version as ETag.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Field not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "404", description = "Field not found.", content = @Content)
+    })
     public FieldResponse getField(
             @PathVariable
             @Size(min = 36, max = 36, message = "fieldId length must be 36 characters.")
-            String fieldId
+            String fieldId,
+            WebRequest request
     ) {
+        if (request.checkNotModified(EntityTags.of(service.getFieldVersion(fieldId), request))) return null;
         var field = service.getField(fieldId);
         return mapper.toResponse(field);
     }
@@ -96,14 +122,19 @@ public class FieldController {
                     responseCode = "404",
                     description = "Field not found.",
                     content = @Content
-            )
+            ),
+            @ApiResponse(responseCode = "412", description = "Field updated since the ETag in If-Match.")
     })
     public void updateField(
             @PathVariable
             @Size(min = 36, max = 36, message = "fieldId length must be 36 characters.")
             String fieldId,
-            @RequestBody FieldUpdateRequest body) {
-        service.updateField(fieldId, body);
+            @RequestBody FieldUpdateRequest body,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the field, the update is refused if it has been updated since.")
+            String ifMatch
+    ) {
+        service.updateField(fieldId, body, EntityTags.parseIfMatch(ifMatch));
     }
 
     @DeleteMapping(path = "/{fieldId}")
@@ -166,15 +197,19 @@ public class FieldController {
                     responseCode = "404",
                     description = "Field not found.",
                     content = @Content
-            )
+            ),
+            @ApiResponse(responseCode = "412", description = "Sample updated since the ETag in If-Match.")
     })
     public void updateDynamicField(
             @PathVariable
             @Size(min = 36, max = 36, message = "fieldId length must be 36 characters.")
             String fieldId,
-            @RequestBody DynamicFieldUpdateRequest dynamicFieldUpdateRequest
+            @RequestBody DynamicFieldUpdateRequest dynamicFieldUpdateRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the sample, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        service.updateDynamicField(fieldId, dynamicFieldUpdateRequest);
+        service.updateDynamicField(fieldId, dynamicFieldUpdateRequest, EntityTags.parseIfMatch(ifMatch));
     }
 
     @DeleteMapping(path = "/{fieldId}/dynamic")
@@ -1,12 +1,17 @@
 package com.microservices.projectservice.controller;
 
+import com.microservices.projectservice.dto.request.EntityTags;
 import com.microservices.projectservice.dto.request.FormCreateRequest;
 import com.microservices.projectservice.dto.response.FormResponse;
 import com.microservices.projectservice.dto.request.FormUpdateRequest;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.response.PagingObjectsResponse;
+import com.microservices.projectservice.entity.Form;
 import com.microservices.projectservice.mapper.FormMapper;
 import com.microservices.projectservice.service.FormService;
+import com.microservices.projectservice.service.SyncService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,9 +20,11 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @Validated
 @RestController
@@ -27,15 +34,21 @@ import org.springframework.web.bind.annotation.*;
 public class FormController {
 
     private final FormService formService;
+    private final SyncService syncService;
     private final FormMapper mapper;
 
     @GetMapping(path = "/{projectId}/project")
-    @ResponseStatus(HttpStatus.OK)
-    @Operation(description = "Get all forms own by a project having the projectId.")
+    @Operation(description = "Get all forms own by a project having the projectId, tagged with the last change of " +
+                             "the project as ETag.")
     @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
             @ApiResponse(
                     responseCode = "400",
-                    description = "Invalid page number or page size.",
+                    description = "Invalid page number, page size or cursor.",
                     content = @Content
             ),
             @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
@@ -49,25 +62,35 @@ public class FormController {
             Integer pageNumber,
             @RequestParam(required = false, defaultValue = "6")
             @Min(value = 1, message = "Invalid page size (must greater than 0).")
-            Integer pageSize
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count,
+            WebRequest request
     ) {
-        var forms = formService.getAllForms(projectId, pageNumber, pageSize);
-        var response = new PagingObjectsResponse<>(
-                forms.getTotalPages(),
-                forms.getTotalElements(),
-                forms.getNumber(),
-                forms.getSize(),
-                forms.getNumberOfElements(),
-                forms.isFirst(),
-                forms.isLast(),
-                forms.toList()
-        );
-        return response.map(mapper::toResponse);
+        var version = syncService.getProjectVersion(projectId);
+        if (version != null && request.checkNotModified(EntityTags.of(version, request))) return null;
+        if (after != null) {
+            var forms = formService.getAllForms(projectId, PageCursor.decode(after), pageSize);
+            return PagingObjectsResponse.ofCursor(forms, FormController::cursorOf).map(mapper::toResponse);
+        }
+        var forms = formService.getAllForms(projectId, pageNumber, pageSize, count);
+        return PagingObjectsResponse.of(forms, FormController::cursorOf).map(mapper::toResponse);
     }
 
     @GetMapping(path = "/{formId}")
-    @ResponseStatus(HttpStatus.OK)
+    @Operation(description = "Get a form by its id, tagged with its version as ETag.")
     @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Form not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Invalid formId.",
@@ -82,8 +105,10 @@ public class FormController {
     public FormResponse getForm(
             @PathVariable
             @Size(min = 36, max = 36, message = "formId length must be 36 characters.")
-            String formId
+            String formId,
+            WebRequest request
     ) {
+        if (request.checkNotModified(EntityTags.of(formService.getFormVersion(formId), request))) return null;
         var form = formService.getForm(formId);
         return mapper.toResponse(form);
     }
@@ -115,15 +140,19 @@ public class FormController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Form updated successfully."),
             @ApiResponse(responseCode = "400", description = "Form title is blank."),
-            @ApiResponse(responseCode = "404", description = "Form ID is not available.")
+            @ApiResponse(responseCode = "404", description = "Form ID is not available."),
+            @ApiResponse(responseCode = "412", description = "Form updated since the ETag in If-Match.")
     })
     public void updateForm(
             @PathVariable
             @Size(min = 36, max = 36, message = "formId length must be 36 characters.")
             String formId,
-            @RequestBody FormUpdateRequest formUpdateRequest
+            @RequestBody FormUpdateRequest formUpdateRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the form, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        formService.updateForm(formId, formUpdateRequest);
+        formService.updateForm(formId, formUpdateRequest, EntityTags.parseIfMatch(ifMatch));
     }
 
     @DeleteMapping(path = "/{formId}")
@@ -141,4 +170,8 @@ public class FormController {
         formService.deleteForm(formId);
     }
 
+    private static String cursorOf(Form form) {
+        return PageCursor.encode(form.getCreatedAt(), form.getId());
+    }
+
 }
@@ -2,25 +2,36 @@ package com.microservices.projectservice.controller;
 
 import com.microservices.projectservice.constant.ProjectQueryType;
 import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.dto.request.EntityTags;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.request.ProjectCreateRequest;
 import com.microservices.projectservice.dto.request.ProjectMemberRequest;
+import com.microservices.projectservice.dto.request.ProjectMembersRequest;
 import com.microservices.projectservice.dto.request.ProjectUpdateRequest;
+import com.microservices.projectservice.dto.request.ProjectUserRequest;
 import com.microservices.projectservice.dto.response.PagingObjectsResponse;
 import com.microservices.projectservice.dto.response.ProjectResponse;
+import com.microservices.projectservice.entity.Project;
 import com.microservices.projectservice.mapper.ProjectMapper;
 import com.microservices.projectservice.service.ProjectService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @Validated
 @RestController
@@ -38,7 +49,7 @@ public class ProjectController {
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "400",
-                    description = "Invalid page number or page size.",
+                    description = "Invalid page number, page size or cursor.",
                     content = @Content
             ),
             @ApiResponse(responseCode = "404", description = "User ID is not available.", content = @Content)
@@ -56,26 +67,32 @@ public class ProjectController {
             Integer pageNumber,
             @RequestParam(required = false, defaultValue = "6")
             @Min(value = 1, message = "Invalid page size (must greater than 0).")
-            Integer pageSize
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count
     ) {
-        var projects = projectService.getAllProjects(userId, query, status, pageNumber, pageSize);
-        var pagingResponse = new PagingObjectsResponse<>(
-                projects.getTotalPages(),
-                projects.getTotalElements(),
-                projects.getNumber(),
-                projects.getSize(),
-                projects.getNumberOfElements(),
-                projects.isFirst(),
-                projects.isLast(),
-                projects.stream().toList()
-        );
-        return pagingResponse.map(mapper::toResponse);
+        if (after != null) {
+            var projects = projectService.getAllProjects(userId, query, status, PageCursor.decode(after), pageSize);
+            return PagingObjectsResponse.ofCursor(projects, ProjectController::cursorOf).map(mapper::toResponse);
+        }
+        var projects = projectService.getAllProjects(userId, query, status, pageNumber, pageSize, count);
+        return PagingObjectsResponse.of(projects, ProjectController::cursorOf).map(mapper::toResponse);
     }
 
     @GetMapping(path = "/{projectId}")
-    @ResponseStatus(HttpStatus.OK)
-    @Operation(description = "Get a project by its id.")
+    @Operation(description = "Get a project by its id, tagged with its version as ETag.")
     @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Invalid projectId.",
@@ -90,8 +107,11 @@ public class ProjectController {
     public ProjectResponse getProject(
             @PathVariable
             @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
-            String projectId
+            String projectId,
+            WebRequest request
     ) {
+        // without @ResponseStatus, which would replace the 304
+        if (request.checkNotModified(EntityTags.of(projectService.getProjectVersion(projectId), request))) return null;
         var project = projectService.getProject(projectId);
         return mapper.toResponse(project);
     }
@@ -140,6 +160,26 @@ public class ProjectController {
         return projectService.checkUserInAnyStage(projectId, userId);
     }
 
+    @PostMapping(path = "/stage/check")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(description = "Check for many (projectId, userId) pairs at once if userId joined any stages in " +
+                             "the project. Response: one boolean per pair, in the same order.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty pairs, more than 1000 pairs or Invalid projectId/userId.",
+                    content = @Content
+            ),
+    })
+    public List<Boolean> checkUsersInAnyStage(
+            @RequestBody
+            @NotEmpty(message = "pairs cannot be empty.")
+            @Size(max = 1000, message = "Cannot check more than 1000 pairs at once.")
+            List<@Valid ProjectUserRequest> pairs
+    ) {
+        return projectService.checkUsersInAnyStage(pairs);
+    }
+
     @PatchMapping(path = "/{projectId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(description = "Update a specific project.")
@@ -149,15 +189,19 @@ public class ProjectController {
                     responseCode = "400",
                     description = "Project name is blank or Start date is greater than end date."
             ),
-            @ApiResponse(responseCode = "404", description = "Project not found.")
+            @ApiResponse(responseCode = "404", description = "Project not found."),
+            @ApiResponse(responseCode = "412", description = "Project updated since the ETag in If-Match.")
     })
     public void updateProject(
             @PathVariable
             @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
             String projectId,
-            @RequestBody ProjectUpdateRequest projectUpdateRequest
+            @RequestBody ProjectUpdateRequest projectUpdateRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the project, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        projectService.updateProject(projectId, projectUpdateRequest);
+        projectService.updateProject(projectId, projectUpdateRequest, EntityTags.parseIfMatch(ifMatch));
     }
 
     @PatchMapping(path = "/{projectId}/member")
@@ -170,6 +214,7 @@ public class ProjectController {
             ),
             @ApiResponse(responseCode = "400", description = "Member ID is null/blank or Invalid operator."),
             @ApiResponse(responseCode = "404", description = "Project not found."),
+            @ApiResponse(responseCode = "412", description = "Project updated since the ETag in If-Match."),
             @ApiResponse(
                     responseCode = "503",
                     description = "Related service(s) are not available.",
@@ -180,29 +225,70 @@ public class ProjectController {
             @PathVariable
             @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
             String projectId,
-            @RequestBody @Valid ProjectMemberRequest body
+            @RequestBody @Valid ProjectMemberRequest body,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the project, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        projectService.updateMember(projectId, body);
+        projectService.updateMember(projectId, body, EntityTags.parseIfMatch(ifMatch));
     }
 
-    @DeleteMapping(path = "/{projectId}")
+    @PatchMapping(path = "/{projectId}/members")
     @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(description = "Add or remove many members of a specific project at once. " +
+                             "Members already added or already removed are skipped.")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "204",
-                    description = "Project deleted successfully."
+                    description = "Project members updated successfully."
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Member IDs are empty, a member ID is invalid or not found, or Invalid operator."
+            ),
+            @ApiResponse(responseCode = "404", description = "Project not found."),
+            @ApiResponse(responseCode = "412", description = "Project updated since the ETag in If-Match."),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Related service(s) are not available.",
+                    content = @Content
+            )
+    })
+    public void updateProjectMembers(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+            String projectId,
+            @RequestBody @Valid ProjectMembersRequest body,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the project, the update is refused if it has been updated since.")
+            String ifMatch
+    ) {
+        projectService.updateMembers(projectId, body, EntityTags.parseIfMatch(ifMatch));
+    }
+
+    @DeleteMapping(path = "/{projectId}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Project is being deleted. Response: The ID of the purge job, " +
+                                  "its progress is available at /purge-job/{jobId}."
             ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Project not found."
             )
     })
-    public void deleteProject(
+    public String deleteProject(
             @PathVariable
             @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
             String projectId
     ) {
-        projectService.deleteProject(projectId);
+        return projectService.deleteProject(projectId);
+    }
+
+    private static String cursorOf(Project project) {
+        return PageCursor.encode(project.getCreatedAt(), project.getId());
     }
 
 }
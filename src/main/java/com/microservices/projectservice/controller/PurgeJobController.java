@@ -0,0 +1,39 @@
+package com.microservices.projectservice.controller;
+
+import com.microservices.projectservice.dto.response.PurgeJobResponse;
+import com.microservices.projectservice.mapper.PurgeJobMapper;
+import com.microservices.projectservice.service.PurgeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@RestController
+@RequestMapping(path = "/api/${app.api-version}/purge-job")
+@RequiredArgsConstructor
+@Tag(name = "Purge job", description = "Progress of project and stage deletions.")
+public class PurgeJobController {
+
+    private final PurgeService purgeService;
+    private final PurgeJobMapper mapper;
+
+    @GetMapping(path = "/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(description = "Get the progress of the deletion started by DELETE /project/{id} or /stage/{id}.")
+    @ApiResponse(responseCode = "404", description = "Purge job not found.", content = @Content)
+    public PurgeJobResponse getJob(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "jobId length must be 36 characters.")
+            String jobId
+    ) {
+        var job = purgeService.getJob(jobId);
+        return mapper.toResponse(job);
+    }
+
+}
@@ -1,22 +1,51 @@
 package com.microservices.projectservice.controller;
 
+import com.microservices.projectservice.constant.ExportFormat;
 import com.microservices.projectservice.dto.request.AnswerUpsertRequest;
+import com.microservices.projectservice.dto.request.EntityTags;
+import com.microservices.projectservice.dto.request.GeoArea;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.request.SampleCreateRequest;
+import com.microservices.projectservice.dto.response.NormalizedSamplePageResponse;
 import com.microservices.projectservice.dto.response.PagingObjectsResponse;
+import com.microservices.projectservice.dto.response.SampleBatchItemResponse;
+import com.microservices.projectservice.dto.response.SampleClusterResponse;
 import com.microservices.projectservice.dto.response.SampleResponse;
 import com.microservices.projectservice.mapper.SampleMapper;
+import com.microservices.projectservice.repository.SampleClusterRepository;
+import com.microservices.projectservice.repository.projection.SampleDetails;
+import com.microservices.projectservice.service.SampleExportService;
 import com.microservices.projectservice.service.SampleService;
+import com.microservices.projectservice.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
 
 @Validated
 @RestController
@@ -26,11 +55,20 @@ import org.springframework.web.bind.annotation.*;
 public class SampleController {
 
     private final SampleService sampleService;
+    private final SampleExportService sampleExportService;
+    private final SyncService syncService;
     private final SampleMapper mapper;
 
     @GetMapping(path = "/{projectId}/project")
-    @ResponseStatus(HttpStatus.OK)
-    @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    })
     public PagingObjectsResponse<SampleResponse> getAllSamplesByProjectId(
             @PathVariable
             @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
@@ -40,24 +78,99 @@ public class SampleController {
             Integer pageNumber,
             @RequestParam(required = false, defaultValue = "6")
             @Min(value = 1, message = "Invalid page size (must greater than 0).")
-            Integer pageSize
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getProjectVersion(projectId), request)) return null;
+        return getSampleDetailsByProjectId(projectId, pageNumber, pageSize, after, count).map(mapper::toResponse);
+    }
+
+    @GetMapping(path = "/{projectId}/project", params = "view=normalized")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Samples whose answers reference the fields listed once in the page by ID."
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    })
+    public NormalizedSamplePageResponse getAllNormalizedSamplesByProjectId(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+            String projectId,
+            @RequestParam(required = false, defaultValue = "0")
+            @Min(value = 0, message = "Invalid page number (cannot be less than 0).")
+            Integer pageNumber,
+            @RequestParam(required = false, defaultValue = "6")
+            @Min(value = 1, message = "Invalid page size (must greater than 0).")
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getProjectVersion(projectId), request)) return null;
+        return mapper.toNormalizedResponse(getSampleDetailsByProjectId(projectId, pageNumber, pageSize, after, count));
+    }
+
+    @GetMapping(path = "/{projectId}/project/export")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "All samples of the project, streamed as NDJSON (one sample per line) or CSV " +
+                                  "(one line per answer/dynamic field)."
+            ),
+            @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportSamplesByProjectId(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+            String projectId,
+            @RequestParam(required = false, defaultValue = "NDJSON")
+            ExportFormat format
     ) {
-        var samples = sampleService.getAllSamplesByProjectId(projectId, pageNumber, pageSize);
-        return new PagingObjectsResponse<>(
-                samples.getTotalPages(),
-                samples.getTotalElements(),
-                samples.getNumber(),
-                samples.getSize(),
-                samples.getNumberOfElements(),
-                samples.isFirst(),
-                samples.isLast(),
-                samples.map(mapper::toResponse).toList()
-        );
+        var body = sampleExportService.exportSamplesByProjectId(projectId, format);
+        var contentType = switch (format) {
+            case NDJSON -> MediaType.APPLICATION_NDJSON;
+            case CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+        };
+        var contentDisposition = ContentDisposition.attachment()
+                .filename("samples-" + projectId + "." + format.name().toLowerCase())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(body);
     }
 
     @GetMapping(path = "/{stageId}/stage")
-    @ResponseStatus(HttpStatus.OK)
-    @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    })
     public PagingObjectsResponse<SampleResponse> getAllSamplesByStageId(
             @PathVariable
             @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
@@ -67,29 +180,299 @@ public class SampleController {
             Integer pageNumber,
             @RequestParam(required = false, defaultValue = "6")
             @Min(value = 1, message = "Invalid page size (must greater than 0).")
-            Integer pageSize
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getStageProjectVersion(stageId), request)) return null;
+        return getSampleDetailsByStageId(stageId, pageNumber, pageSize, after, count).map(mapper::toResponse);
+    }
+
+    @GetMapping(path = "/{stageId}/stage", params = "view=normalized")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Samples whose answers reference the fields listed once in the page by ID."
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    })
+    public NormalizedSamplePageResponse getAllNormalizedSamplesByStageId(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
+            String stageId,
+            @RequestParam(required = false, defaultValue = "0")
+            @Min(value = 0, message = "Invalid page number (cannot be less than 0).")
+            Integer pageNumber,
+            @RequestParam(required = false, defaultValue = "6")
+            @Min(value = 1, message = "Invalid page size (must greater than 0).")
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count,
+            WebRequest request
     ) {
-        var samples = sampleService.getAllSamplesByStageId(stageId, pageNumber, pageSize);
-        return new PagingObjectsResponse<>(
-                samples.getTotalPages(),
-                samples.getTotalElements(),
-                samples.getNumber(),
-                samples.getSize(),
-                samples.getNumberOfElements(),
-                samples.isFirst(),
-                samples.isLast(),
-                samples.map(mapper::toResponse).toList()
-        );
+        if (isNotModified(syncService.getStageProjectVersion(stageId), request)) return null;
+        return mapper.toNormalizedResponse(getSampleDetailsByStageId(stageId, pageNumber, pageSize, after, count));
+    }
+
+    @GetMapping(path = "/{projectId}/project/box")
+    @Operation(description = "Samples of the project whose position is in the box, by id (oldest first).")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid area, page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    })
+    public PagingObjectsResponse<SampleResponse> getAllSamplesByProjectIdInBox(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+            String projectId,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid minLatitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid minLatitude (cannot be greater than 90).")
+            Double minLatitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid minLongitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid minLongitude (cannot be greater than 180).")
+            Double minLongitude,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid maxLatitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid maxLatitude (cannot be greater than 90).")
+            Double maxLatitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid maxLongitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid maxLongitude (cannot be greater than 180).")
+            Double maxLongitude,
+            @RequestParam(required = false, defaultValue = "6")
+            @Min(value = 1, message = "Invalid page size (must greater than 0).")
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page.")
+            String after,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getProjectVersion(projectId), request)) return null;
+        var area = GeoArea.box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        return getLocatedSamples(
+                after, cursor -> sampleService.getAllSamplesByProjectIdWithin(projectId, area, cursor, pageSize));
+    }
+
+    @GetMapping(path = "/{projectId}/project/radius")
+    @Operation(description = "Samples of the project whose position is within the radius of the point, " +
+                             "by id (oldest first).")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid area, page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    })
+    public PagingObjectsResponse<SampleResponse> getAllSamplesByProjectIdInRadius(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+            String projectId,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid latitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid latitude (cannot be greater than 90).")
+            Double latitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid longitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid longitude (cannot be greater than 180).")
+            Double longitude,
+            @RequestParam
+            @Parameter(description = "In meters.")
+            @Positive(message = "Invalid radius (must greater than 0).")
+            @Max(value = 100_000, message = "Invalid radius (cannot be greater than 100000 meters).")
+            Double radius,
+            @RequestParam(required = false, defaultValue = "6")
+            @Min(value = 1, message = "Invalid page size (must greater than 0).")
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page.")
+            String after,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getProjectVersion(projectId), request)) return null;
+        var area = GeoArea.circle(latitude, longitude, radius);
+        return getLocatedSamples(
+                after, cursor -> sampleService.getAllSamplesByProjectIdWithin(projectId, area, cursor, pageSize));
+    }
+
+    @GetMapping(path = "/{projectId}/project/clusters")
+    @Operation(description = "Samples of the project in the box counted by cell of the map at the zoom, eight cells " +
+                             "on each side of a web mercator tile. Past the highest zoom, samples are listed by box.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid zoom or box.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
+    })
+    public List<SampleClusterResponse> getSampleClustersByProjectId(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+            String projectId,
+            @RequestParam
+            @Min(value = 0, message = "Invalid zoom (cannot be less than 0).")
+            @Max(value = SampleClusterRepository.MAX_ZOOM, message = "Invalid zoom (cannot be greater than 15).")
+            Integer zoom,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid minLatitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid minLatitude (cannot be greater than 90).")
+            Double minLatitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid minLongitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid minLongitude (cannot be greater than 180).")
+            Double minLongitude,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid maxLatitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid maxLatitude (cannot be greater than 90).")
+            Double maxLatitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid maxLongitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid maxLongitude (cannot be greater than 180).")
+            Double maxLongitude,
+            WebRequest request
+    ) {
+        // no ETag while the clusters lag behind the samples, or the client would keep them
+        var version = sampleService.isClusteringSamples(projectId) ? null : syncService.getProjectVersion(projectId);
+        if (isNotModified(version, request)) return null;
+        var box = GeoArea.box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        return sampleService.getSampleClustersByProjectId(projectId, zoom, box).stream()
+                .map(mapper::toResponse)
+                .toList();
+    }
+
+    @GetMapping(path = "/{stageId}/stage/box")
+    @Operation(description = "Samples of the stage whose position is in the box, by id (oldest first).")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid area, page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    })
+    public PagingObjectsResponse<SampleResponse> getAllSamplesByStageIdInBox(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
+            String stageId,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid minLatitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid minLatitude (cannot be greater than 90).")
+            Double minLatitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid minLongitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid minLongitude (cannot be greater than 180).")
+            Double minLongitude,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid maxLatitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid maxLatitude (cannot be greater than 90).")
+            Double maxLatitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid maxLongitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid maxLongitude (cannot be greater than 180).")
+            Double maxLongitude,
+            @RequestParam(required = false, defaultValue = "6")
+            @Min(value = 1, message = "Invalid page size (must greater than 0).")
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page.")
+            String after,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getStageProjectVersion(stageId), request)) return null;
+        var area = GeoArea.box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        return getLocatedSamples(
+                after, cursor -> sampleService.getAllSamplesByStageIdWithin(stageId, area, cursor, pageSize));
+    }
+
+    @GetMapping(path = "/{stageId}/stage/radius")
+    @Operation(description = "Samples of the stage whose position is within the radius of the point, " +
+                             "by id (oldest first).")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid area, page size or cursor.", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    })
+    public PagingObjectsResponse<SampleResponse> getAllSamplesByStageIdInRadius(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
+            String stageId,
+            @RequestParam
+            @DecimalMin(value = "-90", message = "Invalid latitude (cannot be less than -90).")
+            @DecimalMax(value = "90", message = "Invalid latitude (cannot be greater than 90).")
+            Double latitude,
+            @RequestParam
+            @DecimalMin(value = "-180", message = "Invalid longitude (cannot be less than -180).")
+            @DecimalMax(value = "180", message = "Invalid longitude (cannot be greater than 180).")
+            Double longitude,
+            @RequestParam
+            @Parameter(description = "In meters.")
+            @Positive(message = "Invalid radius (must greater than 0).")
+            @Max(value = 100_000, message = "Invalid radius (cannot be greater than 100000 meters).")
+            Double radius,
+            @RequestParam(required = false, defaultValue = "6")
+            @Min(value = 1, message = "Invalid page size (must greater than 0).")
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page.")
+            String after,
+            WebRequest request
+    ) {
+        if (isNotModified(syncService.getStageProjectVersion(stageId), request)) return null;
+        var area = GeoArea.circle(latitude, longitude, radius);
+        return getLocatedSamples(
+                after, cursor -> sampleService.getAllSamplesByStageIdWithin(stageId, area, cursor, pageSize));
     }
 
     @GetMapping(path = "/{sampleId}")
-    @ResponseStatus(HttpStatus.OK)
-    @ApiResponse(responseCode = "404", description = "Sample not found.", content = @Content)
+    @Operation(description = "Get a sample by its id, tagged with its version as ETag.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Sample not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "404", description = "Sample not found.", content = @Content)
+    })
     public SampleResponse getSample(
             @PathVariable
             @Size(min = 36, max = 36, message = "sampleId length must be 36 characters.")
-            String sampleId
+            String sampleId,
+            WebRequest request
     ) {
+        if (isNotModified(sampleService.getSampleVersion(sampleId), request)) return null;
         var sample = sampleService.getSample(sampleId);
         return mapper.toResponse(sample);
     }
@@ -116,6 +499,27 @@ public class SampleController {
         return sampleService.createSample(sampleCreateRequest);
     }
 
+    @PostMapping(path = "/batch")
+    @ResponseStatus(HttpStatus.OK)
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed. Response: The result of each sample, in the request order."
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "The batch is empty, too large or some samples have invalid properties.",
+                    content = @Content
+            )
+    })
+    public List<SampleBatchItemResponse> createSamples(
+            @RequestBody
+            @Size(min = 1, max = 500, message = "Batch size must be between 1 and 500.")
+            List<@Valid SampleCreateRequest> sampleCreateRequests
+    ) {
+        return sampleService.createSamples(sampleCreateRequests);
+    }
+
     @PatchMapping(path = "/{sampleId}/answer")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ApiResponses(value = {
@@ -132,15 +536,19 @@ public class SampleController {
                     responseCode = "404",
                     description = "Answer not found.",
                     content = @Content
-            )
+            ),
+            @ApiResponse(responseCode = "412", description = "Sample updated since the ETag in If-Match.")
     })
     public void updateAnswer(
             @PathVariable
             @Size(min = 36, max = 36, message = "sampleId length must be 36 characters.")
             String sampleId,
-            @RequestBody @Valid AnswerUpsertRequest body
+            @RequestBody @Valid AnswerUpsertRequest body,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the sample, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        sampleService.updateAnswer(sampleId, body);
+        sampleService.updateAnswer(sampleId, body, EntityTags.parseIfMatch(ifMatch));
     }
 
     @DeleteMapping(path = "/{sampleId}")
@@ -164,4 +572,47 @@ public class SampleController {
         sampleService.deleteSample(sampleId);
     }
 
+    private PagingObjectsResponse<SampleDetails> getSampleDetailsByProjectId(
+            String projectId, Integer pageNumber, Integer pageSize, String after, boolean count
+    ) {
+        if (after != null) {
+            var samples = sampleService.getAllSamplesByProjectId(projectId, PageCursor.decode(after), pageSize);
+            return PagingObjectsResponse.ofCursor(samples, SampleController::cursorOf);
+        }
+        var samples = sampleService.getAllSamplesByProjectId(projectId, pageNumber, pageSize, count);
+        return PagingObjectsResponse.of(samples, SampleController::cursorOf);
+    }
+
+    private PagingObjectsResponse<SampleDetails> getSampleDetailsByStageId(
+            String stageId, Integer pageNumber, Integer pageSize, String after, boolean count
+    ) {
+        if (after != null) {
+            var samples = sampleService.getAllSamplesByStageId(stageId, PageCursor.decode(after), pageSize);
+            return PagingObjectsResponse.ofCursor(samples, SampleController::cursorOf);
+        }
+        var samples = sampleService.getAllSamplesByStageId(stageId, pageNumber, pageSize, count);
+        return PagingObjectsResponse.of(samples, SampleController::cursorOf);
+    }
+
+    private PagingObjectsResponse<SampleResponse> getLocatedSamples(
+            String after, Function<PageCursor, Slice<SampleDetails>> getSamples
+    ) {
+        if (after == null)
+            return PagingObjectsResponse.of(getSamples.apply(null), SampleController::cursorOf).map(mapper::toResponse);
+        var samples = getSamples.apply(PageCursor.decode(after));
+        return PagingObjectsResponse.ofCursor(samples, SampleController::cursorOf).map(mapper::toResponse);
+    }
+
+    /**
+     * Whether the client holds the version, from {@code If-None-Match}. Lists of a project are not tagged while its
+     * version is unknown.
+     */
+    private static boolean isNotModified(@Nullable Long version, WebRequest request) {
+        return version != null && request.checkNotModified(EntityTags.of(version, request));
+    }
+
+    private static String cursorOf(SampleDetails sample) {
+        return PageCursor.encode(sample.sample().createdAt(), sample.sample().id());
+    }
+
 }
@@ -1,13 +1,19 @@
 package com.microservices.projectservice.controller;
 
+import com.microservices.projectservice.dto.request.EntityTags;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.request.StageCreateRequest;
 import com.microservices.projectservice.dto.request.StageMemberRequest;
+import com.microservices.projectservice.dto.request.StageMembersRequest;
 import com.microservices.projectservice.dto.response.PagingObjectsResponse;
 import com.microservices.projectservice.dto.response.StageResponse;
 import com.microservices.projectservice.dto.request.StageUpdateRequest;
+import com.microservices.projectservice.entity.Stage;
 import com.microservices.projectservice.mapper.StageMapper;
 import com.microservices.projectservice.service.StageService;
+import com.microservices.projectservice.service.SyncService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -16,9 +22,11 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @Validated
 @RestController
@@ -28,15 +36,21 @@ import org.springframework.web.bind.annotation.*;
 public class StageController {
 
     private final StageService stageService;
+    private final SyncService syncService;
     private final StageMapper mapper;
 
     @GetMapping(path = "/{projectId}/project")
-    @ResponseStatus(HttpStatus.OK)
-    @Operation(description = "Get all stages own by project having the projectId.")
+    @Operation(description = "Get all stages own by project having the projectId, tagged with the last change of " +
+                             "the project as ETag.")
     @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Project not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
             @ApiResponse(
                     responseCode = "400",
-                    description = "Invalid page number or page size.",
+                    description = "Invalid page number, page size or cursor.",
                     content = @Content
             ),
             @ApiResponse(responseCode = "404", description = "Project not found.", content = @Content)
@@ -50,29 +64,44 @@ public class StageController {
             Integer pageNumber,
             @RequestParam(required = false, defaultValue = "6")
             @Min(value = 1, message = "Invalid page size (must greater than 0).")
-            Integer pageSize
+            Integer pageSize,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor returned as nextCursor by the previous page. " +
+                                     "When present, pageNumber is ignored.")
+            String after,
+            @RequestParam(required = false, defaultValue = "true")
+            @Parameter(description = "When false, the total is not counted: totalPages and totalElements are " +
+                                     "null and last tells whether a next page exists. Ignored with a cursor.")
+            Boolean count,
+            WebRequest request
     ) {
-        var stages = stageService.getAllStages(projectId, pageNumber, pageSize);
-        return new PagingObjectsResponse<>(
-                stages.getTotalPages(),
-                stages.getTotalElements(),
-                stages.getNumber(),
-                stages.getSize(),
-                stages.getNumberOfElements(),
-                stages.isFirst(),
-                stages.isLast(),
-                stages.map(mapper::toResponse).toList()
-        );
+        var version = syncService.getProjectVersion(projectId);
+        if (version != null && request.checkNotModified(EntityTags.of(version, request))) return null;
+        if (after != null) {
+            var stages = stageService.getAllStages(projectId, PageCursor.decode(after), pageSize);
+            return PagingObjectsResponse.ofCursor(stages, StageController::cursorOf).map(mapper::toResponse);
+        }
+        var stages = stageService.getAllStages(projectId, pageNumber, pageSize, count);
+        return PagingObjectsResponse.of(stages, StageController::cursorOf).map(mapper::toResponse);
     }
 
     @GetMapping(path = "/{stageId}")
-    @ResponseStatus(HttpStatus.OK)
-    @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    @Operation(description = "Get a stage by its id, tagged with its version as ETag.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Stage not updated since the ETag in If-None-Match.",
+                    content = @Content
+            ),
+            @ApiResponse(responseCode = "404", description = "Stage not found.", content = @Content)
+    })
     public StageResponse getStage(
             @PathVariable
             @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
-            String stageId
+            String stageId,
+            WebRequest request
     ) {
+        if (request.checkNotModified(EntityTags.of(stageService.getStageVersion(stageId), request))) return null;
         var stage = stageService.getStage(stageId);
         return mapper.toResponse(stage);
     }
@@ -109,15 +138,19 @@ public class StageController {
                     description = "Stage name or Form ID is empty/blank. " +
                                   "Otherwise, stage start date is greater than end date."
             ),
-            @ApiResponse(responseCode = "404", description = "Form ID is not available.")
+            @ApiResponse(responseCode = "404", description = "Form ID is not available."),
+            @ApiResponse(responseCode = "412", description = "Stage updated since the ETag in If-Match.")
     })
     public void updateStage(
             @PathVariable
             @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
             String stageId,
-            @RequestBody StageUpdateRequest body
+            @RequestBody StageUpdateRequest body,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the stage, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        stageService.updateStage(stageId, body);
+        stageService.updateStage(stageId, body, EntityTags.parseIfMatch(ifMatch));
     }
 
     @PatchMapping(path = "/{stageId}/member")
@@ -129,35 +162,69 @@ public class StageController {
             ),
             @ApiResponse(responseCode = "400",
                     description = "Member ID is null/blank, Invalid operator or an member is not in project."),
-            @ApiResponse(responseCode = "404", description = "Stage ID is not available.")
+            @ApiResponse(responseCode = "404", description = "Stage ID is not available."),
+            @ApiResponse(responseCode = "412", description = "Stage updated since the ETag in If-Match.")
     })
     public void updateProjectMember(
             @PathVariable
             @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
             String stageId,
-            @RequestBody @Valid StageMemberRequest stageMemberRequest
+            @RequestBody @Valid StageMemberRequest stageMemberRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the stage, the update is refused if it has been updated since.")
+            String ifMatch
     ) {
-        stageService.updateMember(stageId, stageMemberRequest);
+        stageService.updateMember(stageId, stageMemberRequest, EntityTags.parseIfMatch(ifMatch));
     }
 
-    @DeleteMapping(path = "/{stageId}")
+    @PatchMapping(path = "/{stageId}/members")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "204",
-                    description = "Stage deleted successfully."
+                    description = "Stage members updated successfully. " +
+                                  "Members already added or already removed are skipped."
+            ),
+            @ApiResponse(responseCode = "400",
+                    description = "Member IDs are empty, Invalid operator or a member is not in project."),
+            @ApiResponse(responseCode = "404", description = "Stage ID is not available."),
+            @ApiResponse(responseCode = "412", description = "Stage updated since the ETag in If-Match.")
+    })
+    public void updateStageMembers(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
+            String stageId,
+            @RequestBody @Valid StageMembersRequest body,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the stage, the update is refused if it has been updated since.")
+            String ifMatch
+    ) {
+        stageService.updateMembers(stageId, body, EntityTags.parseIfMatch(ifMatch));
+    }
+
+    @DeleteMapping(path = "/{stageId}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Stage is being deleted. Response: The ID of the purge job, " +
+                                  "its progress is available at /purge-job/{jobId}."
             ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Stage not found."
             )
     })
-    public void deleteStage(
+    public String deleteStage(
             @PathVariable
             @Size(min = 36, max = 36, message = "stageId length must be 36 characters.")
             String stageId
     ) {
-        stageService.deleteStage(stageId);
+        return stageService.deleteStage(stageId);
+    }
+
+    private static String cursorOf(Stage stage) {
+        return PageCursor.encode(stage.getCreatedAt(), stage.getId());
     }
 
 }
@@ -0,0 +1,59 @@
+package com.microservices.projectservice.controller;
+
+import com.microservices.projectservice.dto.response.SyncResponse;
+import com.microservices.projectservice.mapper.*;
+import com.microservices.projectservice.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@RestController
+@RequestMapping(path = "/api/${app.api-version}/sync")
+@RequiredArgsConstructor
+@Tag(name = "Sync", description = "Delta sync of the offline collectors.")
+public class SyncController {
+
+    private final SyncService syncService;
+    private final ProjectMapper projectMapper;
+    private final StageMapper stageMapper;
+    private final FormMapper formMapper;
+    private final FieldMapper fieldMapper;
+    private final SampleMapper sampleMapper;
+
+    @GetMapping(path = "/{userId}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(description = "Get the projects, stages, forms, fields and samples changed in the projects of the " +
+                             "user having the userId since the last sync, and the ones deleted.")
+    @ApiResponse(responseCode = "400", description = "Invalid userId or token.", content = @Content)
+    public SyncResponse getChanges(
+            @PathVariable
+            @Size(min = 36, max = 36, message = "userId length must be 36 characters.")
+            String userId,
+            @RequestParam(required = false)
+            @Parameter(description = "Token returned by the last sync. When absent, everything is returned.")
+            String token
+    ) {
+        var changes = syncService.getChanges(userId, token);
+        return new SyncResponse(
+                changes.token(),
+                changes.hasMore(),
+                changes.projects().stream().map(projectMapper::toResponse).toList(),
+                changes.stages().stream().map(stageMapper::toResponse).toList(),
+                changes.forms().stream().map(formMapper::toResponse).toList(),
+                changes.fields().stream().map(fieldMapper::toResponse).toList(),
+                changes.samples().stream().map(sampleMapper::toResponse).toList(),
+                changes.deleted().stream()
+                        .map(change -> new SyncResponse.Tombstone(change.getEntityType(), change.getEntityId()))
+                        .toList()
+        );
+    }
+
+}
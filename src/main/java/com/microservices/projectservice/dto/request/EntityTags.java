@@ -0,0 +1,102 @@
+package com.microservices.projectservice.dto.request;
+
+import com.microservices.projectservice.exception.PreconditionFailedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.*;
+
+/**
+ * Versions listed by an {@code If-Match} header. The {@code ETag} of a project, stage, form, field or sample is its
+ * version, quoted, see {@link com.microservices.projectservice.entity.VersionedEntity}. The CBOR and Smile
+ * representations of a version are other bytes than the JSON one, so their tags end with their format.
+ */
+public record EntityTags(Set<Long> versions) {
+
+    private static final Map<MediaType, String> FORMAT_SUFFIXES = new LinkedHashMap<>();
+
+    static {
+        // in the order of preference of the converters, JSON being the default
+        FORMAT_SUFFIXES.put(MediaType.APPLICATION_JSON, "");
+        FORMAT_SUFFIXES.put(MediaType.APPLICATION_CBOR, "-cbor");
+        FORMAT_SUFFIXES.put(new MediaType("application", "x-jackson-smile"), "-smile");
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Tag of the version in the format the request accepts.
+     */
+    public static String of(long version, WebRequest request) {
+        return "\"" + version + formatSuffix(request.getHeader(HttpHeaders.ACCEPT)) + "\"";
+    }
+
+    /**
+     * Weak tags never match, as {@code If-Match} compares tags strongly, and neither do the tags of other versions
+     * or of no version at all.
+     *
+     * @return {@code null} without header or for {@code *}, which any existing entity matches.
+     */
+    @Nullable
+    public static EntityTags parseIfMatch(@Nullable String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) return null;
+        var versions = new HashSet<Long>();
+        for (var tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) continue;
+            var version = tag.substring(1, tag.length() - 1);
+            // the representations of a version in any format match it
+            for (var suffix : FORMAT_SUFFIXES.values())
+                if (!suffix.isEmpty() && version.endsWith(suffix))
+                    version = version.substring(0, version.length() - suffix.length());
+            try {
+                versions.add(Long.parseLong(version));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return new EntityTags(versions);
+    }
+
+    public void check(long version) throws PreconditionFailedException {
+        if (!versions.contains(version))
+            throw new PreconditionFailedException("The entity has been updated, its current ETag is " + of(version));
+    }
+
+    /**
+     * Same as {@link #check} when the tags are given.
+     */
+    public static void check(@Nullable EntityTags ifMatch, long version) throws PreconditionFailedException {
+        if (ifMatch != null) ifMatch.check(version);
+    }
+
+    /**
+     * Suffix of the format of the most preferred media type of {@code Accept} the service writes, none for JSON.
+     */
+    private static String formatSuffix(@Nullable String accept) {
+        if (accept == null || accept.isBlank()) return "";
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException exception) {
+            return "";
+        }
+        mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (var mediaType : mediaTypes)
+            for (var format : FORMAT_SUFFIXES.entrySet())
+                if (mediaType.getQualityValue() > 0 && mediaType.includes(format.getKey())) return format.getValue();
+        return "";
+    }
+
+    /**
+     * Fails an update conditional on the checked version, which did not find it as another update came in between.
+     */
+    public static void checkUpdated(boolean isUpdated) throws PreconditionFailedException {
+        if (!isUpdated) throw new PreconditionFailedException("The entity has been updated concurrently.");
+    }
+
+}
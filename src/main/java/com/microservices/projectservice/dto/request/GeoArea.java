@@ -0,0 +1,75 @@
+package com.microservices.projectservice.dto.request;
+
+import com.microservices.projectservice.exception.IllegalAttributeException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Area searched for samples: a box of latitudes and longitudes in degrees (WGS 84), and optionally a circle
+ * inscribed in it, which the samples must also be in. Meant for the map view of a region: boxes do not cross the
+ * antimeridian and circles are cut by it and by the poles.
+ *
+ * @param radius in meters, {@code null} for a box.
+ */
+public record GeoArea(
+        double minLatitude,
+        double minLongitude,
+        double maxLatitude,
+        double maxLongitude,
+        @Nullable Double centerLatitude,
+        @Nullable Double centerLongitude,
+        @Nullable Double radius
+) {
+
+    /**
+     * Mean radius of the Earth used by MySQL {@code ST_Distance_Sphere}.
+     */
+    private static final double EARTH_RADIUS = 6_370_986;
+
+    public static GeoArea box(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude)
+            throws IllegalAttributeException {
+        if (minLatitude > maxLatitude)
+            throw new IllegalAttributeException("minLatitude cannot be greater than maxLatitude.");
+        if (minLongitude > maxLongitude)
+            throw new IllegalAttributeException("minLongitude cannot be greater than maxLongitude.");
+        return new GeoArea(minLatitude, minLongitude, maxLatitude, maxLongitude, null, null, null);
+    }
+
+    /**
+     * The box is the one bounding the circle, so the spatial index narrows the samples down to it before their
+     * distance is computed.
+     */
+    public static GeoArea circle(double latitude, double longitude, double radius) {
+        var latitudeDelta = Math.toDegrees(radius / EARTH_RADIUS);
+        var longitudeDelta = Math.toDegrees(radius / (EARTH_RADIUS * Math.cos(Math.toRadians(latitude))));
+        return new GeoArea(
+                Math.max(latitude - latitudeDelta, -90),
+                Math.max(longitude - longitudeDelta, -180),
+                Math.min(latitude + latitudeDelta, 90),
+                Math.min(longitude + longitudeDelta, 180),
+                latitude,
+                longitude,
+                radius
+        );
+    }
+
+    /**
+     * @return the box as WKT, in the latitude-longitude axis order of SRID 4326.
+     */
+    public String boxWkt() {
+        return "POLYGON((%s %s, %s %s, %s %s, %s %s, %s %s))".formatted(
+                minLatitude, minLongitude,
+                minLatitude, maxLongitude,
+                maxLatitude, maxLongitude,
+                maxLatitude, minLongitude,
+                minLatitude, minLongitude);
+    }
+
+    /**
+     * @return the center as WKT, in the latitude-longitude axis order of SRID 4326, {@code null} for a box.
+     */
+    @Nullable
+    public String centerWkt() {
+        return radius == null ? null : "POINT(%s %s)".formatted(centerLatitude, centerLongitude);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.microservices.projectservice.dto.request;
+
+import com.microservices.projectservice.exception.IllegalAttributeException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of a row in a listing ordered by ({@code createdAt}, {@code id}). The creation time keeps its nanoseconds,
+ * as the column may hold fractions of a second finer than milliseconds.
+ * Clients only see it as an opaque string returned in {@code nextCursor}.
+ */
+public record PageCursor(Timestamp createdAt, String id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static String encode(Timestamp createdAt, String id) {
+        var instant = createdAt.toInstant();
+        var raw = instant.getEpochSecond() + ":" + instant.getNano() + ":" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) throws IllegalAttributeException {
+        try {
+            var raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            var parts = raw.split(":", 3);
+            if (parts.length != 3) throw new IllegalArgumentException();
+            var createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+            return new PageCursor(Timestamp.from(createdAt), parts[2]);
+        } catch (IllegalArgumentException | DateTimeException exception) {
+            throw new IllegalAttributeException("Invalid cursor: " + cursor);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.microservices.projectservice.dto.request;
+
+import com.microservices.projectservice.constant.MemberOperator;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.io.Serializable;
+import java.util.List;
+
+public record ProjectMembersRequest(
+        @NotEmpty(message = "memberIds cannot be null/empty.")
+        @Size(max = 1000, message = "memberIds cannot contain more than 1000 IDs.")
+        List<@NotBlank(message = "memberId cannot be null/blank.")
+        @Size(min = 36, max = 36, message = "memberId length must be 36 characters.") String> memberIds,
+        @NotNull(message = "operator cannot be null.")
+        MemberOperator operator
+) implements Serializable {
+}
@@ -0,0 +1,16 @@
+package com.microservices.projectservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.io.Serializable;
+
+public record ProjectUserRequest(
+        @NotBlank(message = "projectId cannot be null/blank.")
+        @Size(min = 36, max = 36, message = "projectId length must be 36 characters.")
+        String projectId,
+        @NotBlank(message = "userId cannot be null/blank.")
+        @Size(min = 36, max = 36, message = "userId length must be 36 characters.")
+        String userId
+) implements Serializable {
+}
@@ -0,0 +1,56 @@
+package com.microservices.projectservice.dto.request;
+
+import com.microservices.projectservice.exception.IllegalAttributeException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Position of a client in the change log: the id of the last change it got and, while the content of a project it
+ * joined is being sent, the project and the id of the last change of its content sent.
+ * Clients only see it as an opaque string returned in {@code token}.
+ *
+ * @param afterId         last change of the change log sent.
+ * @param joinedProjectId project whose content is left to send, {@code null} when there is none.
+ * @param contentAfterId  last change of the content of the joined project sent.
+ * @param contentUpToId   last change of the content of the joined project to send, the ones after it come with the
+ *                        change log.
+ */
+public record SyncToken(long afterId, @Nullable String joinedProjectId, long contentAfterId, long contentUpToId) {
+
+    private static final char SEPARATOR = ':';
+
+    public static SyncToken after(long afterId) {
+        return new SyncToken(afterId, null, 0, 0);
+    }
+
+    public boolean hasContentLeft() {
+        return joinedProjectId != null && contentAfterId < contentUpToId;
+    }
+
+    public SyncToken withContentAfter(long contentAfterId) {
+        return new SyncToken(afterId, joinedProjectId, contentAfterId, contentUpToId);
+    }
+
+    public String encode() {
+        if (joinedProjectId == null) return String.valueOf(afterId);
+        return String.join(String.valueOf(SEPARATOR), String.valueOf(afterId), joinedProjectId,
+                String.valueOf(contentAfterId), String.valueOf(contentUpToId));
+    }
+
+    public static SyncToken decode(String token) throws IllegalAttributeException {
+        try {
+            var parts = token.split(String.valueOf(SEPARATOR), -1);
+            if (parts.length == 1) return after(parseId(parts[0]));
+            if (parts.length != 4 || parts[1].length() != 36) throw new NumberFormatException();
+            return new SyncToken(parseId(parts[0]), parts[1], parseId(parts[2]), parseId(parts[3]));
+        } catch (NumberFormatException exception) {
+            throw new IllegalAttributeException("Invalid sync token: " + token);
+        }
+    }
+
+    private static long parseId(String id) {
+        var parsed = Long.parseLong(id);
+        if (parsed < 0) throw new NumberFormatException();
+        return parsed;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.microservices.projectservice.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.Map;
+
+/**
+ * A page of samples with the definitions of all answered fields at the page level.
+ *
+ * @param fields answered fields of the page, keyed by field ID.
+ * @param page   the page itself, serialized inline.
+ */
+public record NormalizedSamplePageResponse(
+        Map<String, FieldResponse> fields,
+        @JsonUnwrapped PagingObjectsResponse<NormalizedSampleResponse> page
+) {
+}
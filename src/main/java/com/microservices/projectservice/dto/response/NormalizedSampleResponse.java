@@ -0,0 +1,28 @@
+package com.microservices.projectservice.dto.response;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for {@link com.microservices.projectservice.entity.Sample} whose answers reference their field by ID only.
+ * The field definitions are shipped once per page, see {@link NormalizedSamplePageResponse}.
+ */
+public record NormalizedSampleResponse(
+        String id,
+        String attachmentId,
+        String position,
+        Long createdAt,
+        String projectOwnerId,
+        String stageId,
+        List<AnswerResponse> answers,
+        List<SampleResponse.DynamicFieldResponse> dynamicFields
+) implements Serializable {
+    /**
+     * DTO for {@link com.microservices.projectservice.entity.Answer}
+     */
+    public record AnswerResponse(
+            String fieldId,
+            String value
+    ) implements Serializable {
+    }
+}
@@ -1,5 +1,7 @@
 package com.microservices.projectservice.dto.response;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.NonNull;
 
 import java.util.Collections;
@@ -7,6 +9,9 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
 
+/**
+ * @param nextCursor opaque cursor to pass as {@code after} to get the next page, {@code null} on the last page.
+ */
 public record PagingObjectsResponse<T>(
         Integer totalPages,
         Long totalElements,
@@ -15,9 +20,72 @@ public record PagingObjectsResponse<T>(
         Integer numberOfElements,
         Boolean first,
         Boolean last,
-        List<T> content
+        List<T> content,
+        String nextCursor
 ) {
 
+    /**
+     * Creates a response from an offset page.
+     */
+    @NonNull
+    public static <T> PagingObjectsResponse<T> of(Page<T> page, Function<T, String> cursorOf) {
+        return new PagingObjectsResponse<>(
+                page.getTotalPages(),
+                page.getTotalElements(),
+                page.getNumber(),
+                page.getSize(),
+                page.getNumberOfElements(),
+                page.isFirst(),
+                page.isLast(),
+                page.getContent(),
+                nextCursor(page, cursorOf)
+        );
+    }
+
+    /**
+     * Creates a response from an offset page, or from an offset slice whose total has not been counted: its
+     * {@code totalPages} and {@code totalElements} are then {@code null}.
+     */
+    @NonNull
+    public static <T> PagingObjectsResponse<T> of(Slice<T> slice, Function<T, String> cursorOf) {
+        if (slice instanceof Page<T> page) return of(page, cursorOf);
+        return new PagingObjectsResponse<>(
+                null,
+                null,
+                slice.getNumber(),
+                slice.getSize(),
+                slice.getNumberOfElements(),
+                slice.isFirst(),
+                !slice.hasNext(),
+                slice.getContent(),
+                nextCursor(slice, cursorOf)
+        );
+    }
+
+    /**
+     * Creates a response from a slice read after a cursor. Such a slice is never the first one and its total is
+     * unknown.
+     */
+    @NonNull
+    public static <T> PagingObjectsResponse<T> ofCursor(Slice<T> slice, Function<T, String> cursorOf) {
+        return new PagingObjectsResponse<>(
+                null,
+                null,
+                null,
+                slice.getSize(),
+                slice.getNumberOfElements(),
+                false,
+                !slice.hasNext(),
+                slice.getContent(),
+                nextCursor(slice, cursorOf)
+        );
+    }
+
+    private static <T> String nextCursor(Slice<T> slice, Function<T, String> cursorOf) {
+        if (!slice.hasNext() || !slice.hasContent()) return null;
+        return cursorOf.apply(slice.getContent().getLast());
+    }
+
     @NonNull
     public <R> PagingObjectsResponse<R> map(Function<T, R> mapper) {
         Objects.requireNonNull(mapper);
@@ -31,7 +99,8 @@ public record PagingObjectsResponse<T>(
                 this.numberOfElements,
                 this.first,
                 this.last,
-                newContent
+                newContent,
+                this.nextCursor
         );
     }
 
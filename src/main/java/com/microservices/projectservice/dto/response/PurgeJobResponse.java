@@ -0,0 +1,26 @@
+package com.microservices.projectservice.dto.response;
+
+import com.microservices.projectservice.constant.PurgeJobStatus;
+import com.microservices.projectservice.constant.PurgeTarget;
+
+import java.io.Serializable;
+
+/**
+ * DTO for {@link com.microservices.projectservice.entity.PurgeJob}
+ *
+ * @param totalSamples   samples of the target when its deletion was requested.
+ * @param deletedSamples samples deleted so far.
+ * @param error          reason of the last failure, {@code null} when the job never failed.
+ */
+public record PurgeJobResponse(
+        String id,
+        PurgeTarget targetType,
+        String targetId,
+        PurgeJobStatus status,
+        Long totalSamples,
+        Long deletedSamples,
+        String error,
+        Long createdAt,
+        Long updatedAt
+) implements Serializable {
+}
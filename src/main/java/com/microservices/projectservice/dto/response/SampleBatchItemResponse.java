@@ -0,0 +1,28 @@
+package com.microservices.projectservice.dto.response;
+
+import java.io.Serializable;
+
+/**
+ * Result of one item of a batch sample creation.
+ *
+ * @param index    position of the item in the request body.
+ * @param sampleId ID of the created sample, {@code null} when the item failed.
+ * @param success  whether the sample has been created.
+ * @param error    reason of the failure, {@code null} when the item succeeded.
+ */
+public record SampleBatchItemResponse(
+        Integer index,
+        String sampleId,
+        Boolean success,
+        String error
+) implements Serializable {
+
+    public static SampleBatchItemResponse created(int index, String sampleId) {
+        return new SampleBatchItemResponse(index, sampleId, true, null);
+    }
+
+    public static SampleBatchItemResponse failed(int index, String error) {
+        return new SampleBatchItemResponse(index, null, false, error);
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.microservices.projectservice.dto.response;
+
+import java.io.Serializable;
+
+/**
+ * Samples of a cell of the map, to be drawn as one marker.
+ *
+ * @param latitude  centroid of the samples, in degrees.
+ * @param longitude centroid of the samples, in degrees.
+ * @param samples   number of samples in the cell.
+ */
+public record SampleClusterResponse(
+        Double latitude,
+        Double longitude,
+        Integer samples
+) implements Serializable {
+}
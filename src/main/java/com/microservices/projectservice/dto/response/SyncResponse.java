@@ -0,0 +1,27 @@
+package com.microservices.projectservice.dto.response;
+
+import com.microservices.projectservice.constant.SyncEntityType;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for {@link com.microservices.projectservice.service.SyncService.Changes}
+ *
+ * @param token   to send as {@code token} with the next sync.
+ * @param hasMore whether changes are left, to get with the next sync right away.
+ * @param deleted entities to drop, with their content for projects and stages.
+ */
+public record SyncResponse(String token,
+                           Boolean hasMore,
+                           List<ProjectResponse> projects,
+                           List<StageResponse> stages,
+                           List<FormResponse> forms,
+                           List<FieldResponse> fields,
+                           List<SampleResponse> samples,
+                           List<Tombstone> deleted) implements Serializable {
+
+    public record Tombstone(SyncEntityType type, String id) implements Serializable {
+    }
+
+}
@@ -11,7 +11,12 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "answer")
+@Table(
+        name = "answer",
+        indexes = {
+                @Index(name = "answer_field_idx", columnList = "fk_field_id")
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
 public class Answer extends AuditableEntity {
     @EmbeddedId
@@ -0,0 +1,64 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+
+import java.sql.Timestamp;
+
+/**
+ * Project, stage, form, field or sample created, updated or deleted, in the order of the changes. Rows are written
+ * by {@link com.microservices.projectservice.config.ChangeLogRecorder} when the transaction making the change
+ * commits, and read by {@link com.microservices.projectservice.service.SyncService}: the id of the last change a
+ * client got is its sync token.
+ * <p>
+ * A project shared with a user or taken from them is logged for that user only, as a change of the project with
+ * its {@link #userId}.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "CHANGE_LOG",
+        indexes = {
+                @Index(name = "change_log_project_idx", columnList = "projectId, id"),
+                @Index(name = "change_log_user_idx", columnList = "userId, id")
+        }
+)
+public class ChangeLog {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    @Type(BinaryUuidType.class)
+    private String projectId;
+
+    @Column(nullable = false)
+    private SyncEntityType entityType;
+
+    @Column(nullable = false)
+    @Type(BinaryUuidType.class)
+    private String entityId;
+
+    /**
+     * Whether the entity has been deleted, or is being deleted, rather than created or updated.
+     */
+    @Column(nullable = false)
+    private Boolean deleted;
+
+    @Column(nullable = false)
+    private Timestamp changedAt;
+
+    /**
+     * User the project was shared with, or taken from when deleted, {@code null} for the changes every user of the
+     * project gets.
+     */
+    @Column(length = 36)
+    private String userId;
+}
@@ -1,7 +1,10 @@
 package com.microservices.projectservice.entity;
 
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Getter
@@ -14,8 +17,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public class DynamicField extends AuditableEntity {
     @Id
-    @Column(length = 36)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
     private String id;
 
     @Column(nullable = false, length = 100)
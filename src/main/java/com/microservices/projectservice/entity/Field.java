@@ -1,7 +1,12 @@
 package com.microservices.projectservice.entity;
 
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.HashSet;
@@ -13,12 +18,19 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "FIELD")
+@Table(
+        name = "FIELD",
+        indexes = {
+                @Index(name = "field_form_number_order_idx", columnList = "fk_form_id, numberOrder")
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
-public class Field extends AuditableEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "field")
+public class Field extends VersionedEntity {
     @Id
-    @Column(length = 36)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
     private String id;
 
     @Builder.Default
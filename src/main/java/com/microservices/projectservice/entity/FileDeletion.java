@@ -0,0 +1,55 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.sql.Timestamp;
+
+/**
+ * File to delete from the file service, recorded in the transaction removing its last reference and delivered
+ * later by {@link com.microservices.projectservice.service.FileDeletionService}.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "FILE_DELETION",
+        indexes = {
+                @Index(name = "file_deletion_next_attempt_at_idx", columnList = "nextAttemptAt"),
+                @Index(name = "file_deletion_claim_token_idx", columnList = "claimToken"),
+                @Index(name = "file_deletion_file_id_idx", columnList = "fileId")
+        }
+)
+@EntityListeners(AuditingEntityListener.class)
+public class FileDeletion extends AuditableEntity {
+    @Id
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
+    private String id;
+
+    @Column(nullable = false, length = 36, updatable = false)
+    private String fileId;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * The deletion is not attempted before then, {@code null} once it has been given up.
+     */
+    @Column
+    private Timestamp nextAttemptAt;
+
+    /**
+     * Batch of the dispatcher currently delivering the deletion.
+     */
+    @Column(length = 36)
+    private String claimToken;
+}
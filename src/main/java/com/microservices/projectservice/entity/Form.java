@@ -1,7 +1,12 @@
 package com.microservices.projectservice.entity;
 
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.HashSet;
@@ -13,12 +18,19 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "FORM")
+@Table(
+        name = "FORM",
+        indexes = {
+                @Index(name = "form_project_created_at_idx", columnList = "fk_project_id, createdAt, id")
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
-public class Form extends AuditableEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "form")
+public class Form extends VersionedEntity {
     @Id
-    @Column(length = 36)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
     private String id;
 
     @Column(nullable = false, length = 100)
@@ -27,13 +39,15 @@ public class Form extends AuditableEntity {
     @Column
     private String description;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "form.usageStages")
     @OneToMany(mappedBy = "form")
     private Set<Stage> usageStages = new HashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fk_project_id", nullable = false, updatable = false, referencedColumnName = "id")
     private Project projectOwner;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "form.fields")
     @OneToMany(mappedBy = "form", cascade = CascadeType.ALL)
     private Set<Field> fields = new HashSet<>();
 }
\ No newline at end of file
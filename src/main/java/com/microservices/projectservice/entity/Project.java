@@ -1,8 +1,11 @@
 package com.microservices.projectservice.entity;
 
 import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDate;
@@ -15,12 +18,17 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "PROJECT")
+@Table(
+        name = "PROJECT",
+        indexes = {
+                @Index(name = "project_owner_status_created_at_idx", columnList = "fk_owner_id, status, createdAt, id")
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
-public class Project extends AuditableEntity {
+public class Project extends VersionedEntity {
     @Id
-    @Column(length = 36)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
     private String id;
 
     @Column(length = 36, unique = true)
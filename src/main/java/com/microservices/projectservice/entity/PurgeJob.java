@@ -0,0 +1,73 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.constant.PurgeJobStatus;
+import com.microservices.projectservice.constant.PurgeTarget;
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.sql.Timestamp;
+
+/**
+ * Background deletion of a project or a stage, see {@link com.microservices.projectservice.service.PurgeService}.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "PURGE_JOB",
+        indexes = {
+                @Index(name = "purge_job_status_idx", columnList = "status, leaseUntil")
+        }
+)
+@EntityListeners(AuditingEntityListener.class)
+public class PurgeJob extends AuditableEntity {
+    @Id
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
+    private String id;
+
+    @Column(nullable = false, updatable = false)
+    private PurgeTarget targetType;
+
+    @Column(nullable = false, updatable = false)
+    @Type(BinaryUuidType.class)
+    private String targetId;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private PurgeJobStatus status = PurgeJobStatus.PENDING;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long totalSamples = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long deletedSamples = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * The worker running the job owns it until then, another worker may take it over afterward.
+     */
+    @Column
+    private Timestamp leaseUntil;
+
+    /**
+     * Worker currently running the job.
+     */
+    @Column(length = 36)
+    private String claimToken;
+
+    @Column
+    private String error;
+}
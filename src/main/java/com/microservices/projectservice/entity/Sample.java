@@ -1,7 +1,10 @@
 package com.microservices.projectservice.entity;
 
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.HashSet;
@@ -16,14 +19,16 @@ import java.util.Set;
 @Table(
         name = "SAMPLE",
         indexes = {
-                @Index(name = "attachmentId_idx", columnList = "attachmentId")
+                @Index(name = "attachmentId_idx", columnList = "attachmentId"),
+                @Index(name = "sample_project_created_at_idx", columnList = "fk_project_id, createdAt, id"),
+                @Index(name = "sample_stage_created_at_idx", columnList = "fk_stage_id, createdAt, id")
         }
 )
 @EntityListeners(AuditingEntityListener.class)
-public class Sample extends AuditableEntity {
+public class Sample extends VersionedEntity {
     @Id
-    @Column(length = 36)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
     private String id;
 
     @Column
@@ -0,0 +1,41 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.entity.embedded.SampleClusterPK;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Located samples of a project counted by cell of the map, for each zoom from 0 to
+ * {@link com.microservices.projectservice.repository.SampleClusterRepository#MAX_ZOOM}. A cell at zoom z is an eighth
+ * of a web mercator tile of that zoom on each side, so a map view shows a few hundred cells at most whatever the
+ * number of samples. Rows are updated from the {@link SampleClusterDelta} rows written whenever samples are created
+ * or deleted; cells whose samples were all deleted are kept with no sample until the project is deleted.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "SAMPLE_CLUSTER")
+public class SampleCluster {
+    @EmbeddedId
+    private SampleClusterPK primaryKey;
+
+    @Column(nullable = false)
+    private Integer samples;
+
+    /**
+     * Sum of the latitudes of the samples, giving their centroid with {@link #longitudeSum}.
+     */
+    @Column(nullable = false)
+    private Double latitudeSum;
+
+    @Column(nullable = false)
+    private Double longitudeSum;
+
+    @MapsId("projectId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", updatable = false, nullable = false, referencedColumnName = "id")
+    private Project project;
+}
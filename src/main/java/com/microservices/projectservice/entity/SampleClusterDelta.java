@@ -0,0 +1,51 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+
+/**
+ * Change of a {@link SampleCluster} not counted in it yet: samples added to the cell, or taken out of it with
+ * negative counts and sums. Creating or deleting samples only appends deltas, so concurrent transactions never wait
+ * on the rows of the clusters they share; a worker of
+ * {@link com.microservices.projectservice.service.SampleClusterService} then adds them to the clusters and deletes
+ * them, a few seconds later.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "SAMPLE_CLUSTER_DELTA",
+        indexes = @Index(name = "sample_cluster_delta_project_idx", columnList = "projectId")
+)
+public class SampleClusterDelta {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    @Type(BinaryUuidType.class)
+    private String projectId;
+
+    @Column(nullable = false)
+    private Integer zoom;
+
+    @Column(name = "cell_x", nullable = false)
+    private Integer cellX;
+
+    @Column(name = "cell_y", nullable = false)
+    private Integer cellY;
+
+    @Column(nullable = false)
+    private Integer samples;
+
+    @Column(nullable = false)
+    private Double latitudeSum;
+
+    @Column(nullable = false)
+    private Double longitudeSum;
+}
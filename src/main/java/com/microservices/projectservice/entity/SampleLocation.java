@@ -0,0 +1,53 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+
+/**
+ * Position of a sample as a point, for the samples whose {@code position} reads as "latitude, longitude" in degrees,
+ * with the project and stage of the sample copied in. A spatial index cannot hold null points, so samples without a
+ * usable position have no row here. Rows are written by
+ * {@link com.microservices.projectservice.repository.SampleLocationRepository} when samples are created, the position
+ * of a sample never changes afterwards.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "SAMPLE_LOCATION",
+        indexes = {
+                // MySQL makes the index on a geometry column spatial
+                @Index(name = "sample_location_location_idx", columnList = "location"),
+                @Index(name = "sample_location_project_idx", columnList = "fk_project_id"),
+                @Index(name = "sample_location_stage_idx", columnList = "fk_stage_id")
+        }
+)
+public class SampleLocation {
+    @Id
+    @Column(name = "sample_id")
+    @Type(BinaryUuidType.class)
+    private String sampleId;
+
+    @Column(name = "fk_project_id", nullable = false)
+    @Type(BinaryUuidType.class)
+    private String projectId;
+
+    @Column(name = "fk_stage_id", nullable = false)
+    @Type(BinaryUuidType.class)
+    private String stageId;
+
+    /**
+     * The point in SRID 4326 (latitude first), written by the database only.
+     */
+    @Column(columnDefinition = "POINT NOT NULL SRID 4326", insertable = false, updatable = false)
+    private byte[] location;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sample_id", insertable = false, updatable = false, referencedColumnName = "id")
+    private Sample sample;
+}
@@ -1,7 +1,12 @@
 package com.microservices.projectservice.entity;
 
+import com.microservices.projectservice.entity.generator.GeneratedUuidV7;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDate;
@@ -14,12 +19,22 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "STAGE")
+@Table(
+        name = "STAGE",
+        indexes = {
+                @Index(
+                        name = "stage_project_deleting_created_at_idx",
+                        columnList = "fk_project_id, deleting, createdAt, id"
+                )
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
-public class Stage extends AuditableEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stage")
+public class Stage extends VersionedEntity {
     @Id
-    @Column(length = 36)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Type(BinaryUuidType.class)
+    @GeneratedUuidV7
     private String id;
 
     @Column(nullable = false, length = 100)
@@ -34,6 +49,14 @@ public class Stage extends AuditableEntity {
     @Column
     private LocalDate endDate;
 
+    /**
+     * Set when the stage is being purged, it is then hidden from every read.
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean deleting = false;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stage.members")
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE, CascadeType.REFRESH})
     @JoinTable(
             name = "stage_member",
@@ -42,11 +65,11 @@ public class Stage extends AuditableEntity {
     )
     private Set<User> members = new HashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fk_form_id", referencedColumnName = "id")
     private Form form;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fk_project_id", nullable = false, updatable = false, referencedColumnName = "id")
     private Project projectOwner;
 
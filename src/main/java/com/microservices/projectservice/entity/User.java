@@ -2,6 +2,8 @@ package com.microservices.projectservice.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.HashSet;
@@ -15,6 +17,8 @@ import java.util.Set;
 @Entity
 @Table(name = "USER")
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 public class User extends AuditableEntity {
     @Id
     @Column(length = 36)
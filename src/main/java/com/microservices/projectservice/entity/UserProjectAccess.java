@@ -0,0 +1,50 @@
+package com.microservices.projectservice.entity;
+
+import com.microservices.projectservice.constant.ProjectRole;
+import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.entity.embedded.UserProjectAccessPK;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.sql.Timestamp;
+
+/**
+ * Projects a user owns or joined, with the status and creation time of the project copied in, so the projects of
+ * a user are listed from a single index range scan. Rows are written by
+ * {@link com.microservices.projectservice.repository.UserProjectAccessRepository} whenever the owner, the members
+ * or the status of a project change. A user owning a project has no member row for it.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "USER_PROJECT_ACCESS",
+        indexes = {
+                @Index(name = "user_project_access_status_idx", columnList = "userId, status, createdAt, projectId"),
+                @Index(
+                        name = "user_project_access_role_status_idx",
+                        columnList = "userId, role, status, createdAt, projectId"
+                )
+        }
+)
+public class UserProjectAccess {
+    @EmbeddedId
+    private UserProjectAccessPK primaryKey;
+
+    @Column(nullable = false)
+    private ProjectRole role;
+
+    @Column(nullable = false)
+    private ProjectStatus status;
+
+    @Column(nullable = false)
+    private Timestamp createdAt;
+
+    @MapsId("projectId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", updatable = false, nullable = false, referencedColumnName = "id")
+    private Project project;
+}
@@ -0,0 +1,25 @@
+package com.microservices.projectservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Entity read and updated on its own by the clients, tagged with its version: the version is the {@code ETag} of
+ * its endpoint, checked against {@code If-Match} when it is updated.
+ * <p>
+ * The version also counts the changes of what its response embeds and is not updated through the entity, such as
+ * the members of a project or the answers of a sample: the services increment it along with them.
+ */
+@Getter
+@MappedSuperclass
+public class VersionedEntity extends AuditableEntity {
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+}
@@ -1,15 +1,19 @@
 package com.microservices.projectservice.entity.embedded;
 
+import com.microservices.projectservice.entity.type.BinaryUuidType;
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Embeddable
 public class AnswerPK {
+    @Type(BinaryUuidType.class)
     private String sampleId;
+    @Type(BinaryUuidType.class)
     private String fieldId;
 }
@@ -0,0 +1,23 @@
+package com.microservices.projectservice.entity.embedded;
+
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class SampleClusterPK {
+    @Type(BinaryUuidType.class)
+    private String projectId;
+    private Integer zoom;
+    @Column(name = "cell_x")
+    private Integer cellX;
+    @Column(name = "cell_y")
+    private Integer cellY;
+}
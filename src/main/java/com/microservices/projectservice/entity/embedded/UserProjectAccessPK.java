@@ -0,0 +1,20 @@
+package com.microservices.projectservice.entity.embedded;
+
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class UserProjectAccessPK {
+    @Column(length = 36)
+    private String userId;
+    @Type(BinaryUuidType.class)
+    private String projectId;
+}
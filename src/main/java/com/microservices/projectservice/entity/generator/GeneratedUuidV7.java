@@ -0,0 +1,19 @@
+package com.microservices.projectservice.entity.generator;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Generates the ID with {@link UuidV7}, in place of {@code @GeneratedValue(strategy = GenerationType.UUID)} which
+ * generates random (version 4) UUIDs.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface GeneratedUuidV7 {
+}
@@ -0,0 +1,38 @@
+package com.microservices.projectservice.entity.generator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (version 7, RFC 9562): the 48 most significant bits are the Unix time in milliseconds, so
+ * new IDs land at the end of the indexes instead of splitting random pages.
+ * <p>
+ * The 12 bits following the version are a counter, IDs generated by this process are strictly increasing even
+ * within the same millisecond. The remaining 62 bits are random.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_BITS = 12;
+    /**
+     * Time of the last ID in milliseconds, shifted left by {@link #COUNTER_BITS}, plus its counter.
+     */
+    private static final AtomicLong LAST_STAMP = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID randomUuid() {
+        var now = System.currentTimeMillis() << COUNTER_BITS;
+        // a counter overflow borrows the next millisecond, which keeps the IDs increasing
+        var stamp = LAST_STAMP.updateAndGet(last -> Math.max(last + 1, now));
+        var millis = stamp >>> COUNTER_BITS;
+        var counter = stamp & ((1L << COUNTER_BITS) - 1);
+
+        var mostSigBits = (millis << 16) | 0x7000L | counter;
+        var leastSigBits = (RANDOM.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+}
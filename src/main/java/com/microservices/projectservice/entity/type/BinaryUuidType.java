@@ -0,0 +1,116 @@
+package com.microservices.projectservice.entity.type;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Stores the string IDs of this service in {@code BINARY(16)} columns, as MySQL {@code UUID_TO_BIN} does without
+ * swapping: the bytes of a UUIDv7 sort by time like its string, and take 16 bytes in every index instead of 36.
+ * A user type rather than an {@code AttributeConverter}, which Hibernate ignores on IDs.
+ * <p>
+ * A string that is not a UUID, such as an ID mistyped in a request or the empty ID starting a keyset, is stored as
+ * the nil UUID: it sorts before every ID and matches none, so the lookup finds nothing instead of failing.
+ */
+public class BinaryUuidType implements UserType<String> {
+
+    private static final int UUID_LENGTH = 36;
+    private static final int BINARY_LENGTH = 16;
+
+    /**
+     * @return the 16 bytes of the UUID, those of the nil UUID when the ID is not a UUID.
+     */
+    public static byte[] toBytes(String id) {
+        var uuid = parse(id);
+        var buffer = ByteBuffer.allocate(BINARY_LENGTH);
+        if (uuid != null) buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        return buffer.array();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.BINARY;
+    }
+
+    @Override
+    public long getDefaultSqlLength(Dialect dialect, JdbcType jdbcType) {
+        return BINARY_LENGTH;
+    }
+
+    @Override
+    public Class<String> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(String x, String y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(String x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public String nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
+            throws SQLException {
+        var bytes = rs.getBytes(position);
+        return bytes == null ? null : fromBytes(bytes);
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, String value, int index, SharedSessionContractImplementor session)
+            throws SQLException {
+        if (value == null) st.setNull(index, Types.BINARY);
+        else st.setBytes(index, toBytes(value));
+    }
+
+    @Override
+    public String deepCopy(String value) {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(String value) {
+        return value;
+    }
+
+    @Override
+    public String assemble(Serializable cached, Object owner) {
+        return (String) cached;
+    }
+
+    /**
+     * @return the UUID in its canonical form only, {@link UUID#fromString} also reads shortened groups.
+     */
+    private static UUID parse(String id) {
+        if (id.length() != UUID_LENGTH) return null;
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.microservices.projectservice.exception;
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -35,10 +36,31 @@ public class GlobalExceptionHandler {
         return e.getMessage();
     }
 
+    @ExceptionHandler(RemoteServiceTimeoutException.class)
+    @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+    public String handleRemoteServiceTimeoutException(RemoteServiceTimeoutException e) {
+        return e.getMessage();
+    }
+
     @ExceptionHandler(DataConflictException.class)
     @ResponseStatus(code = HttpStatus.CONFLICT)
     public String handleDataConflictException(DataConflictException e) {
         return e.getMessage();
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(code = HttpStatus.PRECONDITION_FAILED)
+    public String handlePreconditionFailedException(PreconditionFailedException e) {
+        return e.getMessage();
+    }
+
+    /**
+     * Another request updated the same entity in the meantime.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(code = HttpStatus.CONFLICT)
+    public String handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException e) {
+        return "The entity has been updated concurrently, read it again before retrying.";
+    }
+
 }
@@ -0,0 +1,10 @@
+package com.microservices.projectservice.exception;
+
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class PreconditionFailedException extends IllegalArgumentException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.microservices.projectservice.exception;
+
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class RemoteServiceTimeoutException extends RuntimeException {
+    public RemoteServiceTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.microservices.projectservice.mapper;
+
+import com.microservices.projectservice.dto.response.PurgeJobResponse;
+import com.microservices.projectservice.entity.PurgeJob;
+
+public class PurgeJobMapper implements IMapper<PurgeJob, PurgeJobResponse> {
+
+    @Override
+    public PurgeJobResponse toResponse(PurgeJob entity) {
+        return new PurgeJobResponse(
+                entity.getId(),
+                entity.getTargetType(),
+                entity.getTargetId(),
+                entity.getStatus(),
+                entity.getTotalSamples(),
+                entity.getDeletedSamples(),
+                entity.getError(),
+                entity.getCreatedAt().getTime(),
+                entity.getUpdatedAt().getTime()
+        );
+    }
+
+}
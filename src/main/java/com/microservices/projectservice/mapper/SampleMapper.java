@@ -1,11 +1,19 @@
 package com.microservices.projectservice.mapper;
 
 import com.microservices.projectservice.dto.response.FieldResponse;
+import com.microservices.projectservice.dto.response.NormalizedSamplePageResponse;
+import com.microservices.projectservice.dto.response.NormalizedSampleResponse;
+import com.microservices.projectservice.dto.response.PagingObjectsResponse;
+import com.microservices.projectservice.dto.response.SampleClusterResponse;
 import com.microservices.projectservice.dto.response.SampleResponse;
 import com.microservices.projectservice.entity.Sample;
+import com.microservices.projectservice.repository.projection.AnswerRow;
+import com.microservices.projectservice.repository.projection.SampleClusterRow;
+import com.microservices.projectservice.repository.projection.SampleDetails;
 
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 public class SampleMapper implements IMapper<Sample, SampleResponse> {
@@ -57,4 +65,79 @@ public class SampleMapper implements IMapper<Sample, SampleResponse> {
         );
     }
 
+    public SampleResponse toResponse(SampleDetails details) {
+        var answerResponses = details.answers().stream()
+                .sorted(Comparator.comparingInt(AnswerRow::fieldNumberOrder))
+                .map(answer -> new SampleResponse.AnswerResponse(answer.value(), toFieldResponse(answer)))
+                .toList();
+
+        var sample = details.sample();
+        return new SampleResponse(
+                sample.id(),
+                sample.attachmentId(),
+                sample.position(),
+                sample.createdAt().getTime(),
+                sample.projectOwnerId(),
+                sample.stageId(),
+                answerResponses,
+                toDynamicFieldResponses(details)
+        );
+    }
+
+    public SampleClusterResponse toResponse(SampleClusterRow cluster) {
+        return new SampleClusterResponse(cluster.latitude(), cluster.longitude(), cluster.samples());
+    }
+
+    public NormalizedSampleResponse toNormalizedResponse(SampleDetails details) {
+        var answerResponses = details.answers().stream()
+                .sorted(Comparator.comparingInt(AnswerRow::fieldNumberOrder))
+                .map(answer -> new NormalizedSampleResponse.AnswerResponse(answer.fieldId(), answer.value()))
+                .toList();
+
+        var sample = details.sample();
+        return new NormalizedSampleResponse(
+                sample.id(),
+                sample.attachmentId(),
+                sample.position(),
+                sample.createdAt().getTime(),
+                sample.projectOwnerId(),
+                sample.stageId(),
+                answerResponses,
+                toDynamicFieldResponses(details)
+        );
+    }
+
+    /**
+     * Collects every field answered in the page once, then maps the samples with answers referencing them by ID.
+     */
+    public NormalizedSamplePageResponse toNormalizedResponse(PagingObjectsResponse<SampleDetails> page) {
+        var fields = new LinkedHashMap<String, FieldResponse>();
+        page.content().forEach(details -> details.answers().forEach(answer ->
+                fields.computeIfAbsent(answer.fieldId(), fieldId -> toFieldResponse(answer))));
+        return new NormalizedSamplePageResponse(fields, page.map(this::toNormalizedResponse));
+    }
+
+    private static FieldResponse toFieldResponse(AnswerRow answer) {
+        return new FieldResponse(
+                answer.fieldId(),
+                answer.fieldNumberOrder(),
+                answer.fieldName(),
+                answer.fieldCreatedAt().getTime(),
+                answer.formId()
+        );
+    }
+
+    private static List<SampleResponse.DynamicFieldResponse> toDynamicFieldResponses(SampleDetails details) {
+        return details.dynamicFields().stream()
+                .map(dField -> new SampleResponse.DynamicFieldResponse(
+                        dField.id(),
+                        dField.name(),
+                        dField.value(),
+                        dField.numberOrder(),
+                        dField.createdAt().getTime()
+                ))
+                .sorted(Comparator.comparingInt(SampleResponse.DynamicFieldResponse::numberOrder))
+                .toList();
+    }
+
 }
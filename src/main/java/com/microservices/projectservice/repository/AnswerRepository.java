@@ -3,6 +3,15 @@ package com.microservices.projectservice.repository;
 import com.microservices.projectservice.entity.Answer;
 import com.microservices.projectservice.entity.embedded.AnswerPK;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
 
 public interface AnswerRepository extends JpaRepository<Answer, AnswerPK> {
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("delete from Answer a where a.primaryKey.sampleId in :sampleIds")
+    int deleteAllBySampleIdIn(Collection<String> sampleIds);
+
+}
@@ -0,0 +1,71 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.entity.ChangeLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLog, Long> {
+
+    /**
+     * Finds the changes made to the projects a user owns or joined after the change {@code afterId}, in order, up
+     * to {@code changedBefore}. With no change, the projects of the user are read from one index range and each of
+     * their changes from another.
+     */
+    @Query("""
+            select c
+            from UserProjectAccess a join ChangeLog c on c.projectId = a.primaryKey.projectId
+            where a.primaryKey.userId = :userId and c.id > :afterId and c.changedAt < :changedBefore
+              and c.userId is null
+            order by c.id asc""")
+    List<ChangeLog> findAllByUserIdAfter(String userId, long afterId, Timestamp changedBefore, Limit limit);
+
+    /**
+     * Same as {@link #findAllByUserIdAfter} for the projects shared with the user or taken from them.
+     */
+    @Query("""
+            select c
+            from ChangeLog c
+            where c.userId = :userId and c.id > :afterId and c.changedAt < :changedBefore
+            order by c.id asc""")
+    List<ChangeLog> findAccessChangesByUserIdAfter(String userId, long afterId, Timestamp changedBefore, Limit limit);
+
+    /**
+     * Finds the changes of the content of the project after the change {@code afterId} up to {@code upToId}, in
+     * order: the last change of each entity tells its state then.
+     */
+    @Query("""
+            select c
+            from ChangeLog c
+            where c.projectId = :projectId and c.id > :afterId and c.id <= :upToId and c.userId is null
+            order by c.id asc""")
+    List<ChangeLog> findAllByProjectIdBetween(String projectId, long afterId, long upToId, Limit limit);
+
+    /**
+     * Logs the project as shared with the users, or taken from them when {@code deleted}. The users must exist.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_log"))
+    @Query(
+            value = """
+                    insert into change_log (project_id, entity_type, entity_id, deleted, changed_at, user_id)
+                    select :#{binaryUuid(#projectId)}, 0 /* SyncEntityType.PROJECT */, :#{binaryUuid(#projectId)},
+                           :deleted, :changedAt, u.id
+                    from user u
+                    where u.id in :userIds""",
+            nativeQuery = true
+    )
+    void insertAccessChanges(String projectId, Collection<String> userIds, boolean deleted, Timestamp changedAt);
+
+    Optional<ChangeLog> findFirstByProjectIdOrderByIdDesc(String projectId);
+
+}
@@ -2,6 +2,15 @@ package com.microservices.projectservice.repository;
 
 import com.microservices.projectservice.entity.DynamicField;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
 
 public interface DynamicFieldRepository extends JpaRepository<DynamicField, String> {
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("delete from DynamicField d where d.sample.id in :sampleIds")
+    int deleteAllBySampleIdIn(Collection<String> sampleIds);
+
+}
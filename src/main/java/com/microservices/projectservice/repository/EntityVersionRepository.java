@@ -0,0 +1,98 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.entity.Form;
+import com.microservices.projectservice.entity.Project;
+import com.microservices.projectservice.entity.Sample;
+import com.microservices.projectservice.entity.Stage;
+import com.microservices.projectservice.entity.VersionedEntity;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Increments the version of an entity for a change not made through it, such as one of the members of a project
+ * or of the answers of a sample, see {@link VersionedEntity}.
+ * <p>
+ * Runs in the JPA transaction of the caller, flushed first as before a JPQL update so that its pending updates of
+ * the entity are not checked against the incremented version. Only the changed entity is evicted from the
+ * second-level cache, right away and again once the transaction ends, as a concurrent read may cache it in between:
+ * a bulk JPQL update would evict the whole region of the entity.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "repository.invocations", histogram = true)
+public class EntityVersionRepository {
+
+    private static final Map<Class<? extends VersionedEntity>, String> TABLES = Map.of(
+            Project.class, "project",
+            Stage.class, "stage",
+            Form.class, "form",
+            Sample.class, "sample"
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @param expectedVersion the version checked against {@code If-Match}, {@code null} to increment any version.
+     * @return whether the version was incremented, {@code false} when the entity is missing or another transaction
+     * changed it since its expected version was read.
+     */
+    public boolean incrementVersion(Class<? extends VersionedEntity> type, String id,
+                                    @Nullable Long expectedVersion) {
+        var table = TABLES.get(type);
+        if (table == null) throw new IllegalArgumentException("No version is incremented for " + type.getName());
+        flush();
+        evict(type, id);
+
+        var sql = "update " + table + " set version = version + 1 where id = :id";
+        var parameters = new HashMap<String, Object>();
+        parameters.put("id", BinaryUuidType.toBytes(id));
+        if (expectedVersion != null) {
+            sql += " and version = :expectedVersion";
+            parameters.put("expectedVersion", expectedVersion);
+        }
+        return jdbcTemplate.update(sql, parameters) > 0;
+    }
+
+    /**
+     * Counts a change of the field in the samples answering it, whose responses embed the field. Samples are not
+     * kept in the second-level cache, so none is evicted.
+     */
+    public void incrementSampleVersionsByFieldId(String fieldId) {
+        flush();
+        jdbcTemplate.update("""
+                        update sample s join answer a on a.fk_sample_id = s.id
+                        set s.version = s.version + 1
+                        where a.fk_field_id = :fieldId""",
+                Map.of("fieldId", BinaryUuidType.toBytes(fieldId)));
+    }
+
+    private void flush() {
+        if (entityManager.isJoinedToTransaction()) entityManager.flush();
+    }
+
+    private void evict(Class<? extends VersionedEntity> type, String id) {
+        var cache = entityManagerFactory.getCache();
+        cache.evict(type, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.evict(type, id);
+            }
+        });
+    }
+
+}
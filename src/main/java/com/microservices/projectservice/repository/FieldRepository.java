@@ -3,9 +3,14 @@ package com.microservices.projectservice.repository;
 import com.microservices.projectservice.entity.Field;
 import com.microservices.projectservice.entity.Form;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface FieldRepository extends JpaRepository<Field, String> {
     List<Field> findAllByFormOrderByNumberOrderAsc(Form form);
+
+    @Query("select f.version from Field f where f.id = :id")
+    Optional<Long> findVersionById(String id);
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.entity.FileDeletion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.lang.Nullable;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+public interface FileDeletionRepository extends JpaRepository<FileDeletion, String> {
+
+    @Query("""
+            select d.id from FileDeletion d
+            where d.nextAttemptAt <= :now
+            order by d.nextAttemptAt asc""")
+    List<String> findDueIds(Timestamp now, Limit limit);
+
+    /**
+     * Takes the deletions still due among the given ones into the batch identified by the token, they are not due
+     * again before the lease ends.
+     *
+     * @return the number of deletions taken.
+     */
+    @Modifying
+    @Query("""
+            update FileDeletion d
+            set d.claimToken = :token, d.nextAttemptAt = :leaseUntil, d.attempts = d.attempts + 1
+            where d.id in :ids and d.nextAttemptAt <= :now""")
+    int claim(Collection<String> ids, String token, Timestamp now, Timestamp leaseUntil);
+
+    List<FileDeletion> findAllByClaimToken(String claimToken);
+
+    /**
+     * Releases the deletions of the batch identified by the token, due again at the given time or given up when
+     * {@code null}. Deletions taken into another batch since, once the lease had ended, are left to that batch.
+     */
+    @Modifying
+    @Query("""
+            update FileDeletion d
+            set d.claimToken = null, d.nextAttemptAt = :nextAttemptAt
+            where d.id in :ids and d.claimToken = :token""")
+    void reschedule(Collection<String> ids, String token, @Nullable Timestamp nextAttemptAt);
+
+    boolean existsByFileId(String fileId);
+
+    @Modifying
+    @Query("delete from FileDeletion d where d.id in :ids")
+    void deleteAllByIdIn(Collection<String> ids);
+
+}
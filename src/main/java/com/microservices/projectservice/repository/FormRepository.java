@@ -3,8 +3,33 @@ package com.microservices.projectservice.repository;
 import com.microservices.projectservice.entity.Form;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.util.Optional;
 
 public interface FormRepository extends JpaRepository<Form, String> {
     Page<Form> findAllByProjectOwner_Id(String projectOwnerId, Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Same as {@link #findAllByProjectOwner_Id} without counting the forms.
+     */
+    Slice<Form> findSliceByProjectOwner_Id(String projectOwnerId, Pageable pageable);
+
+    @Query("""
+            select f from Form f
+            where f.projectOwner.id = :projectOwnerId
+              and (f.createdAt < :createdAt or (f.createdAt = :createdAt and f.id < :id))
+            order by f.createdAt desc, f.id desc""")
+    Slice<Form> findAllByProjectOwner_IdBefore(String projectOwnerId, Timestamp createdAt, String id,
+                                               Pageable pageable);
+
+    @Query("select f.projectOwner.id from Form f where f.id = :id")
+    Optional<String> findProjectIdById(String id);
+
+    @Query("select f.version from Form f where f.id = :id")
+    Optional<Long> findVersionById(String id);
+
+}
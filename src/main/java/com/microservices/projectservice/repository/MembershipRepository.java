@@ -0,0 +1,250 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.entity.Stage;
+import com.microservices.projectservice.entity.type.BinaryUuidType;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Adds and removes project and stage members straight in the {@code project_member} and {@code stage_member} join
+ * tables, without loading the member collections. Inserts are idempotent, so concurrent edits of the same project
+ * or stage never overwrite each other.
+ * <p>
+ * Runs in the JPA transaction of the caller: entities of the affected projects or stages already loaded in it do
+ * not see the changes. The members of a changed stage are evicted from the second-level cache right away and again
+ * once the transaction ends, as a concurrent read may cache them in between.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "repository.invocations", histogram = true)
+public class MembershipRepository {
+
+    private static final String STAGE_MEMBERS_ROLE = Stage.class.getName() + ".members";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Creates the users not known by this service yet, in one statement batch.
+     */
+    public void insertUsersIfAbsent(Collection<String> userIds) {
+        var batch = userIds.stream()
+                .distinct()
+                .map(userId -> (SqlParameterSource) new MapSqlParameterSource("id", userId))
+                .toArray(SqlParameterSource[]::new);
+        if (batch.length == 0) return;
+        jdbcTemplate.batchUpdate(
+                "insert ignore into user (id, created_at, updated_at) values (:id, now(), now())", batch);
+    }
+
+    /**
+     * @return whether the user was not a member yet.
+     */
+    public boolean addProjectMember(String projectId, String memberId) {
+        return jdbcTemplate.update(
+                "insert ignore into project_member (project_id, member_id) values (:projectId, :memberId)",
+                Map.of("projectId", BinaryUuidType.toBytes(projectId), "memberId", memberId)) > 0;
+    }
+
+    /**
+     * Adds the members missing among the given users, they must exist already.
+     */
+    public void addProjectMembers(String projectId, Collection<String> memberIds) {
+        if (memberIds.isEmpty()) return;
+        jdbcTemplate.update("""
+                        insert ignore into project_member (project_id, member_id)
+                        select :projectId, u.id from user u where u.id in (:memberIds)""",
+                Map.of("projectId", BinaryUuidType.toBytes(projectId), "memberIds", memberIds));
+    }
+
+    /**
+     * @return whether the user was a member.
+     */
+    public boolean removeProjectMember(String projectId, String memberId) {
+        return removeProjectMembers(projectId, List.of(memberId)) > 0;
+    }
+
+    /**
+     * @return the number of members removed.
+     */
+    public int removeProjectMembers(String projectId, Collection<String> memberIds) {
+        if (memberIds.isEmpty()) return 0;
+        return jdbcTemplate.update(
+                "delete from project_member where project_id = :projectId and member_id in (:memberIds)",
+                Map.of("projectId", BinaryUuidType.toBytes(projectId), "memberIds", memberIds));
+    }
+
+    public boolean isProjectMember(String projectId, String memberId) {
+        return countProjectMembers(projectId, List.of(memberId)) > 0;
+    }
+
+    /**
+     * @return how many of the given users are members of the project.
+     */
+    public int countProjectMembers(String projectId, Collection<String> memberIds) {
+        if (memberIds.isEmpty()) return 0;
+        var count = jdbcTemplate.queryForObject(
+                "select count(*) from project_member where project_id = :projectId and member_id in (:memberIds)",
+                Map.of("projectId", BinaryUuidType.toBytes(projectId), "memberIds", memberIds),
+                Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Adds the given project members to the stage, the users not in the project are skipped.
+     *
+     * @return the number of members added.
+     */
+    public int addStageMembers(String stageId, String projectId, Collection<String> memberIds) {
+        if (memberIds.isEmpty()) return 0;
+        evictStageMembers(stageId);
+        return jdbcTemplate.update("""
+                        insert ignore into stage_member (stage_id, member_id)
+                        select :stageId, pm.member_id from project_member pm
+                        where pm.project_id = :projectId and pm.member_id in (:memberIds)""",
+                Map.of("stageId", BinaryUuidType.toBytes(stageId), "projectId", BinaryUuidType.toBytes(projectId),
+                        "memberIds", memberIds));
+    }
+
+    /**
+     * @return the number of members removed.
+     */
+    public int removeStageMembers(String stageId, Collection<String> memberIds) {
+        if (memberIds.isEmpty()) return 0;
+        evictStageMembers(stageId);
+        return jdbcTemplate.update(
+                "delete from stage_member where stage_id = :stageId and member_id in (:memberIds)",
+                Map.of("stageId", BinaryUuidType.toBytes(stageId), "memberIds", memberIds));
+    }
+
+    /**
+     * Reads every project membership, see {@code MembershipIndex}.
+     */
+    public void forEachProjectMember(Consumer<ProjectMember> action) {
+        jdbcTemplate.query(
+                "select project_id, member_id from project_member",
+                (RowCallbackHandler) row -> action.accept(projectMemberOf(row)));
+    }
+
+    /**
+     * Reads every stage membership with the project of the stage, see {@code MembershipIndex}.
+     */
+    public void forEachStageMember(Consumer<StageMember> action) {
+        jdbcTemplate.query("""
+                        select s.fk_project_id, sm.stage_id, sm.member_id
+                        from stage_member sm join stage s on s.id = sm.stage_id""",
+                (RowCallbackHandler) row -> action.accept(stageMemberOf(row)));
+    }
+
+    /**
+     * Same as {@link #forEachProjectMember(Consumer)} for the given projects only.
+     */
+    public void forEachProjectMember(Collection<String> projectIds, Consumer<ProjectMember> action) {
+        if (projectIds.isEmpty()) return;
+        jdbcTemplate.query(
+                "select project_id, member_id from project_member where project_id in (:projectIds)",
+                Map.of("projectIds", toBytes(projectIds)),
+                (RowCallbackHandler) row -> action.accept(projectMemberOf(row)));
+    }
+
+    /**
+     * Same as {@link #forEachStageMember(Consumer)} for the stages of the given projects only.
+     */
+    public void forEachStageMember(Collection<String> projectIds, Consumer<StageMember> action) {
+        if (projectIds.isEmpty()) return;
+        jdbcTemplate.query("""
+                        select s.fk_project_id, sm.stage_id, sm.member_id
+                        from stage s join stage_member sm on sm.stage_id = s.id
+                        where s.fk_project_id in (:projectIds)""",
+                Map.of("projectIds", toBytes(projectIds)),
+                (RowCallbackHandler) row -> action.accept(stageMemberOf(row)));
+    }
+
+    /**
+     * @return the id of the last change logged, 0 when none is, see {@code ChangeLog}.
+     */
+    public long findLastChangeId() {
+        var id = jdbcTemplate.queryForObject(
+                "select coalesce(max(id), 0) from change_log", Map.of(), Long.class);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * Reads the changes of projects and stages, which log the changes of their members too, logged after the
+     * change {@code afterId}, in order.
+     */
+    public List<ProjectChange> findProjectChangesAfter(long afterId, int limit) {
+        return jdbcTemplate.query("""
+                        select id, project_id, changed_at from change_log
+                        where id > :afterId and entity_type in (:entityTypes)
+                        order by id
+                        limit :limit""",
+                Map.of(
+                        "afterId", afterId,
+                        "entityTypes", List.of(SyncEntityType.PROJECT.ordinal(), SyncEntityType.STAGE.ordinal()),
+                        "limit", limit),
+                (row, rowNumber) -> new ProjectChange(row.getLong("id"),
+                        BinaryUuidType.fromBytes(row.getBytes("project_id")), row.getTimestamp("changed_at")));
+    }
+
+    public boolean isStageMember(String stageId, String memberId) {
+        var count = jdbcTemplate.queryForObject(
+                "select count(*) from stage_member where stage_id = :stageId and member_id = :memberId",
+                Map.of("stageId", BinaryUuidType.toBytes(stageId), "memberId", memberId),
+                Integer.class);
+        return count != null && count > 0;
+    }
+
+    private static List<byte[]> toBytes(Collection<String> ids) {
+        return ids.stream().map(BinaryUuidType::toBytes).toList();
+    }
+
+    private static ProjectMember projectMemberOf(ResultSet row) throws SQLException {
+        return new ProjectMember(BinaryUuidType.fromBytes(row.getBytes("project_id")), row.getString("member_id"));
+    }
+
+    private static StageMember stageMemberOf(ResultSet row) throws SQLException {
+        return new StageMember(BinaryUuidType.fromBytes(row.getBytes("fk_project_id")),
+                BinaryUuidType.fromBytes(row.getBytes("stage_id")), row.getString("member_id"));
+    }
+
+    private void evictStageMembers(String stageId) {
+        var cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictCollectionData(STAGE_MEMBERS_ROLE, stageId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.evictCollectionData(STAGE_MEMBERS_ROLE, stageId);
+            }
+        });
+    }
+
+    public record ProjectMember(String projectId, String memberId) {
+    }
+
+    public record StageMember(String projectId, String stageId, String memberId) {
+    }
+
+    public record ProjectChange(long id, String projectId, Timestamp changedAt) {
+    }
+
+}
@@ -1,29 +1,96 @@
 package com.microservices.projectservice.repository;
 
+import com.microservices.projectservice.constant.ProjectRole;
 import com.microservices.projectservice.constant.ProjectStatus;
 import com.microservices.projectservice.entity.Project;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.sql.Timestamp;
+import java.util.Optional;
+
 public interface ProjectRepository extends JpaRepository<Project, String> {
 
-    Page<Project> findAllByOwner_IdAndStatus(String ownerId, ProjectStatus status, Pageable pageable);
+    @EntityGraph(attributePaths = "members")
+    Optional<Project> findWithMembersById(String id);
+
+    boolean existsByIdAndStatusNot(String id, ProjectStatus status);
+
+    /**
+     * @return whether the project exists and is not being deleted.
+     */
+    default boolean existsActiveById(String id) {
+        return existsByIdAndStatusNot(id, ProjectStatus.DELETING);
+    }
+
+    @Query("select p.version from Project p where p.id = :id and p.status <> :status")
+    Optional<Long> findVersionByIdAndStatusNot(String id, ProjectStatus status);
+
+    /**
+     * @return the version of the project, unless it is being deleted.
+     */
+    default Optional<Long> findActiveVersionById(String id) {
+        return findVersionByIdAndStatusNot(id, ProjectStatus.DELETING);
+    }
+
+    /**
+     * Projects the user owns or joined, read in the order of {@code user_project_access_status_idx}.
+     */
+    @Query(
+            value = """
+                    select p from UserProjectAccess a join a.project p
+                    where a.primaryKey.userId = :userId and a.status = :status
+                    order by a.createdAt desc, a.primaryKey.projectId desc""",
+            countQuery = """
+                    select count(a) from UserProjectAccess a
+                    where a.primaryKey.userId = :userId and a.status = :status"""
+    )
+    Page<Project> findAllByAccess(String userId, ProjectStatus status, Pageable pageable);
 
-    Page<Project> findAllByMembers_IdAndStatus(String userId, ProjectStatus status, Pageable pageable);
+    @Query("""
+            select p from UserProjectAccess a join a.project p
+            where a.primaryKey.userId = :userId and a.status = :status
+            order by a.createdAt desc, a.primaryKey.projectId desc""")
+    Slice<Project> findSliceByAccess(String userId, ProjectStatus status, Pageable pageable);
 
+    /**
+     * Projects the user owns or joined, read in the order of {@code user_project_access_role_status_idx}.
+     */
     @Query(
             value = """
-                    select p from Project p
-                    where p.id in (
-                        select p.id from Project p
-                        where p.owner.id = ?1 and p.status = ?2
-                        union
-                        select p.id from Project p join p.members m
-                        where m.id = ?1 and p.owner.id != ?1 and p.status = ?2
-                    )"""
+                    select p from UserProjectAccess a join a.project p
+                    where a.primaryKey.userId = :userId and a.role = :role and a.status = :status
+                    order by a.createdAt desc, a.primaryKey.projectId desc""",
+            countQuery = """
+                    select count(a) from UserProjectAccess a
+                    where a.primaryKey.userId = :userId and a.role = :role and a.status = :status"""
     )
-    Page<Project> findAllProjectByUserIdAndStatus(String userId, ProjectStatus status, Pageable pageable);
+    Page<Project> findAllByAccess(String userId, ProjectRole role, ProjectStatus status, Pageable pageable);
+
+    @Query("""
+            select p from UserProjectAccess a join a.project p
+            where a.primaryKey.userId = :userId and a.role = :role and a.status = :status
+            order by a.createdAt desc, a.primaryKey.projectId desc""")
+    Slice<Project> findSliceByAccess(String userId, ProjectRole role, ProjectStatus status, Pageable pageable);
+
+    @Query("""
+            select p from UserProjectAccess a join a.project p
+            where a.primaryKey.userId = :userId and a.status = :status
+              and (a.createdAt < :createdAt or (a.createdAt = :createdAt and a.primaryKey.projectId < :id))
+            order by a.createdAt desc, a.primaryKey.projectId desc""")
+    Slice<Project> findAllByAccessBefore(String userId, ProjectStatus status,
+                                         Timestamp createdAt, String id, Pageable pageable);
+
+    @Query("""
+            select p from UserProjectAccess a join a.project p
+            where a.primaryKey.userId = :userId and a.role = :role and a.status = :status
+              and (a.createdAt < :createdAt or (a.createdAt = :createdAt and a.primaryKey.projectId < :id))
+            order by a.createdAt desc, a.primaryKey.projectId desc""")
+    Slice<Project> findAllByAccessBefore(String userId, ProjectRole role, ProjectStatus status,
+                                         Timestamp createdAt, String id, Pageable pageable);
 
-}
\ No newline at end of file
+}
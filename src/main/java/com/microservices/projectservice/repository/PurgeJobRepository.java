@@ -0,0 +1,48 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.constant.PurgeJobStatus;
+import com.microservices.projectservice.entity.PurgeJob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface PurgeJobRepository extends JpaRepository<PurgeJob, String> {
+
+    @Query("""
+            select j.id from PurgeJob j
+            where j.status = :pending or (j.status = :running and j.leaseUntil < :now)
+            order by j.createdAt asc""")
+    List<String> findClaimableIds(PurgeJobStatus pending, PurgeJobStatus running, Timestamp now, Limit limit);
+
+    /**
+     * Takes the lease of a job for the worker identified by the token, unless another worker holds it.
+     *
+     * @return 1 when the lease has been taken, otherwise 0.
+     */
+    @Modifying
+    @Query("""
+            update PurgeJob j
+            set j.status = :running, j.claimToken = :token, j.leaseUntil = :leaseUntil, j.attempts = j.attempts + 1
+            where j.id = :id
+              and (j.status = :pending or (j.status = :running and j.leaseUntil < :now))""")
+    int claim(String id, String token, PurgeJobStatus pending, PurgeJobStatus running, Timestamp now,
+              Timestamp leaseUntil);
+
+    /**
+     * Extends the lease of a running job held by the worker identified by the token. The job row stays locked
+     * until the transaction ends, so no other worker takes the job over meanwhile.
+     *
+     * @return 1 when the worker still holds the lease, otherwise 0.
+     */
+    @Modifying
+    @Query("""
+            update PurgeJob j
+            set j.leaseUntil = :leaseUntil
+            where j.id = :id and j.claimToken = :token and j.status = :running""")
+    int renewLease(String id, String token, PurgeJobStatus running, Timestamp leaseUntil);
+
+}
@@ -0,0 +1,169 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.entity.SampleCluster;
+import com.microservices.projectservice.entity.SampleClusterDelta;
+import com.microservices.projectservice.entity.embedded.SampleClusterPK;
+import com.microservices.projectservice.repository.projection.SampleClusterRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps {@link SampleCluster} in sync with the sample locations, see {@code SampleService}: the cells of the samples
+ * are added when they are located and subtracted before their location is deleted, as {@link SampleClusterDelta}
+ * rows rolled up later by {@code SampleClusterService}.
+ * <p>
+ * The native statements declare the table they change, otherwise Hibernate clears the whole second-level cache
+ * after each of them.
+ */
+public interface SampleClusterRepository extends JpaRepository<SampleCluster, SampleClusterPK> {
+
+    /**
+     * Same as in {@link #CELLS}.
+     */
+    int MAX_ZOOM = 15;
+
+    /**
+     * log2 of the number of cells on each side of a tile, same as in {@link #CELLS}.
+     */
+    int CELL_BITS = 3;
+
+    /**
+     * Web mercator stops at this latitude, the samples beyond are counted in the cells of the edge. Same as in
+     * {@link #CELLS}.
+     */
+    double MAX_LATITUDE = 85.0511287798;
+
+    /**
+     * Cells of the located samples at each zoom, with their samples summed.
+     */
+    String CELLS = """
+            select l.fk_project_id as project_id, z.zoom,
+                   least(floor((l.longitude + 180) / 360 * pow(2, z.zoom + 3)), pow(2, z.zoom + 3) - 1) as cell_x,
+                   least(floor((1 - ln(tan(radians(l.mercator_latitude)) + 1 / cos(radians(l.mercator_latitude)))
+                                         / pi()) / 2 * pow(2, z.zoom + 3)), pow(2, z.zoom + 3) - 1) as cell_y,
+                   count(*) as samples, sum(l.latitude) as latitude_sum, sum(l.longitude) as longitude_sum
+            from (select fk_project_id, ST_Latitude(location) as latitude, ST_Longitude(location) as longitude,
+                         least(greatest(ST_Latitude(location), -85.0511287798), 85.0511287798) as mercator_latitude
+                  from sample_location
+                  where sample_id in :#{binaryUuids(#sampleIds)}) l
+                     join (with recursive zooms (zoom) as (
+                               select 0 union all select zoom + 1 from zooms where zoom < 15
+                           ) select zoom from zooms) z
+            group by l.fk_project_id, z.zoom, cell_x, cell_y""";
+
+    /**
+     * Counts the located samples in their cells, once the deltas are rolled up.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sample_cluster_delta"))
+    @Query(
+            value = """
+                    insert into sample_cluster_delta (project_id, zoom, cell_x, cell_y, samples, latitude_sum,
+                                                      longitude_sum)
+                    select c.project_id, c.zoom, c.cell_x, c.cell_y, c.samples, c.latitude_sum, c.longitude_sum
+                    from (""" + CELLS + """
+                    ) c""",
+            nativeQuery = true
+    )
+    void addAll(Collection<String> sampleIds);
+
+    /**
+     * Takes the located samples out of their cells, once the deltas are rolled up.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sample_cluster_delta"))
+    @Query(
+            value = """
+                    insert into sample_cluster_delta (project_id, zoom, cell_x, cell_y, samples, latitude_sum,
+                                                      longitude_sum)
+                    select c.project_id, c.zoom, c.cell_x, c.cell_y, -c.samples, -c.latitude_sum, -c.longitude_sum
+                    from (""" + CELLS + """
+                    ) c""",
+            nativeQuery = true
+    )
+    void subtractAll(Collection<String> sampleIds);
+
+    /**
+     * Locks the oldest deltas to roll up, skipping the ones another worker is rolling up and the ones not committed
+     * yet.
+     */
+    @Query(
+            value = """
+                    select id from sample_cluster_delta
+                    order by id
+                    limit :limit
+                    for update skip locked""",
+            nativeQuery = true
+    )
+    List<Long> lockDeltaIds(int limit);
+
+    /**
+     * Adds the deltas to their clusters, in the order of the primary key so that two workers lock the clusters
+     * they share in the same order. The sums are assigned first, while the samples of the cell are not updated
+     * yet, and are reset once the cell is empty so no rounding error is left.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sample_cluster"))
+    @Query(
+            value = """
+                    insert into sample_cluster (project_id, zoom, cell_x, cell_y, samples, latitude_sum, longitude_sum)
+                    select c.project_id, c.zoom, c.cell_x, c.cell_y, c.samples, c.latitude_sum, c.longitude_sum
+                    from (select project_id, zoom, cell_x, cell_y, sum(samples) as samples,
+                                 sum(latitude_sum) as latitude_sum, sum(longitude_sum) as longitude_sum
+                          from sample_cluster_delta
+                          where id in :deltaIds
+                          group by project_id, zoom, cell_x, cell_y) c
+                    order by c.project_id, c.zoom, c.cell_x, c.cell_y
+                    on duplicate key update
+                        latitude_sum = if(sample_cluster.samples + c.samples = 0, 0,
+                                          sample_cluster.latitude_sum + c.latitude_sum),
+                        longitude_sum = if(sample_cluster.samples + c.samples = 0, 0,
+                                           sample_cluster.longitude_sum + c.longitude_sum),
+                        samples = sample_cluster.samples + c.samples""",
+            nativeQuery = true
+    )
+    void rollUp(Collection<Long> deltaIds);
+
+    /**
+     * Whether some samples of the project are not counted in the clusters yet. Deltas are rolled up within seconds,
+     * so few are counted.
+     */
+    @Query("""
+            select case when count(d) > 0 then true else false end
+            from SampleClusterDelta d
+            where d.projectId = :projectId""")
+    boolean existsDeltaByProjectId(String projectId);
+
+    @Modifying
+    @Query("delete from SampleClusterDelta d where d.id in :ids")
+    void deleteDeltasByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from SampleClusterDelta d where d.projectId = :projectId")
+    void deleteDeltasByProjectId(String projectId);
+
+    @Modifying
+    @Query("delete from SampleCluster k where k.primaryKey.projectId = :projectId")
+    void deleteAllByProjectId(String projectId);
+
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleClusterRow(
+                k.latitudeSum / k.samples, k.longitudeSum / k.samples, k.samples
+            )
+            from SampleCluster k
+            where k.primaryKey.projectId = :projectId
+              and k.primaryKey.zoom = :zoom
+              and k.primaryKey.cellX between :minCellX and :maxCellX
+              and k.primaryKey.cellY between :minCellY and :maxCellY
+              and k.samples > 0""")
+    List<SampleClusterRow> findRows(String projectId, int zoom, int minCellX, int maxCellX, int minCellY,
+                                    int maxCellY);
+
+}
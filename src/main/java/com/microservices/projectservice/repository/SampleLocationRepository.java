@@ -0,0 +1,92 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.dto.request.GeoArea;
+import com.microservices.projectservice.entity.SampleLocation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+
+/**
+ * Keeps {@link SampleLocation} in sync with the samples, see {@code SampleService}, and finds the samples in an
+ * area from the spatial index.
+ * <p>
+ * The native statements declare the table they change, otherwise Hibernate clears the whole second-level cache
+ * after each of them.
+ */
+public interface SampleLocationRepository extends JpaRepository<SampleLocation, String> {
+
+    /**
+     * Locates the samples whose position reads as "latitude, longitude" (or "latitude longitude") in degrees and
+     * in range, the others are skipped. Same parsing as the migration filling the table.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sample_location"))
+    @Query(
+            value = """
+                    insert into sample_location (sample_id, fk_project_id, fk_stage_id, location)
+                    select s.id, s.fk_project_id, s.fk_stage_id,
+                           ST_PointFromText(concat(
+                                   'POINT(', regexp_substr(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 1),
+                                   ' ', regexp_substr(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 2), ')'
+                           ), 4326)
+                    from sample s
+                    where s.id in :#{binaryUuids(#sampleIds)}
+                      and regexp_like(s.position, concat('^ *[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)? *[, ]',
+                                                         ' *[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)? *$'))
+                      and regexp_substr(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 1) between -90 and 90
+                      and regexp_substr(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 2) between -180 and 180""",
+            nativeQuery = true
+    )
+    void insertAllFromPositions(Collection<String> sampleIds);
+
+    @Modifying
+    @Query("delete from SampleLocation l where l.sampleId in :sampleIds")
+    void deleteAllBySampleIdIn(Collection<String> sampleIds);
+
+    /**
+     * Seeks the ids of the samples of a project in the area following the id, ordered by id: creation order, as ids
+     * are UUIDv7. Only the rows of this table are read, ordered by their primary key: from the project index, which
+     * holds the key, the samples come in order and the scan stops with the page; from the spatial index, which
+     * narrows them down to the box of the area, only the ids following the cursor are sorted.
+     */
+    @Query(
+            value = """
+                    select bin_to_uuid(l.sample_id)
+                    from sample_location l
+                    where l.fk_project_id = :#{binaryUuid(#projectId)}
+                      and l.sample_id > :#{binaryUuid(#id)}
+                      and MBRContains(ST_GeomFromText(:#{#area.boxWkt()}, 4326), l.location)
+                      and (:#{#area.radius()} is null
+                           or ST_Distance_Sphere(l.location, ST_GeomFromText(:#{#area.centerWkt()}, 4326))
+                              <= :#{#area.radius()})
+                    order by l.sample_id""",
+            nativeQuery = true
+    )
+    Slice<String> findSampleIdsByProjectIdWithin(String projectId, GeoArea area, String id, Pageable pageable);
+
+    /**
+     * Same as {@link #findSampleIdsByProjectIdWithin} for the samples of a stage.
+     */
+    @Query(
+            value = """
+                    select bin_to_uuid(l.sample_id)
+                    from sample_location l
+                    where l.fk_stage_id = :#{binaryUuid(#stageId)}
+                      and l.sample_id > :#{binaryUuid(#id)}
+                      and MBRContains(ST_GeomFromText(:#{#area.boxWkt()}, 4326), l.location)
+                      and (:#{#area.radius()} is null
+                           or ST_Distance_Sphere(l.location, ST_GeomFromText(:#{#area.centerWkt()}, 4326))
+                              <= :#{#area.radius()})
+                    order by l.sample_id""",
+            nativeQuery = true
+    )
+    Slice<String> findSampleIdsByStageIdWithin(String stageId, GeoArea area, String id, Pageable pageable);
+
+}
@@ -1,11 +1,163 @@
 package com.microservices.projectservice.repository;
 
 import com.microservices.projectservice.entity.Sample;
+import com.microservices.projectservice.repository.projection.AnswerRow;
+import com.microservices.projectservice.repository.projection.DynamicFieldRow;
+import com.microservices.projectservice.repository.projection.SampleRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface SampleRepository extends JpaRepository<Sample, String> {
-    Page<Sample> findAllByProjectOwner_IdOrderByCreatedAtAsc(String projectId, Pageable pageable);
-    Page<Sample> findAllByStage_IdOrderByCreatedAtAsc(String stageId, Pageable pageable);
-}
\ No newline at end of file
+    @EntityGraph(attributePaths = {"answers", "answers.field", "dynamicFields"})
+    Optional<Sample> findWithDetailsById(String id);
+
+    @Query("select s.attachmentId from Sample s where s.attachmentId in :attachmentIds")
+    Set<String> findAllAttachmentIdsIn(Collection<String> attachmentIds);
+
+    long countByProjectOwner_Id(String projectId);
+
+    long countByStage_Id(String stageId);
+
+    @Modifying
+    @Query("delete from Sample s where s.id in :ids")
+    int deleteAllByIdIn(Collection<String> ids);
+
+    @Query("select s.version from Sample s where s.id = :id")
+    Optional<Long> findVersionById(String id);
+
+
+    @Query(value = """
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.projectOwner.id = :projectId
+            order by s.createdAt asc, s.id asc""",
+            countQuery = "select count(s) from Sample s where s.projectOwner.id = :projectId")
+    Page<SampleRow> findRowsByProjectId(String projectId, Pageable pageable);
+
+    /**
+     * Same as {@link #findRowsByProjectId} without counting the samples.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.projectOwner.id = :projectId
+            order by s.createdAt asc, s.id asc""")
+    Slice<SampleRow> findRowSliceByProjectId(String projectId, Pageable pageable);
+
+    @Query(value = """
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.stage.id = :stageId
+            order by s.createdAt asc, s.id asc""",
+            countQuery = "select count(s) from Sample s where s.stage.id = :stageId")
+    Page<SampleRow> findRowsByStageId(String stageId, Pageable pageable);
+
+    /**
+     * Same as {@link #findRowsByStageId} without counting the samples.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.stage.id = :stageId
+            order by s.createdAt asc, s.id asc""")
+    Slice<SampleRow> findRowSliceByStageId(String stageId, Pageable pageable);
+
+    /**
+     * Seeks the sample rows of a project following the position ({@code createdAt}, {@code id}),
+     * ordered by that position.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.projectOwner.id = :projectId
+              and (s.createdAt > :createdAt or (s.createdAt = :createdAt and s.id > :id))
+            order by s.createdAt asc, s.id asc""")
+    Slice<SampleRow> findRowsByProjectIdAfter(String projectId, Timestamp createdAt, String id, Pageable pageable);
+
+    /**
+     * Seeks the sample rows of a stage following the position ({@code createdAt}, {@code id}),
+     * ordered by that position.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.stage.id = :stageId
+              and (s.createdAt > :createdAt or (s.createdAt = :createdAt and s.id > :id))
+            order by s.createdAt asc, s.id asc""")
+    Slice<SampleRow> findRowsByStageIdAfter(String stageId, Timestamp createdAt, String id, Pageable pageable);
+
+    /**
+     * Reads up to the limit of the sample rows of a project, in no particular order, for the samples about to be
+     * deleted: the next call reads the ones left, so no position is needed. Unlike a seek on {@code createdAt},
+     * samples without a creation time are read too.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.projectOwner.id = :projectId""")
+    List<SampleRow> findAnyRowsByProjectId(String projectId, Limit limit);
+
+    /**
+     * Same as {@link #findAnyRowsByProjectId} for the samples of a stage.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.stage.id = :stageId""")
+    List<SampleRow> findAnyRowsByStageId(String stageId, Limit limit);
+
+    /**
+     * @return the rows of the samples, in no particular order.
+     */
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.SampleRow(
+                s.id, s.attachmentId, s.position, s.createdAt, s.projectOwner.id, s.stage.id
+            )
+            from Sample s
+            where s.id in :ids""")
+    List<SampleRow> findRowsByIdIn(Collection<String> ids);
+
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.AnswerRow(
+                a.sample.id, a.value, f.id, f.numberOrder, f.name, f.createdAt, f.form.id
+            )
+            from Answer a join a.field f
+            where a.sample.id in :sampleIds""")
+    List<AnswerRow> findAnswerRowsBySampleIds(Collection<String> sampleIds);
+
+    @Query("""
+            select new com.microservices.projectservice.repository.projection.DynamicFieldRow(
+                d.sample.id, d.id, d.name, d.value, d.numberOrder, d.createdAt
+            )
+            from DynamicField d
+            where d.sample.id in :sampleIds""")
+    List<DynamicFieldRow> findDynamicFieldRowsBySampleIds(Collection<String> sampleIds);
+}
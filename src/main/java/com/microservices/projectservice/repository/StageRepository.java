@@ -3,9 +3,36 @@ package com.microservices.projectservice.repository;
 import com.microservices.projectservice.entity.Stage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.util.Optional;
 
 public interface StageRepository extends JpaRepository<Stage, String> {
-    Page<Stage> findAllByProjectOwner_Id(String projectOwnerId, Pageable pageable);
+    Page<Stage> findAllByProjectOwner_IdAndDeletingFalse(String projectOwnerId, Pageable pageable);
+
+    /**
+     * Same as {@link #findAllByProjectOwner_IdAndDeletingFalse} without counting the stages.
+     */
+    Slice<Stage> findSliceByProjectOwner_IdAndDeletingFalse(String projectOwnerId, Pageable pageable);
+
+    @Query("""
+            select s from Stage s
+            where s.projectOwner.id = :projectOwnerId and s.deleting = false
+              and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id))
+            order by s.createdAt desc, s.id desc""")
+    Slice<Stage> findAllByProjectOwner_IdBefore(String projectOwnerId, Timestamp createdAt, String id,
+                                                Pageable pageable);
+
+    boolean existsByIdAndDeletingFalse(String id);
+
+    @Query("select s.projectOwner.id from Stage s where s.id = :id and s.deleting = false")
+    Optional<String> findProjectIdById(String id);
+
+    @Query("select s.version from Stage s where s.id = :id and s.deleting = false")
+    Optional<Long> findVersionById(String id);
+
     boolean existsByProjectOwner_IdAndMembers_Id(String userId, String memberId);
-}
\ No newline at end of file
+}
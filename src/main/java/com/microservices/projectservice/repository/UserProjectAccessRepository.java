@@ -0,0 +1,58 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.constant.ProjectRole;
+import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.entity.UserProjectAccess;
+import com.microservices.projectservice.entity.embedded.UserProjectAccessPK;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+
+/**
+ * Keeps {@link UserProjectAccess} in sync with the projects, see {@code ProjectService}.
+ * <p>
+ * The native statements declare the table they change, otherwise Hibernate clears the whole second-level cache
+ * after each of them.
+ */
+public interface UserProjectAccessRepository extends JpaRepository<UserProjectAccess, UserProjectAccessPK> {
+
+    /**
+     * Gives the users the role in the project, users already having a role are skipped. The users must exist.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_project_access"))
+    @Query(
+            value = """
+                    insert ignore into user_project_access (user_id, project_id, role, status, created_at)
+                    select u.id, p.id, :#{#role.ordinal()}, p.status, p.created_at
+                    from user u join project p on p.id = :#{binaryUuid(#projectId)}
+                    where u.id in :userIds""",
+            nativeQuery = true
+    )
+    void insertAll(String projectId, Collection<String> userIds, ProjectRole role);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_project_access"))
+    @Query(
+            value = """
+                    delete from user_project_access
+                    where project_id = :#{binaryUuid(#projectId)} and user_id in :userIds
+                      and role = :#{#role.ordinal()}""",
+            nativeQuery = true
+    )
+    void deleteAll(String projectId, Collection<String> userIds, ProjectRole role);
+
+    @Modifying
+    @Query("update UserProjectAccess a set a.status = :status where a.primaryKey.projectId = :projectId")
+    void updateStatus(String projectId, ProjectStatus status);
+
+    @Modifying
+    @Query("delete from UserProjectAccess a where a.primaryKey.projectId = :projectId")
+    void deleteAllByProjectId(String projectId);
+
+}
@@ -0,0 +1,17 @@
+package com.microservices.projectservice.repository.projection;
+
+import java.sql.Timestamp;
+
+/**
+ * Flat projection of an {@link com.microservices.projectservice.entity.Answer} joined to its field.
+ */
+public record AnswerRow(
+        String sampleId,
+        String value,
+        String fieldId,
+        Integer fieldNumberOrder,
+        String fieldName,
+        Timestamp fieldCreatedAt,
+        String formId
+) {
+}
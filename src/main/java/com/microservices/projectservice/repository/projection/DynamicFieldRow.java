@@ -0,0 +1,16 @@
+package com.microservices.projectservice.repository.projection;
+
+import java.sql.Timestamp;
+
+/**
+ * Flat projection of a {@link com.microservices.projectservice.entity.DynamicField} row.
+ */
+public record DynamicFieldRow(
+        String sampleId,
+        String id,
+        String name,
+        String value,
+        Integer numberOrder,
+        Timestamp createdAt
+) {
+}
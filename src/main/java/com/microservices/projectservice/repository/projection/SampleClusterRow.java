@@ -0,0 +1,11 @@
+package com.microservices.projectservice.repository.projection;
+
+/**
+ * Centroid and number of the samples of a {@link com.microservices.projectservice.entity.SampleCluster}.
+ */
+public record SampleClusterRow(
+        Double latitude,
+        Double longitude,
+        Integer samples
+) {
+}
@@ -0,0 +1,13 @@
+package com.microservices.projectservice.repository.projection;
+
+import java.util.List;
+
+/**
+ * A sample row grouped with the rows of its answers and dynamic fields.
+ */
+public record SampleDetails(
+        SampleRow sample,
+        List<AnswerRow> answers,
+        List<DynamicFieldRow> dynamicFields
+) {
+}
@@ -0,0 +1,16 @@
+package com.microservices.projectservice.repository.projection;
+
+import java.sql.Timestamp;
+
+/**
+ * Flat projection of a {@link com.microservices.projectservice.entity.Sample} row, without its collections.
+ */
+public record SampleRow(
+        String id,
+        String attachmentId,
+        String position,
+        Timestamp createdAt,
+        String projectOwnerId,
+        String stageId
+) {
+}
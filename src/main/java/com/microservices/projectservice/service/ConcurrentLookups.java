@@ -0,0 +1,64 @@
+package com.microservices.projectservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Looks up several keys against a remote service, one request each, sent concurrently on virtual threads with a
+ * bounded number of them in flight.
+ */
+@Slf4j
+final class ConcurrentLookups {
+
+    private ConcurrentLookups() {
+    }
+
+    /**
+     * @param maxConcurrent requests in flight at most.
+     * @param name          of the looked up keys, for the logs.
+     * @return the result of each distinct key, {@code null} when its lookup failed.
+     */
+    static <K, V> Map<K, V> lookUpAll(Collection<? extends K> keys, int maxConcurrent,
+                                      Function<? super K, ? extends V> lookup, String name) {
+        var permits = new Semaphore(maxConcurrent);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new HashMap<K, Future<V>>();
+            for (K key : new HashSet<>(keys)) {
+                futures.put(key, executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return lookup.apply(key);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            var results = new HashMap<K, V>();
+            futures.forEach((key, future) -> results.put(key, await(key, future, name)));
+            return results;
+        }
+    }
+
+    private static <K, V> V await(K key, Future<V> future, String name) {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            log.warn("Cannot look up " + name + " " + key, exception.getCause());
+            return null;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+}
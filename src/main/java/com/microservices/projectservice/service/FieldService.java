@@ -2,20 +2,26 @@ package com.microservices.projectservice.service;
 
 import com.microservices.projectservice.dto.request.DynamicFieldCreateRequest;
 import com.microservices.projectservice.dto.request.DynamicFieldUpdateRequest;
+import com.microservices.projectservice.dto.request.EntityTags;
 import com.microservices.projectservice.dto.request.FieldCreateRequest;
 import com.microservices.projectservice.dto.request.FieldUpdateRequest;
 import com.microservices.projectservice.entity.DynamicField;
 import com.microservices.projectservice.entity.Field;
 import com.microservices.projectservice.exception.IllegalAttributeException;
 import com.microservices.projectservice.exception.NoEntityFoundException;
+import com.microservices.projectservice.exception.PreconditionFailedException;
 import com.microservices.projectservice.repository.DynamicFieldRepository;
 import com.microservices.projectservice.repository.FieldRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
+@Timed(value = "service.invocations", histogram = true)
 @RequiredArgsConstructor
 public class FieldService {
 
@@ -25,16 +31,28 @@ public class FieldService {
     private final SampleService sampleService;
     private final FormService formService;
 
+    @Transactional(readOnly = true)
     public List<Field> getAllFields(String formId) throws NoEntityFoundException {
         var form = formService.getForm(formId);
         return fieldRepository.findAllByFormOrderByNumberOrderAsc(form);
     }
 
+    @Transactional(readOnly = true)
     public Field getField(String fieldId) throws NoEntityFoundException {
         return fieldRepository.findById(fieldId)
                 .orElseThrow(() -> new NoEntityFoundException("No field found with id: " + fieldId));
     }
 
+    /**
+     * Same as {@link #getField} reading only the version, to answer {@code If-None-Match} without the field.
+     */
+    @Transactional(readOnly = true)
+    public long getFieldVersion(String fieldId) throws NoEntityFoundException {
+        return fieldRepository.findVersionById(fieldId)
+                .orElseThrow(() -> new NoEntityFoundException("No field found with id: " + fieldId));
+    }
+
+    @Transactional
     public String createField(String formId, FieldCreateRequest body)
             throws NoEntityFoundException {
         var form = formService.getForm(formId);
@@ -46,10 +64,12 @@ public class FieldService {
         return fieldRepository.save(field).getId();
     }
 
-    public void updateField(String fieldId, FieldUpdateRequest body)
-            throws IllegalAttributeException, NoEntityFoundException {
+    @Transactional
+    public void updateField(String fieldId, FieldUpdateRequest body, @Nullable EntityTags ifMatch)
+            throws IllegalAttributeException, NoEntityFoundException, PreconditionFailedException {
         var isUpdated = false;
         var field = getField(fieldId);
+        EntityTags.check(ifMatch, field.getVersion());
 
         var fieldName = body.fieldName();
         if (fieldName != null) {
@@ -65,14 +85,21 @@ public class FieldService {
             isUpdated = true;
         }
 
-        if (isUpdated) fieldRepository.save(field);
+        if (isUpdated) {
+            fieldRepository.save(field);
+            // the answers of the samples embed the field
+            sampleService.incrementVersionsByFieldId(fieldId);
+        }
     }
 
+    @Transactional
     public void deleteField(String fieldId) throws NoEntityFoundException {
         var field = getField(fieldId);
+        sampleService.incrementVersionsByFieldId(fieldId);
         fieldRepository.delete(field);
     }
 
+    @Transactional
     public String createDynamicField(String sampleId, DynamicFieldCreateRequest body)
             throws NoEntityFoundException {
         var sample = sampleService.getSample(sampleId);
@@ -86,13 +113,23 @@ public class FieldService {
                 .numberOrder(numberOrder)
                 .sample(sample)
                 .build();
-        return dynamicFieldRepository.save(dynamicField).getId();
+        var dynamicFieldId = dynamicFieldRepository.save(dynamicField).getId();
+        sampleService.incrementVersion(sampleId, null);
+        return dynamicFieldId;
     }
 
-    public void updateDynamicField(String dynamicFieldId, DynamicFieldUpdateRequest body)
-            throws IllegalAttributeException, NoEntityFoundException {
+    /**
+     * @param ifMatch tags of the sample of the dynamic field, which embeds it.
+     */
+    @Transactional
+    public void updateDynamicField(String dynamicFieldId, DynamicFieldUpdateRequest body,
+                                   @Nullable EntityTags ifMatch)
+            throws IllegalAttributeException, NoEntityFoundException, PreconditionFailedException {
         var isUpdated = false;
         var dynamicField = findDynamicField(dynamicFieldId);
+        var sampleId = dynamicField.getSample().getId();
+        var version = sampleService.getSampleVersion(sampleId);
+        EntityTags.check(ifMatch, version);
 
         var name = body.name();
         if (name != null) {
@@ -114,12 +151,17 @@ public class FieldService {
             isUpdated = true;
         }
 
-        if (isUpdated) dynamicFieldRepository.save(dynamicField);
+        if (isUpdated) {
+            dynamicFieldRepository.save(dynamicField);
+            sampleService.incrementVersion(sampleId, ifMatch == null ? null : version);
+        }
     }
 
+    @Transactional
     public void deleteDynamicField(String dynamicFieldId) throws NoEntityFoundException {
         var dynamicField = findDynamicField(dynamicFieldId);
         dynamicFieldRepository.delete(dynamicField);
+        sampleService.incrementVersion(dynamicField.getSample().getId(), null);
     }
 
     private DynamicField findDynamicField(String dynamicFieldId) throws NoEntityFoundException {
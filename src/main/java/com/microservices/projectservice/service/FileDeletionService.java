@@ -0,0 +1,153 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.entity.FileDeletion;
+import com.microservices.projectservice.repository.FileDeletionRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Outbox of the files to delete from the file service. Deletions are recorded in the transaction removing the
+ * entity referencing the file, so a request never waits for the file service and a file is never forgotten when
+ * the file service is down.
+ * <p>
+ * A worker takes due deletions by batches of {@link #BATCH_SIZE}, sends them with at most
+ * {@value #MAX_CONCURRENT_DELETIONS} requests in flight, removes the delivered ones at once and schedules the
+ * others again with an exponential backoff, until {@value #MAX_ATTEMPTS} attempts.
+ */
+@Slf4j
+@Service
+@Timed(value = "service.invocations", histogram = true)
+@RequiredArgsConstructor
+public class FileDeletionService {
+
+    static final int BATCH_SIZE = 100;
+    private static final int MAX_CONCURRENT_DELETIONS = 16;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final Duration LEASE = Duration.ofMinutes(1);
+    private static final Duration FIRST_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final FileDeletionRepository fileDeletionRepository;
+    private final FileService fileService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Records the files to delete, in the transaction removing their references. Blank IDs are ignored.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<String> fileIds) {
+        var now = Timestamp.from(Instant.now());
+        var deletions = fileIds.stream()
+                .filter(fileId -> fileId != null && !fileId.isBlank())
+                .distinct()
+                .map(fileId -> FileDeletion.builder().fileId(fileId).nextAttemptAt(now).build())
+                .toList();
+        if (!deletions.isEmpty()) fileDeletionRepository.saveAll(deletions);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String fileId) {
+        enqueue(Collections.singletonList(fileId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.file-deletion-poll-interval:PT5S}")
+    public void deliverPendingDeletions() {
+        List<FileDeletion> batch;
+        do {
+            var token = UUID.randomUUID().toString();
+            batch = claimBatch(token);
+            if (!batch.isEmpty()) deliver(batch, token);
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    private List<FileDeletion> claimBatch(String token) {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> {
+            var now = Timestamp.from(Instant.now());
+            var ids = fileDeletionRepository.findDueIds(now, Limit.of(BATCH_SIZE));
+            if (ids.isEmpty()) return Collections.<FileDeletion>emptyList();
+
+            fileDeletionRepository.claim(ids, token, now, Timestamp.from(Instant.now().plus(LEASE)));
+            return fileDeletionRepository.findAllByClaimToken(token);
+        }));
+    }
+
+    /**
+     * Sends the deletions of the batch, then removes the delivered ones and reschedules the others. The batch was
+     * read in the claiming transaction, so the others are released by the token rather than saved: a deletion
+     * taken over by another worker once the lease ended keeps its new claim.
+     */
+    private void deliver(List<FileDeletion> batch, String token) {
+        var permits = new Semaphore(MAX_CONCURRENT_DELETIONS);
+        var futures = new HashMap<FileDeletion, Future<Boolean>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var deletion : batch) {
+                futures.put(deletion, executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return fileService.deleteFile(deletion.getFileId());
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<String> deliveredIds = new ArrayList<>();
+            // the deletions failed as many times are due again at the same time
+            Map<Integer, List<FileDeletion>> failedByAttempts = new TreeMap<>();
+            futures.forEach((deletion, future) -> {
+                if (awaitDeletion(deletion, future)) deliveredIds.add(deletion.getId());
+                else failedByAttempts.computeIfAbsent(deletion.getAttempts(), attempts -> new ArrayList<>())
+                        .add(deletion);
+            });
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!deliveredIds.isEmpty()) fileDeletionRepository.deleteAllByIdIn(deliveredIds);
+                failedByAttempts.forEach((attempts, failed) -> fileDeletionRepository.reschedule(
+                        failed.stream().map(FileDeletion::getId).toList(), token, nextAttemptAt(attempts, failed)));
+            });
+        }
+    }
+
+    private boolean awaitDeletion(FileDeletion deletion, Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            log.warn("Cannot delete file " + deletion.getFileId(), exception.getCause());
+            return false;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return when the deletions are due again, {@code null} when they are given up.
+     */
+    private static Timestamp nextAttemptAt(int attempts, List<FileDeletion> deletions) {
+        if (attempts >= MAX_ATTEMPTS) {
+            for (var deletion : deletions)
+                log.error("Giving up deleting file " + deletion.getFileId() + " after " + attempts + " attempts");
+            return null;
+        }
+
+        var backoff = FIRST_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 16));
+        if (backoff.compareTo(MAX_BACKOFF) > 0) backoff = MAX_BACKOFF;
+        return Timestamp.from(Instant.now().plus(backoff));
+    }
+
+}
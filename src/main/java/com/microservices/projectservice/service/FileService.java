@@ -1,5 +1,8 @@
 package com.microservices.projectservice.service;
 
+import com.microservices.projectservice.config.DownstreamMetricsInterceptor;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
@@ -11,17 +14,25 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Slf4j
 @Service
+@Timed(value = "service.invocations", histogram = true)
 @Validated
 public class FileService {
 
+    private static final int MAX_CONCURRENT_CHECKS = 16;
+
     private final RestClient client;
 
     @Autowired
     public FileService(RestClient.Builder builder,
-                       @Value("${app.file-service-id}") String fileServiceId) {
-        this.client = builder
+                       @Value("${app.file-service-id}") String fileServiceId,
+                       MeterRegistry meterRegistry) {
+        this.client = builder.clone()
+                .requestInterceptor(new DownstreamMetricsInterceptor(meterRegistry, fileServiceId))
                 .baseUrl("http://" + fileServiceId + "/api/file")
                 .build();
     }
@@ -41,8 +52,22 @@ public class FileService {
         }
     }
 
-    @Nullable
-    public Boolean deleteFile(String fileId) {
+    /**
+     * Checks the existence of several files at once. Requests are sent concurrently,
+     * with at most {@value #MAX_CONCURRENT_CHECKS} of them in flight.
+     *
+     * @return existence of each distinct file ID, the value is {@code null} when it cannot be checked.
+     */
+    public Map<String, Boolean> checkFilesExist(Collection<String> fileIds) {
+        return ConcurrentLookups.lookUpAll(fileIds, MAX_CONCURRENT_CHECKS, this::checkFileExists, "file");
+    }
+
+    /**
+     * Only called by {@link FileDeletionService}, a file already missing counts as deleted.
+     *
+     * @return whether the file is gone, server and I/O errors are thrown so the deletion can be retried.
+     */
+    public boolean deleteFile(String fileId) {
         try {
             return client.delete()
                     .uri("/{fileId}", fileId)
@@ -50,9 +75,11 @@ public class FileService {
                     .toBodilessEntity()
                     .getStatusCode()
                     .is2xxSuccessful();
+        } catch (HttpClientErrorException.NotFound exception) {
+            return true;
         } catch (HttpClientErrorException exception) {
             log.warn(exception.getMessage(), exception);
-            return null;
+            return false;
         }
     }
 
@@ -1,22 +1,31 @@
 package com.microservices.projectservice.service;
 
+import com.microservices.projectservice.dto.request.EntityTags;
 import com.microservices.projectservice.dto.request.FormCreateRequest;
 import com.microservices.projectservice.dto.request.FormUpdateRequest;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.entity.Form;
 import com.microservices.projectservice.exception.IllegalAttributeException;
 import com.microservices.projectservice.exception.NoEntityFoundException;
+import com.microservices.projectservice.exception.PreconditionFailedException;
 import com.microservices.projectservice.repository.FormRepository;
 import com.microservices.projectservice.repository.ProjectRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.Objects;
 
 @Service
+@Timed(value = "service.invocations", histogram = true)
 @RequiredArgsConstructor
 public class FormService {
 
@@ -24,21 +33,65 @@ public class FormService {
     private final ProjectRepository projectRepository;
     private final ProjectService projectService;
 
-    public Page<Form> getAllForms(String projectId,
-                                  Integer pageNumber,
-                                  Integer pageSize) throws NoEntityFoundException {
-        if (!projectRepository.existsById(projectId))
+    /**
+     * @param count whether to count the forms, the result is a {@link Page} only then.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Form> getAllForms(String projectId,
+                                   Integer pageNumber,
+                                   Integer pageSize,
+                                   boolean count) throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
             throw new NoEntityFoundException("No project found with id: " + projectId);
 
-        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt").descending());
-        return formRepository.findAllByProjectOwner_Id(projectId, pageable);
+        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt", "id").descending());
+        return withUsageStages(count
+                ? formRepository.findAllByProjectOwner_Id(projectId, pageable)
+                : formRepository.findSliceByProjectOwner_Id(projectId, pageable));
     }
 
+    @Transactional(readOnly = true)
+    public Slice<Form> getAllForms(String projectId,
+                                   PageCursor after,
+                                   Integer pageSize) throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
+
+        return withUsageStages(formRepository.findAllByProjectOwner_IdBefore(
+                projectId, after.createdAt(), after.id(), PageRequest.ofSize(pageSize)));
+    }
+
+    /**
+     * Loads the usage stages of every form in the page, see {@link ProjectService}.
+     */
+    private static <T extends Slice<Form>> T withUsageStages(T forms) {
+        forms.forEach(form -> Hibernate.initialize(form.getUsageStages()));
+        return forms;
+    }
+
+    /**
+     * @return the form with its usage stages loaded. Both are usually read from the second-level cache.
+     */
+    @Transactional(readOnly = true)
     public Form getForm(String formId) throws NoEntityFoundException {
         return formRepository.findById(formId)
+                .map(form -> {
+                    Hibernate.initialize(form.getUsageStages());
+                    return form;
+                })
+                .orElseThrow(() -> new NoEntityFoundException("No form found with id: " + formId));
+    }
+
+    /**
+     * Same as {@link #getForm} reading only the version, to answer {@code If-None-Match} without the form.
+     */
+    @Transactional(readOnly = true)
+    public long getFormVersion(String formId) throws NoEntityFoundException {
+        return formRepository.findVersionById(formId)
                 .orElseThrow(() -> new NoEntityFoundException("No form found with id: " + formId));
     }
 
+    @Transactional
     public String createForm(FormCreateRequest body) throws NoEntityFoundException {
         var project = projectService.getProject(body.projectOwnerId());
         var form = Form.builder()
@@ -49,10 +102,12 @@ public class FormService {
         return formRepository.save(form).getId();
     }
 
-    public void updateForm(String formId, FormUpdateRequest body)
-            throws IllegalAttributeException, NoEntityFoundException {
+    @Transactional
+    public void updateForm(String formId, FormUpdateRequest body, @Nullable EntityTags ifMatch)
+            throws IllegalAttributeException, NoEntityFoundException, PreconditionFailedException {
         var isUpdate = false;
         var form = getForm(formId);
+        EntityTags.check(ifMatch, form.getVersion());
 
         var title = body.title();
         if (title != null) {
@@ -70,6 +125,7 @@ public class FormService {
         if (isUpdate) formRepository.save(form);
     }
 
+    @Transactional
     public void deleteForm(String formId) throws NoEntityFoundException, IllegalAttributeException {
         var form = getForm(formId);
         var usageStages = Objects.requireNonNullElse(form.getUsageStages(), Collections.emptyList());
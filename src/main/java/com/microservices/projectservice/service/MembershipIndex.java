@@ -0,0 +1,263 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.repository.MembershipRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the project and stage memberships, answering the access checks made by other services on
+ * nearly every request without querying the database.
+ * <p>
+ * The index is loaded at startup, then updated by the services once their membership changes are committed. The
+ * changes made by the other instances of this service are picked up from the {@code ChangeLog}, which logs a
+ * change of a project or stage along with any change of its members: every
+ * {@code app.membership-index-poll-interval}, the memberships of the projects changed since the last poll are read
+ * again. A change is only passed once older than {@code app.sync.settle-time}, so one committed late with a lower
+ * id is not skipped.
+ * <p>
+ * The index is also fully reloaded every {@code app.membership-index-refresh-interval}, in case a change was still
+ * missed. Updates made while a reload runs are replayed on the reloaded index; they are idempotent, so replaying
+ * one already read from the database is harmless.
+ * <p>
+ * Until the first load is done, {@link #isLoaded()} is false and callers must query the database instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MembershipIndex {
+
+    private static final int MAX_POLLED_CHANGES = 1000;
+
+    private final MembershipRepository membershipRepository;
+    private final AppProperties appProperties;
+
+    private volatile Snapshot snapshot;
+    /**
+     * Updates made since the running reload started, {@code null} when no reload is running.
+     */
+    private List<Consumer<Snapshot>> pendingUpdates;
+    /**
+     * Held by the reloads and the polls, so a poll never replays memberships older than the ones reloaded.
+     */
+    private final Object refreshLock = new Object();
+    /**
+     * Id of the last change the index is known to hold, {@code -1} until the first load.
+     */
+    private long lastChangeId = -1;
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    public boolean isProjectMember(String projectId, String userId) {
+        var members = snapshot.projectMembers.get(projectId);
+        return members != null && members.contains(userId);
+    }
+
+    /**
+     * @return whether the user is a member of at least one stage of the project.
+     */
+    public boolean isStageMember(String projectId, String userId) {
+        var stagesByMember = snapshot.stagesByMember.get(projectId);
+        if (stagesByMember == null) return false;
+        var stageIds = stagesByMember.get(userId);
+        return stageIds != null && !stageIds.isEmpty();
+    }
+
+    /**
+     * @return the projects the user is a member of.
+     */
+    public Set<String> getProjectIds(String userId) {
+        var projectIds = snapshot.projectsByMember.get(userId);
+        return projectIds == null ? Collections.emptySet() : Collections.unmodifiableSet(projectIds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.membership-index-refresh-interval:PT1H}")
+    public void reload() {
+        synchronized (refreshLock) {
+            // the changes logged while loading are polled next
+            if (lastChangeId < 0) lastChangeId = membershipRepository.findLastChangeId();
+            load();
+        }
+    }
+
+    /**
+     * Reads again the memberships of the projects changed since the last poll, on any instance.
+     */
+    @Scheduled(fixedDelayString = "${app.membership-index-poll-interval:PT2S}")
+    public void pollChanges() {
+        synchronized (refreshLock) {
+            if (lastChangeId < 0) return;
+            try {
+                var changes = membershipRepository.findProjectChangesAfter(lastChangeId, MAX_POLLED_CHANGES);
+                if (changes.isEmpty()) return;
+                var projectIds = changes.stream()
+                        .map(MembershipRepository.ProjectChange::projectId)
+                        .collect(Collectors.toSet());
+                var loaded = new Snapshot();
+                membershipRepository.forEachProjectMember(projectIds,
+                        member -> loaded.addProjectMember(member.projectId(), member.memberId()));
+                membershipRepository.forEachStageMember(projectIds,
+                        member -> loaded.addStageMember(member.projectId(), member.stageId(), member.memberId()));
+                apply(index -> index.replaceProjects(projectIds, loaded));
+
+                // the changes not settled yet are read again, with the ones committing late before them
+                var settledBefore = Instant.now().minus(appProperties.getSync().getSettleTime());
+                for (var change : changes) {
+                    if (!change.changedAt().toInstant().isBefore(settledBefore)) break;
+                    lastChangeId = change.id();
+                }
+            } catch (RuntimeException exception) {
+                log.error("Cannot poll the membership changes", exception);
+            }
+        }
+    }
+
+    private void load() {
+        synchronized (this) {
+            pendingUpdates = new ArrayList<>();
+        }
+        try {
+            var loaded = new Snapshot();
+            membershipRepository.forEachProjectMember(
+                    member -> loaded.addProjectMember(member.projectId(), member.memberId()));
+            membershipRepository.forEachStageMember(
+                    member -> loaded.addStageMember(member.projectId(), member.stageId(), member.memberId()));
+            synchronized (this) {
+                pendingUpdates.forEach(update -> update.accept(loaded));
+                snapshot = loaded;
+            }
+        } catch (RuntimeException exception) {
+            log.error("Cannot reload the membership index", exception);
+        } finally {
+            synchronized (this) {
+                pendingUpdates = null;
+            }
+        }
+    }
+
+    public void addProjectMembers(String projectId, Collection<String> memberIds) {
+        afterCommit(index -> memberIds.forEach(memberId -> index.addProjectMember(projectId, memberId)));
+    }
+
+    public void removeProjectMembers(String projectId, Collection<String> memberIds) {
+        afterCommit(index -> memberIds.forEach(memberId -> index.removeProjectMember(projectId, memberId)));
+    }
+
+    public void addStageMembers(String projectId, String stageId, Collection<String> memberIds) {
+        afterCommit(index -> memberIds.forEach(memberId -> index.addStageMember(projectId, stageId, memberId)));
+    }
+
+    public void removeStageMembers(String projectId, String stageId, Collection<String> memberIds) {
+        afterCommit(index -> memberIds.forEach(memberId -> index.removeStageMember(projectId, stageId, memberId)));
+    }
+
+    public void removeStage(String projectId, String stageId) {
+        afterCommit(index -> index.removeStage(projectId, stageId));
+    }
+
+    public void removeProject(String projectId) {
+        afterCommit(index -> index.removeProject(projectId));
+    }
+
+    /**
+     * Applies the update once the current transaction is committed, or right away outside a transaction.
+     */
+    private void afterCommit(Consumer<Snapshot> update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(update);
+            }
+        });
+    }
+
+    private synchronized void apply(Consumer<Snapshot> update) {
+        if (snapshot != null) update.accept(snapshot);
+        if (pendingUpdates != null) pendingUpdates.add(update);
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Set<String>> projectMembers = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> projectsByMember = new ConcurrentHashMap<>();
+        /**
+         * Stages of each member, by project.
+         */
+        private final Map<String, Map<String, Set<String>>> stagesByMember = new ConcurrentHashMap<>();
+
+        private void addProjectMember(String projectId, String memberId) {
+            projectMembers.computeIfAbsent(projectId, id -> ConcurrentHashMap.newKeySet()).add(memberId);
+            projectsByMember.computeIfAbsent(memberId, id -> ConcurrentHashMap.newKeySet()).add(projectId);
+        }
+
+        private void removeProjectMember(String projectId, String memberId) {
+            var members = projectMembers.get(projectId);
+            if (members != null) members.remove(memberId);
+            var projectIds = projectsByMember.get(memberId);
+            if (projectIds != null) projectIds.remove(projectId);
+        }
+
+        private void addStageMember(String projectId, String stageId, String memberId) {
+            stagesByMember.computeIfAbsent(projectId, id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(memberId, id -> ConcurrentHashMap.newKeySet())
+                    .add(stageId);
+        }
+
+        private void removeStageMember(String projectId, String stageId, String memberId) {
+            var stagesOfProject = stagesByMember.get(projectId);
+            if (stagesOfProject == null) return;
+            var stageIds = stagesOfProject.get(memberId);
+            if (stageIds != null) stageIds.remove(stageId);
+        }
+
+        private void removeStage(String projectId, String stageId) {
+            var stagesOfProject = stagesByMember.get(projectId);
+            if (stagesOfProject != null) stagesOfProject.values().forEach(stageIds -> stageIds.remove(stageId));
+        }
+
+        /**
+         * Replaces the memberships of the projects with the loaded ones. Members are added before the former ones
+         * are removed, so the members staying are never seen out of their project.
+         */
+        private void replaceProjects(Collection<String> projectIds, Snapshot loaded) {
+            for (var projectId : projectIds) {
+                var members = loaded.projectMembers.getOrDefault(projectId, Collections.emptySet());
+                members.forEach(memberId -> addProjectMember(projectId, memberId));
+                var formerMembers = projectMembers.get(projectId);
+                if (formerMembers != null) formerMembers.stream()
+                        .filter(memberId -> !members.contains(memberId))
+                        .toList()
+                        .forEach(memberId -> removeProjectMember(projectId, memberId));
+
+                var stages = loaded.stagesByMember.get(projectId);
+                if (stages == null) stagesByMember.remove(projectId);
+                else stagesByMember.put(projectId, stages);
+            }
+        }
+
+        private void removeProject(String projectId) {
+            var members = projectMembers.remove(projectId);
+            if (members != null) members.forEach(memberId -> {
+                var projectIds = projectsByMember.get(memberId);
+                if (projectIds != null) projectIds.remove(projectId);
+            });
+            stagesByMember.remove(projectId);
+        }
+    }
+
+}
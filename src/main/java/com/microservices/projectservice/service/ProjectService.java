@@ -1,52 +1,139 @@
 package com.microservices.projectservice.service;
 
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.config.QueryCounter;
+import com.microservices.projectservice.constant.MemberOperator;
 import com.microservices.projectservice.constant.ProjectQueryType;
+import com.microservices.projectservice.constant.ProjectRole;
 import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.constant.PurgeTarget;
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.dto.request.EntityTags;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.request.ProjectCreateRequest;
 import com.microservices.projectservice.dto.request.ProjectMemberRequest;
+import com.microservices.projectservice.dto.request.ProjectMembersRequest;
 import com.microservices.projectservice.dto.request.ProjectUpdateRequest;
+import com.microservices.projectservice.dto.request.ProjectUserRequest;
+import com.microservices.projectservice.entity.ChangeLog;
 import com.microservices.projectservice.entity.Project;
 import com.microservices.projectservice.entity.User;
 import com.microservices.projectservice.exception.*;
+import com.microservices.projectservice.repository.ChangeLogRepository;
+import com.microservices.projectservice.repository.EntityVersionRepository;
+import com.microservices.projectservice.repository.MembershipRepository;
 import com.microservices.projectservice.repository.ProjectRepository;
 import com.microservices.projectservice.repository.StageRepository;
+import com.microservices.projectservice.repository.UserProjectAccessRepository;
 import com.microservices.projectservice.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 
 @Service
+@Timed(value = "service.invocations", histogram = true)
 @RequiredArgsConstructor
 public class ProjectService {
 
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
     private final StageRepository stageRepository;
+    private final MembershipRepository membershipRepository;
+    private final UserProjectAccessRepository userProjectAccessRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final EntityVersionRepository entityVersionRepository;
+    private final MembershipIndex membershipIndex;
 
     private final UserService userService;
     private final FileService fileService;
+    private final PurgeService purgeService;
+    private final FileDeletionService fileDeletionService;
 
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+
+    /**
+     * @return the project with its members loaded, unless it is being deleted.
+     */
+    @Transactional(readOnly = true)
     public Project getProject(String projectId) throws NoEntityFoundException {
-        return projectRepository.findById(projectId)
+        return projectRepository.findWithMembersById(projectId)
+                .filter(project -> project.getStatus() != ProjectStatus.DELETING)
+                .orElseThrow(() -> new NoEntityFoundException("No project found with id: " + projectId));
+    }
+
+    /**
+     * Same as {@link #getProject} reading only the version, to answer {@code If-None-Match} without the project.
+     */
+    @Transactional(readOnly = true)
+    public long getProjectVersion(String projectId) throws NoEntityFoundException {
+        return projectRepository.findActiveVersionById(projectId)
                 .orElseThrow(() -> new NoEntityFoundException("No project found with id: " + projectId));
     }
 
-    public Page<Project> getAllProjects(String userId, ProjectQueryType query,
-                                        ProjectStatus status, Integer pageNumber, Integer pageSize) {
-        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt").descending());
-        return switch (query) {
-            case ALL -> projectRepository.findAllProjectByUserIdAndStatus(userId, status, pageable);
-            case OWN -> projectRepository.findAllByOwner_IdAndStatus(userId, status, pageable);
-            case JOIN -> projectRepository.findAllByMembers_IdAndStatus(userId, status, pageable);
-        };
+    /**
+     * Lists the projects from {@code user_project_access}, newest first.
+     *
+     * @param count whether to count the projects, the result is a {@link Page} only then.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Project> getAllProjects(String userId, ProjectQueryType query, ProjectStatus status,
+                                         Integer pageNumber, Integer pageSize, boolean count) {
+        var pageable = PageRequest.of(pageNumber, pageSize);
+        if (!count) return withMembers(switch (query) {
+            case ALL -> projectRepository.findSliceByAccess(userId, status, pageable);
+            case OWN -> projectRepository.findSliceByAccess(userId, ProjectRole.OWNER, status, pageable);
+            case JOIN -> projectRepository.findSliceByAccess(userId, ProjectRole.MEMBER, status, pageable);
+        });
+        return withMembers(switch (query) {
+            case ALL -> projectRepository.findAllByAccess(userId, status, pageable);
+            case OWN -> projectRepository.findAllByAccess(userId, ProjectRole.OWNER, status, pageable);
+            case JOIN -> projectRepository.findAllByAccess(userId, ProjectRole.MEMBER, status, pageable);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Project> getAllProjects(String userId, ProjectQueryType query,
+                                         ProjectStatus status, PageCursor after, Integer pageSize) {
+        Timestamp createdAt = after.createdAt();
+        String id = after.id();
+        var pageable = PageRequest.ofSize(pageSize);
+        return withMembers(switch (query) {
+            case ALL -> projectRepository.findAllByAccessBefore(userId, status, createdAt, id, pageable);
+            case OWN -> projectRepository.findAllByAccessBefore(
+                    userId, ProjectRole.OWNER, status, createdAt, id, pageable);
+            case JOIN -> projectRepository.findAllByAccessBefore(
+                    userId, ProjectRole.MEMBER, status, createdAt, id, pageable);
+        });
     }
 
+    /**
+     * Loads the members of every project in the page, so they can be mapped once the transaction is closed.
+     * The member collections are batch fetched, see {@code hibernate.default_batch_fetch_size}.
+     */
+    private static <T extends Slice<Project>> T withMembers(T projects) {
+        projects.forEach(project -> Hibernate.initialize(project.getMembers()));
+        return projects;
+    }
+
+    /**
+     * Checks the owner, the thumbnail and the unknown members against the remote services concurrently first, then
+     * saves the project in a single transaction, so no connection is held while waiting for them.
+     */
     public String createProject(ProjectCreateRequest body) throws IllegalAttributeException {
         LocalDate startDate = body.startDate(),
                 endDate = body.endDate();
@@ -54,71 +141,116 @@ public class ProjectService {
             throw new IllegalAttributeException("Project start date cannot be greater than end date.");
 
         var userOwnerId = body.ownerId();
+        var thumbnailId = body.thumbnailId();
+        var hasThumbnail = thumbnailId != null && !thumbnailId.isBlank();
+        var memberIds = body.memberIds();
+        // take id not equal to ownerId only
+        List<String> filteredMemberIds = memberIds == null
+                ? null
+                : memberIds.stream().filter(id -> !id.equals(userOwnerId)).toList();
+
+        try (var checks = new RemoteChecks(appProperties.getRemoteCheckTimeout(), QueryCounter.current())) {
+            checks.check(() -> checkOwner(userOwnerId));
+            if (hasThumbnail) checks.check(() -> checkThumbnail(thumbnailId));
+            if (filteredMemberIds != null) checks.check(() -> checkMembers(filteredMemberIds));
+            checks.join();
+        }
+
+        return transactionTemplate.execute(status -> {
+            var owner = userRepository.findById(userOwnerId)
+                    .orElse(User.builder().id(userOwnerId).build());
+            var projectBuilder = Project.builder()
+                    .name(body.name())
+                    .description(body.description())
+                    .startDate(startDate)
+                    .endDate(endDate)
+                    .status(ProjectStatus.NORMAL)
+                    .owner(owner);
+            if (hasThumbnail) projectBuilder.thumbnailId(thumbnailId);
+
+            if (filteredMemberIds != null) {
+                var members = new HashSet<>(userRepository.findAllById(filteredMemberIds));
+                var existedIds = members.stream().map(User::getId).toList();
+                filteredMemberIds.stream()
+                        .filter(id -> !existedIds.contains(id))
+                        .forEach(id -> members.add(User.builder().id(id).build()));
+                projectBuilder.members(members);
+            }
+
+            var projectId = projectRepository.save(projectBuilder.build()).getId();
+            userProjectAccessRepository.insertAll(projectId, List.of(userOwnerId), ProjectRole.OWNER);
+            if (filteredMemberIds != null && !filteredMemberIds.isEmpty()) {
+                userProjectAccessRepository.insertAll(projectId, filteredMemberIds, ProjectRole.MEMBER);
+                membershipIndex.addProjectMembers(projectId, filteredMemberIds);
+            }
+            return projectId;
+        });
+    }
+
+    private void checkOwner(String userOwnerId) throws IllegalAttributeException {
         var isOwnerExists = Objects.requireNonNull(
                 userService.checkUserExists(userOwnerId),
                 "Cannot check user owner existence for user id: " + userOwnerId
         );
         if (!isOwnerExists)
             throw new IllegalAttributeException("User with id " + userOwnerId + " not found.");
-        var owner = userRepository.findById(userOwnerId)
-                .orElse(User.builder().id(userOwnerId).build());
-        var projectBuilder = Project.builder()
-                .name(body.name())
-                .description(body.description())
-                .startDate(startDate)
-                .endDate(endDate)
-                .status(ProjectStatus.NORMAL)
-                .owner(owner);
-
-        var thumbnailId = body.thumbnailId();
-        if (thumbnailId != null && !thumbnailId.isBlank()) {
-            var isThumbnailExists = Objects.requireNonNull(
-                    fileService.checkFileExists(thumbnailId),
-                    "Cannot check thumbnail existence."
-            );
-            if (!isThumbnailExists) throw new IllegalAttributeException("Thumbnail file does not exist.");
-
-            projectBuilder.thumbnailId(thumbnailId);
-        }
+    }
 
-        var memberIds = body.memberIds();
-        if (memberIds != null) {
-            // take id not equal to ownerId only
-            var filteredMemberIds = memberIds.stream().filter(id -> !id.equals(userOwnerId)).toList();
-            var existedUsers = userRepository.findAllById(filteredMemberIds);
-
-            // check users not existed
-            if (existedUsers.size() != filteredMemberIds.size()) {
-                var existedIds = existedUsers.stream().map(User::getId).toList();
-                var newUsers = filteredMemberIds.stream()
-                        .filter(id -> !existedIds.contains(id))
-                        .map(id -> {
-                            // Check if user not exists
-                            var isExist = Objects.requireNonNull(
-                                    userService.checkUserExists(id),
-                                    "Cannot check existence for user id: " + id
-                            );
-                            if (!isExist)
-                                throw new IllegalAttributeException("User with id " + id + " not found.");
-
-                            return User.builder().id(id).build();
-                        }).toList();
-                existedUsers.addAll(newUsers);
-            }
-            projectBuilder.members(new HashSet<>(existedUsers));
-        }
+    private void checkThumbnail(String thumbnailId) throws IllegalAttributeException {
+        var isThumbnailExists = Objects.requireNonNull(
+                fileService.checkFileExists(thumbnailId),
+                "Cannot check thumbnail existence."
+        );
+        if (!isThumbnailExists) throw new IllegalAttributeException("Thumbnail file does not exist.");
+    }
 
-        return projectRepository.save(projectBuilder.build()).getId();
+    /**
+     * Checks the members not known by this service yet against the user service.
+     */
+    private void checkMembers(List<String> memberIds) throws IllegalAttributeException {
+        var existedIds = userRepository.findAllById(memberIds).stream().map(User::getId).toList();
+
+        // check users not existed
+        var unknownIds = memberIds.stream().filter(id -> !existedIds.contains(id)).toList();
+        var existences = userService.checkUsersExist(unknownIds);
+        unknownIds.forEach(id -> {
+            var isExist = Objects.requireNonNull(
+                    existences.get(id),
+                    "Cannot check existence for user id: " + id
+            );
+            if (!isExist)
+                throw new IllegalAttributeException("User with id " + id + " not found.");
+        });
     }
 
+    /**
+     * Answers from {@link MembershipIndex}, the database is only queried until the index is loaded.
+     */
+    @Transactional(readOnly = true)
     public boolean checkUserInAnyStage(String projectId, String userId) {
+        if (membershipIndex.isLoaded()) return membershipIndex.isStageMember(projectId, userId);
         return stageRepository.existsByProjectOwner_IdAndMembers_Id(projectId, userId);
     }
 
-    public void updateProject(String projectId, ProjectUpdateRequest body)
-            throws IllegalAttributeException, NoEntityFoundException {
+    /**
+     * @return whether each user joined any stage of its project, in the order of the pairs.
+     */
+    @Transactional(readOnly = true)
+    public List<Boolean> checkUsersInAnyStage(List<ProjectUserRequest> pairs) {
+        return pairs.stream()
+                .map(pair -> checkUserInAnyStage(pair.projectId(), pair.userId()))
+                .toList();
+    }
+
+    /**
+     * The replaced thumbnail is queued for deletion in the same transaction, see {@link FileDeletionService}.
+     */
+    @Transactional
+    public void updateProject(String projectId, ProjectUpdateRequest body, @Nullable EntityTags ifMatch)
+            throws IllegalAttributeException, NoEntityFoundException, PreconditionFailedException {
         var isUpdated = false;
         var project = getProject(projectId);
+        EntityTags.check(ifMatch, project.getVersion());
 
         var currentThumbnailId = project.getThumbnailId();
         var newThumbnailId = body.thumbnailId();
@@ -126,7 +258,7 @@ public class ProjectService {
             !newThumbnailId.isBlank() &&
             !newThumbnailId.equals(currentThumbnailId)
         ) {
-            if (currentThumbnailId != null) fileService.deleteFile(currentThumbnailId);
+            if (currentThumbnailId != null) fileDeletionService.enqueue(currentThumbnailId);
 
             project.setThumbnailId(newThumbnailId);
             isUpdated = true;
@@ -144,8 +276,11 @@ public class ProjectService {
             project.setDescription(description);
 
         var status = body.status();
+        if (status == ProjectStatus.DELETING)
+            throw new IllegalAttributeException("Project status cannot be set to DELETING, delete the project instead.");
         if (status != null) {
             project.setStatus(status);
+            userProjectAccessRepository.updateStatus(projectId, status);
             isUpdated = true;
         }
 
@@ -166,52 +301,111 @@ public class ProjectService {
         if (isUpdated) projectRepository.save(project);
     }
 
-    public void updateMember(String projectId, ProjectMemberRequest body)
-            throws NoEntityFoundException, IllegalAttributeException {
+    /**
+     * Adds or removes one member with a single statement on {@code project_member}, whatever the number of members.
+     */
+    public void updateMember(String projectId, ProjectMemberRequest body, @Nullable EntityTags ifMatch)
+            throws NoEntityFoundException, IllegalAttributeException, DataConflictException,
+            PreconditionFailedException {
         var memberId = body.memberId();
-        var isExist = Objects.requireNonNull(
-                userService.checkUserExists(memberId),
-                "Cannot check existence for user id: " + memberId
-        );
-        if (!isExist) throw new IllegalAttributeException("Member with id " + memberId + " not found.");
-
-        var isUpdated = false;
-        var project = getProject(projectId);
+        if (body.operator() == MemberOperator.ADD) {
+            var isExist = Objects.requireNonNull(
+                    userService.checkUserExists(memberId),
+                    "Cannot check existence for user id: " + memberId
+            );
+            if (!isExist) throw new IllegalAttributeException("Member with id " + memberId + " not found.");
+        }
 
-        switch (body.operator()) {
-            case ADD -> {
-                var existMembers = project.getMembers();
-                var isMemberIdExisted = existMembers.stream()
-                        .anyMatch(member -> member.getId().equals(memberId));
-                if (isMemberIdExisted)
-                    throw new DataConflictException("Member already exists.");
-
-                var user = userRepository.findById(memberId)
-                        .orElse(User.builder().id(memberId).build());
-                existMembers.add(user);
-                isUpdated = true;
+        transactionTemplate.executeWithoutResult(status -> {
+            recordMembersChange(projectId, ifMatch);
+            switch (body.operator()) {
+                case ADD -> {
+                    membershipRepository.insertUsersIfAbsent(List.of(memberId));
+                    if (!membershipRepository.addProjectMember(projectId, memberId))
+                        throw new DataConflictException("Member already exists.");
+                    userProjectAccessRepository.insertAll(projectId, List.of(memberId), ProjectRole.MEMBER);
+                    recordAccessChange(projectId, List.of(memberId), false);
+                    membershipIndex.addProjectMembers(projectId, List.of(memberId));
+                }
+                case REMOVE -> {
+                    if (!membershipRepository.removeProjectMember(projectId, memberId))
+                        throw new DataConflictException("Member does not exist.");
+                    userProjectAccessRepository.deleteAll(projectId, List.of(memberId), ProjectRole.MEMBER);
+                    recordAccessChange(projectId, List.of(memberId), true);
+                    membershipIndex.removeProjectMembers(projectId, List.of(memberId));
+                }
             }
-            case REMOVE -> {
-                var isRemoved = project.getMembers()
-                        .removeIf(user -> user.getId().equals(memberId));
-                if (isRemoved) isUpdated = true;
-                else throw new DataConflictException("Member does not exist.");
-            }
-        }
-        if (isUpdated) projectRepository.save(project);
+        });
     }
 
-    public void deleteProject(String projectId) throws NoEntityFoundException {
-        var project = getProject(projectId);
+    /**
+     * Adds or removes many members at once. Unlike {@link #updateMember}, adding a member already in the project
+     * or removing a user not in it is not a conflict, so a batch can be safely sent again.
+     */
+    public void updateMembers(String projectId, ProjectMembersRequest body, @Nullable EntityTags ifMatch)
+            throws NoEntityFoundException, IllegalAttributeException, PreconditionFailedException {
+        var memberIds = body.memberIds().stream().distinct().toList();
+        if (body.operator() == MemberOperator.ADD) checkMembers(memberIds);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            recordMembersChange(projectId, ifMatch);
+            switch (body.operator()) {
+                case ADD -> {
+                    membershipRepository.insertUsersIfAbsent(memberIds);
+                    membershipRepository.addProjectMembers(projectId, memberIds);
+                    userProjectAccessRepository.insertAll(projectId, memberIds, ProjectRole.MEMBER);
+                    recordAccessChange(projectId, memberIds, false);
+                    membershipIndex.addProjectMembers(projectId, memberIds);
+                }
+                case REMOVE -> {
+                    membershipRepository.removeProjectMembers(projectId, memberIds);
+                    userProjectAccessRepository.deleteAll(projectId, memberIds, ProjectRole.MEMBER);
+                    recordAccessChange(projectId, memberIds, true);
+                    membershipIndex.removeProjectMembers(projectId, memberIds);
+                }
+            }
+        });
+    }
 
-        var thumbnailId = project.getThumbnailId();
-        if (thumbnailId != null && !thumbnailId.isBlank())
-            fileService.deleteFile(thumbnailId);
+    /**
+     * The members are updated without the entity, so neither its version nor the change log see the change. The
+     * version is incremented before the members change, only if it is still the one checked against the tags.
+     */
+    private void recordMembersChange(String projectId, @Nullable EntityTags ifMatch) {
+        var version = getProjectVersion(projectId);
+        EntityTags.check(ifMatch, version);
+        EntityTags.checkUpdated(entityVersionRepository.incrementVersion(
+                Project.class, projectId, ifMatch == null ? null : version));
+        changeLogRepository.save(ChangeLog.builder()
+                .projectId(projectId)
+                .entityType(SyncEntityType.PROJECT)
+                .entityId(projectId)
+                .deleted(false)
+                .changedAt(Timestamp.from(Instant.now()))
+                .build());
+    }
 
-        // Removes sample images
-        project.getSamples().forEach(sample -> fileService.deleteFile(sample.getAttachmentId()));
+    /**
+     * Logs the project as shared with the members or taken from them, for their sync only: a member gets the whole
+     * project on the next sync, a former member drops it.
+     */
+    private void recordAccessChange(String projectId, List<String> memberIds, boolean removed) {
+        if (memberIds.isEmpty()) return;
+        changeLogRepository.insertAccessChanges(projectId, memberIds, removed, Timestamp.from(Instant.now()));
+    }
 
-        projectRepository.delete(project);
+    /**
+     * Marks the project as being deleted, its samples, stages and forms are then purged in the background.
+     *
+     * @return the ID of the purge job.
+     */
+    @Transactional
+    public String deleteProject(String projectId) throws NoEntityFoundException {
+        var project = getProject(projectId);
+        project.setStatus(ProjectStatus.DELETING);
+        projectRepository.save(project);
+        userProjectAccessRepository.updateStatus(projectId, ProjectStatus.DELETING);
+        return purgeService.schedule(PurgeTarget.PROJECT, projectId).getId();
     }
 
 }
@@ -0,0 +1,206 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.constant.PurgeJobStatus;
+import com.microservices.projectservice.constant.PurgeTarget;
+import com.microservices.projectservice.entity.Form;
+import com.microservices.projectservice.entity.PurgeJob;
+import com.microservices.projectservice.exception.NoEntityFoundException;
+import com.microservices.projectservice.repository.*;
+import com.microservices.projectservice.repository.projection.SampleRow;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Deletes projects and stages in the background. A deleted project or stage is only marked as being deleted
+ * and a {@link PurgeJob} is created, then a worker removes its answers, dynamic fields and samples by chunks of
+ * {@link #CHUNK_SIZE} samples, one transaction per chunk, and finally the project or stage itself.
+ * <p>
+ * Workers take a job with a lease renewed at every chunk, so a job left by a stopped instance is taken over once
+ * its lease has expired. Each chunk first checks that the worker still holds the lease, so a worker whose lease
+ * expired stops when another one has taken the job over. A job runs until its target is gone, on one of the
+ * {@code spring.task.scheduling.pool.size} scheduler threads, so the other scheduled tasks keep running meanwhile.
+ */
+@Slf4j
+@Service
+@Timed(value = "service.invocations", histogram = true)
+@RequiredArgsConstructor
+public class PurgeService {
+
+    static final int CHUNK_SIZE = 1000;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int JOBS_PER_POLL = 10;
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    private final PurgeJobRepository purgeJobRepository;
+    private final ProjectRepository projectRepository;
+    private final StageRepository stageRepository;
+    private final EntityVersionRepository entityVersionRepository;
+    private final SampleRepository sampleRepository;
+    private final AnswerRepository answerRepository;
+    private final DynamicFieldRepository dynamicFieldRepository;
+    private final SampleLocationRepository sampleLocationRepository;
+    private final SampleClusterRepository sampleClusterRepository;
+    private final UserProjectAccessRepository userProjectAccessRepository;
+
+    private final FileDeletionService fileDeletionService;
+    private final MembershipIndex membershipIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Creates the job purging a project or a stage, in the transaction marking it as being deleted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public PurgeJob schedule(PurgeTarget targetType, String targetId) {
+        var totalSamples = switch (targetType) {
+            case PROJECT -> sampleRepository.countByProjectOwner_Id(targetId);
+            case STAGE -> sampleRepository.countByStage_Id(targetId);
+        };
+        return purgeJobRepository.save(PurgeJob.builder()
+                .targetType(targetType)
+                .targetId(targetId)
+                .totalSamples(totalSamples)
+                .build());
+    }
+
+    @Transactional(readOnly = true)
+    public PurgeJob getJob(String jobId) throws NoEntityFoundException {
+        return purgeJobRepository.findById(jobId)
+                .orElseThrow(() -> new NoEntityFoundException("No purge job found with id: " + jobId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.purge-poll-interval:PT5S}")
+    public void purgePendingJobs() {
+        var now = Timestamp.from(Instant.now());
+        var jobIds = purgeJobRepository.findClaimableIds(
+                PurgeJobStatus.PENDING, PurgeJobStatus.RUNNING, now, Limit.of(JOBS_PER_POLL));
+        for (var jobId : jobIds) {
+            var token = UUID.randomUUID().toString();
+            if (claim(jobId, token)) purge(jobId, token);
+        }
+    }
+
+    private boolean claim(String jobId, String token) {
+        var claimed = transactionTemplate.execute(status -> purgeJobRepository.claim(
+                jobId,
+                token,
+                PurgeJobStatus.PENDING,
+                PurgeJobStatus.RUNNING,
+                Timestamp.from(Instant.now()),
+                leaseUntil()
+        ));
+        return Objects.equals(claimed, 1);
+    }
+
+    private void purge(String jobId, String token) {
+        try {
+            boolean isLast;
+            do {
+                isLast = Boolean.TRUE.equals(transactionTemplate.execute(status -> purgeChunk(jobId, token)));
+            } while (!isLast);
+        } catch (RuntimeException exception) {
+            log.error("Cannot purge for job " + jobId, exception);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!holdsLease(jobId, token)) return;
+                var job = purgeJobRepository.getReferenceById(jobId);
+                job.setStatus(job.getAttempts() < MAX_ATTEMPTS ? PurgeJobStatus.PENDING : PurgeJobStatus.FAILED);
+                job.setError(errorOf(exception));
+            });
+        }
+    }
+
+    /**
+     * Deletes the next chunk of samples of the job target or, when there is none left, the target itself. The
+     * files of the deleted samples are queued for deletion in the same transaction. Nothing is deleted once the
+     * job has been taken over by another worker.
+     *
+     * @return whether the job is over, for this worker.
+     */
+    private boolean purgeChunk(String jobId, String token) {
+        if (!holdsLease(jobId, token)) return true;
+        var job = purgeJobRepository.getReferenceById(jobId);
+
+        var targetId = job.getTargetId();
+        var samples = switch (job.getTargetType()) {
+            case PROJECT -> sampleRepository.findAnyRowsByProjectId(targetId, Limit.of(CHUNK_SIZE));
+            case STAGE -> sampleRepository.findAnyRowsByStageId(targetId, Limit.of(CHUNK_SIZE));
+        };
+        if (samples.isEmpty()) {
+            deleteTarget(job);
+            job.setStatus(PurgeJobStatus.DONE);
+            job.setLeaseUntil(null);
+            job.setClaimToken(null);
+            job.setError(null);
+            return true;
+        }
+
+        var sampleIds = samples.stream().map(SampleRow::id).toList();
+        answerRepository.deleteAllBySampleIdIn(sampleIds);
+        dynamicFieldRepository.deleteAllBySampleIdIn(sampleIds);
+        // the clusters of a purged project are deleted with it
+        if (job.getTargetType() == PurgeTarget.STAGE) sampleClusterRepository.subtractAll(sampleIds);
+        sampleLocationRepository.deleteAllBySampleIdIn(sampleIds);
+        sampleRepository.deleteAllByIdIn(sampleIds);
+        fileDeletionService.enqueue(samples.stream().map(SampleRow::attachmentId).toList());
+
+        job.setDeletedSamples(job.getDeletedSamples() + sampleIds.size());
+        return false;
+    }
+
+    /**
+     * Extends the lease of the job when the worker still holds it, locking the job until the transaction ends.
+     */
+    private boolean holdsLease(String jobId, String token) {
+        return purgeJobRepository.renewLease(jobId, token, PurgeJobStatus.RUNNING, leaseUntil()) == 1;
+    }
+
+    /**
+     * Deletes the target once it has no sample anymore. The stages of a project are few, so they are deleted
+     * with the project forms through the entities.
+     */
+    private void deleteTarget(PurgeJob job) {
+        switch (job.getTargetType()) {
+            case PROJECT -> projectRepository.findById(job.getTargetId()).ifPresent(project -> {
+                fileDeletionService.enqueue(project.getThumbnailId());
+
+                // stages reference forms, they are deleted first
+                stageRepository.deleteAll(project.getStages());
+                stageRepository.flush();
+                userProjectAccessRepository.deleteAllByProjectId(project.getId());
+                sampleClusterRepository.deleteDeltasByProjectId(project.getId());
+                sampleClusterRepository.deleteAllByProjectId(project.getId());
+                projectRepository.delete(project);
+                membershipIndex.removeProject(project.getId());
+            });
+            case STAGE -> stageRepository.findById(job.getTargetId()).ifPresent(stage -> {
+                // the form no longer lists the stage among its usage stages
+                if (stage.getForm() != null)
+                    entityVersionRepository.incrementVersion(Form.class, stage.getForm().getId(), null);
+                stageRepository.delete(stage);
+                membershipIndex.removeStage(stage.getProjectOwner().getId(), stage.getId());
+            });
+        }
+    }
+
+    private static String errorOf(RuntimeException exception) {
+        var message = Objects.requireNonNullElse(exception.getMessage(), exception.getClass().getName());
+        return message.length() > 255 ? message.substring(0, 255) : message;
+    }
+
+    private static Timestamp leaseUntil() {
+        return Timestamp.from(Instant.now().plus(LEASE));
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.config.QueryCounter;
+import com.microservices.projectservice.config.ReadReplicaDataSource;
+import com.microservices.projectservice.exception.RemoteServiceTimeoutException;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent checks of one request concurrently, each on its own virtual thread, under a shared deadline.
+ * The first failure cancels the checks still running and is rethrown by {@link #join()}. The tasks read from the
+ * primary when the thread creating the checks does, see {@link ReadReplicaDataSource#setPrimaryRequired}, and their
+ * statements count towards the given {@link QueryCounter}.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * try (var checks = new RemoteChecks(timeout, QueryCounter.current())) {
+ *     var stage = checks.fork(() -> stageService.getStage(stageId));
+ *     checks.check(() -> checkAttachment(attachmentId));
+ *     checks.join();
+ *     // stage.get() ...
+ * }
+ * }</pre>
+ */
+public final class RemoteChecks implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+    private final long deadline;
+    private final boolean primaryRequired = ReadReplicaDataSource.isPrimaryRequired();
+    @Nullable
+    private final QueryCounter queryCounter;
+    private int forked = 0;
+
+    /**
+     * @param queryCounter counter of the request the checks are made for, {@code null} not to count their statements.
+     */
+    public RemoteChecks(Duration timeout, @Nullable QueryCounter queryCounter) {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+        this.queryCounter = queryCounter;
+    }
+
+    /**
+     * Starts a task whose result is needed after {@link #join()}.
+     *
+     * @return the result of the task, only available once {@link #join()} returned.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Supplier<T> fork(Callable<? extends T> task) {
+        var future = completion.submit(() -> {
+            ReadReplicaDataSource.setPrimaryRequired(primaryRequired);
+            QueryCounter.bind(queryCounter);
+            try {
+                return task.call();
+            } finally {
+                ReadReplicaDataSource.setPrimaryRequired(false);
+                QueryCounter.bind(null);
+            }
+        });
+        forked++;
+        return () -> (T) future.resultNow();
+    }
+
+    /**
+     * Starts a task which only fails or succeeds.
+     */
+    public void check(Runnable task) {
+        fork(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Waits for all the tasks, the first one to fail cancels the others.
+     *
+     * @throws RemoteServiceTimeoutException when the tasks are not done before the deadline.
+     */
+    public void join() throws RemoteServiceTimeoutException {
+        try {
+            for (int done = 0; done < forked; done++) {
+                var future = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null)
+                    throw new RemoteServiceTimeoutException("Remote services did not answer in time.");
+                if (future.state() == Future.State.FAILED)
+                    throw propagate(future.exceptionNow());
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RemoteServiceTimeoutException("Interrupted while waiting for remote services.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RuntimeException propagate(Throwable exception) {
+        if (exception instanceof RuntimeException runtimeException) return runtimeException;
+        if (exception instanceof Error error) throw error;
+        return new CompletionException(exception);
+    }
+
+    /**
+     * Cancels the tasks still running, without waiting for them.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.entity.SampleClusterDelta;
+import com.microservices.projectservice.repository.SampleClusterRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+/**
+ * Rolls the {@link SampleClusterDelta} rows up into the clusters by batches of {@link #BATCH_SIZE}, one transaction
+ * per batch, so the counts of a cell are only locked by the workers and for the time of a batch rather than by every
+ * transaction creating or deleting samples. The clusters lag behind the samples by a poll interval at most.
+ * <p>
+ * Workers of several instances roll up distinct batches, as each skips the deltas locked by another.
+ */
+@Service
+@Timed(value = "service.invocations", histogram = true)
+@RequiredArgsConstructor
+public class SampleClusterService {
+
+    /**
+     * Deltas of 250 samples, each counted at every zoom.
+     */
+    static final int BATCH_SIZE = 4_000;
+
+    private final SampleClusterRepository sampleClusterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${app.sample-cluster-roll-up-interval:PT2S}")
+    public void rollUpDeltas() {
+        int rolledUp;
+        do {
+            rolledUp = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                var deltaIds = sampleClusterRepository.lockDeltaIds(BATCH_SIZE);
+                if (deltaIds.isEmpty()) return 0;
+
+                sampleClusterRepository.rollUp(deltaIds);
+                sampleClusterRepository.deleteDeltasByIdIn(deltaIds);
+                return deltaIds.size();
+            }));
+        } while (rolledUp == BATCH_SIZE);
+    }
+
+}
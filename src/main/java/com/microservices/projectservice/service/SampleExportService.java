@@ -0,0 +1,155 @@
+package com.microservices.projectservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservices.projectservice.constant.ExportFormat;
+import com.microservices.projectservice.dto.response.SampleResponse;
+import com.microservices.projectservice.exception.NoEntityFoundException;
+import com.microservices.projectservice.mapper.SampleMapper;
+import com.microservices.projectservice.repository.ProjectRepository;
+import com.microservices.projectservice.repository.SampleRepository;
+import com.microservices.projectservice.repository.projection.SampleRow;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Exports every sample of a project without paging.
+ * <p>
+ * Samples are read in chunks of {@value #CHUNK_SIZE}, seeking on ({@code createdAt}, {@code id}) so each chunk
+ * costs the same whatever its position. A chunk is read with a fixed number of queries into flat projections
+ * (nothing is attached to the persistence context) and is written to the output before the next one is read.
+ */
+@Service
+@Timed(value = "service.invocations", histogram = true)
+@RequiredArgsConstructor
+public class SampleExportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final String CSV_HEADER =
+            "sample_id,attachment_id,position,created_at,project_id,stage_id,type,field_id,name,value";
+
+    private final ProjectRepository projectRepository;
+    private final SampleRepository sampleRepository;
+    private final SampleService sampleService;
+    private final SampleMapper mapper;
+    private final ObjectMapper objectMapper;
+
+    public StreamingResponseBody exportSamplesByProjectId(String projectId, ExportFormat format)
+            throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
+
+        return outputStream -> {
+            switch (format) {
+                case NDJSON -> writeNdjson(projectId, outputStream);
+                case CSV -> writeCsv(projectId, outputStream);
+            }
+        };
+    }
+
+    private void writeNdjson(String projectId, OutputStream outputStream) throws IOException {
+        var writer = objectMapper.writerFor(SampleResponse.class);
+        var chunks = new ChunkIterator(projectId);
+        while (chunks.hasNext()) {
+            for (var sample : chunks.next()) {
+                outputStream.write(writer.writeValueAsBytes(sample));
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        }
+    }
+
+    private void writeCsv(String projectId, OutputStream outputStream) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        // lines end with CRLF, as RFC 4180 has them
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+
+        var chunks = new ChunkIterator(projectId);
+        while (chunks.hasNext()) {
+            for (var sample : chunks.next()) {
+                var answers = sample.answers();
+                var dynamicFields = sample.dynamicFields();
+                if (answers.isEmpty() && dynamicFields.isEmpty())
+                    writeCsvLine(writer, sample, null, null, null, null);
+                for (var answer : answers)
+                    writeCsvLine(writer, sample, "ANSWER", answer.field().id(), answer.field().name(), answer.value());
+                for (var dynamicField : dynamicFields)
+                    writeCsvLine(writer, sample, "DYNAMIC_FIELD", null, dynamicField.name(), dynamicField.value());
+            }
+            writer.flush();
+        }
+    }
+
+    private void writeCsvLine(Writer writer, SampleResponse sample,
+                              String type, String fieldId, String name, String value) throws IOException {
+        var cells = new String[]{
+                sample.id(),
+                sample.attachmentId(),
+                sample.position(),
+                Instant.ofEpochMilli(sample.createdAt()).toString(),
+                sample.projectOwnerId(),
+                sample.stageId(),
+                type,
+                fieldId,
+                name,
+                value
+        };
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(escapeCsv(cells[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(String cell) {
+        if (cell == null) return "";
+        if (cell.indexOf(',') < 0 && cell.indexOf('"') < 0 && cell.indexOf('\n') < 0 && cell.indexOf('\r') < 0)
+            return cell;
+        return '"' + cell.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Iterates the samples of a project chunk by chunk, keeping only the position of the last read row.
+     */
+    private class ChunkIterator {
+
+        private final String projectId;
+        private Timestamp lastCreatedAt = new Timestamp(0);
+        private String lastId = "";
+        private boolean exhausted = false;
+
+        private ChunkIterator(String projectId) {
+            this.projectId = projectId;
+        }
+
+        boolean hasNext() {
+            return !exhausted;
+        }
+
+        List<SampleResponse> next() {
+            var slice = sampleRepository.findRowsByProjectIdAfter(
+                    projectId, lastCreatedAt, lastId, PageRequest.ofSize(CHUNK_SIZE));
+            exhausted = !slice.hasNext();
+            var rows = slice.getContent();
+            if (rows.isEmpty()) return List.of();
+
+            SampleRow last = rows.getLast();
+            lastCreatedAt = last.createdAt();
+            lastId = last.id();
+            return sampleService.getSampleDetails(rows).stream()
+                    .map(mapper::toResponse)
+                    .toList();
+        }
+
+    }
+
+}
@@ -1,37 +1,70 @@
 package com.microservices.projectservice.service;
 
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.config.QueryCounter;
 import com.microservices.projectservice.dto.request.AnswerUpsertRequest;
+import com.microservices.projectservice.dto.request.EntityTags;
+import com.microservices.projectservice.dto.request.GeoArea;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.request.SampleCreateRequest;
+import com.microservices.projectservice.dto.response.SampleBatchItemResponse;
 import com.microservices.projectservice.entity.*;
 import com.microservices.projectservice.entity.Answer;
 import com.microservices.projectservice.entity.embedded.AnswerPK;
+import com.microservices.projectservice.exception.DataConflictException;
 import com.microservices.projectservice.exception.IllegalAttributeException;
 import com.microservices.projectservice.exception.NoEntityFoundException;
+import com.microservices.projectservice.exception.PreconditionFailedException;
 import com.microservices.projectservice.repository.*;
+import com.microservices.projectservice.repository.projection.AnswerRow;
+import com.microservices.projectservice.repository.projection.SampleClusterRow;
+import com.microservices.projectservice.repository.projection.DynamicFieldRow;
+import com.microservices.projectservice.repository.projection.SampleDetails;
+import com.microservices.projectservice.repository.projection.SampleRow;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Objects;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "service.invocations", histogram = true)
 @RequiredArgsConstructor
 public class SampleService {
 
+    private static final PageCursor FIRST_CURSOR = new PageCursor(new Timestamp(0), "");
+
     private final ProjectRepository projectRepository;
     private final StageRepository stageRepository;
     private final SampleRepository sampleRepository;
+    private final SampleLocationRepository sampleLocationRepository;
+    private final SampleClusterRepository sampleClusterRepository;
     private final AnswerRepository answerRepository;
     private final DynamicFieldRepository dynamicFieldRepository;
+    private final FieldRepository fieldRepository;
+    private final EntityVersionRepository entityVersionRepository;
 
     private final StageService stageService;
     private FieldService fieldService;
     private final FileService fileService;
+    private final FileDeletionService fileDeletionService;
+
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
 
     // Prevent circular dependency when initializing
     @Autowired
@@ -39,50 +72,258 @@ public class SampleService {
         this.fieldService = fieldService;
     }
 
-    public Page<Sample> getAllSamplesByProjectId(String projectId, Integer pageNumber, Integer pageSize)
+    /**
+     * Reads a page of samples with a fixed number of queries (sample rows, their count unless {@code count} is
+     * false, answers joined to fields, dynamic fields) without hydrating any entity.
+     *
+     * @param count whether to count the samples, the result is a {@link Page} only then.
+     */
+    @Transactional(readOnly = true)
+    public Slice<SampleDetails> getAllSamplesByProjectId(String projectId, Integer pageNumber, Integer pageSize,
+                                                         boolean count) throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
+
+        var pageable = PageRequest.of(pageNumber, pageSize);
+        return toSampleDetails(count
+                ? sampleRepository.findRowsByProjectId(projectId, pageable)
+                : sampleRepository.findRowSliceByProjectId(projectId, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<SampleDetails> getAllSamplesByProjectId(String projectId, PageCursor after, Integer pageSize)
             throws NoEntityFoundException {
-        if (!projectRepository.existsById(projectId))
+        if (!projectRepository.existsActiveById(projectId))
             throw new NoEntityFoundException("No project found with id: " + projectId);
 
-        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt").descending());
-        return sampleRepository.findAllByProjectOwner_IdOrderByCreatedAtAsc(projectId, pageable);
+        var rows = sampleRepository.findRowsByProjectIdAfter(
+                projectId, after.createdAt(), after.id(), PageRequest.ofSize(pageSize));
+        return new SliceImpl<>(getSampleDetails(rows.getContent()), rows.getPageable(), rows.hasNext());
     }
 
-    public Page<Sample> getAllSamplesByStageId(String stageId, Integer pageNumber, Integer pageSize)
+    @Transactional(readOnly = true)
+    public Slice<SampleDetails> getAllSamplesByStageId(String stageId, Integer pageNumber, Integer pageSize,
+                                                       boolean count) throws NoEntityFoundException {
+        if (!stageRepository.existsByIdAndDeletingFalse(stageId))
+            throw new NoEntityFoundException("No stage found with id: " + stageId);
+
+        var pageable = PageRequest.of(pageNumber, pageSize);
+        return toSampleDetails(count
+                ? sampleRepository.findRowsByStageId(stageId, pageable)
+                : sampleRepository.findRowSliceByStageId(stageId, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<SampleDetails> getAllSamplesByStageId(String stageId, PageCursor after, Integer pageSize)
             throws NoEntityFoundException {
-        if (!stageRepository.existsById(stageId))
+        if (!stageRepository.existsByIdAndDeletingFalse(stageId))
             throw new NoEntityFoundException("No stage found with id: " + stageId);
 
-        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt").descending());
-        return sampleRepository.findAllByStage_IdOrderByCreatedAtAsc(stageId, pageable);
+        var rows = sampleRepository.findRowsByStageIdAfter(
+                stageId, after.createdAt(), after.id(), PageRequest.ofSize(pageSize));
+        return new SliceImpl<>(getSampleDetails(rows.getContent()), rows.getPageable(), rows.hasNext());
+    }
+
+    /**
+     * Reads a slice of the samples of a project located in the area ordered by id, see {@link SampleLocation}.
+     *
+     * @param after position of the last sample of the previous slice, {@code null} for the first slice. Only its id
+     *              is used.
+     */
+    @Transactional(readOnly = true)
+    public Slice<SampleDetails> getAllSamplesByProjectIdWithin(String projectId, GeoArea area,
+                                                               @Nullable PageCursor after, Integer pageSize)
+            throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
+
+        var from = after == null ? FIRST_CURSOR : after;
+        return toLocatedSampleDetails(sampleLocationRepository.findSampleIdsByProjectIdWithin(
+                projectId, area, from.id(), PageRequest.ofSize(pageSize)));
+    }
+
+    /**
+     * Reads a slice of the samples of a stage located in the area ordered by id, see {@link SampleLocation}.
+     *
+     * @param after position of the last sample of the previous slice, {@code null} for the first slice. Only its id
+     *              is used.
+     */
+    @Transactional(readOnly = true)
+    public Slice<SampleDetails> getAllSamplesByStageIdWithin(String stageId, GeoArea area,
+                                                             @Nullable PageCursor after, Integer pageSize)
+            throws NoEntityFoundException {
+        if (!stageRepository.existsByIdAndDeletingFalse(stageId))
+            throw new NoEntityFoundException("No stage found with id: " + stageId);
+
+        var from = after == null ? FIRST_CURSOR : after;
+        return toLocatedSampleDetails(sampleLocationRepository.findSampleIdsByStageIdWithin(
+                stageId, area, from.id(), PageRequest.ofSize(pageSize)));
+    }
+
+    /**
+     * Whether the clusters of the project do not count all its samples yet, see {@link SampleClusterService}.
+     */
+    @Transactional(readOnly = true)
+    public boolean isClusteringSamples(String projectId) {
+        return sampleClusterRepository.existsDeltaByProjectId(projectId);
+    }
+
+    /**
+     * Reads the clusters of the located samples of a project in the box, one for each cell of the map at the zoom
+     * holding samples, see {@link SampleCluster}.
+     */
+    @Transactional(readOnly = true)
+    public List<SampleClusterRow> getSampleClustersByProjectId(String projectId, int zoom, GeoArea box)
+            throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
+
+        var cells = 1 << (zoom + SampleClusterRepository.CELL_BITS);
+        return sampleClusterRepository.findRows(
+                projectId,
+                zoom,
+                cellX(box.minLongitude(), cells),
+                cellX(box.maxLongitude(), cells),
+                // the cells are numbered from the north
+                cellY(box.maxLatitude(), cells),
+                cellY(box.minLatitude(), cells)
+        );
+    }
+
+    /**
+     * Same as {@link SampleClusterRepository#CELLS}.
+     */
+    private static int cellX(double longitude, int cells) {
+        return Math.min((int) Math.floor((longitude + 180) / 360 * cells), cells - 1);
+    }
+
+    /**
+     * Same as {@link SampleClusterRepository#CELLS}.
+     */
+    private static int cellY(double latitude, int cells) {
+        var maxLatitude = SampleClusterRepository.MAX_LATITUDE;
+        var radians = Math.toRadians(Math.max(-maxLatitude, Math.min(latitude, maxLatitude)));
+        var y = (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2 * cells;
+        return Math.min((int) Math.floor(y), cells - 1);
     }
 
+    private Slice<SampleDetails> toLocatedSampleDetails(Slice<String> sampleIds) {
+        var details = getSampleDetailsByIds(sampleIds.getContent());
+        return new SliceImpl<>(details, sampleIds.getPageable(), sampleIds.hasNext());
+    }
+
+    /**
+     * Same as {@link #getSampleDetails} from the sample ids, keeping their order. Unknown ids are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<SampleDetails> getSampleDetailsByIds(List<String> sampleIds) {
+        if (sampleIds.isEmpty()) return Collections.emptyList();
+        var rows = sampleRepository.findRowsByIdIn(sampleIds).stream()
+                .collect(Collectors.toMap(SampleRow::id, Function.identity()));
+        return getSampleDetails(sampleIds.stream().map(rows::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Keeps the total of the rows when they have been counted.
+     */
+    private Slice<SampleDetails> toSampleDetails(Slice<SampleRow> rows) {
+        var details = getSampleDetails(rows.getContent());
+        if (rows instanceof Page<SampleRow> page)
+            return new PageImpl<>(details, page.getPageable(), page.getTotalElements());
+        return new SliceImpl<>(details, rows.getPageable(), rows.hasNext());
+    }
+
+    /**
+     * @return the sample with its answers (and their fields) and dynamic fields loaded.
+     */
+    @Transactional(readOnly = true)
     public Sample getSample(String sampleId) throws NoEntityFoundException {
-        return sampleRepository.findById(sampleId)
+        return sampleRepository.findWithDetailsById(sampleId)
                 .orElseThrow(() -> new NoEntityFoundException("No sample found with id: " + sampleId));
     }
 
+    /**
+     * Same as {@link #getSample} reading only the version, to answer {@code If-None-Match} without the sample.
+     */
+    @Transactional(readOnly = true)
+    public long getSampleVersion(String sampleId) throws NoEntityFoundException {
+        return sampleRepository.findVersionById(sampleId)
+                .orElseThrow(() -> new NoEntityFoundException("No sample found with id: " + sampleId));
+    }
+
+    /**
+     * Counts a change of the answers or dynamic fields of the sample in its version.
+     *
+     * @param expectedVersion the version checked against {@code If-Match}, which must still be the current one.
+     */
+    @Transactional
+    public void incrementVersion(String sampleId, @Nullable Long expectedVersion) throws PreconditionFailedException {
+        EntityTags.checkUpdated(entityVersionRepository.incrementVersion(Sample.class, sampleId, expectedVersion));
+    }
+
+    /**
+     * Counts a change of the field in the version of the samples answering it.
+     */
+    @Transactional
+    public void incrementVersionsByFieldId(String fieldId) {
+        entityVersionRepository.incrementSampleVersionsByFieldId(fieldId);
+    }
+
+    /**
+     * Groups sample rows with their answers and dynamic fields, using one query for each kind of row.
+     */
+    @Transactional(readOnly = true)
+    public List<SampleDetails> getSampleDetails(List<SampleRow> samples) {
+        if (samples.isEmpty()) return Collections.emptyList();
+
+        var sampleIds = samples.stream().map(SampleRow::id).toList();
+        var answers = sampleRepository.findAnswerRowsBySampleIds(sampleIds).stream()
+                .collect(Collectors.groupingBy(AnswerRow::sampleId));
+        var dynamicFields = sampleRepository.findDynamicFieldRowsBySampleIds(sampleIds).stream()
+                .collect(Collectors.groupingBy(DynamicFieldRow::sampleId));
+        return samples.stream()
+                .map(sample -> new SampleDetails(
+                        sample,
+                        answers.getOrDefault(sample.id(), Collections.emptyList()),
+                        dynamicFields.getOrDefault(sample.id(), Collections.emptyList())
+                ))
+                .toList();
+    }
+
     public String createSample(SampleCreateRequest body)
             throws NoEntityFoundException, IllegalAttributeException {
-        var stage = stageService.getStage(body.stageId());
-        var project = stage.getProjectOwner();
+        // the stage is read while the attachment is checked
+        Supplier<Stage> stage;
+        try (var checks = new RemoteChecks(appProperties.getRemoteCheckTimeout(), QueryCounter.current())) {
+            stage = checks.fork(() -> stageService.getStage(body.stageId()));
+            checks.check(() -> checkAttachment(body.attachmentId()));
+            checks.join();
+        }
 
         // creating a sample
-        var attachmentId = body.attachmentId();
+        return transactionTemplate.execute(status -> insertSample(body, stage.get(), stage.get().getProjectOwner()));
+    }
+
+    private void checkAttachment(String attachmentId) throws IllegalAttributeException {
         var isAttachmentExists = Objects.requireNonNull(
                 fileService.checkFileExists(attachmentId),
                 "Cannot check attachment existence for id: " + attachmentId
         );
         if (!isAttachmentExists)
             throw new IllegalAttributeException("No attachment found with id: " + attachmentId);
+    }
+
+    private String insertSample(SampleCreateRequest body, Stage stage, Project project)
+            throws NoEntityFoundException {
         var sample = sampleRepository.save(
                 Sample.builder()
-                        .attachmentId(attachmentId)
+                        .attachmentId(body.attachmentId())
                         .position(body.position())
                         .projectOwner(project)
                         .stage(stage)
                         .build()
         );
+        locate(List.of(sample.getId()));
 
         var answerUpsertRequests = body.answers();
         if (answerUpsertRequests != null) {
@@ -116,8 +357,136 @@ public class SampleService {
         return sample.getId();
     }
 
-    public void updateAnswer(String sampleId, AnswerUpsertRequest answerUpsertRequest)
+    /**
+     * Creates several samples at once. Attachments are checked concurrently first, then stages, fields and used
+     * attachments are loaded with one query each and all valid samples are inserted in JDBC batches
+     * (answers and dynamic fields are cascaded from their sample), in a single transaction.
+     *
+     * @return the result of each item, in the same order as the requests.
+     */
+    public List<SampleBatchItemResponse> createSamples(List<SampleCreateRequest> bodies) {
+        var attachmentIds = bodies.stream().map(SampleCreateRequest::attachmentId).collect(Collectors.toSet());
+        var attachmentExistences = fileService.checkFilesExist(attachmentIds);
+        return transactionTemplate.execute(status -> insertSamples(bodies, attachmentExistences));
+    }
+
+    private List<SampleBatchItemResponse> insertSamples(List<SampleCreateRequest> bodies,
+                                                        Map<String, Boolean> attachmentExistences) {
+        var stages = findAllCached(
+                bodies.stream().map(SampleCreateRequest::stageId).collect(Collectors.toSet()),
+                stageRepository::findById
+        ).stream().filter(stage -> !stage.getDeleting()).collect(Collectors.toMap(Stage::getId, Function.identity()));
+        var fields = findAllCached(
+                bodies.stream()
+                        .map(SampleCreateRequest::answers)
+                        .filter(Objects::nonNull)
+                        .flatMap(Collection::stream)
+                        .map(AnswerUpsertRequest::fieldId)
+                        .collect(Collectors.toSet()),
+                fieldRepository::findById
+        ).stream().collect(Collectors.toMap(Field::getId, Function.identity()));
+
+        var takenAttachmentIds = new HashSet<>(sampleRepository.findAllAttachmentIdsIn(attachmentExistences.keySet()));
+
+        var results = new SampleBatchItemResponse[bodies.size()];
+        var samples = new LinkedHashMap<Integer, Sample>();
+        for (int index = 0; index < bodies.size(); index++) {
+            var body = bodies.get(index);
+            var attachmentId = body.attachmentId();
+            var isAttachmentExists = attachmentExistences.get(attachmentId);
+            if (isAttachmentExists == null) {
+                results[index] = SampleBatchItemResponse.failed(
+                        index, "Cannot check attachment existence for id: " + attachmentId);
+                continue;
+            }
+            try {
+                if (!isAttachmentExists)
+                    throw new IllegalAttributeException("No attachment found with id: " + attachmentId);
+                if (takenAttachmentIds.contains(attachmentId))
+                    throw new DataConflictException("Attachment is already used by another sample: " + attachmentId);
+
+                samples.put(index, buildSample(body, stages, fields));
+                takenAttachmentIds.add(attachmentId);
+            } catch (NoEntityFoundException | IllegalArgumentException exception) {
+                results[index] = SampleBatchItemResponse.failed(index, exception.getMessage());
+            }
+        }
+
+        sampleRepository.saveAll(samples.values());
+        if (!samples.isEmpty()) locate(samples.values().stream().map(Sample::getId).toList());
+        samples.forEach((index, sample) -> results[index] = SampleBatchItemResponse.created(index, sample.getId()));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Locates the new samples and counts them in the cells of their location, see {@link SampleCluster}.
+     */
+    private void locate(List<String> sampleIds) {
+        sampleLocationRepository.insertAllFromPositions(sampleIds);
+        sampleClusterRepository.addAll(sampleIds);
+    }
+
+    /**
+     * Loads the entities one by one, unlike {@code findAllById} which always queries the database, so the ones in the
+     * second-level cache are not read again. The batches only refer to a few stages and fields.
+     */
+    private static <T> List<T> findAllCached(Set<String> ids, Function<String, Optional<T>> findById) {
+        return ids.stream().map(findById).flatMap(Optional::stream).toList();
+    }
+
+    private Sample buildSample(SampleCreateRequest body, Map<String, Stage> stages, Map<String, Field> fields)
             throws NoEntityFoundException {
+        var stageId = body.stageId();
+        var stage = stages.get(stageId);
+        if (stage == null) throw new NoEntityFoundException("No stage found with id: " + stageId);
+
+        var sample = Sample.builder()
+                .attachmentId(body.attachmentId())
+                .position(body.position())
+                .projectOwner(stage.getProjectOwner())
+                .stage(stage)
+                .answers(new HashSet<>())
+                .dynamicFields(new HashSet<>())
+                .build();
+
+        var answerUpsertRequests = body.answers();
+        var answeredFieldIds = new HashSet<String>();
+        if (answerUpsertRequests != null)
+            answerUpsertRequests.forEach(answerCreateRequest -> {
+                var fieldId = answerCreateRequest.fieldId();
+                var field = fields.get(fieldId);
+                if (field == null) throw new NoEntityFoundException("No field found with id: " + fieldId);
+                // both answers would share their key, failing the insert of the whole batch
+                if (!answeredFieldIds.add(fieldId))
+                    throw new IllegalAttributeException("Field answered more than once: " + fieldId);
+
+                sample.getAnswers().add(Answer.builder()
+                        .primaryKey(new AnswerPK(null, fieldId))
+                        .value(answerCreateRequest.value())
+                        .field(field)
+                        .sample(sample)
+                        .build());
+            });
+
+        var dynamicFieldCreateRequests = body.dynamicFields();
+        if (dynamicFieldCreateRequests != null)
+            dynamicFieldCreateRequests.forEach(dynamicFieldCreateRequest -> sample.getDynamicFields().add(
+                    DynamicField.builder()
+                            .name(dynamicFieldCreateRequest.name())
+                            .value(dynamicFieldCreateRequest.value())
+                            .numberOrder(dynamicFieldCreateRequest.numberOrder())
+                            .sample(sample)
+                            .build()
+            ));
+
+        return sample;
+    }
+
+    @Transactional
+    public void updateAnswer(String sampleId, AnswerUpsertRequest answerUpsertRequest, @Nullable EntityTags ifMatch)
+            throws NoEntityFoundException, PreconditionFailedException {
+        var version = getSampleVersion(sampleId);
+        EntityTags.check(ifMatch, version);
         String fieldId = answerUpsertRequest.fieldId(),
                 value = answerUpsertRequest.value();
         var answerPK = new AnswerPK(sampleId, fieldId);
@@ -126,15 +495,20 @@ public class SampleService {
                         "Answer not found with sample ID: " + sampleId + " and field ID: " + fieldId));
         answer.setValue(value);
         answerRepository.save(answer);
+        incrementVersion(sampleId, ifMatch == null ? null : version);
     }
 
+    /**
+     * Deletes the sample and queues its attachment for deletion, see {@link FileDeletionService}.
+     */
+    @Transactional
     public void deleteSample(String sampleId) throws NoEntityFoundException {
-        var sample = getSample(sampleId);
-
-        var attachmentId = sample.getAttachmentId();
-        if (attachmentId != null) fileService.deleteFile(attachmentId);
-
+        var sample = sampleRepository.findById(sampleId)
+                .orElseThrow(() -> new NoEntityFoundException("No sample found with id: " + sampleId));
+        sampleClusterRepository.subtractAll(List.of(sampleId));
+        sampleLocationRepository.deleteAllBySampleIdIn(List.of(sampleId));
         sampleRepository.delete(sample);
+        fileDeletionService.enqueue(sample.getAttachmentId());
     }
 
 }
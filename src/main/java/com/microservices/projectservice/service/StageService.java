@@ -1,49 +1,119 @@
 package com.microservices.projectservice.service;
 
+import com.microservices.projectservice.constant.PurgeTarget;
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.dto.request.EntityTags;
+import com.microservices.projectservice.dto.request.PageCursor;
 import com.microservices.projectservice.dto.request.StageCreateRequest;
 import com.microservices.projectservice.dto.request.StageMemberRequest;
+import com.microservices.projectservice.dto.request.StageMembersRequest;
 import com.microservices.projectservice.dto.request.StageUpdateRequest;
+import com.microservices.projectservice.entity.ChangeLog;
+import com.microservices.projectservice.entity.Form;
 import com.microservices.projectservice.entity.Stage;
 import com.microservices.projectservice.exception.DataConflictException;
 import com.microservices.projectservice.exception.IllegalAttributeException;
 import com.microservices.projectservice.exception.NoEntityFoundException;
+import com.microservices.projectservice.exception.PreconditionFailedException;
+import com.microservices.projectservice.repository.ChangeLogRepository;
+import com.microservices.projectservice.repository.EntityVersionRepository;
+import com.microservices.projectservice.repository.MembershipRepository;
 import com.microservices.projectservice.repository.ProjectRepository;
 import com.microservices.projectservice.repository.StageRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @Service
+@Timed(value = "service.invocations", histogram = true)
 @RequiredArgsConstructor
 public class StageService {
 
+    private static final String MEMBER_NOT_IN_PROJECT_ERROR = "There have user IDs not in the same project.";
+
     private final StageRepository stageRepository;
     private final ProjectRepository projectRepository;
+    private final MembershipRepository membershipRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final EntityVersionRepository entityVersionRepository;
+    private final MembershipIndex membershipIndex;
 
-    private final ProjectService projectService;
     private final FormService formService;
-    private final FileService fileService;
+    private final PurgeService purgeService;
+
+    /**
+     * @param count whether to count the stages, the result is a {@link Page} only then.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Stage> getAllStages(String projectId,
+                                     Integer pageNumber,
+                                     Integer pageSize,
+                                     boolean count) throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
+
+        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt", "id").descending());
+        return withMembers(count
+                ? stageRepository.findAllByProjectOwner_IdAndDeletingFalse(projectId, pageable)
+                : stageRepository.findSliceByProjectOwner_IdAndDeletingFalse(projectId, pageable));
+    }
 
-    public Page<Stage> getAllStages(String projectId,
-                                    Integer pageNumber,
-                                    Integer pageSize) throws NoEntityFoundException {
-        if (!projectRepository.existsById(projectId))
+    @Transactional(readOnly = true)
+    public Slice<Stage> getAllStages(String projectId,
+                                     PageCursor after,
+                                     Integer pageSize) throws NoEntityFoundException {
+        if (!projectRepository.existsActiveById(projectId))
             throw new NoEntityFoundException("No project found with id: " + projectId);
 
-        var pageable = PageRequest.of(pageNumber, pageSize, Sort.by("createdAt").descending());
-        return stageRepository.findAllByProjectOwner_Id(projectId, pageable);
+        return withMembers(stageRepository.findAllByProjectOwner_IdBefore(
+                projectId, after.createdAt(), after.id(), PageRequest.ofSize(pageSize)));
+    }
+
+    /**
+     * Loads the members of every stage in the page, see {@link ProjectService}.
+     */
+    private static <T extends Slice<Stage>> T withMembers(T stages) {
+        stages.forEach(stage -> Hibernate.initialize(stage.getMembers()));
+        return stages;
     }
 
+    /**
+     * @return the stage with its members loaded, unless it is being deleted. Both are usually read from the
+     * second-level cache.
+     */
+    @Transactional(readOnly = true)
     public Stage getStage(String stageId) throws NoEntityFoundException {
         return stageRepository.findById(stageId)
+                .filter(stage -> !stage.getDeleting())
+                .map(stage -> {
+                    Hibernate.initialize(stage.getMembers());
+                    return stage;
+                })
+                .orElseThrow(() -> new NoEntityFoundException("No stage found with id: " + stageId));
+    }
+
+    /**
+     * Same as {@link #getStage} reading only the version, to answer {@code If-None-Match} without the stage.
+     */
+    @Transactional(readOnly = true)
+    public long getStageVersion(String stageId) throws NoEntityFoundException {
+        return stageRepository.findVersionById(stageId)
                 .orElseThrow(() -> new NoEntityFoundException("No stage found with id: " + stageId));
     }
 
+    @Transactional
     public String createStage(StageCreateRequest body)
             throws NoEntityFoundException, IllegalAttributeException {
         LocalDate startDate = body.startDate(),
@@ -51,13 +121,15 @@ public class StageService {
         if (startDate != null && endDate != null && startDate.isAfter(endDate))
             throw new IllegalAttributeException("Stage start date cannot be after end date.");
 
-        var project = projectService.getProject(body.projectOwnerId());
+        var projectId = body.projectOwnerId();
+        if (!projectRepository.existsActiveById(projectId))
+            throw new NoEntityFoundException("No project found with id: " + projectId);
         var stageBuilder = Stage.builder()
                 .name(body.name())
                 .description(body.description())
                 .startDate(startDate)
                 .endDate(endDate)
-                .projectOwner(project);
+                .projectOwner(projectRepository.getReferenceById(projectId));
 
         var formId = body.formId();
         if (formId != null && !formId.isBlank()) {
@@ -65,28 +137,26 @@ public class StageService {
             stageBuilder.form(form);
         }
 
-        var memberIds = body.memberIds();
-        var projectMembers = project.getMembers();
-        if (memberIds != null && projectMembers != null) {
-            var memberNotInProjectError = "There have user IDs not in the same project.";
-            if (projectMembers.size() < memberIds.size())
-                throw new IllegalAttributeException(memberNotInProjectError);
-
-            var newMembers = projectMembers.stream()
-                    .filter(user -> memberIds.contains(user.getId()))
-                    .collect(Collectors.toSet());
-            if (newMembers.size() < memberIds.size())
-                throw new IllegalAttributeException(memberNotInProjectError);
-            stageBuilder.members(newMembers);
-        }
+        var memberIds = body.memberIds() == null ? null : body.memberIds().stream().distinct().toList();
+        if (memberIds != null && membershipRepository.countProjectMembers(projectId, memberIds) < memberIds.size())
+            throw new IllegalAttributeException(MEMBER_NOT_IN_PROJECT_ERROR);
 
-        return stageRepository.save(stageBuilder.build()).getId();
+        // the stage row must exist before its members are inserted
+        var stageId = stageRepository.saveAndFlush(stageBuilder.build()).getId();
+        if (formId != null && !formId.isBlank()) entityVersionRepository.incrementVersion(Form.class, formId, null);
+        if (memberIds != null) {
+            membershipRepository.addStageMembers(stageId, projectId, memberIds);
+            membershipIndex.addStageMembers(projectId, stageId, memberIds);
+        }
+        return stageId;
     }
 
-    public void updateStage(String stageId, StageUpdateRequest body)
-            throws NoEntityFoundException, IllegalAttributeException {
+    @Transactional
+    public void updateStage(String stageId, StageUpdateRequest body, @Nullable EntityTags ifMatch)
+            throws NoEntityFoundException, IllegalAttributeException, PreconditionFailedException {
         var isUpdated = false;
         var stage = getStage(stageId);
+        EntityTags.check(ifMatch, stage.getVersion());
         String name = body.name(),
                 description = body.description();
         if (name != null) {
@@ -123,6 +193,13 @@ public class StageService {
             if (formId.length() != 36) throw new IllegalAttributeException("Form ID length must be 36 characters.");
 
             var form = formService.getForm(formId);
+            var previousForm = stage.getForm();
+            if (previousForm == null || !previousForm.getId().equals(formId)) {
+                // both forms list the stage among their usage stages
+                if (previousForm != null)
+                    entityVersionRepository.incrementVersion(Form.class, previousForm.getId(), null);
+                entityVersionRepository.incrementVersion(Form.class, formId, null);
+            }
             stage.setForm(form);
             isUpdated = true;
         }
@@ -130,46 +207,92 @@ public class StageService {
         if (isUpdated) stageRepository.save(stage);
     }
 
-    public void updateMember(String stageId, StageMemberRequest body)
-            throws NoEntityFoundException, IllegalAttributeException {
+    /**
+     * Adds or removes one member with a single statement on {@code stage_member}, a member added must be in the
+     * project.
+     */
+    @Transactional
+    public void updateMember(String stageId, StageMemberRequest body, @Nullable EntityTags ifMatch)
+            throws NoEntityFoundException, DataConflictException, PreconditionFailedException {
         var memberId = body.memberId();
+        var projectId = getProjectId(stageId);
+        recordMembersChange(stageId, projectId, ifMatch);
 
-        var isUpdated = false;
-        var stage = getStage(stageId);
+        switch (body.operator()) {
+            case ADD -> {
+                if (membershipRepository.addStageMembers(stageId, projectId, List.of(memberId)) == 0)
+                    throw new DataConflictException(membershipRepository.isStageMember(stageId, memberId)
+                            ? "Member already exists."
+                            : "Member does not exist in the project.");
+                membershipIndex.addStageMembers(projectId, stageId, List.of(memberId));
+            }
+            case REMOVE -> {
+                if (membershipRepository.removeStageMembers(stageId, List.of(memberId)) == 0)
+                    throw new DataConflictException("Member does not exist.");
+                membershipIndex.removeStageMembers(projectId, stageId, List.of(memberId));
+            }
+        }
+    }
+
+    /**
+     * Adds or removes many members at once, members already added or not in the stage are skipped. All the members
+     * added must be in the project.
+     */
+    @Transactional
+    public void updateMembers(String stageId, StageMembersRequest body, @Nullable EntityTags ifMatch)
+            throws NoEntityFoundException, IllegalAttributeException, PreconditionFailedException {
+        var memberIds = body.memberIds().stream().distinct().toList();
+        var projectId = getProjectId(stageId);
+        recordMembersChange(stageId, projectId, ifMatch);
 
         switch (body.operator()) {
             case ADD -> {
-                var existMembers = stage.getMembers();
-                var isMemberIdExisted = existMembers.stream()
-                        .anyMatch(member -> member.getId().equals(memberId));
-                if (isMemberIdExisted)
-                    throw new DataConflictException("Member already exists.");
-
-                stage.getProjectOwner().getMembers().forEach(member -> {
-                    if (member.getId().equals(memberId))
-                        existMembers.add(member);
-                });
-                if (existMembers.isEmpty())
-                    throw new DataConflictException("Member does not exist in the project.");
-                isUpdated = true;
+                if (membershipRepository.countProjectMembers(projectId, memberIds) < memberIds.size())
+                    throw new IllegalAttributeException(MEMBER_NOT_IN_PROJECT_ERROR);
+                membershipRepository.addStageMembers(stageId, projectId, memberIds);
+                membershipIndex.addStageMembers(projectId, stageId, memberIds);
             }
             case REMOVE -> {
-                var isRemoved = stage.getMembers()
-                        .removeIf(user -> user.getId().equals(memberId));
-                if (isRemoved) isUpdated = true;
-                else throw new DataConflictException("Member does not exist.");
+                membershipRepository.removeStageMembers(stageId, memberIds);
+                membershipIndex.removeStageMembers(projectId, stageId, memberIds);
             }
         }
-        if (isUpdated) stageRepository.save(stage);
     }
 
-    public void deleteStage(String stageId) throws NoEntityFoundException {
-        var stage = getStage(stageId);
+    private String getProjectId(String stageId) throws NoEntityFoundException {
+        return stageRepository.findProjectIdById(stageId)
+                .orElseThrow(() -> new NoEntityFoundException("No stage found with id: " + stageId));
+    }
 
-        // Delete all sample images
-        stage.getSamples().forEach(sample -> fileService.deleteFile(sample.getAttachmentId()));
+    /**
+     * The members are updated without the entity, so neither its version nor the change log see the change. The
+     * version is incremented before the members change, only if it is still the one checked against the tags.
+     */
+    private void recordMembersChange(String stageId, String projectId, @Nullable EntityTags ifMatch) {
+        var version = getStageVersion(stageId);
+        EntityTags.check(ifMatch, version);
+        EntityTags.checkUpdated(entityVersionRepository.incrementVersion(
+                Stage.class, stageId, ifMatch == null ? null : version));
+        changeLogRepository.save(ChangeLog.builder()
+                .projectId(projectId)
+                .entityType(SyncEntityType.STAGE)
+                .entityId(stageId)
+                .deleted(false)
+                .changedAt(Timestamp.from(Instant.now()))
+                .build());
+    }
 
-        stageRepository.delete(stage);
+    /**
+     * Marks the stage as being deleted, its samples are then purged in the background.
+     *
+     * @return the ID of the purge job.
+     */
+    @Transactional
+    public String deleteStage(String stageId) throws NoEntityFoundException {
+        var stage = getStage(stageId);
+        stage.setDeleting(true);
+        stageRepository.save(stage);
+        return purgeService.schedule(PurgeTarget.STAGE, stageId).getId();
     }
 
 }
@@ -0,0 +1,189 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.dto.request.SyncToken;
+import com.microservices.projectservice.entity.*;
+import com.microservices.projectservice.exception.IllegalAttributeException;
+import com.microservices.projectservice.repository.*;
+import com.microservices.projectservice.repository.projection.SampleDetails;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Delta sync of the offline collectors, read from the {@link ChangeLog}.
+ * <p>
+ * A client syncs without a token first, getting everything logged in its projects, then with the token of its
+ * last sync, getting only the entities changed since, in their current state, and the ids of the ones deleted. A
+ * project or stage listed as deleted is dropped with all its content. A project the user joins since comes with all
+ * its content, over as many syncs as {@code app.sync.max-changes} needs, and one the user leaves is listed as
+ * deleted.
+ */
+@Service
+@Timed(value = "service.invocations", histogram = true)
+@RequiredArgsConstructor
+public class SyncService {
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ProjectRepository projectRepository;
+    private final StageRepository stageRepository;
+    private final FormRepository formRepository;
+    private final FieldRepository fieldRepository;
+
+    private final SampleService sampleService;
+    private final AppProperties appProperties;
+
+    /**
+     * Reads the changes made to the projects of the user after the token, at most {@code app.sync.max-changes}
+     * of them. The change log is probed twice, for the changes of the projects of the user and for their access
+     * changes, even when nothing changed. Then one query runs for each kind of entity changed, and one for the
+     * content of a project the user joined.
+     *
+     * @param token token of the last sync, {@code null} for the first one.
+     */
+    @Transactional(readOnly = true)
+    public Changes getChanges(String userId, @Nullable String token) throws IllegalAttributeException {
+        var properties = appProperties.getSync();
+        var position = token == null ? SyncToken.after(0) : SyncToken.decode(token);
+        var page = new ArrayList<ChangeLog>();
+        var next = position;
+        var hasMore = true;
+        if (!position.hasContentLeft()) {
+            var afterId = position.afterId();
+            var changedBefore = Timestamp.from(Instant.now().minus(properties.getSettleTime()));
+            var limit = Limit.of(properties.getMaxChanges() + 1);
+            var changes = new ArrayList<>(
+                    changeLogRepository.findAllByUserIdAfter(userId, afterId, changedBefore, limit));
+            changes.addAll(changeLogRepository.findAccessChangesByUserIdAfter(userId, afterId, changedBefore, limit));
+            changes.sort(Comparator.comparing(ChangeLog::getId));
+            hasMore = changes.size() > properties.getMaxChanges();
+            for (var change : changes.subList(0, Math.min(changes.size(), properties.getMaxChanges()))) {
+                page.add(change);
+                next = SyncToken.after(change.getId());
+                if (change.getUserId() != null && !change.getDeleted()) {
+                    // the content logged since the last sync is in the page already
+                    next = new SyncToken(change.getId(), change.getProjectId(), 0, afterId);
+                    hasMore |= page.size() < changes.size();
+                    break;
+                }
+            }
+        }
+        if (next.hasContentLeft()) {
+            var room = properties.getMaxChanges() - page.size();
+            var content = room > 0 ? joinedProjectContent(next, room) : List.<ChangeLog>of();
+            if (room > 0 && content.size() <= room) {
+                next = SyncToken.after(next.afterId());
+            } else {
+                content = content.subList(0, room);
+                if (!content.isEmpty()) next = next.withContentAfter(content.getLast().getId());
+                hasMore = true;
+            }
+            // older than the changes of the page, which tell the state of the entities changed since
+            page.addAll(0, content);
+        } else {
+            next = SyncToken.after(next.afterId());
+        }
+
+        // the last change of each entity tells whether it still exists
+        var lastChanges = new LinkedHashMap<String, ChangeLog>();
+        page.forEach(change -> lastChanges.put(change.getEntityType() + ":" + change.getEntityId(), change));
+        var updatedIds = new EnumMap<SyncEntityType, List<String>>(SyncEntityType.class);
+        var deleted = new ArrayList<ChangeLog>();
+        for (var change : lastChanges.values()) {
+            if (change.getDeleted()) deleted.add(change);
+            else updatedIds.computeIfAbsent(change.getEntityType(), type -> new ArrayList<>())
+                    .add(change.getEntityId());
+        }
+
+        var projects = projectRepository.findAllById(idsOf(updatedIds, SyncEntityType.PROJECT));
+        projects.forEach(project -> Hibernate.initialize(project.getMembers()));
+        var stages = stageRepository.findAllById(idsOf(updatedIds, SyncEntityType.STAGE));
+        stages.forEach(stage -> Hibernate.initialize(stage.getMembers()));
+        var forms = formRepository.findAllById(idsOf(updatedIds, SyncEntityType.FORM));
+        forms.forEach(form -> Hibernate.initialize(form.getUsageStages()));
+        var fields = fieldRepository.findAllById(idsOf(updatedIds, SyncEntityType.FIELD));
+        var samples = sampleService.getSampleDetailsByIds(idsOf(updatedIds, SyncEntityType.SAMPLE));
+        return new Changes(next.encode(), hasMore, projects, stages, forms, fields, samples, deleted);
+    }
+
+    /**
+     * Version of the lists read from a project: the id of its last change, which any change of its stages, forms,
+     * fields and samples makes greater.
+     *
+     * @return {@code null} when nothing is logged yet, or while changes committing later may still be logged before
+     * the last one, see {@code app.sync.settle-time}.
+     */
+    @Nullable
+    @Transactional(readOnly = true)
+    public Long getProjectVersion(String projectId) {
+        var settledBefore = Instant.now().minus(appProperties.getSync().getSettleTime());
+        return changeLogRepository.findFirstByProjectIdOrderByIdDesc(projectId)
+                .filter(change -> !change.getChangedAt().toInstant().isAfter(settledBefore))
+                .map(ChangeLog::getId)
+                .orElse(null);
+    }
+
+    /**
+     * Same as {@link #getProjectVersion} from a stage of the project.
+     */
+    @Nullable
+    @Transactional(readOnly = true)
+    public Long getStageProjectVersion(String stageId) {
+        return stageRepository.findProjectIdById(stageId).map(this::getProjectVersion).orElse(null);
+    }
+
+    /**
+     * Same as {@link #getProjectVersion} from a form of the project.
+     */
+    @Nullable
+    @Transactional(readOnly = true)
+    public Long getFormProjectVersion(String formId) {
+        return formRepository.findProjectIdById(formId).map(this::getProjectVersion).orElse(null);
+    }
+
+    /**
+     * Reads the next changes of the content of the project the user joined, logged up to its last sync: the changes
+     * made since are in the change log it reads. Entities deleted by then are listed as deleted, the client may
+     * have got them from a previous page.
+     *
+     * @param limit changes to return, one more is read to tell whether changes are left.
+     */
+    private List<ChangeLog> joinedProjectContent(SyncToken token, int limit) {
+        return changeLogRepository.findAllByProjectIdBetween(
+                token.joinedProjectId(), token.contentAfterId(), token.contentUpToId(), Limit.of(limit + 1));
+    }
+
+    private static List<String> idsOf(Map<SyncEntityType, List<String>> ids, SyncEntityType type) {
+        return ids.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * Entities changed since the last sync, in their current state. Entities created or updated then deleted
+     * before the sync are only listed as deleted.
+     *
+     * @param token   to send with the next sync.
+     * @param hasMore whether changes are left, to get with the next sync right away.
+     * @param deleted last change of each entity deleted.
+     */
+    public record Changes(
+            String token,
+            boolean hasMore,
+            List<Project> projects,
+            List<Stage> stages,
+            List<Form> forms,
+            List<Field> fields,
+            List<SampleDetails> samples,
+            List<ChangeLog> deleted
+    ) {
+    }
+
+}
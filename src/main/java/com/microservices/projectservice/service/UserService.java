@@ -1,30 +1,85 @@
 package com.microservices.projectservice.service;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.config.DownstreamMetricsInterceptor;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
 @Slf4j
 @Service
+@Timed(value = "service.invocations", histogram = true)
 public class UserService {
 
+    private static final int MAX_CONCURRENT_CHECKS = 16;
+
     private final RestClient client;
+    /**
+     * Existence of users by ID. Missing users are kept for a shorter time than existing ones, failed checks are not
+     * kept at all. Concurrent lookups of the same ID wait for the same request.
+     */
+    private final LoadingCache<String, Boolean> existences;
 
     @Autowired
-    public UserService(RestClient.Builder builder,
-                       @Value("${app.user-service-id}") String userServiceId) {
-        this.client = builder
-                .baseUrl("http://" + userServiceId + "/api/v1/user")
+    public UserService(RestClient.Builder builder, AppProperties properties, MeterRegistry meterRegistry) {
+        this.client = builder.clone()
+                .requestInterceptor(new DownstreamMetricsInterceptor(meterRegistry, properties.getUserServiceId()))
+                .baseUrl("http://" + properties.getUserServiceId() + "/api/v1/user")
                 .build();
+
+        var cacheProperties = properties.getUserCache();
+        this.existences = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfter(new ExistenceExpiry(cacheProperties.getTtl(), cacheProperties.getNegativeTtl()))
+                .recordStats()
+                .build(new CacheLoader<String, Boolean>() {
+                    @Override
+                    public Boolean load(@NonNull String userId) {
+                        return fetchUserExists(userId);
+                    }
+
+                    @Override
+                    public Map<String, Boolean> loadAll(@NonNull Set<? extends String> userIds) {
+                        return fetchUsersExist(userIds);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, existences, "users");
     }
 
     @Nullable
     public Boolean checkUserExists(String userId) {
+        return existences.get(userId);
+    }
+
+    /**
+     * Checks several users at once, the ones not cached yet are checked concurrently.
+     *
+     * @return the existence of each user, a user is absent when its check failed.
+     */
+    public Map<String, Boolean> checkUsersExist(Collection<String> userIds) {
+        return existences.getAll(userIds);
+    }
+
+    @Nullable
+    private Boolean fetchUserExists(String userId) {
         try {
             return client.get()
                     .uri("/{userId}", userId)
@@ -32,10 +87,41 @@ public class UserService {
                     .toBodilessEntity()
                     .getStatusCode()
                     .isSameCodeAs(HttpStatus.OK);
+        } catch (HttpClientErrorException.NotFound exception) {
+            return false;
         } catch (HttpClientErrorException exception) {
             log.warn(exception.getMessage(), exception);
             return null;
         }
     }
 
+    private Map<String, Boolean> fetchUsersExist(Set<? extends String> userIds) {
+        Map<String, Boolean> existences =
+                ConcurrentLookups.lookUpAll(userIds, MAX_CONCURRENT_CHECKS, this::fetchUserExists, "user");
+        existences.values().removeIf(Objects::isNull);
+        return existences;
+    }
+
+    /**
+     * Keeps existing users for {@code ttl} and missing ones for {@code negativeTtl}, from the time they are loaded.
+     */
+    private record ExistenceExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Boolean> {
+
+        @Override
+        public long expireAfterCreate(String userId, Boolean isExist, long currentTime) {
+            return (isExist ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String userId, Boolean isExist, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String userId, Boolean isExist, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
 }
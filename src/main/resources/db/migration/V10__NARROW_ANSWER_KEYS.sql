@@ -0,0 +1,17 @@
+ALTER TABLE project_service.answer
+    DROP FOREIGN KEY FK_ANSWER_ON_FK_FIELD;
+
+ALTER TABLE project_service.answer
+    DROP FOREIGN KEY FK_ANSWER_ON_FK_SAMPLE;
+
+ALTER TABLE project_service.answer
+    MODIFY fk_sample_id VARCHAR(36) NOT NULL;
+
+ALTER TABLE project_service.answer
+    MODIFY fk_field_id VARCHAR(36) NOT NULL;
+
+ALTER TABLE project_service.answer
+    ADD CONSTRAINT FK_ANSWER_ON_FK_FIELD FOREIGN KEY (fk_field_id) REFERENCES project_service.field (id);
+
+ALTER TABLE project_service.answer
+    ADD CONSTRAINT FK_ANSWER_ON_FK_SAMPLE FOREIGN KEY (fk_sample_id) REFERENCES project_service.sample (id);
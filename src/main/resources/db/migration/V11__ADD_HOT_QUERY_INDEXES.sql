@@ -0,0 +1,10 @@
+CREATE INDEX stage_project_deleting_created_at_idx
+    ON project_service.stage (fk_project_id, deleting, created_at, id);
+
+DROP INDEX stage_project_created_at_idx ON project_service.stage;
+
+CREATE INDEX field_form_number_order_idx ON project_service.field (fk_form_id, number_order);
+
+CREATE INDEX answer_field_idx ON project_service.answer (fk_field_id);
+
+CREATE INDEX file_deletion_file_id_idx ON project_service.file_deletion (file_id);
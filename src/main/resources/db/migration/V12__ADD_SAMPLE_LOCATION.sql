@@ -0,0 +1,29 @@
+CREATE TABLE project_service.sample_location
+(
+    sample_id     VARCHAR(36)     NOT NULL,
+    fk_project_id VARCHAR(36)     NOT NULL,
+    fk_stage_id   VARCHAR(36)     NOT NULL,
+    location      POINT SRID 4326 NOT NULL,
+    CONSTRAINT pk_sample_location PRIMARY KEY (sample_id)
+);
+
+CREATE SPATIAL INDEX sample_location_location_idx ON project_service.sample_location (location);
+
+CREATE INDEX sample_location_project_idx ON project_service.sample_location (fk_project_id);
+
+CREATE INDEX sample_location_stage_idx ON project_service.sample_location (fk_stage_id);
+
+ALTER TABLE project_service.sample_location
+    ADD CONSTRAINT FK_SAMPLE_LOCATION_ON_SAMPLE FOREIGN KEY (sample_id) REFERENCES project_service.sample (id);
+
+-- same parsing as SampleLocationRepository.insertAllFromPositions, SRID 4326 takes the latitude first
+INSERT INTO project_service.sample_location (sample_id, fk_project_id, fk_stage_id, location)
+SELECT s.id, s.fk_project_id, s.fk_stage_id,
+       ST_PointFromText(CONCAT(
+               'POINT(', REGEXP_SUBSTR(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 1),
+               ' ', REGEXP_SUBSTR(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 2), ')'
+       ), 4326)
+FROM project_service.sample s
+WHERE REGEXP_LIKE(s.position, '^ *[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)? *[, ] *[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)? *$')
+  AND REGEXP_SUBSTR(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 1) BETWEEN -90 AND 90
+  AND REGEXP_SUBSTR(s.position, '[-+]?[0-9][0-9]?[0-9]?([.][0-9]+)?', 1, 2) BETWEEN -180 AND 180;
@@ -0,0 +1,28 @@
+CREATE TABLE project_service.sample_cluster
+(
+    project_id    VARCHAR(36) NOT NULL,
+    zoom          INT         NOT NULL,
+    cell_x        INT         NOT NULL,
+    cell_y        INT         NOT NULL,
+    samples       INT         NOT NULL,
+    latitude_sum  DOUBLE      NOT NULL,
+    longitude_sum DOUBLE      NOT NULL,
+    CONSTRAINT pk_sample_cluster PRIMARY KEY (project_id, zoom, cell_x, cell_y)
+);
+
+ALTER TABLE project_service.sample_cluster
+    ADD CONSTRAINT FK_SAMPLE_CLUSTER_ON_PROJECT FOREIGN KEY (project_id) REFERENCES project_service.project (id);
+
+-- same cells as SampleClusterRepository.CELLS
+INSERT INTO project_service.sample_cluster (project_id, zoom, cell_x, cell_y, samples, latitude_sum, longitude_sum)
+SELECT l.fk_project_id, z.zoom,
+       LEAST(FLOOR((l.longitude + 180) / 360 * POW(2, z.zoom + 3)), POW(2, z.zoom + 3) - 1) AS cell_x,
+       LEAST(FLOOR((1 - LN(TAN(RADIANS(l.mercator_latitude)) + 1 / COS(RADIANS(l.mercator_latitude)))
+                            / PI()) / 2 * POW(2, z.zoom + 3)), POW(2, z.zoom + 3) - 1) AS cell_y,
+       COUNT(*), SUM(l.latitude), SUM(l.longitude)
+FROM (SELECT fk_project_id, ST_Latitude(location) AS latitude, ST_Longitude(location) AS longitude,
+             LEAST(GREATEST(ST_Latitude(location), -85.0511287798), 85.0511287798) AS mercator_latitude
+      FROM project_service.sample_location) l
+         JOIN (WITH RECURSIVE zooms (zoom) AS (SELECT 0 UNION ALL SELECT zoom + 1 FROM zooms WHERE zoom < 15)
+               SELECT zoom FROM zooms) z
+GROUP BY l.fk_project_id, z.zoom, cell_x, cell_y;
@@ -0,0 +1,34 @@
+CREATE TABLE project_service.change_log
+(
+    id          BIGINT AUTO_INCREMENT NOT NULL,
+    project_id  VARCHAR(36)           NOT NULL,
+    entity_type SMALLINT              NOT NULL,
+    entity_id   VARCHAR(36)           NOT NULL,
+    deleted     BIT(1)                NOT NULL,
+    changed_at  datetime              NOT NULL,
+    CONSTRAINT pk_change_log PRIMARY KEY (id)
+);
+
+CREATE INDEX change_log_project_idx ON project_service.change_log (project_id, id);
+
+-- the current content of the projects, for the first sync of the clients; entity_type is SyncEntityType ordinal
+INSERT INTO project_service.change_log (project_id, entity_type, entity_id, deleted, changed_at)
+SELECT e.project_id, e.entity_type, e.entity_id, 0, NOW()
+FROM (SELECT p.id AS project_id, 0 AS entity_type, p.id AS entity_id, p.created_at
+      FROM project_service.project p
+      WHERE p.status <> 2
+      UNION ALL
+      SELECT s.fk_project_id, 1, s.id, s.created_at
+      FROM project_service.stage s
+      WHERE s.deleting = 0
+      UNION ALL
+      SELECT f.fk_project_id, 2, f.id, f.created_at
+      FROM project_service.form f
+      UNION ALL
+      SELECT f.fk_project_id, 3, d.id, d.created_at
+      FROM project_service.field d
+               JOIN project_service.form f ON f.id = d.fk_form_id
+      UNION ALL
+      SELECT s.fk_project_id, 4, s.id, s.created_at
+      FROM project_service.sample s) e
+ORDER BY e.entity_type, e.created_at, e.entity_id;
@@ -0,0 +1,14 @@
+ALTER TABLE project_service.project
+    ADD version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE project_service.stage
+    ADD version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE project_service.form
+    ADD version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE project_service.field
+    ADD version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE project_service.sample
+    ADD version BIGINT DEFAULT 0 NOT NULL;
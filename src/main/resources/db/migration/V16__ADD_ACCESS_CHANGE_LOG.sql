@@ -0,0 +1,4 @@
+ALTER TABLE project_service.change_log
+    ADD user_id VARCHAR(36) NULL;
+
+CREATE INDEX change_log_user_idx ON project_service.change_log (user_id, id);
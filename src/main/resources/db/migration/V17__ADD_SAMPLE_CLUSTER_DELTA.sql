@@ -0,0 +1,14 @@
+CREATE TABLE project_service.sample_cluster_delta
+(
+    id            BIGINT AUTO_INCREMENT NOT NULL,
+    project_id    VARCHAR(36)           NOT NULL,
+    zoom          INT                   NOT NULL,
+    cell_x        INT                   NOT NULL,
+    cell_y        INT                   NOT NULL,
+    samples       INT                   NOT NULL,
+    latitude_sum  DOUBLE                NOT NULL,
+    longitude_sum DOUBLE                NOT NULL,
+    CONSTRAINT pk_sample_cluster_delta PRIMARY KEY (id)
+);
+
+CREATE INDEX sample_cluster_delta_project_idx ON project_service.sample_cluster_delta (project_id);
@@ -0,0 +1,380 @@
+-- The IDs generated by this service and the columns referencing them go from VARCHAR(36) to BINARY(16), as
+-- UUID_TO_BIN stores them without swapping (see BinaryUuidType). User and file IDs come from other services and
+-- stay strings.
+-- Each table gets nullable binary columns next to the string ones, which MySQL adds without copying the table. They
+-- are filled by batches of 10000 rows along the primary key, each batch committed on its own so no lock is held for
+-- long. Each table is then rebuilt once to drop the string columns and rename the binary ones in their place. The
+-- foreign keys are added back with the checks off, since the binary values come from rows that already matched, so
+-- MySQL does not copy the tables again to check them.
+
+ALTER TABLE project_service.project
+    ADD id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.form
+    ADD id_bin            BINARY(16) NULL,
+    ADD fk_project_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.field
+    ADD id_bin         BINARY(16) NULL,
+    ADD fk_form_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.stage
+    ADD id_bin            BINARY(16) NULL,
+    ADD fk_form_id_bin    BINARY(16) NULL,
+    ADD fk_project_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.sample
+    ADD id_bin            BINARY(16) NULL,
+    ADD fk_project_id_bin BINARY(16) NULL,
+    ADD fk_stage_id_bin   BINARY(16) NULL;
+
+ALTER TABLE project_service.answer
+    ADD fk_sample_id_bin BINARY(16) NULL,
+    ADD fk_field_id_bin  BINARY(16) NULL;
+
+ALTER TABLE project_service.dynamic_field
+    ADD id_bin           BINARY(16) NULL,
+    ADD fk_sample_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.project_member
+    ADD project_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.stage_member
+    ADD stage_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.user_project_access
+    ADD project_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.sample_location
+    ADD sample_id_bin     BINARY(16) NULL,
+    ADD fk_project_id_bin BINARY(16) NULL,
+    ADD fk_stage_id_bin   BINARY(16) NULL;
+
+ALTER TABLE project_service.sample_cluster
+    ADD project_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.sample_cluster_delta
+    ADD project_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.change_log
+    ADD project_id_bin BINARY(16) NULL,
+    ADD entity_id_bin  BINARY(16) NULL;
+
+ALTER TABLE project_service.purge_job
+    ADD id_bin        BINARY(16) NULL,
+    ADD target_id_bin BINARY(16) NULL;
+
+ALTER TABLE project_service.file_deletion
+    ADD id_bin BINARY(16) NULL;
+
+-- Runs the assignments on the rows of the table from key_column >= @batch_start to the row 10000 keys further.
+-- key_column is the first column of the primary key, so every batch is a range of it.
+DROP PROCEDURE IF EXISTS project_service.backfill_binary_ids;
+
+DELIMITER $$
+CREATE PROCEDURE project_service.backfill_binary_ids(IN table_name VARCHAR(64), IN key_column VARCHAR(64),
+                                                     IN assignments VARCHAR(255))
+BEGIN
+    SET @first_key = CONCAT('SELECT MIN(', key_column, ') INTO @batch_start FROM project_service.', table_name);
+    SET @next_key = CONCAT('SELECT ', key_column, ' INTO @batch_end FROM project_service.', table_name,
+                           ' WHERE ', key_column, ' > @batch_start ORDER BY ', key_column, ' LIMIT 9999, 1');
+    SET @batch = CONCAT('UPDATE project_service.', table_name, ' SET ', assignments,
+                        ' WHERE ', key_column, ' >= @batch_start AND ', key_column, ' < @batch_end');
+    SET @last_batch = CONCAT('UPDATE project_service.', table_name, ' SET ', assignments,
+                             ' WHERE ', key_column, ' >= @batch_start');
+    PREPARE first_key FROM @first_key;
+    PREPARE next_key FROM @next_key;
+    PREPARE batch FROM @batch;
+    PREPARE last_batch FROM @last_batch;
+
+    SET @batch_start = NULL;
+    EXECUTE first_key;
+    WHILE @batch_start IS NOT NULL
+        DO
+            SET @batch_end = NULL;
+            EXECUTE next_key;
+            IF @batch_end IS NULL THEN
+                EXECUTE last_batch;
+            ELSE
+                EXECUTE batch;
+            END IF;
+            COMMIT;
+            SET @batch_start = @batch_end;
+        END WHILE;
+
+    DEALLOCATE PREPARE first_key;
+    DEALLOCATE PREPARE next_key;
+    DEALLOCATE PREPARE batch;
+    DEALLOCATE PREPARE last_batch;
+END $$
+DELIMITER ;
+
+CALL project_service.backfill_binary_ids('project', 'id', 'id_bin = UUID_TO_BIN(id)');
+
+CALL project_service.backfill_binary_ids('form', 'id',
+                                         'id_bin = UUID_TO_BIN(id), fk_project_id_bin = UUID_TO_BIN(fk_project_id)');
+
+CALL project_service.backfill_binary_ids('field', 'id',
+                                         'id_bin = UUID_TO_BIN(id), fk_form_id_bin = UUID_TO_BIN(fk_form_id)');
+
+CALL project_service.backfill_binary_ids('stage', 'id',
+                                         'id_bin = UUID_TO_BIN(id), fk_form_id_bin = UUID_TO_BIN(fk_form_id), '
+                                             'fk_project_id_bin = UUID_TO_BIN(fk_project_id)');
+
+CALL project_service.backfill_binary_ids('sample', 'id',
+                                         'id_bin = UUID_TO_BIN(id), fk_project_id_bin = UUID_TO_BIN(fk_project_id), '
+                                             'fk_stage_id_bin = UUID_TO_BIN(fk_stage_id)');
+
+CALL project_service.backfill_binary_ids('answer', 'fk_sample_id',
+                                         'fk_sample_id_bin = UUID_TO_BIN(fk_sample_id), '
+                                             'fk_field_id_bin = UUID_TO_BIN(fk_field_id)');
+
+CALL project_service.backfill_binary_ids('dynamic_field', 'id',
+                                         'id_bin = UUID_TO_BIN(id), fk_sample_id_bin = UUID_TO_BIN(fk_sample_id)');
+
+CALL project_service.backfill_binary_ids('project_member', 'member_id', 'project_id_bin = UUID_TO_BIN(project_id)');
+
+CALL project_service.backfill_binary_ids('stage_member', 'member_id', 'stage_id_bin = UUID_TO_BIN(stage_id)');
+
+CALL project_service.backfill_binary_ids('user_project_access', 'user_id',
+                                         'project_id_bin = UUID_TO_BIN(project_id)');
+
+CALL project_service.backfill_binary_ids('sample_location', 'sample_id',
+                                         'sample_id_bin = UUID_TO_BIN(sample_id), '
+                                             'fk_project_id_bin = UUID_TO_BIN(fk_project_id), '
+                                             'fk_stage_id_bin = UUID_TO_BIN(fk_stage_id)');
+
+CALL project_service.backfill_binary_ids('sample_cluster', 'project_id', 'project_id_bin = UUID_TO_BIN(project_id)');
+
+CALL project_service.backfill_binary_ids('sample_cluster_delta', 'id', 'project_id_bin = UUID_TO_BIN(project_id)');
+
+CALL project_service.backfill_binary_ids('change_log', 'id',
+                                         'project_id_bin = UUID_TO_BIN(project_id), '
+                                             'entity_id_bin = UUID_TO_BIN(entity_id)');
+
+CALL project_service.backfill_binary_ids('purge_job', 'id',
+                                         'id_bin = UUID_TO_BIN(id), target_id_bin = UUID_TO_BIN(target_id)');
+
+CALL project_service.backfill_binary_ids('file_deletion', 'id', 'id_bin = UUID_TO_BIN(id)');
+
+DROP PROCEDURE project_service.backfill_binary_ids;
+
+ALTER TABLE project_service.answer
+    DROP FOREIGN KEY FK_ANSWER_ON_FK_FIELD,
+    DROP FOREIGN KEY FK_ANSWER_ON_FK_SAMPLE;
+
+ALTER TABLE project_service.dynamic_field
+    DROP FOREIGN KEY FK_DYNAMIC_FIELD_ON_FK_SAMPLE;
+
+ALTER TABLE project_service.field
+    DROP FOREIGN KEY FK_FIELD_ON_FK_FORM;
+
+ALTER TABLE project_service.form
+    DROP FOREIGN KEY FK_FORM_ON_FK_PROJECT;
+
+ALTER TABLE project_service.sample
+    DROP FOREIGN KEY FK_SAMPLE_ON_FK_PROJECT,
+    DROP FOREIGN KEY FK_SAMPLE_ON_FK_STAGE;
+
+ALTER TABLE project_service.stage
+    DROP FOREIGN KEY FK_STAGE_ON_FK_FORM,
+    DROP FOREIGN KEY FK_STAGE_ON_FK_PROJECT;
+
+ALTER TABLE project_service.project_member
+    DROP FOREIGN KEY fk_promem_on_project;
+
+ALTER TABLE project_service.stage_member
+    DROP FOREIGN KEY fk_stamem_on_stage;
+
+ALTER TABLE project_service.user_project_access
+    DROP FOREIGN KEY FK_USER_PROJECT_ACCESS_ON_PROJECT;
+
+ALTER TABLE project_service.sample_location
+    DROP FOREIGN KEY FK_SAMPLE_LOCATION_ON_SAMPLE;
+
+ALTER TABLE project_service.sample_cluster
+    DROP FOREIGN KEY FK_SAMPLE_CLUSTER_ON_PROJECT;
+
+-- The indexes holding a string column are dropped with it and added back on the binary one, the indexes MySQL made
+-- for the foreign keys go with their column and come back with the keys.
+ALTER TABLE project_service.project
+    DROP PRIMARY KEY,
+    DROP INDEX project_owner_status_created_at_idx,
+    DROP id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    ADD CONSTRAINT pk_project PRIMARY KEY (id),
+    ADD INDEX project_owner_status_created_at_idx (fk_owner_id, status, created_at, id);
+
+ALTER TABLE project_service.form
+    DROP PRIMARY KEY,
+    DROP INDEX form_project_created_at_idx,
+    DROP id,
+    DROP fk_project_id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE fk_project_id_bin fk_project_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_form PRIMARY KEY (id),
+    ADD INDEX form_project_created_at_idx (fk_project_id, created_at, id);
+
+ALTER TABLE project_service.field
+    DROP PRIMARY KEY,
+    DROP INDEX field_form_number_order_idx,
+    DROP id,
+    DROP fk_form_id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE fk_form_id_bin fk_form_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_field PRIMARY KEY (id),
+    ADD INDEX field_form_number_order_idx (fk_form_id, number_order);
+
+ALTER TABLE project_service.stage
+    DROP PRIMARY KEY,
+    DROP INDEX stage_project_deleting_created_at_idx,
+    DROP id,
+    DROP fk_form_id,
+    DROP fk_project_id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE fk_form_id_bin fk_form_id BINARY(16) NULL,
+    CHANGE fk_project_id_bin fk_project_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_stage PRIMARY KEY (id),
+    ADD INDEX stage_project_deleting_created_at_idx (fk_project_id, deleting, created_at, id);
+
+ALTER TABLE project_service.sample
+    DROP PRIMARY KEY,
+    DROP INDEX sample_project_created_at_idx,
+    DROP INDEX sample_stage_created_at_idx,
+    DROP id,
+    DROP fk_project_id,
+    DROP fk_stage_id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE fk_project_id_bin fk_project_id BINARY(16) NOT NULL,
+    CHANGE fk_stage_id_bin fk_stage_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_sample PRIMARY KEY (id),
+    ADD INDEX sample_project_created_at_idx (fk_project_id, created_at, id),
+    ADD INDEX sample_stage_created_at_idx (fk_stage_id, created_at, id);
+
+ALTER TABLE project_service.answer
+    DROP PRIMARY KEY,
+    DROP INDEX answer_field_idx,
+    DROP fk_sample_id,
+    DROP fk_field_id,
+    CHANGE fk_sample_id_bin fk_sample_id BINARY(16) NOT NULL,
+    CHANGE fk_field_id_bin fk_field_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_answer PRIMARY KEY (fk_sample_id, fk_field_id),
+    ADD INDEX answer_field_idx (fk_field_id);
+
+ALTER TABLE project_service.dynamic_field
+    DROP PRIMARY KEY,
+    DROP id,
+    DROP fk_sample_id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE fk_sample_id_bin fk_sample_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_dynamic_field PRIMARY KEY (id);
+
+ALTER TABLE project_service.project_member
+    DROP PRIMARY KEY,
+    DROP project_id,
+    CHANGE project_id_bin project_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_project_member PRIMARY KEY (member_id, project_id);
+
+ALTER TABLE project_service.stage_member
+    DROP PRIMARY KEY,
+    DROP stage_id,
+    CHANGE stage_id_bin stage_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT pk_stage_member PRIMARY KEY (member_id, stage_id);
+
+ALTER TABLE project_service.user_project_access
+    DROP PRIMARY KEY,
+    DROP INDEX user_project_access_status_idx,
+    DROP INDEX user_project_access_role_status_idx,
+    DROP project_id,
+    CHANGE project_id_bin project_id BINARY(16) NOT NULL AFTER user_id,
+    ADD CONSTRAINT pk_user_project_access PRIMARY KEY (user_id, project_id),
+    ADD INDEX user_project_access_status_idx (user_id, status, created_at, project_id),
+    ADD INDEX user_project_access_role_status_idx (user_id, role, status, created_at, project_id);
+
+ALTER TABLE project_service.sample_location
+    DROP PRIMARY KEY,
+    DROP INDEX sample_location_project_idx,
+    DROP INDEX sample_location_stage_idx,
+    DROP sample_id,
+    DROP fk_project_id,
+    DROP fk_stage_id,
+    CHANGE sample_id_bin sample_id BINARY(16) NOT NULL FIRST,
+    CHANGE fk_project_id_bin fk_project_id BINARY(16) NOT NULL AFTER sample_id,
+    CHANGE fk_stage_id_bin fk_stage_id BINARY(16) NOT NULL AFTER fk_project_id,
+    ADD CONSTRAINT pk_sample_location PRIMARY KEY (sample_id),
+    ADD INDEX sample_location_project_idx (fk_project_id),
+    ADD INDEX sample_location_stage_idx (fk_stage_id);
+
+ALTER TABLE project_service.sample_cluster
+    DROP PRIMARY KEY,
+    DROP project_id,
+    CHANGE project_id_bin project_id BINARY(16) NOT NULL FIRST,
+    ADD CONSTRAINT pk_sample_cluster PRIMARY KEY (project_id, zoom, cell_x, cell_y);
+
+ALTER TABLE project_service.sample_cluster_delta
+    DROP INDEX sample_cluster_delta_project_idx,
+    DROP project_id,
+    CHANGE project_id_bin project_id BINARY(16) NOT NULL AFTER id,
+    ADD INDEX sample_cluster_delta_project_idx (project_id);
+
+ALTER TABLE project_service.change_log
+    DROP INDEX change_log_project_idx,
+    DROP project_id,
+    DROP entity_id,
+    CHANGE project_id_bin project_id BINARY(16) NOT NULL AFTER id,
+    CHANGE entity_id_bin entity_id BINARY(16) NOT NULL AFTER entity_type,
+    ADD INDEX change_log_project_idx (project_id, id);
+
+ALTER TABLE project_service.purge_job
+    DROP PRIMARY KEY,
+    DROP id,
+    DROP target_id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE target_id_bin target_id BINARY(16) NOT NULL AFTER target_type,
+    ADD CONSTRAINT pk_purge_job PRIMARY KEY (id);
+
+ALTER TABLE project_service.file_deletion
+    DROP PRIMARY KEY,
+    DROP id,
+    CHANGE id_bin id BINARY(16) NOT NULL FIRST,
+    ADD CONSTRAINT pk_file_deletion PRIMARY KEY (id);
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+ALTER TABLE project_service.answer
+    ADD CONSTRAINT FK_ANSWER_ON_FK_FIELD FOREIGN KEY (fk_field_id) REFERENCES project_service.field (id),
+    ADD CONSTRAINT FK_ANSWER_ON_FK_SAMPLE FOREIGN KEY (fk_sample_id) REFERENCES project_service.sample (id);
+
+ALTER TABLE project_service.dynamic_field
+    ADD CONSTRAINT FK_DYNAMIC_FIELD_ON_FK_SAMPLE FOREIGN KEY (fk_sample_id) REFERENCES project_service.sample (id);
+
+ALTER TABLE project_service.field
+    ADD CONSTRAINT FK_FIELD_ON_FK_FORM FOREIGN KEY (fk_form_id) REFERENCES project_service.form (id);
+
+ALTER TABLE project_service.form
+    ADD CONSTRAINT FK_FORM_ON_FK_PROJECT FOREIGN KEY (fk_project_id) REFERENCES project_service.project (id);
+
+ALTER TABLE project_service.sample
+    ADD CONSTRAINT FK_SAMPLE_ON_FK_PROJECT FOREIGN KEY (fk_project_id) REFERENCES project_service.project (id),
+    ADD CONSTRAINT FK_SAMPLE_ON_FK_STAGE FOREIGN KEY (fk_stage_id) REFERENCES project_service.stage (id);
+
+ALTER TABLE project_service.stage
+    ADD CONSTRAINT FK_STAGE_ON_FK_FORM FOREIGN KEY (fk_form_id) REFERENCES project_service.form (id),
+    ADD CONSTRAINT FK_STAGE_ON_FK_PROJECT FOREIGN KEY (fk_project_id) REFERENCES project_service.project (id);
+
+ALTER TABLE project_service.project_member
+    ADD CONSTRAINT fk_promem_on_project FOREIGN KEY (project_id) REFERENCES project_service.project (id);
+
+ALTER TABLE project_service.stage_member
+    ADD CONSTRAINT fk_stamem_on_stage FOREIGN KEY (stage_id) REFERENCES project_service.stage (id);
+
+ALTER TABLE project_service.user_project_access
+    ADD CONSTRAINT FK_USER_PROJECT_ACCESS_ON_PROJECT FOREIGN KEY (project_id) REFERENCES project_service.project (id);
+
+ALTER TABLE project_service.sample_location
+    ADD CONSTRAINT FK_SAMPLE_LOCATION_ON_SAMPLE FOREIGN KEY (sample_id) REFERENCES project_service.sample (id);
+
+ALTER TABLE project_service.sample_cluster
+    ADD CONSTRAINT FK_SAMPLE_CLUSTER_ON_PROJECT FOREIGN KEY (project_id) REFERENCES project_service.project (id);
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,2 @@
+ALTER TABLE project_service.purge_job
+    ADD claim_token VARCHAR(36) NULL;
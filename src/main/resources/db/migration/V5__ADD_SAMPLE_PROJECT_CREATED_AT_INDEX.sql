@@ -0,0 +1 @@
+CREATE INDEX sample_project_created_at_idx ON project_service.sample (fk_project_id, created_at, id);
@@ -0,0 +1,7 @@
+CREATE INDEX sample_stage_created_at_idx ON project_service.sample (fk_stage_id, created_at, id);
+
+CREATE INDEX stage_project_created_at_idx ON project_service.stage (fk_project_id, created_at, id);
+
+CREATE INDEX form_project_created_at_idx ON project_service.form (fk_project_id, created_at, id);
+
+CREATE INDEX project_owner_status_created_at_idx ON project_service.project (fk_owner_id, status, created_at, id);
@@ -0,0 +1,20 @@
+ALTER TABLE project_service.stage
+    ADD deleting BIT(1) DEFAULT 0 NOT NULL;
+
+CREATE TABLE project_service.purge_job
+(
+    id              VARCHAR(36)        NOT NULL,
+    created_at      datetime           NULL,
+    updated_at      datetime           NULL,
+    target_type     SMALLINT           NOT NULL,
+    target_id       VARCHAR(36)        NOT NULL,
+    status          SMALLINT DEFAULT 0 NOT NULL,
+    total_samples   BIGINT   DEFAULT 0 NOT NULL,
+    deleted_samples BIGINT   DEFAULT 0 NOT NULL,
+    attempts        INT      DEFAULT 0 NOT NULL,
+    lease_until     datetime           NULL,
+    error           VARCHAR(255)       NULL,
+    CONSTRAINT pk_purge_job PRIMARY KEY (id)
+);
+
+CREATE INDEX purge_job_status_idx ON project_service.purge_job (status, lease_until);
@@ -0,0 +1,15 @@
+CREATE TABLE project_service.file_deletion
+(
+    id              VARCHAR(36)   NOT NULL,
+    created_at      datetime      NULL,
+    updated_at      datetime      NULL,
+    file_id         VARCHAR(36)   NOT NULL,
+    attempts        INT DEFAULT 0 NOT NULL,
+    next_attempt_at datetime      NULL,
+    claim_token     VARCHAR(36)   NULL,
+    CONSTRAINT pk_file_deletion PRIMARY KEY (id)
+);
+
+CREATE INDEX file_deletion_next_attempt_at_idx ON project_service.file_deletion (next_attempt_at);
+
+CREATE INDEX file_deletion_claim_token_idx ON project_service.file_deletion (claim_token);
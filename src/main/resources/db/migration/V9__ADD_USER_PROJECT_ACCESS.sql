@@ -0,0 +1,27 @@
+CREATE TABLE project_service.user_project_access
+(
+    user_id    VARCHAR(36) NOT NULL,
+    project_id VARCHAR(36) NOT NULL,
+    role       SMALLINT    NOT NULL,
+    status     SMALLINT    NOT NULL,
+    created_at datetime    NOT NULL,
+    CONSTRAINT pk_user_project_access PRIMARY KEY (user_id, project_id)
+);
+
+CREATE INDEX user_project_access_status_idx
+    ON project_service.user_project_access (user_id, status, created_at, project_id);
+
+CREATE INDEX user_project_access_role_status_idx
+    ON project_service.user_project_access (user_id, role, status, created_at, project_id);
+
+ALTER TABLE project_service.user_project_access
+    ADD CONSTRAINT FK_USER_PROJECT_ACCESS_ON_PROJECT FOREIGN KEY (project_id) REFERENCES project_service.project (id);
+
+INSERT IGNORE INTO project_service.user_project_access (user_id, project_id, role, status, created_at)
+SELECT p.fk_owner_id, p.id, 0, p.status, p.created_at
+FROM project_service.project p;
+
+INSERT IGNORE INTO project_service.user_project_access (user_id, project_id, role, status, created_at)
+SELECT pm.member_id, p.id, 1, p.status, p.created_at
+FROM project_service.project_member pm
+         JOIN project_service.project p ON p.id = pm.project_id;
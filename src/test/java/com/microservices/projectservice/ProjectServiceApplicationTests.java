@@ -26,6 +26,7 @@ public class ProjectServiceApplicationTests {
                 .setPort(port)
                 .setBasePath("/api/" + API_VERSION)
                 .addHeader("Content-Type", "application/json")
+                .addFilter(new QueryBudget.Enforcer())
                 .build();
     }
 }
@@ -0,0 +1,88 @@
+package com.microservices.projectservice;
+
+import com.microservices.projectservice.config.QueryCountFilter;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maximum number of SQL statements each request of a test may run, as counted by the service in its
+ * {@value QueryCountFilter#QUERY_COUNT_HEADER} response header. Declared on a test class, or on a test method to
+ * override the budget of its class. Every request sent with {@code requestSpecification}, the ones setting the test
+ * up included, fails the test as soon as it goes over.
+ * <p>
+ * The most statements run by one request of each test class are logged once its tests are done, which is what the
+ * budgets are set from.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudget.Enforcer.class)
+public @interface QueryBudget {
+
+    int value();
+
+    @Slf4j
+    class Enforcer implements BeforeEachCallback, AfterEachCallback, AfterAllCallback, Filter {
+
+        private static final ThreadLocal<Integer> BUDGET = new ThreadLocal<>();
+        private static final ThreadLocal<Class<?>> TEST_CLASS = new ThreadLocal<>();
+        private static final Map<Class<?>, Integer> MOST_QUERIES = new ConcurrentHashMap<>();
+
+        @Override
+        public void beforeEach(ExtensionContext context) {
+            TEST_CLASS.set(context.getRequiredTestClass());
+            AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+                    .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), QueryBudget.class))
+                    .ifPresent(budget -> BUDGET.set(budget.value()));
+        }
+
+        @Override
+        public void afterEach(ExtensionContext context) {
+            BUDGET.remove();
+            TEST_CLASS.remove();
+        }
+
+        @Override
+        public void afterAll(ExtensionContext context) {
+            var testClass = context.getRequiredTestClass();
+            var mostQueries = MOST_QUERIES.remove(testClass);
+            if (mostQueries == null) return;
+            var budget = AnnotationSupport.findAnnotation(testClass, QueryBudget.class).map(QueryBudget::value);
+            log.info("{} ran at most {} queries in one request, budget {}",
+                    testClass.getSimpleName(), mostQueries, budget.map(String::valueOf).orElse("none"));
+        }
+
+        @Override
+        public Response filter(FilterableRequestSpecification request, FilterableResponseSpecification response,
+                               FilterContext context) {
+            var result = context.next(request, response);
+            var budget = BUDGET.get();
+            var queries = result.header(QueryCountFilter.QUERY_COUNT_HEADER);
+            var testClass = TEST_CLASS.get();
+            if (queries != null && testClass != null)
+                MOST_QUERIES.merge(testClass, Integer.parseInt(queries), Math::max);
+            if (budget != null && queries != null && Integer.parseInt(queries) > budget) {
+                throw new AssertionError("%s %s ran %s queries, over the budget of %d"
+                        .formatted(request.getMethod(), request.getURI(), queries, budget));
+            }
+            return result;
+        }
+    }
+
+}
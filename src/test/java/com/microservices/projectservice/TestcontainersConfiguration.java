@@ -1,5 +1,6 @@
 package com.microservices.projectservice;
 
+import com.microservices.projectservice.repository.RecordingQueryInterceptor;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Bean;
@@ -12,7 +13,10 @@ class TestcontainersConfiguration {
     @Bean
     @ServiceConnection
     MySQLContainer<?> mysqlContainer() {
-        return new MySQLContainer<>(DockerImageName.parse("mysql:8.1"));
+        // named as in the migrations, for the tests running them
+        return new MySQLContainer<>(DockerImageName.parse("mysql:8.1"))
+                .withDatabaseName("project_service")
+                .withUrlParam("queryInterceptors", RecordingQueryInterceptor.class.getName());
     }
 
 }
@@ -0,0 +1,130 @@
+package com.microservices.projectservice.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.dto.response.FieldResponse;
+import com.microservices.projectservice.dto.response.PagingObjectsResponse;
+import com.microservices.projectservice.dto.response.SampleResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the payload size and the time to write and read a page of samples as JSON, CBOR and Smile, with the
+ * mappers of the application.
+ * <p>
+ * Only runs with {@code -Dbenchmark=true}, the page size can be set with {@code -Dbenchmark.samples} and the number
+ * of measured iterations with {@code -Dbenchmark.iterations}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BinaryFormatBenchmarkTests extends ProjectServiceApplicationTests {
+
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 200);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 2000);
+    private static final int FIELDS = 10;
+    private static final TypeReference<PagingObjectsResponse<SampleResponse>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Test
+    void compareFormats() throws IOException {
+        var page = samplePage();
+        var json = run("JSON", objectMapper, page);
+        var cbor = run("CBOR", cborConverter.getObjectMapper(), page);
+        var smile = run("Smile", smileConverter.getObjectMapper(), page);
+
+        log.info("Format | bytes    | write (µs/page) | read (µs/page)");
+        for (var result : List.of(json, cbor, smile))
+            log.info("{} | {} | {} | {}",
+                    "%-6s".formatted(result.format()),
+                    "%8d".formatted(result.bytes()),
+                    "%15d".formatted(result.writeMicros()),
+                    "%14d".formatted(result.readMicros()));
+
+        assertTrue(cbor.bytes() < json.bytes(), "CBOR pages are not smaller than JSON ones");
+        assertTrue(smile.bytes() < json.bytes(), "Smile pages are not smaller than JSON ones");
+    }
+
+    private Result run(String format, ObjectMapper mapper, PagingObjectsResponse<SampleResponse> page)
+            throws IOException {
+        var payload = mapper.writeValueAsBytes(page);
+        assertEquals(page, mapper.readValue(payload, PAGE_TYPE), format + " does not read back the page it wrote");
+
+        // warm up, and sum the sizes so the loops are not optimized away
+        long written = 0;
+        for (int i = 0; i < ITERATIONS; i++)
+            written += mapper.writeValueAsBytes(mapper.readValue(payload, PAGE_TYPE)).length;
+
+        var start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) written += mapper.writeValueAsBytes(page).length;
+        var writeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) written += mapper.readValue(payload, PAGE_TYPE).content().size();
+        var readNanos = System.nanoTime() - start;
+
+        assertTrue(written > 0);
+        return new Result(format, payload.length, writeNanos / ITERATIONS / 1000, readNanos / ITERATIONS / 1000);
+    }
+
+    /**
+     * A page of samples answering every field of their form, as listed by project or stage.
+     */
+    private static PagingObjectsResponse<SampleResponse> samplePage() {
+        var now = System.currentTimeMillis();
+        var projectId = UUID.randomUUID().toString();
+        var stageId = UUID.randomUUID().toString();
+        var formId = UUID.randomUUID().toString();
+        var fields = IntStream.range(0, FIELDS)
+                .mapToObj(order -> new FieldResponse(
+                        UUID.randomUUID().toString(), order, "Field " + order, now, formId))
+                .toList();
+
+        var samples = new ArrayList<SampleResponse>(SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            var createdAt = now - i * 60_000L;
+            samples.add(new SampleResponse(
+                    UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(),
+                    "%.6f,%.6f".formatted(10 + i / 1000.0, 106 + i / 1000.0),
+                    createdAt,
+                    projectId,
+                    stageId,
+                    fields.stream()
+                            .map(field -> new SampleResponse.AnswerResponse("Answer to " + field.name(), field))
+                            .toList(),
+                    IntStream.range(0, 2)
+                            .mapToObj(order -> new SampleResponse.DynamicFieldResponse(
+                                    UUID.randomUUID().toString(), "Extra " + order, "Value " + order, order,
+                                    createdAt))
+                            .toList()
+            ));
+        }
+        return new PagingObjectsResponse<>(
+                10, 10L * SAMPLES, 0, SAMPLES, SAMPLES, true, false, samples, "cursor");
+    }
+
+    private record Result(String format, int bytes, long writeMicros, long readMicros) {
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.microservices.projectservice.config;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Measures how long the requests reading a project and its stages hold pool connections, from the
+ * {@code hikaricp.connections.usage} timers of every pool.
+ * <p>
+ * Only runs with {@code -Dbenchmark=true}, the number of measured requests can be set with
+ * {@code -Dbenchmark.requests}. Run it once as is and once with {@code -Dspring.jpa.open-in-view=true} to compare
+ * with the session held open for the whole request.
+ */
+@Slf4j
+@AutoConfigureObservability
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ConnectionHoldBenchmarkTests extends ProjectServiceApplicationTests {
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 1000);
+    private static final int STAGES = 20;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    @Test
+    void measureConnectionHold() {
+        var projectId = createProjectWithStages();
+
+        // warm up
+        for (int i = 0; i < REQUESTS / 10; i++) readProjectAndStages(projectId);
+
+        var timers = meterRegistry.find("hikaricp.connections.usage").timers();
+        assertFalse(timers.isEmpty(), "No connection pool metrics");
+        var count = count(timers);
+        var totalNanos = totalNanos(timers);
+        for (int i = 0; i < REQUESTS; i++) readProjectAndStages(projectId);
+        count = count(timers) - count;
+        totalNanos = totalNanos(timers) - totalNanos;
+
+        log.info("Open-in-view {}: {} connections held per request, {} µs per connection, {} µs per request",
+                openInView,
+                "%.2f".formatted((double) count / REQUESTS),
+                count == 0 ? 0 : totalNanos / count / 1000,
+                totalNanos / REQUESTS / 1000);
+    }
+
+    private void readProjectAndStages(String projectId) {
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200);
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("pageSize", STAGES)
+                .get("/stage/{projectId}/project")
+                .then()
+                .statusCode(200);
+    }
+
+    private String createProjectWithStages() {
+        var projectId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Benchmark project",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "ff394849-1f55-4b8b-bf56-956c43cfff56"
+                        }""")
+                .post("/project")
+                .thenReturn()
+                .print();
+        for (int i = 0; i < STAGES; i++)
+            given(requestSpecification)
+                    .body("""
+                            {
+                                "name": "Stage %d",
+                                "startDate": "2024-07-23",
+                                "endDate": "2024-07-24",
+                                "projectOwnerId": "%s"
+                            }""".formatted(i, projectId))
+                    .post("/stage")
+                    .then()
+                    .statusCode(201);
+        return projectId;
+    }
+
+    private static long count(Collection<Timer> timers) {
+        return timers.stream().mapToLong(Timer::count).sum();
+    }
+
+    private static long totalNanos(Collection<Timer> timers) {
+        return (long) timers.stream().mapToDouble(timer -> timer.totalTime(TimeUnit.NANOSECONDS)).sum();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.microservices.projectservice.config;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+
+@AutoConfigureObservability
+class MetricsConfigurationTests extends ProjectServiceApplicationTests {
+
+    @Test
+    void prometheus_shouldExposeEndpointServiceRepositoryAndPoolMetrics() {
+        given(requestSpecification)
+                .pathParam("projectId", UUID.randomUUID().toString())
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(404);
+
+        given()
+                .port(port)
+                .when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(200)
+                .body(containsString("http_server_requests_seconds_bucket{"),
+                        containsString("service_invocations_seconds_bucket{"
+                                + "class=\"com.microservices.projectservice.service.ProjectService\""),
+                        containsString("method=\"getProject\""),
+                        containsString("spring_data_repository_invocations_seconds_count{"),
+                        containsString("hikaricp_connections_active{"),
+                        containsString("tomcat_threads_busy_threads{"));
+    }
+
+}
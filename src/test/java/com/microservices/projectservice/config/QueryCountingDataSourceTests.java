@@ -0,0 +1,80 @@
+package com.microservices.projectservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the statements of the current request whoever sends them, a {@link JdbcTemplate} here as well as Hibernate.
+ */
+class QueryCountingDataSourceTests {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        var connection = mock(Connection.class);
+        var preparedStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        var dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        jdbcTemplate = new JdbcTemplate(new QueryCountingDataSource(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryCounter.stop();
+    }
+
+    @Test
+    void jdbcTemplateStatements_shouldBeCounted() {
+        var counter = QueryCounter.start();
+
+        jdbcTemplate.update("update project set version = version + 1 where id = ?", "id");
+        jdbcTemplate.execute("delete from change_log");
+
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    void statementsOutsideOfRequests_shouldNotBeCounted() {
+        jdbcTemplate.update("update project set version = version + 1 where id = ?", "id");
+
+        assertEquals(0, QueryCounter.stop());
+    }
+
+    @Test
+    void statementsOfOtherThreads_shouldOnlyBeCountedOnceGivenTheCounter() throws Exception {
+        var counter = QueryCounter.start();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> jdbcTemplate.execute("delete from change_log")).get();
+            executor.submit(() -> {
+                QueryCounter.bind(counter);
+                try {
+                    jdbcTemplate.execute("delete from change_log");
+                } finally {
+                    QueryCounter.bind(null);
+                }
+            }).get();
+        }
+
+        assertEquals(1, counter.get());
+    }
+
+}
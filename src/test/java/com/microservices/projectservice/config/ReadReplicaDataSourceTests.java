@@ -0,0 +1,162 @@
+package com.microservices.projectservice.config;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs against a second MySQL container standing for the replica. It does not replicate the primary: its schema is
+ * copied once, then it holds a project the primary does not have, which shows where each read goes.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaDataSourceTests extends ProjectServiceApplicationTests {
+
+    private static final MySQLContainer<?> REPLICA = new MySQLContainer<>(DockerImageName.parse("mysql:8.1"));
+
+    @Autowired
+    private DataSource dataSource;
+
+    private SingleConnectionDataSource replicaDataSource;
+    private final String replicaOnlyProjectId = UUID.randomUUID().toString();
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        REPLICA.start();
+        registry.add("app.read-replicas.urls", REPLICA::getJdbcUrl);
+        registry.add("app.read-replicas.username", REPLICA::getUsername);
+        registry.add("app.read-replicas.password", REPLICA::getPassword);
+        // checked by the tests themselves
+        registry.add("app.read-replicas.health-check-interval", () -> "PT1H");
+    }
+
+    @BeforeAll
+    void initReplica() {
+        var primary = new JdbcTemplate(dataSource);
+        replicaDataSource = new SingleConnectionDataSource(
+                REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword(), true);
+        var replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("set foreign_key_checks = 0");
+        for (var table : primary.queryForList("show tables", String.class)) {
+            String createTable = primary.queryForObject(
+                    "show create table `" + table + "`", (row, rowNumber) -> row.getString(2));
+            replica.execute(createTable);
+        }
+        var ownerId = UUID.randomUUID().toString();
+        replica.update("insert into user (id, created_at, updated_at) values (?, now(), now())", ownerId);
+        replica.update("""
+                        insert into project (id, name, status, fk_owner_id, created_at, updated_at)
+                        values (uuid_to_bin(?), 'Replica only project', 0, ?, now(), now())""",
+                replicaOnlyProjectId, ownerId);
+        readReplicaDataSource().checkReplicas();
+    }
+
+    @AfterAll
+    void closeReplica() {
+        replicaDataSource.destroy();
+        REPLICA.stop();
+    }
+
+    @Test
+    @Order(1)
+    void getProject_shouldReadFromReplica() {
+        assertEquals(List.of("replica-0"), readReplicaDataSource().getHealthyReplicas());
+        given(requestSpecification)
+                .pathParam("projectId", replicaOnlyProjectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Replica only project"));
+    }
+
+    @Test
+    @Order(2)
+    void getProject_shouldReadFromPrimary_afterOwnWrite() {
+        var lastWrite = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Primary project",
+                            "ownerId": "ff394849-1f55-4b8b-bf56-956c43cfff56"
+                        }""")
+                .when()
+                .post("/project")
+                .then()
+                .statusCode(201)
+                .header(ReadYourWritesFilter.LAST_WRITE_HEADER, notNullValue())
+                .extract();
+        var projectId = lastWrite.body().asString();
+
+        given(requestSpecification)
+                .header(ReadYourWritesFilter.LAST_WRITE_HEADER, lastWrite.header(ReadYourWritesFilter.LAST_WRITE_HEADER))
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Primary project"));
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @Order(3)
+    void getProject_shouldReadFromReplica_afterWindow() {
+        var longAgo = System.currentTimeMillis() - 60_000;
+        given(requestSpecification)
+                .header(ReadYourWritesFilter.LAST_WRITE_HEADER, String.valueOf(longAgo))
+                .pathParam("projectId", replicaOnlyProjectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    @Order(4)
+    void getProject_shouldReadFromPrimary_whenReplicaDown() {
+        replicaDataSource.destroy();
+        REPLICA.stop();
+        readReplicaDataSource().checkReplicas();
+
+        assertEquals(List.of(), readReplicaDataSource().getHealthyReplicas());
+        given(requestSpecification)
+                .pathParam("projectId", replicaOnlyProjectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(404);
+    }
+
+    /**
+     * The data source of the application, under the one counting the statements.
+     */
+    private ReadReplicaDataSource readReplicaDataSource() {
+        try {
+            return dataSource.unwrap(ReadReplicaDataSource.class);
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+}
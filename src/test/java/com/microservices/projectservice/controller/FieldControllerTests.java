@@ -1,6 +1,7 @@
 package com.microservices.projectservice.controller;
 
 import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
 import io.restassured.specification.RequestSpecification;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +11,7 @@ import java.util.List;
 
 import static io.restassured.RestAssured.given;
 
+@QueryBudget(15)
 class FieldControllerTests extends ProjectServiceApplicationTests {
 
     private String formId;
@@ -1,11 +1,14 @@
 package com.microservices.projectservice.controller;
 
 import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 
 import static io.restassured.RestAssured.given;
 
+@QueryBudget(15)
 class FormControllerTests extends ProjectServiceApplicationTests {
 
     private String projectId;
@@ -61,6 +64,43 @@ class FormControllerTests extends ProjectServiceApplicationTests {
                 .statusCode(200);
     }
 
+    @Test
+    void getAllFormsWithCurrentETag_shouldReturnNotModifiedUntilFormCreated() {
+        var etag = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/form/{projectId}/project")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header(HttpHeaders.ETAG);
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when()
+                .get("/form/{projectId}/project")
+                .then()
+                .statusCode(304);
+
+        given(requestSpecification)
+                .body("""
+                        {
+                            "title": "Form 1",
+                            "projectOwnerId": "%s"
+                        }""".formatted(projectId))
+                .when()
+                .post("/form")
+                .then()
+                .statusCode(201);
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when()
+                .get("/form/{projectId}/project")
+                .then()
+                .statusCode(200);
+    }
+
     @Test
     void createFormWithNullDesc_shouldReturnCreated() {
         String requestBody = """
@@ -1,19 +1,28 @@
 package com.microservices.projectservice.controller;
 
 import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
+import com.microservices.projectservice.config.QueryCountFilter;
 import io.restassured.specification.RequestSpecification;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 
+@QueryBudget(15)
 class ProjectControllerTests extends ProjectServiceApplicationTests {
 
     private final String ownerId = "ff394849-1f55-4b8b-bf56-956c43cfff56";
 
     @Test
+    @QueryBudget(1)
     void getProject_shouldReturnNotFound() {
         given(requestSpecification)
                 .pathParam("projectId", 1)
@@ -47,6 +56,60 @@ class ProjectControllerTests extends ProjectServiceApplicationTests {
                 .statusCode(200);
     }
 
+    @Test
+    void getProjectWithCurrentETag_shouldReturnNotModified() {
+        var projectId = createProject();
+        var etag = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header(HttpHeaders.ETAG);
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(304)
+                .header(QueryCountFilter.QUERY_COUNT_HEADER, "1");
+    }
+
+    @Test
+    void updateProjectWithStaleETag_shouldReturnPreconditionFailed() {
+        var projectId = createProject();
+        var etag = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .extract()
+                .header(HttpHeaders.ETAG);
+        for (var status : List.of(204, 412))
+            given(requestSpecification)
+                    .pathParam("projectId", projectId)
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .body("""
+                            {
+                                "name": "Renamed project"
+                            }""")
+                    .when()
+                    .patch("/project/{projectId}")
+                    .then()
+                    .statusCode(status);
+
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200)
+                .header(HttpHeaders.ETAG, not(etag));
+    }
+
     @Test
     void getAllJoinProjectsWithUnavailableUserId_shouldReturnNotFound() {
         given(requestSpecification)
@@ -141,6 +204,44 @@ class ProjectControllerTests extends ProjectServiceApplicationTests {
         getRequest.then().statusCode(200);
     }
 
+    @Test
+    void getAllProjectsWithStatus_shouldFollowStatusUpdates() {
+        var userId = "7c48e304-5872-44b0-a6fb-aab31f045903";
+        var projectId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Project to archive",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "%s",
+                            "memberIds": ["%s"]
+                        }""".formatted(ownerId, userId))
+                .post("/project")
+                .thenReturn()
+                .print();
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .body("""
+                        {
+                            "status": "ARCHIVED"
+                        }""")
+                .when()
+                .patch("/project/{projectId}")
+                .then()
+                .statusCode(204);
+
+        for (var status : List.of("NORMAL", "ARCHIVED"))
+            given(requestSpecification)
+                    .pathParam("userId", userId)
+                    .queryParam("query", "JOIN")
+                    .queryParam("status", status)
+                    .when()
+                    .get("/project/{userId}/user")
+                    .then()
+                    .statusCode(200)
+                    .body("content.id", status.equals("ARCHIVED") ? hasItem(projectId) : not(hasItem(projectId)));
+    }
+
     @Test
     void createProjectWithBlankOwnerId_shouldReturnBadRequest() {
         String requestBody = """
@@ -639,6 +740,126 @@ class ProjectControllerTests extends ProjectServiceApplicationTests {
                 .statusCode(204);
     }
 
+    @Test
+    void addProjectMembers_shouldSkipExistingMembers() {
+        String createRequestBody = """
+                {
+                    "name": "Test project",
+                    "startDate": "2024-07-26",
+                    "endDate": "2024-07-28",
+                    "ownerId": "%s"
+                }""".formatted(ownerId);
+        var projectId = given(requestSpecification)
+                .body(createRequestBody)
+                .post("/project")
+                .thenReturn()
+                .body()
+                .print();
+
+        var memberIds = List.of("7c48e304-5872-44b0-a6fb-aab31f045903", "3f1d2c5e-8a4b-4c6d-9e7f-0a1b2c3d4e5f");
+        String updateRequestBody = """
+                {
+                    "memberIds": ["%s", "%s"],
+                    "operator": "ADD"
+                }""".formatted(memberIds.get(0), memberIds.get(1));
+        for (int i = 0; i < 2; i++)
+            given(requestSpecification)
+                    .pathParam("projectId", projectId)
+                    .body(updateRequestBody)
+                    .when()
+                    .patch("/project/{projectId}/members")
+                    .then()
+                    .statusCode(204);
+
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(200)
+                .body("memberIds", containsInAnyOrder(memberIds.toArray()));
+
+        // adding a single member already in the project is still a conflict
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .body("""
+                        {
+                            "memberId": "%s",
+                            "operator": "ADD"
+                        }""".formatted(memberIds.get(0)))
+                .when()
+                .patch("/project/{projectId}/member")
+                .then()
+                .statusCode(409);
+    }
+
+    @Test
+    void updateProjectMembersWithEmptyMemberIds_shouldReturnBadRequest() {
+        given(requestSpecification)
+                .pathParam("projectId", "5e6ebea5-c22d-4520-b954-6689ea70cf93")
+                .body("""
+                        {
+                            "memberIds": [],
+                            "operator": "ADD"
+                        }""")
+                .when()
+                .patch("/project/{projectId}/members")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void checkUsersInAnyStage_shouldAnswerEachPair() {
+        var memberId = "7c48e304-5872-44b0-a6fb-aab31f045903";
+        var projectId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Test project",
+                            "startDate": "2024-07-26",
+                            "endDate": "2024-07-28",
+                            "ownerId": "%s",
+                            "memberIds": ["%s"]
+                        }""".formatted(ownerId, memberId))
+                .post("/project")
+                .thenReturn()
+                .body()
+                .print();
+        given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Stage 1",
+                            "startDate": "2024-07-26",
+                            "endDate": "2024-07-28",
+                            "projectOwnerId": "%s",
+                            "memberIds": ["%s"]
+                        }""".formatted(projectId, memberId))
+                .post("/stage")
+                .then()
+                .statusCode(201);
+
+        given(requestSpecification)
+                .body("""
+                        [
+                            {"projectId": "%1$s", "userId": "%2$s"},
+                            {"projectId": "%1$s", "userId": "%3$s"}
+                        ]""".formatted(projectId, memberId, ownerId))
+                .when()
+                .post("/project/stage/check")
+                .then()
+                .statusCode(200)
+                .body("", contains(true, false));
+    }
+
+    @Test
+    void checkUsersInAnyStageWithoutPairs_shouldReturnBadRequest() {
+        given(requestSpecification)
+                .body("[]")
+                .when()
+                .post("/project/stage/check")
+                .then()
+                .statusCode(400);
+    }
+
     @Test
     void deleteProject_shouldReturnNotFound() {
         given(requestSpecification)
@@ -650,7 +871,7 @@ class ProjectControllerTests extends ProjectServiceApplicationTests {
     }
 
     @Test
-    void deleteProject_shouldReturnNoContent() {
+    void deleteProject_shouldReturnAccepted() {
         String requestBody = """
                 {
                     "name": 1,
@@ -670,6 +891,20 @@ class ProjectControllerTests extends ProjectServiceApplicationTests {
                 .when()
                 .delete("/project/{projectId}")
                 .then()
-                .statusCode(204);
+                .statusCode(202);
+    }
+
+    private String createProject() {
+        return given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Tagged project",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "%s"
+                        }""".formatted(ownerId))
+                .post("/project")
+                .thenReturn()
+                .print();
     }
 }
@@ -0,0 +1,148 @@
+package com.microservices.projectservice.controller;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
+import com.microservices.projectservice.entity.Sample;
+import com.microservices.projectservice.repository.SampleRepository;
+import com.microservices.projectservice.repository.StageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@QueryBudget(15)
+class PurgeJobControllerTests extends ProjectServiceApplicationTests {
+
+    private final String ownerId = "ff394849-1f55-4b8b-bf56-956c43cfff56";
+
+    @Autowired
+    private StageRepository stageRepository;
+    @Autowired
+    private SampleRepository sampleRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @QueryBudget(1)
+    void getJobWithUnavailableJobId_shouldReturnNotFound() {
+        given(requestSpecification)
+                .pathParam("jobId", "5e6ebea5-c22d-4520-b954-6689ea70cf93")
+                .when()
+                .get("/purge-job/{jobId}")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void deleteProject_shouldBePurgedInBackground() throws InterruptedException {
+        var projectId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Test project",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "%s"
+                        }""".formatted(ownerId))
+                .post("/project")
+                .thenReturn()
+                .print();
+        var jobId = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .delete("/project/{projectId}")
+                .thenReturn()
+                .print();
+
+        // the project is hidden as soon as its deletion is accepted
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/project/{projectId}")
+                .then()
+                .statusCode(404);
+
+        assertEquals("DONE", awaitProjectJob(jobId, projectId));
+    }
+
+    @Test
+    void deleteProject_shouldPurgeSamplesWithoutCreationTime() throws InterruptedException {
+        var projectId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Test project",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "%s"
+                        }""".formatted(ownerId))
+                .post("/project")
+                .thenReturn()
+                .print();
+        var formId = given(requestSpecification)
+                .body("""
+                        {
+                            "title": "Form 1",
+                            "projectOwnerId": "%s"
+                        }""".formatted(projectId))
+                .post("/form")
+                .thenReturn()
+                .print();
+        var stageId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Stage 1",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "formId": "%s",
+                            "projectOwnerId": "%s"
+                        }""".formatted(formId, projectId))
+                .post("/stage")
+                .thenReturn()
+                .print();
+        var stage = stageRepository.findById(stageId).orElseThrow();
+        var sampleId = sampleRepository.save(Sample.builder()
+                .attachmentId(UUID.randomUUID().toString())
+                .projectOwner(stage.getProjectOwner())
+                .stage(stage)
+                .build()).getId();
+        // the column is nullable since the first migration
+        jdbcTemplate.update("update sample set created_at = null where id = uuid_to_bin(?)", sampleId);
+
+        var jobId = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .delete("/project/{projectId}")
+                .thenReturn()
+                .print();
+
+        assertEquals("DONE", awaitProjectJob(jobId, projectId));
+        assertFalse(sampleRepository.existsById(sampleId));
+    }
+
+    /**
+     * @return the status of the job purging the project, once done or after 10 seconds.
+     */
+    private String awaitProjectJob(String jobId, String projectId) throws InterruptedException {
+        String status = null;
+        for (int poll = 0; poll < 20 && !"DONE".equals(status); poll++) {
+            Thread.sleep(500);
+            status = given(requestSpecification)
+                    .pathParam("jobId", jobId)
+                    .when()
+                    .get("/purge-job/{jobId}")
+                    .then()
+                    .statusCode(200)
+                    .body("targetType", equalTo("PROJECT"))
+                    .body("targetId", equalTo(projectId))
+                    .extract()
+                    .path("status");
+        }
+        return status;
+    }
+
+}
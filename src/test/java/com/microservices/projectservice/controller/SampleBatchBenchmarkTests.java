@@ -0,0 +1,169 @@
+package com.microservices.projectservice.controller;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.service.FileService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Compares the samples created per second one by one through {@code POST /sample} and by batches through
+ * {@code POST /sample/batch}, each sample answering every field of its form. The file service answers at once, so
+ * only the work of this service is measured.
+ * <p>
+ * Only runs with {@code -Dbenchmark=true}, the number of samples can be set with {@code -Dbenchmark.samples} and the
+ * batch size with {@code -Dbenchmark.batch-size}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SampleBatchBenchmarkTests extends ProjectServiceApplicationTests {
+
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 2000);
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.batch-size", 200);
+    private static final int FIELDS = 10;
+
+    @SpyBean
+    private FileService fileService;
+
+    @Test
+    void compareSingleAndBatchCreation() {
+        doReturn(true).when(fileService).checkFileExists(anyString());
+        doAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                .collect(Collectors.toMap(Function.identity(), fileId -> true)))
+                .when(fileService).checkFilesExist(anyCollection());
+        var projectId = createProject();
+        var formId = createForm(projectId);
+        var stageId = createStage(projectId, formId);
+        var fieldIds = createFields(formId);
+
+        // warm up
+        createOneByOne(projectId, stageId, fieldIds, SAMPLES / 10);
+        createByBatches(projectId, stageId, fieldIds, SAMPLES / 10);
+
+        var start = System.nanoTime();
+        createOneByOne(projectId, stageId, fieldIds, SAMPLES);
+        var singleNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        createByBatches(projectId, stageId, fieldIds, SAMPLES);
+        var batchNanos = System.nanoTime() - start;
+
+        log.info("Samples created per second: {} one by one, {} by batches of {}, {}x",
+                SAMPLES * 1_000_000_000L / singleNanos,
+                SAMPLES * 1_000_000_000L / batchNanos,
+                BATCH_SIZE,
+                "%.1f".formatted((double) singleNanos / batchNanos));
+    }
+
+    private void createOneByOne(String projectId, String stageId, List<String> fieldIds, int count) {
+        for (int i = 0; i < count; i++)
+            given(requestSpecification)
+                    .body(sample(projectId, stageId, fieldIds))
+                    .post("/sample")
+                    .then()
+                    .statusCode(201);
+    }
+
+    private void createByBatches(String projectId, String stageId, List<String> fieldIds, int count) {
+        for (int created = 0; created < count; created += BATCH_SIZE) {
+            var batch = new ArrayList<String>();
+            for (int i = 0; i < Math.min(BATCH_SIZE, count - created); i++)
+                batch.add(sample(projectId, stageId, fieldIds));
+            given(requestSpecification)
+                    .body("[" + String.join(",", batch) + "]")
+                    .post("/sample/batch")
+                    .then()
+                    .statusCode(200)
+                    .body("success", everyItem(equalTo(true)));
+        }
+    }
+
+    private static String sample(String projectId, String stageId, List<String> fieldIds) {
+        var answers = fieldIds.stream()
+                .map(fieldId -> """
+                        {"value": "Answer", "fieldId": "%s"}""".formatted(fieldId))
+                .collect(Collectors.joining(","));
+        return """
+                {
+                  "attachmentId": "%s",
+                  "position": "10.762622,106.660172",
+                  "projectOwnerId": "%s",
+                  "stageId": "%s",
+                  "answers": [%s],
+                  "dynamicFields": [{"name": "Extra", "value": "Value", "numberOrder": 0}]
+                }""".formatted(UUID.randomUUID(), projectId, stageId, answers);
+    }
+
+    private String createProject() {
+        return given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Benchmark project",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "ff394849-1f55-4b8b-bf56-956c43cfff56"
+                        }""")
+                .post("/project")
+                .thenReturn()
+                .print();
+    }
+
+    private String createForm(String projectId) {
+        return given(requestSpecification)
+                .body("""
+                        {
+                            "title": "Benchmark form",
+                            "projectOwnerId": "%s"
+                        }""".formatted(projectId))
+                .post("/form")
+                .thenReturn()
+                .print();
+    }
+
+    private String createStage(String projectId, String formId) {
+        return given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Benchmark stage",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "formId": "%s",
+                            "projectOwnerId": "%s"
+                        }""".formatted(formId, projectId))
+                .post("/stage")
+                .thenReturn()
+                .print();
+    }
+
+    private List<String> createFields(String formId) {
+        var fieldIds = new ArrayList<String>();
+        for (int i = 0; i < FIELDS; i++)
+            fieldIds.add(given(requestSpecification)
+                    .pathParam("formId", formId)
+                    .body("""
+                            {
+                                "fieldName": "Field %d",
+                                "numberOrder": %d
+                            }""".formatted(i, i))
+                    .post("/field/{formId}")
+                    .thenReturn()
+                    .print());
+        return fieldIds;
+    }
+
+}
@@ -1,17 +1,82 @@
 package com.microservices.projectservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
+import com.microservices.projectservice.entity.Answer;
+import com.microservices.projectservice.entity.DynamicField;
+import com.microservices.projectservice.entity.Sample;
+import com.microservices.projectservice.entity.embedded.AnswerPK;
+import com.microservices.projectservice.repository.FieldRepository;
+import com.microservices.projectservice.repository.FileDeletionRepository;
+import com.microservices.projectservice.repository.SampleClusterRepository;
+import com.microservices.projectservice.repository.SampleLocationRepository;
+import com.microservices.projectservice.repository.SampleRepository;
+import com.microservices.projectservice.repository.StageRepository;
+import com.microservices.projectservice.service.FileService;
+import com.microservices.projectservice.service.SampleClusterService;
 import io.restassured.specification.RequestSpecification;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
 
+@QueryBudget(20)
 class SampleControllerTests extends ProjectServiceApplicationTests {
 
+    // exists check + sample rows + count + answers joined to fields + dynamic fields
+    private static final long MAX_STATEMENTS_PER_PAGE = 5;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private StageRepository stageRepository;
+    @Autowired
+    private FieldRepository fieldRepository;
+    @Autowired
+    private SampleRepository sampleRepository;
+    @Autowired
+    private FileDeletionRepository fileDeletionRepository;
+    @Autowired
+    private SampleLocationRepository sampleLocationRepository;
+    @Autowired
+    private SampleClusterRepository sampleClusterRepository;
+    @Autowired
+    private SampleClusterService sampleClusterService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    // the real file service, but for the attachments the tests make up
+    @SpyBean
+    private FileService fileService;
+
     private String projectId;
     private String stageId;
     private final String attachmentId = "f1c23a7a-9205-47fc-9e22-dbbe7d30874e";
@@ -198,6 +263,436 @@ class SampleControllerTests extends ProjectServiceApplicationTests {
         response.then().statusCode(200);
     }
 
+    @Test
+    void getAllSamplesByProjectId_shouldRunFixedNumberOfStatementsPerPage() {
+        insertSamples(5);
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (var pageSize : List.of(1, 5)) {
+            statistics.clear();
+            given(requestSpecification)
+                    .pathParam("projectId", projectId)
+                    .queryParam("pageSize", pageSize)
+                    .when()
+                    .get("/sample/{projectId}/project")
+                    .then()
+                    .statusCode(200)
+                    .body("content.size()", equalTo(pageSize))
+                    .body("content[0].answers.size()", equalTo(3))
+                    .body("content[0].dynamicFields.size()", equalTo(2));
+            var statements = statistics.getPrepareStatementCount();
+            assertTrue(statements <= MAX_STATEMENTS_PER_PAGE,
+                    "Page of " + pageSize + " samples ran " + statements + " statements");
+        }
+    }
+
+    @Test
+    void getAllSamplesByStageId_shouldRunFixedNumberOfStatementsPerPage() {
+        insertSamples(5);
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (var pageSize : List.of(1, 5)) {
+            statistics.clear();
+            given(requestSpecification)
+                    .pathParam("stageId", stageId)
+                    .queryParam("pageSize", pageSize)
+                    .when()
+                    .get("/sample/{stageId}/stage")
+                    .then()
+                    .statusCode(200)
+                    .body("content.size()", equalTo(pageSize));
+            var statements = statistics.getPrepareStatementCount();
+            assertTrue(statements <= MAX_STATEMENTS_PER_PAGE,
+                    "Page of " + pageSize + " samples ran " + statements + " statements");
+        }
+    }
+
+    @Test
+    void getAllSamplesByProjectIdAfter_shouldSeekPastSamplesCreatedAtTheSameTime() {
+        insertSamples(5);
+        // only the ids tell the samples apart, the time is finer than the milliseconds
+        jdbcTemplate.update(
+                "update sample set created_at = '2024-07-23 10:00:00.123456' where fk_project_id = uuid_to_bin(?)",
+                projectId);
+        var sampleIds = jdbcTemplate.queryForList(
+                "select bin_to_uuid(id) from sample where fk_project_id = uuid_to_bin(?) order by id",
+                String.class, projectId);
+
+        var pagedIds = new ArrayList<String>();
+        String after = null;
+        do {
+            var request = given(requestSpecification)
+                    .pathParam("projectId", projectId)
+                    .queryParam("pageSize", 2);
+            if (after != null) request.queryParam("after", after);
+            var page = request
+                    .when()
+                    .get("/sample/{projectId}/project")
+                    .then()
+                    .statusCode(200)
+                    .extract();
+            pagedIds.addAll(page.<List<String>>path("content.id"));
+            after = page.path("nextCursor");
+        } while (after != null);
+
+        assertEquals(sampleIds, pagedIds);
+    }
+
+    @Test
+    void getAllSamplesByStageIdWithoutCount_shouldSkipCountQuery() {
+        insertSamples(3);
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .queryParam("pageSize", 2)
+                .queryParam("count", false)
+                .when()
+                .get("/sample/{stageId}/stage")
+                .then()
+                .statusCode(200)
+                .body("content.size()", equalTo(2))
+                .body("totalElements", nullValue())
+                .body("totalPages", nullValue())
+                .body("first", equalTo(true))
+                .body("last", equalTo(false));
+        var statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE - 1,
+                "Uncounted page of samples ran " + statements + " statements");
+
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .queryParam("pageSize", 2)
+                .queryParam("pageNumber", 1)
+                .queryParam("count", false)
+                .when()
+                .get("/sample/{stageId}/stage")
+                .then()
+                .statusCode(200)
+                .body("content.size()", equalTo(1))
+                .body("last", equalTo(true));
+    }
+
+    @Test
+    void getAllNormalizedSamplesByProjectId_shouldShipFieldsOnce() {
+        insertSamples(3);
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("view", "normalized")
+                .when()
+                .get("/sample/{projectId}/project")
+                .then()
+                .statusCode(200)
+                .body("fields.size()", equalTo(3))
+                .body("content.size()", equalTo(3))
+                .body("content[0].answers.size()", equalTo(3))
+                .body("content[0].answers[0].fieldId", equalTo(fieldIds.getFirst()))
+                .body("content[0].answers[0].field", nullValue())
+                .body("totalElements", equalTo(3));
+    }
+
+    @Test
+    void getAllSamplesByProjectIdAsCborOrSmile_shouldHoldTheJsonProperties() throws IOException {
+        insertSamples(3);
+        var json = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .when()
+                .get("/sample/{projectId}/project")
+                .then()
+                .statusCode(200)
+                .header(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT))
+                .extract()
+                .response();
+        var mappers = Map.of("application/cbor", new CBORMapper(), "application/x-jackson-smile", new SmileMapper());
+        var etags = new HashSet<>(List.of(json.header(HttpHeaders.ETAG)));
+        for (var format : mappers.entrySet()) {
+            var response = given(requestSpecification)
+                    .pathParam("projectId", projectId)
+                    .accept(format.getKey())
+                    .when()
+                    .get("/sample/{projectId}/project")
+                    .then()
+                    .statusCode(200)
+                    .contentType(format.getKey())
+                    .header(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT))
+                    .extract()
+                    .response();
+            var payload = response.asByteArray();
+
+            assertEquals(new ObjectMapper().readTree(json.asByteArray()), format.getValue().readTree(payload),
+                    format.getKey());
+            assertTrue(payload.length < json.asByteArray().length,
+                    format.getKey() + " page is not smaller than the JSON one");
+            // strong tags tell the representations apart
+            assertTrue(etags.add(response.header(HttpHeaders.ETAG)), format.getKey() + " page has the JSON ETag");
+        }
+    }
+
+    @Test
+    void exportSamplesByProjectId_shouldHoldEverySampleOnce() throws IOException {
+        // more than a chunk of the export
+        insertSamples(501);
+        insertLocatedSamples("10.7626, 106.6601");
+        var sampleIds = new HashSet<String>();
+
+        var ndjson = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("format", "NDJSON")
+                .when()
+                .get("/sample/{projectId}/project/export")
+                .then()
+                .statusCode(200)
+                .contentType(containsString("ndjson"))
+                .extract()
+                .asString();
+        var mapper = new ObjectMapper();
+        for (var line : ndjson.lines().toList()) {
+            var sample = mapper.readTree(line);
+            assertTrue(sampleIds.add(sample.get("id").asText()), "Sample " + sample.get("id") + " is exported twice");
+            var isLocated = sample.get("position").asText().equals("10.7626, 106.6601");
+            assertEquals(isLocated ? 0 : 3, sample.get("answers").size());
+            assertEquals(isLocated ? 0 : 2, sample.get("dynamicFields").size());
+        }
+        assertEquals(502, sampleIds.size());
+
+        var csv = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("format", "CSV")
+                .when()
+                .get("/sample/{projectId}/project/export")
+                .then()
+                .statusCode(200)
+                .contentType(containsString("text/csv"))
+                .extract()
+                .asString();
+        var lines = List.of(csv.split("\r\n"));
+        assertEquals("sample_id,attachment_id,position,created_at,project_id,stage_id,type,field_id,name,value",
+                lines.getFirst());
+        var rows = lines.subList(1, lines.size()).stream().map(SampleControllerTests::csvCells).toList();
+        // a line per answer and dynamic field, a single one for the sample without any
+        assertEquals(501 * 5 + 1, rows.size());
+        assertEquals(sampleIds, rows.stream().map(List::getFirst).collect(Collectors.toSet()));
+        assertEquals(1, rows.stream().filter(row -> row.get(2).equals("10.7626, 106.6601")).count());
+    }
+
+    @Test
+    void getAllSamplesByProjectIdInBox_shouldPageLocatedSamples() {
+        insertLocatedSamples("10.7626, 106.6601", "10.7769 106.7009", "21.0285, 105.8542", "longitude");
+        var nextCursor = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("minLatitude", 10)
+                .queryParam("minLongitude", 106)
+                .queryParam("maxLatitude", 11)
+                .queryParam("maxLongitude", 107)
+                .queryParam("pageSize", 1)
+                .when()
+                .get("/sample/{projectId}/project/box")
+                .then()
+                .statusCode(200)
+                .body("content.size()", equalTo(1))
+                .body("content[0].position", equalTo("10.7626, 106.6601"))
+                .body("last", equalTo(false))
+                .extract()
+                .<String>path("nextCursor");
+
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("minLatitude", 10)
+                .queryParam("minLongitude", 106)
+                .queryParam("maxLatitude", 11)
+                .queryParam("maxLongitude", 107)
+                .queryParam("pageSize", 1)
+                .queryParam("after", nextCursor)
+                .when()
+                .get("/sample/{projectId}/project/box")
+                .then()
+                .statusCode(200)
+                .body("content.size()", equalTo(1))
+                .body("content[0].position", equalTo("10.7769 106.7009"))
+                .body("last", equalTo(true));
+    }
+
+    @Test
+    void getAllSamplesByProjectIdInInvertedBox_shouldReturnBadRequest() {
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("minLatitude", 11)
+                .queryParam("minLongitude", 106)
+                .queryParam("maxLatitude", 10)
+                .queryParam("maxLongitude", 107)
+                .when()
+                .get("/sample/{projectId}/project/box")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void getAllSamplesByStageIdInRadius_shouldReturnSamplesWithinRadius() {
+        insertLocatedSamples("10.7626, 106.6601", "10.7769 106.7009", "21.0285, 105.8542", "longitude");
+        // about 4.7 km between the first two samples
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .queryParam("latitude", 10.7626)
+                .queryParam("longitude", 106.6601)
+                .queryParam("radius", 1000)
+                .when()
+                .get("/sample/{stageId}/stage/radius")
+                .then()
+                .statusCode(200)
+                .body("content.size()", equalTo(1))
+                .body("content[0].position", equalTo("10.7626, 106.6601"));
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .queryParam("latitude", 10.7626)
+                .queryParam("longitude", 106.6601)
+                .queryParam("radius", 10_000)
+                .when()
+                .get("/sample/{stageId}/stage/radius")
+                .then()
+                .statusCode(200)
+                .body("content.size()", equalTo(2))
+                .body("last", equalTo(true));
+    }
+
+    @Test
+    void getSampleClustersByProjectId_shouldCountSamplesByCell() {
+        var sampleIds = insertLocatedSamples(
+                "10.7626, 106.6601", "10.7769 106.7009", "21.0285, 105.8542", "longitude");
+        // a single cell holds Vietnam at zoom 0
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("zoom", 0)
+                .queryParam("minLatitude", -85)
+                .queryParam("minLongitude", -180)
+                .queryParam("maxLatitude", 85)
+                .queryParam("maxLongitude", 180)
+                .when()
+                .get("/sample/{projectId}/project/clusters")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1))
+                .body("[0].samples", equalTo(3));
+        // Ho Chi Minh City and Hanoi are apart at zoom 2
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("zoom", 2)
+                .queryParam("minLatitude", 0)
+                .queryParam("minLongitude", 100)
+                .queryParam("maxLatitude", 30)
+                .queryParam("maxLongitude", 110)
+                .when()
+                .get("/sample/{projectId}/project/clusters")
+                .then()
+                .statusCode(200)
+                .body("samples", containsInAnyOrder(2, 1));
+
+        given(requestSpecification)
+                .pathParam("sampleId", sampleIds.getFirst())
+                .when()
+                .delete("/sample/{sampleId}")
+                .then()
+                .statusCode(204);
+        sampleClusterService.rollUpDeltas();
+        var latitude = given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .queryParam("zoom", 0)
+                .queryParam("minLatitude", -85)
+                .queryParam("minLongitude", -180)
+                .queryParam("maxLatitude", 85)
+                .queryParam("maxLongitude", 180)
+                .when()
+                .get("/sample/{projectId}/project/clusters")
+                .then()
+                .statusCode(200)
+                .body("[0].samples", equalTo(2))
+                .extract()
+                .jsonPath()
+                .getDouble("[0].latitude");
+        assertEquals((10.7769 + 21.0285) / 2, latitude, 1e-4);
+    }
+
+    /**
+     * Inserts one sample for each position, in order, locates them as the service does and counts them in their
+     * clusters.
+     *
+     * @return the ids of the samples.
+     */
+    private List<String> insertLocatedSamples(String... positions) {
+        var stage = stageRepository.findById(stageId).orElseThrow();
+        var sampleIds = new ArrayList<String>();
+        for (var position : positions) {
+            sampleIds.add(sampleRepository.save(Sample.builder()
+                    .attachmentId(UUID.randomUUID().toString())
+                    .position(position)
+                    .projectOwner(stage.getProjectOwner())
+                    .stage(stage)
+                    .build()).getId());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            sampleLocationRepository.insertAllFromPositions(sampleIds);
+            sampleClusterRepository.addAll(sampleIds);
+        });
+        sampleClusterService.rollUpDeltas();
+        return sampleIds;
+    }
+
+    /**
+     * @return the cells of a CSV line, unquoted.
+     */
+    private static List<String> csvCells(String line) {
+        var cells = new ArrayList<String>();
+        var cell = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                cell.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /**
+     * Inserts samples straight through the repository, so the attachments do not have to exist in the file service.
+     */
+    private void insertSamples(int count) {
+        var stage = stageRepository.findById(stageId).orElseThrow();
+        var fields = fieldRepository.findAllById(fieldIds);
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            var sample = Sample.builder()
+                    .attachmentId(UUID.randomUUID().toString())
+                    .position("longitude")
+                    .projectOwner(stage.getProjectOwner())
+                    .stage(stage)
+                    .answers(new HashSet<>())
+                    .dynamicFields(new HashSet<>())
+                    .build();
+            fields.forEach(field -> sample.getAnswers().add(Answer.builder()
+                    .primaryKey(new AnswerPK(null, field.getId()))
+                    .value("Answer of " + field.getName())
+                    .field(field)
+                    .sample(sample)
+                    .build()));
+            for (int order = 0; order < 2; order++)
+                sample.getDynamicFields().add(DynamicField.builder()
+                        .name("Field " + order)
+                        .value("Answer field " + order)
+                        .numberOrder(order)
+                        .sample(sample)
+                        .build());
+            samples.add(sample);
+        }
+        sampleRepository.saveAll(samples);
+    }
+
     @Test
     void getSampleWithUnavailableSampleId_shouldReturnNotFound() {
         given(requestSpecification)
@@ -578,6 +1073,68 @@ class SampleControllerTests extends ProjectServiceApplicationTests {
                 .statusCode(201);
     }
 
+    @Test
+    void createSamples_shouldReportEachItem() {
+        var existingAttachmentId = UUID.randomUUID().toString();
+        var missingAttachmentId = UUID.randomUUID().toString();
+        var otherAttachmentId = UUID.randomUUID().toString();
+        var uncheckedAttachmentId = UUID.randomUUID().toString();
+        doReturn(Map.of(existingAttachmentId, true, missingAttachmentId, false, otherAttachmentId, true))
+                .when(fileService).checkFilesExist(anyCollection());
+        var item = """
+                {
+                  "attachmentId": "%s",
+                  "projectOwnerId": "%s",
+                  "stageId": "%s",
+                  "answers": [{"value": "Answer 1", "fieldId": "%s"}],
+                  "dynamicFields": [{"name": "Field 1", "value": "Answer field 1", "numberOrder": 0}]
+                }""";
+        var requestBody = "[" + String.join(",",
+                item.formatted(existingAttachmentId, projectId, stageId, fieldIds.get(0)),
+                item.formatted(missingAttachmentId, projectId, stageId, fieldIds.get(0)),
+                item.formatted(otherAttachmentId, projectId, "not-found", fieldIds.get(0)),
+                item.formatted(existingAttachmentId, projectId, stageId, fieldIds.get(0)),
+                item.formatted(uncheckedAttachmentId, projectId, stageId, fieldIds.get(0)),
+                """
+                        {
+                          "attachmentId": "%s",
+                          "projectOwnerId": "%s",
+                          "stageId": "%s",
+                          "answers": [{"value": "Answer 1", "fieldId": "%s"}, {"value": "Answer 2", "fieldId": "%s"}]
+                        }""".formatted(otherAttachmentId, projectId, stageId, fieldIds.get(0), fieldIds.get(0))
+        ) + "]";
+
+        var sampleId = given(requestSpecification)
+                .body(requestBody)
+                .when()
+                .post("/sample/batch")
+                .then()
+                .statusCode(200)
+                .body("index", contains(0, 1, 2, 3, 4, 5))
+                .body("success", contains(true, false, false, false, false, false))
+                .body("[0].error", nullValue())
+                .body("[1].error", containsString("No attachment found"))
+                .body("[2].error", containsString("No stage found"))
+                .body("[3].error", containsString("already used"))
+                .body("[4].error", containsString("Cannot check attachment"))
+                .body("[5].error", containsString("answered more than once"))
+                .body("[1].sampleId", nullValue())
+                .extract()
+                .<String>path("[0].sampleId");
+
+        // the failed items take nothing with them, the created one is whole
+        assertEquals(1, sampleRepository.countByStage_Id(stageId));
+        given(requestSpecification)
+                .pathParam("sampleId", sampleId)
+                .when()
+                .get("/sample/{sampleId}")
+                .then()
+                .statusCode(200)
+                .body("attachmentId", equalTo(existingAttachmentId))
+                .body("answers.size()", equalTo(1))
+                .body("dynamicFields.size()", equalTo(1));
+    }
+
     @Test
     void updateSampleWithUnavailableSampleId_shouldReturnNotFound() {
         given(requestSpecification)
@@ -899,6 +1456,9 @@ class SampleControllerTests extends ProjectServiceApplicationTests {
                 .delete("/sample/{sampleId}")
                 .then()
                 .statusCode(204);
+
+        // the attachment is deleted later from the outbox
+        assertTrue(fileDeletionRepository.existsByFileId(attachmentId));
     }
 
 }
\ No newline at end of file
@@ -1,13 +1,32 @@
 package com.microservices.projectservice.controller;
 
 import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
+import com.microservices.projectservice.repository.StageRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+@QueryBudget(15)
 class StageControllerTests extends ProjectServiceApplicationTests {
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private StageRepository stageRepository;
+    @Autowired
+    private ApplicationContext applicationContext;
+
     private String projectId;
     private String formId;
 
@@ -356,6 +375,82 @@ class StageControllerTests extends ProjectServiceApplicationTests {
                 .statusCode(204);
     }
 
+    @Test
+    void getStage_shouldBeCachedUntilUpdated() {
+        String createRequestBody = """
+                {
+                    "name": "Stage 1",
+                    "startDate": "2024-07-23",
+                    "endDate": "2024-07-24",
+                    "formId": "%s",
+                    "projectOwnerId": "%s"
+                }""".formatted(formId, projectId);
+        var stageId = given(requestSpecification)
+                .body(createRequestBody)
+                .post("/stage")
+                .thenReturn()
+                .print();
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .get("/stage/{stageId}")
+                .then()
+                .statusCode(200);
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .get("/stage/{stageId}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Stage 1"));
+        assertEquals(0, statistics.getPrepareStatementCount(), "Cached stage was read from the database");
+
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .body("""
+                        {
+                            "name": "Edited stage 1"
+                        }""")
+                .patch("/stage/{stageId}")
+                .then()
+                .statusCode(204);
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .get("/stage/{stageId}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Edited stage 1"));
+    }
+
+    @Test
+    void addStageMembersNotInProject_shouldReturnBadRequest() {
+        String createRequestBody = """
+                {
+                    "name": "Stage 1",
+                    "startDate": "2024-07-23",
+                    "endDate": "2024-07-24",
+                    "projectOwnerId": "%s"
+                }""".formatted(projectId);
+        var stageId = given(requestSpecification)
+                .body(createRequestBody)
+                .post("/stage")
+                .thenReturn()
+                .print();
+
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .body("""
+                        {
+                            "memberIds": ["7c48e304-5872-44b0-a6fb-aab31f045903"],
+                            "operator": "ADD"
+                        }""")
+                .when()
+                .patch("/stage/{stageId}/members")
+                .then()
+                .statusCode(400);
+    }
+
     @Test
     void deleteStage_shouldReturnNotFound() {
         given(requestSpecification)
@@ -366,7 +461,7 @@ class StageControllerTests extends ProjectServiceApplicationTests {
     }
 
     @Test
-    void deleteStage_shouldReturnNoContent() {
+    void deleteStage_shouldReturnAccepted() {
         String requestBody = """
                 {
                     "name": "Stage 1",
@@ -385,6 +480,34 @@ class StageControllerTests extends ProjectServiceApplicationTests {
                 .pathParam("stageId", stageId)
                 .delete("/stage/{stageId}")
                 .then()
-                .statusCode(204);
+                .statusCode(202);
+    }
+
+    @Test
+    void getStage_shouldNotHoldTheSessionOpenForTheView() {
+        String requestBody = """
+                {
+                    "name": "Stage 1",
+                    "startDate": "2024-07-23",
+                    "endDate": "2024-07-24",
+                    "formId": "%s",
+                    "projectOwnerId": "%s"
+                }""".formatted(formId, projectId);
+        var stageId = given(requestSpecification)
+                .body(requestBody)
+                .post("/stage")
+                .thenReturn()
+                .print();
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .get("/stage/{stageId}")
+                .then()
+                .statusCode(200);
+
+        assertEquals(0, applicationContext.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class).length,
+                "Open-in-view is enabled");
+        // outside of a transaction the session is closed as soon as the repository returns
+        var stage = stageRepository.findById(stageId).orElseThrow();
+        assertThrows(LazyInitializationException.class, () -> stage.getProjectOwner().getName());
     }
 }
\ No newline at end of file
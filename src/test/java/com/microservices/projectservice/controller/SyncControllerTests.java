@@ -0,0 +1,270 @@
+package com.microservices.projectservice.controller;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.QueryBudget;
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.config.QueryCountFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@QueryBudget(15)
+class SyncControllerTests extends ProjectServiceApplicationTests {
+
+    @Autowired
+    private AppProperties appProperties;
+
+    private final String ownerId = UUID.randomUUID().toString();
+    private String projectId;
+    private String formId;
+    private String stageId;
+
+    @BeforeEach
+    void initProject() {
+        this.projectId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Test project",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "ownerId": "%s"
+                        }""".formatted(ownerId))
+                .when()
+                .post("/project")
+                .thenReturn()
+                .print();
+        this.formId = given(requestSpecification)
+                .body("""
+                        {
+                            "title": "Form 1",
+                            "projectOwnerId": "%s"
+                        }""".formatted(projectId))
+                .when()
+                .post("/form")
+                .thenReturn()
+                .print();
+        this.stageId = given(requestSpecification)
+                .body("""
+                        {
+                            "name": "Stage 1",
+                            "startDate": "2024-07-23",
+                            "endDate": "2024-07-24",
+                            "formId": "%s",
+                            "projectOwnerId": "%s"
+                        }""".formatted(formId, projectId))
+                .when()
+                .post("/stage")
+                .thenReturn()
+                .print();
+    }
+
+    @Test
+    void getChangesWithoutToken_shouldReturnEverything() {
+        given(requestSpecification)
+                .pathParam("userId", ownerId)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                .body("hasMore", equalTo(false))
+                .body("projects.id", contains(projectId))
+                .body("forms.id", contains(formId))
+                .body("stages.id", contains(stageId))
+                .body("deleted", empty());
+    }
+
+    @Test
+    void getChangesWithToken_shouldReturnOnlyNewChanges() {
+        var token = syncToken();
+        var fieldId = given(requestSpecification)
+                .pathParam("formId", formId)
+                .body("""
+                        {
+                            "fieldName": "Field 1",
+                            "numberOrder": 0
+                        }""")
+                .when()
+                .post("/field/{formId}")
+                .thenReturn()
+                .print();
+
+        given(requestSpecification)
+                .pathParam("userId", ownerId)
+                .queryParam("token", token)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                .body("token", not(equalTo(token)))
+                .body("projects", empty())
+                .body("forms", empty())
+                .body("fields.id", contains(fieldId));
+    }
+
+    @Test
+    void getChangesAfterJoiningProject_shouldReturnItsContent() {
+        var memberId = UUID.randomUUID().toString();
+        // the tokens are shared by the users, the content of the project is logged before this one
+        var token = syncToken();
+        updateMembers(memberId, "ADD");
+
+        given(requestSpecification)
+                .pathParam("userId", memberId)
+                .queryParam("token", token)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                .body("projects.id", contains(projectId))
+                .body("forms.id", contains(formId))
+                .body("stages.id", contains(stageId))
+                .body("deleted", empty());
+    }
+
+    @Test
+    void getChangesAfterJoiningProject_shouldPageItsContent() {
+        var memberId = UUID.randomUUID().toString();
+        var token = syncToken();
+        updateMembers(memberId, "ADD");
+
+        var maxChanges = appProperties.getSync().getMaxChanges();
+        appProperties.getSync().setMaxChanges(1);
+        var projectIds = new ArrayList<String>();
+        var formIds = new ArrayList<String>();
+        var stageIds = new ArrayList<String>();
+        var syncs = 0;
+        try {
+            var hasMore = true;
+            while (hasMore) {
+                var sync = given(requestSpecification)
+                        .pathParam("userId", memberId)
+                        .queryParam("token", token)
+                        .when()
+                        .get("/sync/{userId}")
+                        .then()
+                        .statusCode(200)
+                        .body("deleted", empty())
+                        .extract();
+                projectIds.addAll(sync.path("projects.id"));
+                formIds.addAll(sync.path("forms.id"));
+                stageIds.addAll(sync.path("stages.id"));
+                token = sync.path("token");
+                hasMore = sync.path("hasMore");
+                syncs++;
+            }
+        } finally {
+            appProperties.getSync().setMaxChanges(maxChanges);
+        }
+
+        assertThat(syncs, greaterThan(3));
+        assertThat(projectIds, hasItem(projectId));
+        assertThat(formIds, hasItem(formId));
+        assertThat(stageIds, hasItem(stageId));
+    }
+
+    @Test
+    void getChangesAfterLeavingProject_shouldReturnTombstone() {
+        var memberId = UUID.randomUUID().toString();
+        updateMembers(memberId, "ADD");
+        var token = syncToken(memberId);
+        updateMembers(memberId, "REMOVE");
+
+        given(requestSpecification)
+                .pathParam("userId", memberId)
+                .queryParam("token", token)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                .body("projects", empty())
+                .body("deleted.type", contains("PROJECT"))
+                .body("deleted.id", contains(projectId));
+    }
+
+    @Test
+    void getChangesWithLastToken_shouldReadOnlyTheChangeLog() {
+        var token = syncToken();
+        given(requestSpecification)
+                .pathParam("userId", ownerId)
+                .queryParam("token", token)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                // the changes of the projects of the user, and of their access to projects
+                .header(QueryCountFilter.QUERY_COUNT_HEADER, "2")
+                .body("token", equalTo(token))
+                .body("projects", empty())
+                .body("deleted", empty());
+    }
+
+    @Test
+    void getChangesAfterDeletingStage_shouldReturnTombstone() {
+        var token = syncToken();
+        given(requestSpecification)
+                .pathParam("stageId", stageId)
+                .when()
+                .delete("/stage/{stageId}")
+                .then()
+                .statusCode(202);
+
+        given(requestSpecification)
+                .pathParam("userId", ownerId)
+                .queryParam("token", token)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                .body("stages", empty())
+                .body("deleted.type", contains("STAGE"))
+                .body("deleted.id", contains(stageId));
+    }
+
+    @Test
+    void getChangesWithInvalidToken_shouldReturnBadRequest() {
+        given(requestSpecification)
+                .pathParam("userId", ownerId)
+                .queryParam("token", "not-a-token")
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(400);
+    }
+
+    private void updateMembers(String memberId, String operator) {
+        given(requestSpecification)
+                .pathParam("projectId", projectId)
+                .body("""
+                        {
+                            "memberIds": ["%s"],
+                            "operator": "%s"
+                        }""".formatted(memberId, operator))
+                .when()
+                .patch("/project/{projectId}/members")
+                .then()
+                .statusCode(204);
+    }
+
+    private String syncToken() {
+        return syncToken(ownerId);
+    }
+
+    private String syncToken(String userId) {
+        return given(requestSpecification)
+                .pathParam("userId", userId)
+                .when()
+                .get("/sync/{userId}")
+                .then()
+                .statusCode(200)
+                .extract()
+                .path("token");
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.microservices.projectservice.dto.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntityTagsTests {
+
+    @Test
+    void of_shouldTagEachFormatApart() {
+        assertEquals("\"42\"", EntityTags.of(42, requestAccepting(null)));
+        assertEquals("\"42\"", EntityTags.of(42, requestAccepting("*/*")));
+        assertEquals("\"42\"", EntityTags.of(42, requestAccepting("application/json")));
+        assertEquals("\"42-cbor\"", EntityTags.of(42, requestAccepting("application/cbor")));
+        assertEquals("\"42-smile\"", EntityTags.of(42, requestAccepting("application/x-jackson-smile")));
+        assertEquals("\"42-cbor\"", EntityTags.of(42, requestAccepting("application/json;q=0.5, application/cbor")));
+    }
+
+    @Test
+    void parseIfMatch_shouldMatchTheVersionInAnyFormat() {
+        assertEquals(Set.of(42L, 43L, 44L), EntityTags.parseIfMatch("\"42\", \"43-cbor\", \"44-smile\"").versions());
+        assertEquals(Set.of(), EntityTags.parseIfMatch("W/\"42\", \"42-xml\"").versions());
+    }
+
+    private static ServletWebRequest requestAccepting(String accept) {
+        var request = new MockHttpServletRequest();
+        if (accept != null) request.addHeader(HttpHeaders.ACCEPT, accept);
+        return new ServletWebRequest(request);
+    }
+
+}
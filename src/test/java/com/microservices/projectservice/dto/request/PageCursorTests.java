@@ -0,0 +1,31 @@
+package com.microservices.projectservice.dto.request;
+
+import com.microservices.projectservice.exception.IllegalAttributeException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorTests {
+
+    @Test
+    void decode_shouldReadBackTheMicroseconds() {
+        // as stored in a datetime(6) column, the row is after a cursor truncated to the milliseconds
+        var createdAt = Timestamp.from(Instant.parse("2024-07-23T10:00:00.123456Z"));
+
+        var cursor = PageCursor.decode(PageCursor.encode(createdAt, "id"));
+
+        assertEquals(createdAt, cursor.createdAt());
+        assertEquals("id", cursor.id());
+    }
+
+    @Test
+    void decode_shouldRejectWhatItDidNotEncode() {
+        assertThrows(IllegalAttributeException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalAttributeException.class, () -> PageCursor.decode("MTIzOmlk"));
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.microservices.projectservice.entity.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7Tests {
+
+    @Test
+    void randomUuid_shouldBeVersion7() {
+        var uuid = UuidV7.randomUuid();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        var millis = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(Math.abs(System.currentTimeMillis() - millis) < 1000, "Timestamp of " + uuid + " is off");
+    }
+
+    @Test
+    void randomUuid_shouldIncreaseWithinTheSameMillisecond() {
+        var uuids = new ArrayList<UUID>();
+        for (int i = 0; i < 10_000; i++) uuids.add(UuidV7.randomUuid());
+
+        for (int i = 1; i < uuids.size(); i++) {
+            // the string form is what is stored and compared by the database
+            var previous = uuids.get(i - 1).toString();
+            var current = uuids.get(i).toString();
+            assertTrue(previous.compareTo(current) < 0, previous + " is not before " + current);
+        }
+    }
+
+}
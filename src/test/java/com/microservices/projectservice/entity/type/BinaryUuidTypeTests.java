@@ -0,0 +1,44 @@
+package com.microservices.projectservice.entity.type;
+
+import com.microservices.projectservice.entity.generator.UuidV7;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryUuidTypeTests {
+
+    private static final byte[] NIL = new byte[16];
+
+    @Test
+    void toBytes_shouldReadBackTheSameId() {
+        var id = UuidV7.randomUuid().toString();
+
+        assertEquals(id, BinaryUuidType.fromBytes(BinaryUuidType.toBytes(id)));
+    }
+
+    @Test
+    void toBytes_shouldGiveTheNilUuidGivenNoUuid() {
+        assertArrayEquals(NIL, BinaryUuidType.toBytes(""));
+        assertArrayEquals(NIL, BinaryUuidType.toBytes("not-a-uuid"));
+        assertArrayEquals(NIL, BinaryUuidType.toBytes("1-2-3-4-5"));
+    }
+
+    @Test
+    void toBytes_shouldSortAsTheStrings() {
+        var ids = new ArrayList<String>();
+        for (int i = 0; i < 10_000; i++) ids.add(UuidV7.randomUuid().toString());
+
+        for (int i = 1; i < ids.size(); i++) {
+            // the database compares binary columns byte by byte, unsigned
+            var previous = BinaryUuidType.toBytes(ids.get(i - 1));
+            var current = BinaryUuidType.toBytes(ids.get(i));
+            assertTrue(Arrays.compareUnsigned(previous, current) < 0, ids.get(i - 1) + " is not before " + ids.get(i));
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.entity.generator.UuidV7;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares insert throughput and index size of the sample table layout with random UUIDs in {@code VARCHAR(36)}
+ * (the layout before V18), UUIDv7 in {@code VARCHAR(36)} and UUIDv7 in {@code BINARY(16)} (the current one).
+ * <p>
+ * Only runs with {@code -Dbenchmark=true}, the number of rows can be set with {@code -Dbenchmark.rows}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdLayoutBenchmarkTests extends ProjectServiceApplicationTests {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareIdLayouts() {
+        var randomVarchar = run("bench_random_varchar", "VARCHAR(36)",
+                () -> UUID.randomUUID().toString(), Function.identity());
+        var v7Varchar = run("bench_v7_varchar", "VARCHAR(36)",
+                () -> UuidV7.randomUuid().toString(), Function.identity());
+        var v7Binary = run("bench_v7_binary", "BINARY(16)",
+                UuidV7::randomUuid, IdLayoutBenchmarkTests::toBytes);
+
+        log.info("Layout               | rows/s   | data (KiB) | indexes (KiB)");
+        for (var result : List.of(randomVarchar, v7Varchar, v7Binary))
+            log.info("{} | {} | {} | {}",
+                    "%-20s".formatted(result.table()),
+                    "%8d".formatted(result.rowsPerSecond()),
+                    "%10d".formatted(result.dataLength() / 1024),
+                    "%13d".formatted(result.indexLength() / 1024));
+
+        assertTrue(v7Binary.indexLength() < randomVarchar.indexLength(),
+                "BINARY(16) UUIDv7 indexes are not smaller than VARCHAR(36) random UUID ones");
+    }
+
+    private <T> Result run(String table, String idType, Supplier<T> ids, Function<T, Object> toColumn) {
+        jdbcTemplate.execute("drop table if exists " + table);
+        jdbcTemplate.execute("""
+                create table %s (
+                    id            %2$s        not null primary key,
+                    created_at    datetime    not null,
+                    attachment_id varchar(36) not null,
+                    fk_stage_id   %2$s        not null,
+                    index %1$s_stage_created_at_idx (fk_stage_id, created_at, id)
+                )""".formatted(table, idType));
+
+        var stageIds = new ArrayList<Object>();
+        for (int i = 0; i < 10; i++) stageIds.add(toColumn.apply(ids.get()));
+
+        var start = System.nanoTime();
+        for (int inserted = 0; inserted < ROWS; inserted += BATCH_SIZE) {
+            var batch = new ArrayList<Object[]>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++)
+                batch.add(new Object[]{
+                        toColumn.apply(ids.get()),
+                        new Timestamp(System.currentTimeMillis()),
+                        UUID.randomUUID().toString(),
+                        stageIds.get(i % stageIds.size())
+                });
+            jdbcTemplate.batchUpdate(
+                    "insert into " + table + " (id, created_at, attachment_id, fk_stage_id) values (?, ?, ?, ?)",
+                    batch);
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        jdbcTemplate.execute("set session information_schema_stats_expiry = 0");
+        jdbcTemplate.execute("analyze table " + table);
+        var sizes = jdbcTemplate.queryForMap("""
+                select data_length, index_length from information_schema.tables
+                where table_schema = database() and table_name = ?""", table);
+        jdbcTemplate.execute("drop table " + table);
+
+        return new Result(
+                table,
+                ROWS * 1000L / Math.max(elapsed.toMillis(), 1),
+                ((Number) sizes.get("data_length")).longValue(),
+                ((Number) sizes.get("index_length")).longValue()
+        );
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private record Result(String table, long rowsPerSecond, long dataLength, long indexLength) {
+    }
+
+}
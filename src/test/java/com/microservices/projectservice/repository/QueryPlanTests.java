@@ -0,0 +1,565 @@
+package com.microservices.projectservice.repository;
+
+import com.microservices.projectservice.ProjectServiceApplicationTests;
+import com.microservices.projectservice.constant.ProjectRole;
+import com.microservices.projectservice.constant.ProjectStatus;
+import com.microservices.projectservice.constant.PurgeJobStatus;
+import com.microservices.projectservice.constant.SyncEntityType;
+import com.microservices.projectservice.dto.request.GeoArea;
+import com.microservices.projectservice.entity.Form;
+import com.microservices.projectservice.entity.Stage;
+import com.microservices.projectservice.service.SampleClusterService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Explains the statements run by every repository query and fails when one reads a whole table or sorts its rows
+ * instead of following an index. The plans are taken on a seeded data set, large enough for MySQL to prefer the
+ * indexes over scanning.
+ * <p>
+ * The schema is built by the Flyway migrations, as in production, rather than by Hibernate as for the other tests:
+ * the indexes and column types the plans depend on are the migrated ones. The different properties give the class
+ * a context, and so a database, of its own.
+ * <p>
+ * A query added to a repository must get its check in {@link #planChecks()}.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {"spring.flyway.enabled=true", "spring.jpa.hibernate.ddl-auto=none"})
+class QueryPlanTests extends ProjectServiceApplicationTests {
+
+    private static final String PROJECT_NAME = "Query plan project";
+    private static final int USERS = 50;
+    private static final int PROJECTS = 200;
+    private static final int SAMPLE_CLUSTER_DELTAS = 100;
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+    private static final Pageable FIRST_PAGE_NEWEST_FIRST =
+            PageRequest.of(0, 20, Sort.by("createdAt", "id").descending());
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            AnswerRepository.class, ChangeLogRepository.class, DynamicFieldRepository.class,
+            EntityVersionRepository.class, FieldRepository.class, FileDeletionRepository.class, FormRepository.class,
+            MembershipRepository.class,
+            ProjectRepository.class, PurgeJobRepository.class, SampleClusterRepository.class,
+            SampleLocationRepository.class, SampleRepository.class, StageRepository.class,
+            UserProjectAccessRepository.class, UserRepository.class
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+    @Autowired
+    private DynamicFieldRepository dynamicFieldRepository;
+    @Autowired
+    private EntityVersionRepository entityVersionRepository;
+    @Autowired
+    private FieldRepository fieldRepository;
+    @Autowired
+    private FileDeletionRepository fileDeletionRepository;
+    @Autowired
+    private FormRepository formRepository;
+    @Autowired
+    private MembershipRepository membershipRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private PurgeJobRepository purgeJobRepository;
+    @Autowired
+    private SampleClusterRepository sampleClusterRepository;
+    @Autowired
+    private SampleLocationRepository sampleLocationRepository;
+    @Autowired
+    private SampleRepository sampleRepository;
+    @Autowired
+    private StageRepository stageRepository;
+    @Autowired
+    private UserProjectAccessRepository userProjectAccessRepository;
+    @Autowired
+    private SampleClusterService sampleClusterService;
+
+    private final List<String> userIds = new ArrayList<>();
+    private String ownerId;
+    private String memberId;
+    private String projectId;
+    private String formId;
+    private String fieldId;
+    private String stageId;
+    private List<String> sampleIds;
+    private List<String> attachmentIds;
+    private String purgeJobId;
+
+    @BeforeAll
+    void seed() {
+        for (int i = 0; i < USERS; i++) userIds.add(UUID.randomUUID().toString());
+        jdbcTemplate.batchUpdate("insert into user (id, created_at, updated_at) values (?, now(), now())",
+                userIds, USERS, (statement, userId) -> statement.setString(1, userId));
+
+        jdbcTemplate.batchUpdate("""
+                        insert into project (id, created_at, updated_at, name, status, fk_owner_id)
+                        values (uuid_to_bin(?), timestampadd(minute, -?, now()), now(), ?, ?, ?)""",
+                IntStream.range(0, PROJECTS).boxed().toList(), PROJECTS, (statement, i) -> {
+                    statement.setString(1, UUID.randomUUID().toString());
+                    statement.setInt(2, i);
+                    statement.setString(3, PROJECT_NAME);
+                    statement.setInt(4, (i % 7 == 0 ? ProjectStatus.ARCHIVED : ProjectStatus.NORMAL).ordinal());
+                    statement.setString(5, userIds.get(i % USERS));
+                });
+        jdbcTemplate.batchUpdate("""
+                        insert into project_member (project_id, member_id)
+                        select p.id, ? from project p where p.name = ? and p.fk_owner_id = ?""",
+                IntStream.range(0, USERS).boxed().toList(), USERS, (statement, i) -> {
+                    statement.setString(1, userIds.get((i + 1) % USERS));
+                    statement.setString(2, PROJECT_NAME);
+                    statement.setString(3, userIds.get(i));
+                });
+        updateSeeded("""
+                insert into user_project_access (user_id, project_id, role, status, created_at)
+                select p.fk_owner_id, p.id, 0, p.status, p.created_at from project p where p.name = ?
+                union all
+                select pm.member_id, p.id, 1, p.status, p.created_at
+                from project_member pm join project p on p.id = pm.project_id where p.name = ?""", 2);
+        updateSeeded("""
+                insert into form (id, created_at, updated_at, title, fk_project_id)
+                select uuid_to_bin(uuid()), p.created_at, p.created_at, 'Form', p.id
+                from project p where p.name = ?""", 1);
+        updateSeeded("""
+                insert into field (id, created_at, updated_at, number_order, name, fk_form_id)
+                select uuid_to_bin(uuid()), f.created_at, f.created_at, n.n, concat('Field ', n.n), f.id
+                from form f join project p on p.id = f.fk_project_id cross join %s n
+                where p.name = ?""".formatted(numbers(4)), 1);
+        updateSeeded("""
+                insert into stage (id, created_at, updated_at, name, deleting, fk_form_id, fk_project_id)
+                select uuid_to_bin(uuid()), timestampadd(second, n.n, p.created_at), p.created_at,
+                       concat('Stage ', n.n), 0, f.id, p.id
+                from project p join form f on f.fk_project_id = p.id cross join %s n
+                where p.name = ?""".formatted(numbers(3)), 1);
+        updateSeeded("""
+                insert into stage_member (stage_id, member_id)
+                select s.id, pm.member_id
+                from stage s join project p on p.id = s.fk_project_id join project_member pm on pm.project_id = p.id
+                where p.name = ?""", 1);
+        updateSeeded("""
+                insert into sample (id, created_at, updated_at, attachment_id, fk_project_id, fk_stage_id)
+                select uuid_to_bin(uuid()), timestampadd(minute, n.n, s.created_at), s.created_at, uuid(), p.id, s.id
+                from stage s join project p on p.id = s.fk_project_id cross join %s n
+                where p.name = ?""".formatted(numbers(5)), 1);
+        // spread over the globe from the digits of the ids
+        updateSeeded("""
+                insert into sample_location (sample_id, fk_project_id, fk_stage_id, location)
+                select sa.id, sa.fk_project_id, sa.fk_stage_id, ST_PointFromText(concat(
+                        'POINT(', conv(substr(md5(sa.id), 1, 6), 16, 10) % 17000 / 100 - 85,
+                        ' ', conv(substr(md5(sa.id), 7, 6), 16, 10) % 35000 / 100 - 175, ')'), 4326)
+                from sample sa join project p on p.id = sa.fk_project_id where p.name = ?""", 1);
+        updateSeeded("""
+                insert into answer (created_at, updated_at, value, fk_sample_id, fk_field_id)
+                select sa.created_at, sa.created_at, 'Answer', sa.id, fi.id
+                from sample sa
+                         join project p on p.id = sa.fk_project_id
+                         join stage s on s.id = sa.fk_stage_id
+                         join field fi on fi.fk_form_id = s.fk_form_id and fi.number_order < 2
+                where p.name = ?""", 1);
+        updateSeeded("""
+                insert into dynamic_field (id, created_at, updated_at, name, value, number_order, fk_sample_id)
+                select uuid_to_bin(uuid()), sa.created_at, sa.created_at, 'Extra', 'Value', 0, sa.id
+                from sample sa join project p on p.id = sa.fk_project_id where p.name = ?""", 1);
+        // not due before the tests end, so the deletion worker leaves them alone
+        updateSeeded("""
+                insert into file_deletion (id, created_at, updated_at, file_id, attempts, next_attempt_at)
+                select uuid_to_bin(uuid()), now(), now(), sa.attachment_id, 1, timestampadd(day, 1, now())
+                from sample sa join project p on p.id = sa.fk_project_id where p.name = ?""", 1);
+        // done already, so the purge worker leaves them alone
+        updateSeeded("""
+                insert into purge_job (id, created_at, updated_at, target_type, target_id, status,
+                                       total_samples, deleted_samples, attempts)
+                select uuid_to_bin(uuid()), s.created_at, s.created_at, 1, s.id, %d, 0, 0, 1
+                from stage s join project p on p.id = s.fk_project_id
+                where p.name = ?""".formatted(PurgeJobStatus.DONE.ordinal()), 1);
+
+        var seededSampleIds = jdbcTemplate.queryForList(
+                "select bin_to_uuid(sa.id) from sample sa join project p on p.id = sa.fk_project_id where p.name = ?",
+                String.class, PROJECT_NAME);
+        transactionTemplate.executeWithoutResult(status -> sampleClusterRepository.addAll(seededSampleIds));
+        sampleClusterService.rollUpDeltas();
+        jdbcTemplate.update("""
+                insert into change_log (project_id, entity_type, entity_id, deleted, changed_at)
+                select sa.fk_project_id, ?, sa.id, false, sa.created_at
+                from sample sa join project p on p.id = sa.fk_project_id
+                where p.name = ?
+                order by sa.created_at""", SyncEntityType.SAMPLE.ordinal(), PROJECT_NAME);
+
+        jdbcTemplate.execute("""
+                analyze table user, project, project_member, user_project_access, form, field, stage, stage_member,
+                              sample, sample_location, sample_cluster, sample_cluster_delta, answer, dynamic_field,
+                              file_deletion, purge_job, change_log""");
+
+        ownerId = userIds.getFirst();
+        projectId = jdbcTemplate.queryForObject(
+                "select bin_to_uuid(id) from project where name = ? and fk_owner_id = ? order by id limit 1",
+                String.class, PROJECT_NAME, ownerId);
+        memberId = jdbcTemplate.queryForObject(
+                "select member_id from project_member where project_id = uuid_to_bin(?) limit 1",
+                String.class, projectId);
+        formId = jdbcTemplate.queryForObject(
+                "select bin_to_uuid(id) from form where fk_project_id = uuid_to_bin(?) limit 1",
+                String.class, projectId);
+        fieldId = jdbcTemplate.queryForObject(
+                "select bin_to_uuid(id) from field where fk_form_id = uuid_to_bin(?) order by number_order limit 1",
+                String.class, formId);
+        stageId = jdbcTemplate.queryForObject(
+                "select bin_to_uuid(id) from stage where fk_project_id = uuid_to_bin(?) order by id limit 1",
+                String.class, projectId);
+        sampleIds = jdbcTemplate.queryForList(
+                "select bin_to_uuid(id) from sample where fk_stage_id = uuid_to_bin(?) order by id limit 2",
+                String.class, stageId);
+        attachmentIds = jdbcTemplate.queryForList(
+                "select attachment_id from sample where fk_stage_id = uuid_to_bin(?) order by id limit 2",
+                String.class, stageId);
+        purgeJobId = jdbcTemplate.queryForObject(
+                "select bin_to_uuid(id) from purge_job where target_id = uuid_to_bin(?)", String.class, stageId);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        var samples = "select sa.id from sample sa join project p on p.id = sa.fk_project_id where p.name = ?";
+        var stages = "select s.id from stage s join project p on p.id = s.fk_project_id where p.name = ?";
+        var projects = "select p.id from project p where p.name = ?";
+        updateSeeded("""
+                delete from file_deletion where file_id in (
+                    select sa.attachment_id from sample sa join project p on p.id = sa.fk_project_id
+                    where p.name = ?)""", 1);
+        updateSeeded("delete from purge_job where target_id in (" + stages + ")", 1);
+        updateSeeded("delete from change_log where project_id in (" + projects + ")", 1);
+        updateSeeded("delete from answer where fk_sample_id in (" + samples + ")", 1);
+        updateSeeded("delete from dynamic_field where fk_sample_id in (" + samples + ")", 1);
+        updateSeeded("delete from sample_cluster_delta where project_id in (" + projects + ")", 1);
+        updateSeeded("delete from sample_cluster where project_id in (" + projects + ")", 1);
+        updateSeeded("delete from sample_location where fk_project_id in (" + projects + ")", 1);
+        updateSeeded("delete from sample where fk_project_id in (" + projects + ")", 1);
+        updateSeeded("delete from stage_member where stage_id in (" + stages + ")", 1);
+        updateSeeded("delete from stage where fk_project_id in (" + projects + ")", 1);
+        updateSeeded("""
+                delete from field where fk_form_id in (
+                    select f.id from form f join project p on p.id = f.fk_project_id where p.name = ?)""", 1);
+        updateSeeded("delete from form where fk_project_id in (" + projects + ")", 1);
+        updateSeeded("delete from user_project_access where project_id in (" + projects + ")", 1);
+        updateSeeded("delete from project_member where project_id in (" + projects + ")", 1);
+        updateSeeded("delete from project where name = ?", 1);
+        namedParameterJdbcTemplate.update("delete from user where id in (:ids)", Map.of("ids", userIds));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> queryPlans() {
+        return planChecks().entrySet().stream()
+                .map(check -> DynamicTest.dynamicTest(
+                        check.getKey(), () -> assertPlan(check.getKey(), check.getValue())));
+    }
+
+    @Test
+    void everyQueryMethod_shouldHavePlanCheck() {
+        var checked = planChecks().keySet().stream()
+                .map(name -> name.split(" ")[0])
+                .collect(Collectors.toSet());
+        var queryMethods = REPOSITORIES.stream()
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .filter(method -> isQueryMethod(repository, method))
+                        .map(method -> repository.getSimpleName() + "." + method.getName()))
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        queryMethods.removeAll(checked);
+        assertTrue(queryMethods.isEmpty(), "No plan check for " + queryMethods);
+    }
+
+    /**
+     * Runs each query with values of the seeded data, keyed by {@code Repository.method} and a description of the
+     * overload when there are several.
+     */
+    private Map<String, PlanCheck> planChecks() {
+        var now = Timestamp.from(Instant.now());
+        var later = Timestamp.from(Instant.now().plusSeconds(60));
+        var start = new Timestamp(0);
+        var lastId = "ffffffff-ffff-ffff-ffff-ffffffffffff";
+        var checks = new LinkedHashMap<String, PlanCheck>();
+
+        checks.put("AnswerRepository.deleteAllBySampleIdIn",
+                indexed(() -> answerRepository.deleteAllBySampleIdIn(sampleIds)));
+        // the changes of the projects are merged once found, from the project index
+        checks.put("ChangeLogRepository.findAllByUserIdAfter", new PlanCheck(
+                () -> changeLogRepository.findAllByUserIdAfter(ownerId, 0, now, Limit.of(20)), false, true));
+        checks.put("ChangeLogRepository.findAccessChangesByUserIdAfter",
+                indexed(() -> changeLogRepository.findAccessChangesByUserIdAfter(ownerId, 0, now, Limit.of(20))));
+        checks.put("ChangeLogRepository.findAllByProjectIdBetween", indexed(() ->
+                changeLogRepository.findAllByProjectIdBetween(projectId, 0, Long.MAX_VALUE, Limit.of(500))));
+        checks.put("ChangeLogRepository.insertAccessChanges",
+                indexed(() -> changeLogRepository.insertAccessChanges(projectId, List.of(ownerId), false, now)));
+        checks.put("ChangeLogRepository.findFirstByProjectIdOrderByIdDesc",
+                indexed(() -> changeLogRepository.findFirstByProjectIdOrderByIdDesc(projectId)));
+        checks.put("DynamicFieldRepository.deleteAllBySampleIdIn",
+                indexed(() -> dynamicFieldRepository.deleteAllBySampleIdIn(sampleIds)));
+        checks.put("EntityVersionRepository.incrementVersion of any version",
+                indexed(() -> entityVersionRepository.incrementVersion(Form.class, formId, null)));
+        checks.put("EntityVersionRepository.incrementVersion of the expected version",
+                indexed(() -> entityVersionRepository.incrementVersion(Stage.class, stageId, 0L)));
+        checks.put("EntityVersionRepository.incrementSampleVersionsByFieldId",
+                indexed(() -> entityVersionRepository.incrementSampleVersionsByFieldId(fieldId)));
+
+        checks.put("FieldRepository.findAllByFormOrderByNumberOrderAsc", indexed(
+                () -> fieldRepository.findAllByFormOrderByNumberOrderAsc(formRepository.getReferenceById(formId))));
+        checks.put("FieldRepository.findVersionById", indexed(() -> fieldRepository.findVersionById(fieldId)));
+
+        checks.put("FileDeletionRepository.findDueIds",
+                indexed(() -> fileDeletionRepository.findDueIds(now, Limit.of(100))));
+        checks.put("FileDeletionRepository.claim",
+                indexed(() -> fileDeletionRepository.claim(sampleIds, "token", now, later)));
+        checks.put("FileDeletionRepository.findAllByClaimToken",
+                indexed(() -> fileDeletionRepository.findAllByClaimToken("token")));
+        checks.put("FileDeletionRepository.reschedule",
+                indexed(() -> fileDeletionRepository.reschedule(sampleIds, "token", later)));
+        checks.put("FileDeletionRepository.existsByFileId",
+                indexed(() -> fileDeletionRepository.existsByFileId(attachmentIds.getFirst())));
+        checks.put("FileDeletionRepository.deleteAllByIdIn",
+                indexed(() -> fileDeletionRepository.deleteAllByIdIn(sampleIds)));
+
+        checks.put("FormRepository.findAllByProjectOwner_Id",
+                indexed(() -> formRepository.findAllByProjectOwner_Id(projectId, FIRST_PAGE_NEWEST_FIRST)));
+        checks.put("FormRepository.findSliceByProjectOwner_Id",
+                indexed(() -> formRepository.findSliceByProjectOwner_Id(projectId, FIRST_PAGE_NEWEST_FIRST)));
+        checks.put("FormRepository.findAllByProjectOwner_IdBefore", indexed(
+                () -> formRepository.findAllByProjectOwner_IdBefore(projectId, now, lastId, FIRST_PAGE)));
+        checks.put("FormRepository.findProjectIdById", indexed(() -> formRepository.findProjectIdById(formId)));
+        checks.put("FormRepository.findVersionById", indexed(() -> formRepository.findVersionById(formId)));
+
+        checks.put("MembershipRepository.insertUsersIfAbsent",
+                indexed(() -> membershipRepository.insertUsersIfAbsent(List.of(UUID.randomUUID().toString()))));
+        checks.put("MembershipRepository.addProjectMember",
+                indexed(() -> membershipRepository.addProjectMember(projectId, ownerId)));
+        checks.put("MembershipRepository.addProjectMembers",
+                indexed(() -> membershipRepository.addProjectMembers(projectId, userIds.subList(0, 10))));
+        checks.put("MembershipRepository.removeProjectMember",
+                indexed(() -> membershipRepository.removeProjectMember(projectId, memberId)));
+        checks.put("MembershipRepository.removeProjectMembers",
+                indexed(() -> membershipRepository.removeProjectMembers(projectId, userIds.subList(0, 10))));
+        checks.put("MembershipRepository.isProjectMember",
+                indexed(() -> membershipRepository.isProjectMember(projectId, memberId)));
+        checks.put("MembershipRepository.countProjectMembers",
+                indexed(() -> membershipRepository.countProjectMembers(projectId, userIds.subList(0, 10))));
+        checks.put("MembershipRepository.addStageMembers",
+                indexed(() -> membershipRepository.addStageMembers(stageId, projectId, userIds.subList(0, 10))));
+        checks.put("MembershipRepository.removeStageMembers",
+                indexed(() -> membershipRepository.removeStageMembers(stageId, userIds.subList(0, 10))));
+        checks.put("MembershipRepository.isStageMember",
+                indexed(() -> membershipRepository.isStageMember(stageId, memberId)));
+        // read the whole tables on purpose, to load the membership index
+        checks.put("MembershipRepository.forEachProjectMember",
+                new PlanCheck(() -> membershipRepository.forEachProjectMember(member -> {
+                }), true, false));
+        checks.put("MembershipRepository.forEachProjectMember of projects",
+                indexed(() -> membershipRepository.forEachProjectMember(List.of(projectId), member -> {
+                })));
+        checks.put("MembershipRepository.forEachStageMember",
+                new PlanCheck(() -> membershipRepository.forEachStageMember(member -> {
+                }), true, false));
+        checks.put("MembershipRepository.forEachStageMember of projects",
+                indexed(() -> membershipRepository.forEachStageMember(List.of(projectId), member -> {
+                })));
+        checks.put("MembershipRepository.findLastChangeId", indexed(membershipRepository::findLastChangeId));
+        checks.put("MembershipRepository.findProjectChangesAfter",
+                indexed(() -> membershipRepository.findProjectChangesAfter(0, 1000)));
+
+        checks.put("ProjectRepository.findWithMembersById",
+                indexed(() -> projectRepository.findWithMembersById(projectId)));
+        checks.put("ProjectRepository.existsByIdAndStatusNot",
+                indexed(() -> projectRepository.existsByIdAndStatusNot(projectId, ProjectStatus.DELETING)));
+        checks.put("ProjectRepository.findVersionByIdAndStatusNot",
+                indexed(() -> projectRepository.findVersionByIdAndStatusNot(projectId, ProjectStatus.DELETING)));
+        checks.put("ProjectRepository.findAllByAccess", indexed(
+                () -> projectRepository.findAllByAccess(ownerId, ProjectStatus.NORMAL, PageRequest.of(0, 1))));
+        checks.put("ProjectRepository.findAllByAccess with role", indexed(() -> projectRepository.findAllByAccess(
+                ownerId, ProjectRole.OWNER, ProjectStatus.NORMAL, PageRequest.of(0, 1))));
+        checks.put("ProjectRepository.findSliceByAccess",
+                indexed(() -> projectRepository.findSliceByAccess(ownerId, ProjectStatus.NORMAL, FIRST_PAGE)));
+        checks.put("ProjectRepository.findSliceByAccess with role", indexed(() -> projectRepository.findSliceByAccess(
+                ownerId, ProjectRole.MEMBER, ProjectStatus.NORMAL, FIRST_PAGE)));
+        checks.put("ProjectRepository.findAllByAccessBefore", indexed(() -> projectRepository.findAllByAccessBefore(
+                ownerId, ProjectStatus.NORMAL, now, lastId, FIRST_PAGE)));
+        checks.put("ProjectRepository.findAllByAccessBefore with role", indexed(
+                () -> projectRepository.findAllByAccessBefore(
+                        ownerId, ProjectRole.OWNER, ProjectStatus.NORMAL, now, lastId, FIRST_PAGE)));
+
+        // polled by the purge workers, the table only holds a few jobs
+        checks.put("PurgeJobRepository.findClaimableIds", new PlanCheck(() -> purgeJobRepository.findClaimableIds(
+                PurgeJobStatus.PENDING, PurgeJobStatus.RUNNING, now, Limit.of(10)), true, true));
+        checks.put("PurgeJobRepository.claim", indexed(() -> purgeJobRepository.claim(
+                purgeJobId, "token", PurgeJobStatus.PENDING, PurgeJobStatus.RUNNING, now, later)));
+        checks.put("PurgeJobRepository.renewLease", indexed(() -> purgeJobRepository.renewLease(
+                purgeJobId, "token", PurgeJobStatus.RUNNING, later)));
+
+        checks.put("SampleRepository.findWithDetailsById",
+                indexed(() -> sampleRepository.findWithDetailsById(sampleIds.getFirst())));
+        checks.put("SampleRepository.findAllAttachmentIdsIn",
+                indexed(() -> sampleRepository.findAllAttachmentIdsIn(attachmentIds)));
+        checks.put("SampleRepository.countByProjectOwner_Id",
+                indexed(() -> sampleRepository.countByProjectOwner_Id(projectId)));
+        checks.put("SampleRepository.countByStage_Id", indexed(() -> sampleRepository.countByStage_Id(stageId)));
+        checks.put("SampleRepository.deleteAllByIdIn", indexed(
+                () -> sampleRepository.deleteAllByIdIn(List.of(UUID.randomUUID().toString()))));
+        checks.put("SampleRepository.findRowsByProjectId",
+                indexed(() -> sampleRepository.findRowsByProjectId(projectId, PageRequest.of(0, 1))));
+        checks.put("SampleRepository.findRowSliceByProjectId",
+                indexed(() -> sampleRepository.findRowSliceByProjectId(projectId, FIRST_PAGE)));
+        checks.put("SampleRepository.findRowsByStageId",
+                indexed(() -> sampleRepository.findRowsByStageId(stageId, PageRequest.of(0, 1))));
+        checks.put("SampleRepository.findRowSliceByStageId",
+                indexed(() -> sampleRepository.findRowSliceByStageId(stageId, FIRST_PAGE)));
+        checks.put("SampleRepository.findRowsByProjectIdAfter",
+                indexed(() -> sampleRepository.findRowsByProjectIdAfter(projectId, start, "", FIRST_PAGE)));
+        checks.put("SampleRepository.findRowsByStageIdAfter",
+                indexed(() -> sampleRepository.findRowsByStageIdAfter(stageId, start, "", FIRST_PAGE)));
+        checks.put("SampleRepository.findAnyRowsByProjectId",
+                indexed(() -> sampleRepository.findAnyRowsByProjectId(projectId, Limit.of(20))));
+        checks.put("SampleRepository.findAnyRowsByStageId",
+                indexed(() -> sampleRepository.findAnyRowsByStageId(stageId, Limit.of(20))));
+        checks.put("SampleRepository.findRowsByIdIn", indexed(() -> sampleRepository.findRowsByIdIn(sampleIds)));
+        checks.put("SampleRepository.findVersionById",
+                indexed(() -> sampleRepository.findVersionById(sampleIds.getFirst())));
+        checks.put("SampleRepository.findAnswerRowsBySampleIds",
+                indexed(() -> sampleRepository.findAnswerRowsBySampleIds(sampleIds)));
+        checks.put("SampleRepository.findDynamicFieldRowsBySampleIds",
+                indexed(() -> sampleRepository.findDynamicFieldRowsBySampleIds(sampleIds)));
+
+        checks.put("SampleClusterRepository.addAll", indexed(() -> sampleClusterRepository.addAll(sampleIds)));
+        checks.put("SampleClusterRepository.subtractAll",
+                indexed(() -> sampleClusterRepository.subtractAll(sampleIds)));
+        checks.put("SampleClusterRepository.lockDeltaIds",
+                indexed(() -> sampleClusterRepository.lockDeltaIds(SAMPLE_CLUSTER_DELTAS)));
+        // the batch of deltas is summed by cell before it is added
+        checks.put("SampleClusterRepository.rollUp", new PlanCheck(() -> {
+            sampleClusterRepository.addAll(sampleIds);
+            sampleClusterRepository.rollUp(sampleClusterRepository.lockDeltaIds(SAMPLE_CLUSTER_DELTAS));
+        }, false, true));
+        checks.put("SampleClusterRepository.existsDeltaByProjectId",
+                indexed(() -> sampleClusterRepository.existsDeltaByProjectId(projectId)));
+        checks.put("SampleClusterRepository.deleteDeltasByIdIn",
+                indexed(() -> sampleClusterRepository.deleteDeltasByIdIn(List.of(1L, 2L))));
+        checks.put("SampleClusterRepository.deleteDeltasByProjectId",
+                indexed(() -> sampleClusterRepository.deleteDeltasByProjectId(projectId)));
+        checks.put("SampleClusterRepository.deleteAllByProjectId",
+                indexed(() -> sampleClusterRepository.deleteAllByProjectId(projectId)));
+        checks.put("SampleClusterRepository.findRows",
+                indexed(() -> sampleClusterRepository.findRows(projectId, 4, 0, 127, 0, 127)));
+        checks.put("SampleLocationRepository.insertAllFromPositions",
+                indexed(() -> sampleLocationRepository.insertAllFromPositions(sampleIds)));
+        checks.put("SampleLocationRepository.deleteAllBySampleIdIn",
+                indexed(() -> sampleLocationRepository.deleteAllBySampleIdIn(sampleIds)));
+        // the ids found from the spatial index are sorted, the ones from the project or stage index come in order
+        checks.put("SampleLocationRepository.findSampleIdsByProjectIdWithin", new PlanCheck(
+                () -> sampleLocationRepository.findSampleIdsByProjectIdWithin(
+                        projectId, GeoArea.box(-10, -10, 10, 10), "", FIRST_PAGE),
+                false, true));
+        checks.put("SampleLocationRepository.findSampleIdsByStageIdWithin", new PlanCheck(
+                () -> sampleLocationRepository.findSampleIdsByStageIdWithin(
+                        stageId, GeoArea.circle(0, 0, 100_000), "", FIRST_PAGE),
+                false, true));
+
+        checks.put("StageRepository.findAllByProjectOwner_IdAndDeletingFalse", indexed(
+                () -> stageRepository.findAllByProjectOwner_IdAndDeletingFalse(projectId, FIRST_PAGE_NEWEST_FIRST)));
+        checks.put("StageRepository.findSliceByProjectOwner_IdAndDeletingFalse", indexed(
+                () -> stageRepository.findSliceByProjectOwner_IdAndDeletingFalse(projectId, FIRST_PAGE_NEWEST_FIRST)));
+        checks.put("StageRepository.findAllByProjectOwner_IdBefore", indexed(
+                () -> stageRepository.findAllByProjectOwner_IdBefore(projectId, now, lastId, FIRST_PAGE)));
+        checks.put("StageRepository.existsByIdAndDeletingFalse",
+                indexed(() -> stageRepository.existsByIdAndDeletingFalse(stageId)));
+        checks.put("StageRepository.findProjectIdById", indexed(() -> stageRepository.findProjectIdById(stageId)));
+        checks.put("StageRepository.findVersionById", indexed(() -> stageRepository.findVersionById(stageId)));
+        checks.put("StageRepository.existsByProjectOwner_IdAndMembers_Id",
+                indexed(() -> stageRepository.existsByProjectOwner_IdAndMembers_Id(projectId, memberId)));
+
+        checks.put("UserProjectAccessRepository.insertAll", indexed(
+                () -> userProjectAccessRepository.insertAll(projectId, userIds.subList(0, 10), ProjectRole.MEMBER)));
+        checks.put("UserProjectAccessRepository.deleteAll", indexed(
+                () -> userProjectAccessRepository.deleteAll(projectId, userIds.subList(0, 10), ProjectRole.MEMBER)));
+        checks.put("UserProjectAccessRepository.updateStatus",
+                indexed(() -> userProjectAccessRepository.updateStatus(projectId, ProjectStatus.ARCHIVED)));
+        checks.put("UserProjectAccessRepository.deleteAllByProjectId",
+                indexed(() -> userProjectAccessRepository.deleteAllByProjectId(projectId)));
+        return checks;
+    }
+
+    private void assertPlan(String name, PlanCheck check) {
+        var statements = RecordingQueryInterceptor.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            check.query().run();
+            status.setRollbackOnly();
+        }));
+        assertFalse(statements.isEmpty(), name + " ran no statement");
+
+        for (var statement : statements) {
+            for (var row : jdbcTemplate.queryForList("explain " + statement)) {
+                // the target of an insert is always reported as scanned
+                if ("INSERT".equals(row.get("select_type"))) continue;
+                // so are the derived tables and common table expressions, built by the statement itself
+                var table = Objects.toString(row.get("table"), "");
+                if (table.startsWith("<") || Objects.toString(row.get("Extra"), "").contains("Recursive")) continue;
+
+                if (!check.scanAllowed())
+                    assertNotEquals("ALL", row.get("type"),
+                            () -> name + " reads all the rows of " + row.get("table") + ": " + statement);
+                if (!check.filesortAllowed())
+                    assertFalse(Objects.toString(row.get("Extra"), "").contains("Using filesort"),
+                            () -> name + " sorts the rows of " + row.get("table") + ": " + statement);
+            }
+        }
+    }
+
+    /**
+     * Runs the statement with the name of the seeded projects bound to each parameter.
+     */
+    private void updateSeeded(String sql, int parameters) {
+        jdbcTemplate.update(sql, Collections.nCopies(parameters, PROJECT_NAME).toArray());
+    }
+
+    private static PlanCheck indexed(Runnable query) {
+        return new PlanCheck(query, false, false);
+    }
+
+    /**
+     * @return a derived table of the numbers from 0 to {@code count} - 1, in column {@code n}.
+     */
+    private static String numbers(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(n -> n == 0 ? "select 0 as n" : "select " + n)
+                .collect(Collectors.joining(" union all ", "(", ")"));
+    }
+
+    private static boolean isQueryMethod(Class<?> repository, Method method) {
+        if (method.isSynthetic() || Modifier.isStatic(method.getModifiers())) return false;
+        return repository.isInterface() ? !method.isDefault() : Modifier.isPublic(method.getModifiers());
+    }
+
+    private record PlanCheck(Runnable query, boolean scanAllowed, boolean filesortAllowed) {
+    }
+
+}
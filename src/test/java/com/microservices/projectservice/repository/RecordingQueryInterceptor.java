@@ -0,0 +1,71 @@
+package com.microservices.projectservice.repository;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Records the statements sent by the current thread while {@link #record(Runnable)} runs, with their parameters
+ * inlined by the driver, so they can be explained as they were executed. Does nothing the rest of the time.
+ * <p>
+ * Registered on the test database connections by {@code TestcontainersConfiguration}.
+ */
+public class RecordingQueryInterceptor implements QueryInterceptor {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * @return the {@code SELECT}, {@code INSERT}, {@code UPDATE} and {@code DELETE} statements run by the action.
+     */
+    public static List<String> record(Runnable action) {
+        var statements = new ArrayList<String>();
+        RECORDED.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDED.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public QueryInterceptor init(MysqlConnection connection, Properties properties, Log log) {
+        return this;
+    }
+
+    @Override
+    public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+        var statements = RECORDED.get();
+        if (statements == null) return null;
+
+        var statement = sql.get().strip();
+        var keyword = statement.split("\\s", 2)[0].toLowerCase(Locale.ROOT);
+        if (List.of("select", "insert", "update", "delete").contains(keyword)) statements.add(statement);
+        return null;
+    }
+
+    @Override
+    public boolean executeTopLevelOnly() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery, T originalResultSet,
+                                               ServerSession serverSession) {
+        return null;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.entity.FileDeletion;
+import com.microservices.projectservice.repository.FileDeletionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Delivers a batch of file deletions, one of them failing, against a stubbed {@link FileDeletionRepository}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FileDeletionServiceTests {
+
+    @Mock
+    private FileDeletionRepository fileDeletionRepository;
+    @Mock
+    private FileService fileService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private FileDeletionService fileDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(fileDeletionRepository.findDueIds(any(), any())).thenReturn(List.of("delivered", "failed"));
+        when(fileDeletionRepository.findAllByClaimToken(anyString())).thenReturn(List.of(
+                FileDeletion.builder().id("delivered").fileId("delivered-file").attempts(1).build(),
+                FileDeletion.builder().id("failed").fileId("failed-file").attempts(1).build()));
+        when(fileService.deleteFile("delivered-file")).thenReturn(true);
+        when(fileService.deleteFile("failed-file")).thenReturn(false);
+    }
+
+    @Test
+    void deliverPendingDeletions_shouldRescheduleTheFailedOnesOfTheBatchOnly() {
+        fileDeletionService.deliverPendingDeletions();
+
+        var token = ArgumentCaptor.forClass(String.class);
+        verify(fileDeletionRepository).claim(anyCollection(), token.capture(), any(), any());
+        verify(fileDeletionRepository).deleteAllByIdIn(List.of("delivered"));
+        verify(fileDeletionRepository).reschedule(eq(List.of("failed")), eq(token.getValue()), notNull());
+        // saving the entities read when claiming would overwrite the claim of a worker taking them over
+        verify(fileDeletionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void deliverPendingDeletions_shouldGiveUpAfterTheLastAttempt() {
+        when(fileDeletionRepository.findAllByClaimToken(anyString())).thenReturn(List.of(
+                FileDeletion.builder().id("failed").fileId("failed-file").attempts(10).build()));
+
+        fileDeletionService.deliverPendingDeletions();
+
+        var nextAttemptAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(fileDeletionRepository).reschedule(eq(List.of("failed")), anyString(), nextAttemptAt.capture());
+        assertNull(nextAttemptAt.getValue());
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.repository.MembershipRepository;
+import com.microservices.projectservice.repository.MembershipRepository.ProjectChange;
+import com.microservices.projectservice.repository.MembershipRepository.ProjectMember;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Polls the membership changes made by another instance, stubbed in {@link MembershipRepository}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MembershipIndexTests {
+
+    private static final String PROJECT_ID = "project";
+
+    @Mock
+    private MembershipRepository membershipRepository;
+
+    private MembershipIndex membershipIndex;
+
+    @BeforeEach
+    void setUp() {
+        membershipIndex = new MembershipIndex(membershipRepository, new AppProperties());
+        when(membershipRepository.findLastChangeId()).thenReturn(10L);
+        doAnswer(invocation -> {
+            Consumer<ProjectMember> action = invocation.getArgument(0);
+            action.accept(new ProjectMember(PROJECT_ID, "former"));
+            return null;
+        }).when(membershipRepository).forEachProjectMember(any());
+        membershipIndex.reload();
+    }
+
+    @Test
+    void pollChanges_shouldReadTheChangedProjectsAgain() {
+        when(membershipRepository.findProjectChangesAfter(eq(10L), anyInt()))
+                .thenReturn(List.of(new ProjectChange(11, PROJECT_ID, Timestamp.from(Instant.now()))));
+        doAnswer(invocation -> {
+            Consumer<ProjectMember> action = invocation.getArgument(1);
+            action.accept(new ProjectMember(PROJECT_ID, "joined"));
+            return null;
+        }).when(membershipRepository).forEachProjectMember(anyCollection(), any());
+        assertTrue(membershipIndex.isProjectMember(PROJECT_ID, "former"));
+
+        membershipIndex.pollChanges();
+
+        assertTrue(membershipIndex.isProjectMember(PROJECT_ID, "joined"));
+        assertFalse(membershipIndex.isProjectMember(PROJECT_ID, "former"));
+    }
+
+    @Test
+    void pollChanges_shouldReadTheChangesNotSettledAgain() {
+        when(membershipRepository.findProjectChangesAfter(eq(10L), anyInt()))
+                .thenReturn(List.of(new ProjectChange(11, PROJECT_ID, Timestamp.from(Instant.now()))));
+
+        membershipIndex.pollChanges();
+        membershipIndex.pollChanges();
+
+        verify(membershipRepository, times(2)).findProjectChangesAfter(eq(10L), anyInt());
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.constant.PurgeJobStatus;
+import com.microservices.projectservice.constant.PurgeTarget;
+import com.microservices.projectservice.entity.PurgeJob;
+import com.microservices.projectservice.repository.*;
+import com.microservices.projectservice.repository.projection.SampleRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs a purge job against stubbed repositories, another worker taking it over after the first chunk.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PurgeServiceTests {
+
+    private static final String JOB_ID = "job";
+    private static final String PROJECT_ID = "project";
+
+    @Mock
+    private PurgeJobRepository purgeJobRepository;
+    @Mock
+    private ProjectRepository projectRepository;
+    @Mock
+    private SampleRepository sampleRepository;
+    @Mock
+    private AnswerRepository answerRepository;
+    @Mock
+    private DynamicFieldRepository dynamicFieldRepository;
+    @Mock
+    private SampleLocationRepository sampleLocationRepository;
+    @Mock
+    private FileDeletionService fileDeletionService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PurgeService purgeService;
+
+    private PurgeJob job;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        job = PurgeJob.builder()
+                .id(JOB_ID)
+                .targetType(PurgeTarget.PROJECT)
+                .targetId(PROJECT_ID)
+                .status(PurgeJobStatus.RUNNING)
+                .attempts(1)
+                .build();
+        when(purgeJobRepository.findClaimableIds(any(), any(), any(), any())).thenReturn(List.of(JOB_ID));
+        when(purgeJobRepository.claim(eq(JOB_ID), anyString(), any(), any(), any(), any())).thenReturn(1);
+        when(purgeJobRepository.getReferenceById(JOB_ID)).thenReturn(job);
+        when(sampleRepository.findAnyRowsByProjectId(eq(PROJECT_ID), any()))
+                .thenReturn(List.of(new SampleRow("sample", null, null, null, null, null)));
+    }
+
+    @Test
+    void purgePendingJobs_shouldStopOnceTheJobIsTakenOver() {
+        // the lease expires during the first chunk, another worker holds the job afterward
+        when(purgeJobRepository.renewLease(eq(JOB_ID), anyString(), any(), any())).thenReturn(1, 0);
+
+        purgeService.purgePendingJobs();
+
+        var token = ArgumentCaptor.forClass(String.class);
+        verify(purgeJobRepository).claim(eq(JOB_ID), token.capture(), any(), any(), any(), any());
+        verify(purgeJobRepository, times(2)).renewLease(eq(JOB_ID), eq(token.getValue()), any(), any());
+        verify(sampleRepository, times(1)).deleteAllByIdIn(List.of("sample"));
+        verifyNoInteractions(projectRepository);
+        assertEquals(1, job.getDeletedSamples());
+        assertEquals(PurgeJobStatus.RUNNING, job.getStatus());
+    }
+
+}
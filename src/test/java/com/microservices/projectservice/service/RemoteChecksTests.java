@@ -0,0 +1,156 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.config.AppProperties;
+import com.microservices.projectservice.config.ReadReplicaDataSource;
+import com.microservices.projectservice.dto.request.ProjectCreateRequest;
+import com.microservices.projectservice.dto.request.SampleCreateRequest;
+import com.microservices.projectservice.entity.Project;
+import com.microservices.projectservice.entity.Stage;
+import com.microservices.projectservice.exception.IllegalAttributeException;
+import com.microservices.projectservice.exception.RemoteServiceTimeoutException;
+import com.microservices.projectservice.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the remote checks of {@link ProjectService#createProject} and {@link SampleService#createSample} against
+ * stubs answering after {@link #LATENCY}: a request must take about the slowest check, not the sum of them.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RemoteChecksTests {
+
+    private static final Duration LATENCY = Duration.ofMillis(300);
+
+    @Mock
+    private ProjectRepository projectRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private StageRepository stageRepository;
+    @Mock
+    private SampleRepository sampleRepository;
+    @Mock
+    private AnswerRepository answerRepository;
+    @Mock
+    private DynamicFieldRepository dynamicFieldRepository;
+    @Mock
+    private FieldRepository fieldRepository;
+    @Mock
+    private UserService userService;
+    @Mock
+    private FileService fileService;
+    @Mock
+    private StageService stageService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Spy
+    private AppProperties appProperties = new AppProperties();
+
+    @InjectMocks
+    private ProjectService projectService;
+    @InjectMocks
+    private SampleService sampleService;
+
+    @Test
+    void createProject_shouldTakeTheSlowestCheck() {
+        when(userService.checkUserExists(anyString())).thenAnswer(slow(true));
+        when(userService.checkUsersExist(anyCollection())).thenAnswer(slow(Map.of("member", true)));
+        when(fileService.checkFileExists(anyString())).thenAnswer(slow(true));
+        when(transactionTemplate.execute(any())).thenReturn("project");
+        var body = new ProjectCreateRequest(
+                "thumbnail", "Project", null, null, null, "owner", List.of("member"));
+
+        var elapsed = measure(() -> projectService.createProject(body));
+
+        assertTrue(elapsed.compareTo(LATENCY.multipliedBy(2)) < 0, "createProject took " + elapsed);
+    }
+
+    @Test
+    void createSample_shouldTakeTheSlowestCheck() {
+        var stage = Stage.builder().projectOwner(Project.builder().build()).build();
+        when(stageService.getStage(anyString())).thenAnswer(slow(stage));
+        when(fileService.checkFileExists(anyString())).thenAnswer(slow(true));
+        when(transactionTemplate.execute(any())).thenReturn("sample");
+        var body = new SampleCreateRequest("attachment", null, "stage", null, null);
+
+        var elapsed = measure(() -> sampleService.createSample(body));
+
+        assertTrue(elapsed.compareTo(LATENCY.multipliedBy(2)) < 0, "createSample took " + elapsed);
+    }
+
+    @Test
+    void createProjectWithMissingOwner_shouldFailWithoutWaitingForOtherChecks() {
+        when(userService.checkUserExists(anyString())).thenReturn(false);
+        when(userService.checkUsersExist(anyCollection())).thenAnswer(slow(Map.of("member", true), 10));
+        when(fileService.checkFileExists(anyString())).thenAnswer(slow(true, 10));
+        var body = new ProjectCreateRequest(
+                "thumbnail", "Project", null, null, null, "owner", List.of("member"));
+
+        var elapsed = measure(() -> assertThrows(IllegalAttributeException.class,
+                () -> projectService.createProject(body)));
+
+        assertTrue(elapsed.compareTo(LATENCY) < 0, "createProject failed after " + elapsed);
+    }
+
+    @Test
+    void createProjectWithSlowServices_shouldTimeOut() {
+        appProperties.setRemoteCheckTimeout(LATENCY);
+        when(userService.checkUserExists(anyString())).thenAnswer(slow(true, 10));
+        var body = new ProjectCreateRequest(null, "Project", null, null, null, "owner", null);
+
+        var elapsed = measure(() -> assertThrows(RemoteServiceTimeoutException.class,
+                () -> projectService.createProject(body)));
+
+        assertTrue(elapsed.compareTo(LATENCY.multipliedBy(2)) < 0, "createProject timed out after " + elapsed);
+    }
+
+    @Test
+    void forkedTasks_shouldReadFromThePrimaryWhenTheRequestDoes() {
+        ReadReplicaDataSource.setPrimaryRequired(true);
+        try (var checks = new RemoteChecks(LATENCY, null)) {
+            var primaryRequired = checks.fork(ReadReplicaDataSource::isPrimaryRequired);
+            checks.join();
+            assertTrue(primaryRequired.get());
+        } finally {
+            ReadReplicaDataSource.setPrimaryRequired(false);
+        }
+    }
+
+    private static <T> Answer<T> slow(T value) {
+        return slow(value, 1);
+    }
+
+    private static <T> Answer<T> slow(T value, int latencies) {
+        return invocation -> {
+            Thread.sleep(LATENCY.multipliedBy(latencies).toMillis());
+            return value;
+        };
+    }
+
+    private static Duration measure(Supplier<?> action) {
+        var start = System.nanoTime();
+        action.get();
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.microservices.projectservice.service;
+
+import com.microservices.projectservice.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Checks the cache of {@link UserService} against a stub of the user service.
+ */
+class UserServiceTests {
+
+    private static final Duration NEGATIVE_TTL = Duration.ofMillis(300);
+    private static final String USERS_URL = "http://user-service/api/v1/user/";
+
+    private MockRestServiceServer server;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        var builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        var properties = new AppProperties();
+        properties.setUserServiceId("user-service");
+        properties.getUserCache().setNegativeTtl(NEGATIVE_TTL);
+        userService = new UserService(builder, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void checkMissingUser_shouldBeCachedForNegativeTtl() throws InterruptedException {
+        server.expect(times(2), requestTo(USERS_URL + "missing")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+        server.expect(once(), requestTo(USERS_URL + "existing")).andRespond(withSuccess());
+
+        assertFalse(userService.checkUserExists("missing"));
+        assertFalse(userService.checkUserExists("missing"));
+        assertTrue(userService.checkUserExists("existing"));
+        Thread.sleep(NEGATIVE_TTL.multipliedBy(2).toMillis());
+        assertFalse(userService.checkUserExists("missing"));
+        assertTrue(userService.checkUserExists("existing"));
+
+        server.verify();
+    }
+
+    @Test
+    void concurrentChecksOfOneUser_shouldSendOneRequest() throws Exception {
+        server.expect(once(), requestTo(USERS_URL + "existing")).andRespond(slow(withSuccess()));
+
+        var results = new ArrayList<Future<Boolean>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) results.add(executor.submit(() -> userService.checkUserExists("existing")));
+        }
+
+        for (var result : results) assertEquals(true, result.get());
+        server.verify();
+    }
+
+    private static ResponseCreator slow(ResponseCreator response) {
+        return request -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return response.createResponse(request);
+        };
+    }
+
+}